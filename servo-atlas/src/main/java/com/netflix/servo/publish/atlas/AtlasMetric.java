@@ -33,12 +33,16 @@ class AtlasMetric implements JsonPayload {
   private final double value;
 
   AtlasMetric(Metric m) {
-    this(m.getConfig(), m.getTimestamp(), m.getNumberValue());
+    this(m.getConfig(), m.getTimestamp(), m.getDoubleValue());
   }
 
   AtlasMetric(MonitorConfig config, long start, Number value) {
+    this(config, start, Preconditions.checkNotNull(value, "value").doubleValue());
+  }
+
+  AtlasMetric(MonitorConfig config, long start, double value) {
     this.config = Preconditions.checkNotNull(config, "config");
-    this.value = Preconditions.checkNotNull(value, "value").doubleValue();
+    this.value = value;
     this.start = start;
   }
 
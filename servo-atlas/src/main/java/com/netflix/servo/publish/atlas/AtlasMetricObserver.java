@@ -159,13 +159,11 @@ public class AtlasMetricObserver implements MetricObserver {
   }
 
   protected static Metric asGauge(Metric m) {
-    return new Metric(m.getConfig().withAdditionalTag(ATLAS_GAUGE_TAG),
-        m.getTimestamp(), m.getValue());
+    return m.withConfig(m.getConfig().withAdditionalTag(ATLAS_GAUGE_TAG));
   }
 
   protected static Metric asCounter(Metric m) {
-    return new Metric(m.getConfig().withAdditionalTag(ATLAS_COUNTER_TAG),
-        m.getTimestamp(), m.getValue());
+    return m.withConfig(m.getConfig().withAdditionalTag(ATLAS_COUNTER_TAG));
   }
 
   protected static boolean isCounter(Metric m) {
@@ -121,7 +121,7 @@ public final class ValidCharacters {
       }
     }
     cfgBuilder.withPublishingPolicy(cfg.getPublishingPolicy());
-    return new Metric(cfgBuilder.build(), metric.getTimestamp(), metric.getValue());
+    return metric.withConfig(cfgBuilder.build());
   }
 
   /**
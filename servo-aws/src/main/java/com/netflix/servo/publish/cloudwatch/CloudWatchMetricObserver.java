@@ -235,7 +235,7 @@ public class CloudWatchMetricObserver extends BaseMetricObserver {
         .withDimensions(createDimensions(metric.getConfig().getTags()))
         .withUnit("None")//DataSourceTypeToAwsUnit.getUnit(metric.))
         .withTimestamp(new Date(metric.getTimestamp()))
-        .withValue(truncate(metric.getNumberValue()));
+        .withValue(truncate(metric.getDoubleValue()));
     //TODO Need to convert into reasonable units based on DataType
   }
 
@@ -245,8 +245,15 @@ public class CloudWatchMetricObserver extends BaseMetricObserver {
    * with large negative exponents to 0. In addition, NaN values will be converted to 0.
    */
   Double truncate(Number numberValue) {
+    return truncate(numberValue.doubleValue());
+  }
+
+  /**
+   * Adjust a primitive double value so it can be successfully written to cloudwatch.
+   */
+  Double truncate(double value) {
     // http://docs.amazonwebservices.com/AmazonCloudWatch/latest/APIReference/API_MetricDatum.html
-    double doubleValue = numberValue.doubleValue();
+    double doubleValue = value;
     if (truncateEnabled) {
       final int exponent = Math.getExponent(doubleValue);
       if (Double.isNaN(doubleValue)) {
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.BasicMonitorRegistry;
+import com.netflix.servo.MonitorRegistry;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.MonitorConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class MonitorRegistryMetricPollerBench {
+
+  @Param({"10000", "100000", "1000000"})
+  private int numMonitors;
+
+  private MonitorRegistryMetricPoller sequential;
+  private MonitorRegistryMetricPoller parallel;
+
+  @Setup
+  public void setup() {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    for (int i = 0; i < numMonitors; ++i) {
+      BasicCounter c = new BasicCounter(MonitorConfig.builder("counter")
+          .withTag("id", Integer.toString(i))
+          .build());
+      c.increment(i);
+      registry.register(c);
+    }
+
+    sequential = new MonitorRegistryMetricPoller(registry, 0L, TimeUnit.MILLISECONDS, false);
+    parallel = new MonitorRegistryMetricPoller.Builder(registry)
+        .withForkJoinPool(ForkJoinPool.commonPool())
+        .build();
+
+    // Populate the monitor caches so the benchmarks only measure reading the values
+    sequential.poll(BasicMetricFilter.MATCH_ALL);
+    parallel.poll(BasicMetricFilter.MATCH_ALL);
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void pollSequential(Blackhole bh) {
+    bh.consume(sequential.poll(BasicMetricFilter.MATCH_ALL));
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void pollParallel(Blackhole bh) {
+    bh.consume(parallel.poll(BasicMetricFilter.MATCH_ALL));
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.monitor.MonitorConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static com.netflix.servo.publish.BasicMetricFilter.MATCH_ALL;
+import static com.netflix.servo.publish.BasicMetricFilter.MATCH_NONE;
+
+@State(Scope.Benchmark)
+public class PrefixMetricFilterBench {
+
+  @Param({"10", "100", "1000", "10000"})
+  private int numRules;
+
+  private MetricFilter navigableMap;
+  private MetricFilter prefixTree;
+  private MonitorConfig[] configs;
+
+  @Setup
+  public void setup() {
+    // Rules similar to an ownership config with a prefix for each package of a team, some
+    // teams also have more specific rules for sub-packages
+    Random r = new Random(42);
+    NavigableMap<String, MetricFilter> filters = new TreeMap<>();
+    for (int i = 0; i < numRules; ++i) {
+      String prefix = "com.netflix.team" + r.nextInt(numRules) + ".service" + i;
+      filters.put(prefix, (i % 2 == 0) ? MATCH_ALL : MATCH_NONE);
+    }
+    navigableMap = new PrefixMetricFilter("class", MATCH_NONE, filters);
+    prefixTree = new PrefixTreeMetricFilter("class", MATCH_NONE, filters);
+
+    configs = new MonitorConfig[1000];
+    for (int i = 0; i < configs.length; ++i) {
+      String cls = "com.netflix.team" + r.nextInt(numRules) + ".service" + r.nextInt(numRules)
+          + ".impl.RequestHandler";
+      configs[i] = MonitorConfig.builder("requests").withTag("class", cls).build();
+    }
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void navigableMap(Blackhole bh) {
+    for (MonitorConfig config : configs) {
+      bh.consume(navigableMap.matches(config));
+    }
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void prefixTree(Blackhole bh) {
+    for (MonitorConfig config : configs) {
+      bh.consume(prefixTree.matches(config));
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.monitor.MonitorConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+@State(Scope.Benchmark)
+public class QueryMetricFilterBench {
+
+  private static final int NUM_CONFIGS = 100000;
+
+  private static final String QUERY = "name,(,requests,errors,),:in,status,5.*,:re,:and,"
+      + "name,latency,:eq,class,com.netflix.api.,:prefix,:and,:or,"
+      + "class,com.netflix.internal.,:prefix,:not,:and";
+
+  private MetricFilter handBuilt;
+  private MetricFilter compiled;
+  private MonitorConfig[] configs;
+
+  @Setup
+  public void setup() {
+    // Equivalent filter built by nesting the existing filter classes
+    MetricFilter requestsOrErrors =
+        new RegexMetricFilter(null, Pattern.compile("requests|errors"), false, false);
+    MetricFilter status5xx = new RegexMetricFilter("status", Pattern.compile("5.*"), false, false);
+    MetricFilter latency = new RegexMetricFilter(null, Pattern.compile("latency"), false, false);
+    TreeMap<String, MetricFilter> api = new TreeMap<>();
+    api.put("com.netflix.api.", BasicMetricFilter.MATCH_ALL);
+    MetricFilter apiClass = new PrefixMetricFilter("class", BasicMetricFilter.MATCH_NONE, api);
+    TreeMap<String, MetricFilter> internal = new TreeMap<>();
+    internal.put("com.netflix.internal.", BasicMetricFilter.MATCH_NONE);
+    MetricFilter notInternal =
+        new PrefixMetricFilter("class", BasicMetricFilter.MATCH_ALL, internal);
+    handBuilt = config ->
+        ((requestsOrErrors.matches(config) && status5xx.matches(config))
+            || (latency.matches(config) && apiClass.matches(config)))
+            && notInternal.matches(config);
+
+    compiled = QueryMetricFilter.compile(QUERY);
+
+    Random r = new Random(42);
+    String[] names = {"requests", "errors", "latency", "connections", "threads", "heap"};
+    String[] packages = {"com.netflix.api.", "com.netflix.internal.", "com.example."};
+    configs = new MonitorConfig[NUM_CONFIGS];
+    for (int i = 0; i < NUM_CONFIGS; ++i) {
+      configs[i] = MonitorConfig.builder(names[r.nextInt(names.length)] + (i % 100 == 0 ? i : ""))
+          .withTag("status", Integer.toString(200 + 100 * r.nextInt(4)))
+          .withTag("class", packages[r.nextInt(packages.length)] + "Handler" + r.nextInt(50))
+          .build();
+    }
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void handBuilt(Blackhole bh) {
+    for (MonitorConfig config : configs) {
+      bh.consume(handBuilt.matches(config));
+    }
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void compiled(Blackhole bh) {
+    for (MonitorConfig config : configs) {
+      bh.consume(compiled.matches(config));
+    }
+  }
+}
@@ -18,19 +18,23 @@ package com.netflix.servo;
 import com.netflix.servo.monitor.Monitor;
 import com.netflix.servo.util.Preconditions;
 import com.netflix.servo.util.UnmodifiableList;
+import com.netflix.servo.util.Versioned;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Simple monitor registry backed by a {@link java.util.Set}.
  */
-public final class BasicMonitorRegistry implements MonitorRegistry {
+public final class BasicMonitorRegistry implements MonitorRegistry, Versioned {
 
   private final Set<Monitor<?>> monitors;
 
+  private final AtomicLong version = new AtomicLong(0L);
+
   /**
    * Creates a new instance.
    */
@@ -53,7 +57,9 @@ public final class BasicMonitorRegistry implements MonitorRegistry {
   public void register(Monitor<?> monitor) {
     Preconditions.checkNotNull(monitor, "monitor");
     try {
-      monitors.add(monitor);
+      if (monitors.add(monitor)) {
+        version.incrementAndGet();
+      }
     } catch (Exception e) {
       throw new IllegalArgumentException("invalid object", e);
     }
@@ -66,7 +72,9 @@ public final class BasicMonitorRegistry implements MonitorRegistry {
   public void unregister(Monitor<?> monitor) {
     Preconditions.checkNotNull(monitor, "monitor");
     try {
-      monitors.remove(monitor);
+      if (monitors.remove(monitor)) {
+        version.incrementAndGet();
+      }
     } catch (Exception e) {
       throw new IllegalArgumentException("invalid object", e);
     }
@@ -76,4 +84,12 @@ public final class BasicMonitorRegistry implements MonitorRegistry {
   public boolean isRegistered(Monitor<?> monitor) {
     return monitors.contains(monitor);
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return version.get();
+  }
 }
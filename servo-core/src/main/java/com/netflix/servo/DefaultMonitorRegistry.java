@@ -18,11 +18,13 @@ package com.netflix.servo;
 import com.netflix.servo.jmx.JmxMonitorRegistry;
 import com.netflix.servo.jmx.ObjectNameMapper;
 import com.netflix.servo.monitor.Monitor;
+import com.netflix.servo.util.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default registry that delegates all actions to a class specified by the
@@ -38,7 +40,7 @@ import java.util.Properties;
  * implementation class to use. The implementation must have a constructor with
  * no arguments.
  */
-public final class DefaultMonitorRegistry implements MonitorRegistry {
+public final class DefaultMonitorRegistry implements MonitorRegistry, Versioned {
 
   private static final Logger LOG = LoggerFactory.getLogger(DefaultMonitorRegistry.class);
   private static final String CLASS_NAME = DefaultMonitorRegistry.class.getCanonicalName();
@@ -50,6 +52,8 @@ public final class DefaultMonitorRegistry implements MonitorRegistry {
 
   private final MonitorRegistry registry;
 
+  private final AtomicLong version = new AtomicLong(0L);
+
   /**
    * Returns the instance of this registry.
    */
@@ -147,6 +151,7 @@ public final class DefaultMonitorRegistry implements MonitorRegistry {
   public void register(Monitor<?> monitor) {
     SpectatorContext.register(monitor);
     registry.register(monitor);
+    version.incrementAndGet();
   }
 
   /**
@@ -156,6 +161,7 @@ public final class DefaultMonitorRegistry implements MonitorRegistry {
   public void unregister(Monitor<?> monitor) {
     SpectatorContext.unregister(monitor);
     registry.unregister(monitor);
+    version.incrementAndGet();
   }
 
   /**
@@ -169,4 +175,12 @@ public final class DefaultMonitorRegistry implements MonitorRegistry {
   public boolean isRegistered(Monitor<?> monitor) {
     return registry.isRegistered(monitor);
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return version.get();
+  }
 }
@@ -20,13 +20,21 @@ import com.netflix.servo.tag.TagList;
 import com.netflix.servo.util.Preconditions;
 
 /**
- * Represents a metric value at a given point in time.
+ * Represents a metric value at a given point in time. Numeric values can be stored as a
+ * primitive double by using {@link #ofDouble(MonitorConfig, long, double)}, and read without
+ * boxing using {@link #getDoubleValue()}.
  */
 public final class Metric {
   private final MonitorConfig config;
   private final long timestamp;
+
+  // Null if the metric was created from a primitive double
   private final Object value;
 
+  // NaN if the value is not numeric
+  private final double doubleValue;
+  private final boolean numeric;
+
   /**
    * Creates a new instance.
    *
@@ -50,6 +58,42 @@ public final class Metric {
     this.config = Preconditions.checkNotNull(config, "config");
     this.timestamp = timestamp;
     this.value = Preconditions.checkNotNull(value, "value");
+    this.numeric = value instanceof Number;
+    this.doubleValue = numeric ? ((Number) value).doubleValue() : Double.NaN;
+  }
+
+  private Metric(MonitorConfig config, long timestamp, Object value, double doubleValue,
+                 boolean numeric) {
+    this.config = Preconditions.checkNotNull(config, "config");
+    this.timestamp = timestamp;
+    this.value = value;
+    this.doubleValue = doubleValue;
+    this.numeric = numeric;
+  }
+
+  /**
+   * Creates a new instance with a numeric value that is stored as a primitive double.
+   *
+   * @param config    config settings associated with the metric
+   * @param timestamp point in time when the metric value was sampled
+   * @param value     value of the metric
+   */
+  public static Metric ofDouble(MonitorConfig config, long timestamp, double value) {
+    return new Metric(config, timestamp, null, value, true);
+  }
+
+  /**
+   * Returns a copy of this metric with a different config.
+   */
+  public Metric withConfig(MonitorConfig c) {
+    return new Metric(c, timestamp, value, doubleValue, numeric);
+  }
+
+  /**
+   * Returns a copy of this metric with a different timestamp.
+   */
+  public Metric withTimestamp(long t) {
+    return new Metric(config, t, value, doubleValue, numeric);
   }
 
   /**
@@ -70,21 +114,29 @@ public final class Metric {
    * Returns the value of the metric.
    */
   public Object getValue() {
-    return value;
+    return (value == null) ? Double.valueOf(doubleValue) : value;
   }
 
   /**
    * Returns the value of the metric as a number.
    */
   public Number getNumberValue() {
-    return (Number) value;
+    return (Number) getValue();
+  }
+
+  /**
+   * Returns the value of the metric as a primitive double. If the value is not numeric, for
+   * example an informational string, then NaN will be returned.
+   */
+  public double getDoubleValue() {
+    return doubleValue;
   }
 
   /**
    * Returns true if the value for this metric is numeric.
    */
   public boolean hasNumberValue() {
-    return (value instanceof Number);
+    return numeric;
   }
 
   /**
@@ -98,7 +150,15 @@ public final class Metric {
     Metric m = (Metric) obj;
     return config.equals(m.getConfig())
         && timestamp == m.getTimestamp()
-        && value.equals(m.getValue());
+        && valueEquals(m);
+  }
+
+  private boolean valueEquals(Metric m) {
+    if (value == null && m.value == null) {
+      return Double.compare(doubleValue, m.doubleValue) == 0;
+    } else {
+      return getValue().equals(m.getValue());
+    }
   }
 
   /**
@@ -108,7 +168,7 @@ public final class Metric {
   public int hashCode() {
     int result = config.hashCode();
     result = 31 * result + (int) (timestamp ^ (timestamp >>> 32));
-    result = 31 * result + value.hashCode();
+    result = 31 * result + ((value == null) ? Double.hashCode(doubleValue) : value.hashCode());
     return result;
   }
 
@@ -118,6 +178,6 @@ public final class Metric {
    */
   @Override
   public String toString() {
-    return "Metric{config=" + config + ", timestamp=" + timestamp + ", value=" + value + '}';
+    return "Metric{config=" + config + ", timestamp=" + timestamp + ", value=" + getValue() + '}';
   }
 }
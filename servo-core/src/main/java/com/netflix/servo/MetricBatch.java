@@ -0,0 +1,307 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo;
+
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.util.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar set of metric values that were sampled at the same time. Compared to a list of
+ * {@link Metric} objects the values are stored as primitive doubles, and the number of
+ * allocations needed for a batch does not depend on the number of metrics it contains.
+ * <p/>
+ * Each entry has a config, a data source type based on the {@link DataSourceType#KEY} tag of
+ * the config, and a value. Non-numeric values, such as informational strings, are kept
+ * separately and the numeric value for those entries will be NaN. Entries normally share the
+ * timestamp of the batch, but can have a different timestamp so that lists of metrics can be
+ * converted without loss.
+ * <p/>
+ * A batch is not thread-safe while it is being built. Once it has been passed to an observer
+ * it should be treated as read-only.
+ */
+public final class MetricBatch {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private static final DataSourceType[] TYPES = DataSourceType.values();
+
+  private final long timestamp;
+  private MonitorConfig[] configs;
+  private DataSourceType[] types;
+  private double[] values;
+
+  // Only allocated if needed
+  private Object[] objects;
+  private long[] timestamps;
+
+  private int size;
+
+  /**
+   * Create a new empty batch.
+   *
+   * @param timestamp point in time when the values were sampled
+   */
+  public MetricBatch(long timestamp) {
+    this(timestamp, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a new empty batch.
+   *
+   * @param timestamp point in time when the values were sampled
+   * @param capacity  expected number of entries, the batch will grow if needed
+   */
+  public MetricBatch(long timestamp, int capacity) {
+    Preconditions.checkArgument(capacity >= 0, "capacity cannot be negative");
+    this.timestamp = timestamp;
+    this.configs = new MonitorConfig[capacity];
+    this.types = new DataSourceType[capacity];
+    this.values = new double[capacity];
+  }
+
+  /**
+   * Create a batch with the same entries as a list of metrics. The timestamp for the batch
+   * will be the timestamp of the first metric.
+   */
+  public static MetricBatch from(List<Metric> metrics) {
+    final long t = metrics.isEmpty() ? 0L : metrics.get(0).getTimestamp();
+    final MetricBatch batch = new MetricBatch(t, metrics.size());
+    for (Metric m : metrics) {
+      batch.add(m);
+    }
+    return batch;
+  }
+
+  /**
+   * Returns the data source type for a config based on the {@link DataSourceType#KEY} tag.
+   * If the tag is missing or is not a known type, then null will be returned.
+   */
+  public static DataSourceType typeOf(MonitorConfig config) {
+    final String value = config.getTags().getValue(DataSourceType.KEY);
+    if (value != null) {
+      for (DataSourceType type : TYPES) {
+        if (type.name().equals(value)) {
+          return type;
+        }
+      }
+    }
+    return null;
+  }
+
+  private void ensureCapacity() {
+    if (size == configs.length) {
+      final int capacity = Math.max(DEFAULT_CAPACITY, configs.length * 2);
+      configs = Arrays.copyOf(configs, capacity);
+      types = Arrays.copyOf(types, capacity);
+      values = Arrays.copyOf(values, capacity);
+      if (objects != null) {
+        objects = Arrays.copyOf(objects, capacity);
+      }
+      if (timestamps != null) {
+        timestamps = Arrays.copyOf(timestamps, capacity);
+      }
+    }
+  }
+
+  private void setTimestamp(int i, long t) {
+    if (timestamps == null && t != timestamp) {
+      timestamps = new long[configs.length];
+      Arrays.fill(timestamps, 0, i, timestamp);
+    }
+    if (timestamps != null) {
+      timestamps[i] = t;
+    }
+  }
+
+  /**
+   * Add a numeric value with the timestamp of the batch. The type will be determined from
+   * the config.
+   */
+  public void add(MonitorConfig config, double value) {
+    add(config, typeOf(config), timestamp, value);
+  }
+
+  /**
+   * Add a numeric value.
+   *
+   * @param config    config settings associated with the value
+   * @param type      data source type for the value, this must be consistent with the config
+   * @param t         point in time when the value was sampled
+   * @param value     value of the metric
+   */
+  public void add(MonitorConfig config, DataSourceType type, long t, double value) {
+    Preconditions.checkNotNull(config, "config");
+    ensureCapacity();
+    final int i = size;
+    configs[i] = config;
+    types[i] = type;
+    values[i] = value;
+    if (objects != null) {
+      objects[i] = null;
+    }
+    setTimestamp(i, t);
+    ++size;
+  }
+
+  /**
+   * Add a value of any type. Numbers will be stored as primitive doubles.
+   *
+   * @param config    config settings associated with the value
+   * @param t         point in time when the value was sampled
+   * @param value     value of the metric
+   */
+  public void add(MonitorConfig config, long t, Object value) {
+    Preconditions.checkNotNull(value, "value");
+    if (value instanceof Number) {
+      add(config, typeOf(config), t, ((Number) value).doubleValue());
+    } else {
+      add(config, typeOf(config), t, Double.NaN);
+      if (objects == null) {
+        objects = new Object[configs.length];
+      }
+      objects[size - 1] = value;
+    }
+  }
+
+  /**
+   * Add the value of a metric.
+   */
+  public void add(Metric m) {
+    if (m.hasNumberValue()) {
+      add(m.getConfig(), typeOf(m.getConfig()), m.getTimestamp(), m.getDoubleValue());
+    } else {
+      add(m.getConfig(), m.getTimestamp(), m.getValue());
+    }
+  }
+
+  /**
+   * Copy an entry from another batch using a new timestamp.
+   */
+  public void add(MetricBatch batch, int i, long t) {
+    if (batch.hasNumberValue(i)) {
+      add(batch.configs[i], batch.types[i], t, batch.values[i]);
+    } else {
+      add(batch.configs[i], t, batch.objects[i]);
+    }
+  }
+
+  /**
+   * Returns the number of entries in the batch.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns true if the batch does not have any entries.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the point in time when the values in the batch were sampled.
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Returns the timestamp for an entry.
+   */
+  public long getTimestamp(int i) {
+    checkIndex(i);
+    return (timestamps == null) ? timestamp : timestamps[i];
+  }
+
+  /**
+   * Returns the config for an entry.
+   */
+  public MonitorConfig getConfig(int i) {
+    checkIndex(i);
+    return configs[i];
+  }
+
+  /**
+   * Returns the data source type for an entry or null if it is not known.
+   */
+  public DataSourceType getType(int i) {
+    checkIndex(i);
+    return types[i];
+  }
+
+  /**
+   * Returns true if the value for an entry is numeric.
+   */
+  public boolean hasNumberValue(int i) {
+    checkIndex(i);
+    return objects == null || objects[i] == null;
+  }
+
+  /**
+   * Returns the numeric value for an entry. For non-numeric values NaN will be returned.
+   */
+  public double getValue(int i) {
+    checkIndex(i);
+    return values[i];
+  }
+
+  /**
+   * Returns the value for an entry as an object. Numeric values will be boxed.
+   */
+  public Object getObjectValue(int i) {
+    return hasNumberValue(i) ? (Object) values[i] : objects[i];
+  }
+
+  /**
+   * Returns the entry as a metric.
+   */
+  public Metric getMetric(int i) {
+    return hasNumberValue(i)
+        ? Metric.ofDouble(configs[i], getTimestamp(i), values[i])
+        : new Metric(configs[i], getTimestamp(i), objects[i]);
+  }
+
+  /**
+   * Convert the batch to a list of metrics. Numeric values will be stored as primitive doubles.
+   */
+  public List<Metric> toList() {
+    final List<Metric> metrics = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) {
+      metrics.add(getMetric(i));
+    }
+    return metrics;
+  }
+
+  private void checkIndex(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "MetricBatch{timestamp=" + timestamp + ", size=" + size + '}';
+  }
+}
@@ -19,6 +19,7 @@ import com.netflix.servo.MonitorRegistry;
 import com.netflix.servo.monitor.Monitor;
 import com.netflix.servo.monitor.MonitorConfig;
 import com.netflix.servo.util.UnmodifiableList;
+import com.netflix.servo.util.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +33,7 @@ import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -42,7 +44,7 @@ import java.util.concurrent.atomic.AtomicReference;
  * that is specified for the registry. See {@link ObjectNameMapper#DEFAULT} for
  * the default naming implementation.
  */
-public final class JmxMonitorRegistry implements MonitorRegistry {
+public final class JmxMonitorRegistry implements MonitorRegistry, Versioned {
 
   private static final Logger LOG = LoggerFactory.getLogger(JmxMonitorRegistry.class);
 
@@ -55,6 +57,7 @@ public final class JmxMonitorRegistry implements MonitorRegistry {
   private final AtomicBoolean updatePending = new AtomicBoolean(false);
   private final AtomicReference<Collection<Monitor<?>>> monitorList =
       new AtomicReference<>(UnmodifiableList.<Monitor<?>>of());
+  private final AtomicLong version = new AtomicLong(0L);
 
   /**
    * Creates a new instance that registers metrics with the local mbean
@@ -112,6 +115,7 @@ public final class JmxMonitorRegistry implements MonitorRegistry {
       }
       monitors.put(monitor.getConfig(), monitor);
       updatePending.set(true);
+      version.incrementAndGet();
     } catch (Exception e) {
       LOG.warn("Unable to register Monitor:{}", monitor.getConfig(), e);
     }
@@ -135,6 +139,7 @@ public final class JmxMonitorRegistry implements MonitorRegistry {
       }
       monitors.remove(monitor.getConfig());
       updatePending.set(true);
+      version.incrementAndGet();
     } catch (Exception e) {
       LOG.warn("Unable to un-register Monitor:{}", monitor.getConfig(), e);
     }
@@ -155,6 +160,14 @@ public final class JmxMonitorRegistry implements MonitorRegistry {
     return false;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return version.get();
+  }
+
   private Object getLock(ObjectName objectName) {
     return locks.computeIfAbsent(objectName, k -> new Object());
   }
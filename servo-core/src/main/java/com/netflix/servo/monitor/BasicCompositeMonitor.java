@@ -16,6 +16,7 @@
 package com.netflix.servo.monitor;
 
 import com.netflix.servo.util.UnmodifiableList;
+import com.netflix.servo.util.Versioned;
 
 import java.util.List;
 
@@ -24,7 +25,7 @@ import java.util.List;
  * is the number of sub-monitors.
  */
 public final class BasicCompositeMonitor extends AbstractMonitor<Integer>
-    implements CompositeMonitor<Integer> {
+    implements CompositeMonitor<Integer>, Versioned {
   private final List<Monitor<?>> monitors;
 
   /**
@@ -55,6 +56,14 @@ public final class BasicCompositeMonitor extends AbstractMonitor<Integer>
     return monitors;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return 0L;
+  }
+
   /**
    * {@inheritDoc}
    */
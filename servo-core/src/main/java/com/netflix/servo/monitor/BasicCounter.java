@@ -27,7 +27,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * for converting to a rate and handling overflows if they occur.
  */
 public final class BasicCounter extends AbstractMonitor<Number>
-    implements Counter, SpectatorMonitor {
+    implements Counter, SpectatorMonitor, ChangeTracked {
   private final MonitorConfig baseConfig;
   private final AtomicLong count = new AtomicLong();
   private final SpectatorContext.LazyCounter spectatorCounter;
@@ -67,6 +67,14 @@ public final class BasicCounter extends AbstractMonitor<Number>
     return count.get();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getChangeEpoch() {
+    return count.get();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -20,6 +20,7 @@ import com.netflix.servo.tag.Tag;
 import com.netflix.servo.tag.TagList;
 import com.netflix.servo.tag.Tags;
 import com.netflix.servo.util.UnmodifiableList;
+import com.netflix.servo.util.Versioned;
 
 import java.util.List;
 
@@ -27,7 +28,8 @@ import java.util.List;
  * Track the sample distribution of events. Similar to a BasicTimer without the time unit aspect.
  */
 public class BasicDistributionSummary
-    extends AbstractMonitor<Long> implements CompositeMonitor<Long>, SpectatorMonitor {
+    extends AbstractMonitor<Long>
+    implements CompositeMonitor<Long>, SpectatorMonitor, Versioned {
 
   private static final String STATISTIC = "statistic";
 
@@ -65,6 +67,14 @@ public class BasicDistributionSummary
     return monitors;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return 0L;
+  }
+
   /**
    * Updates the statistics kept by the summary with the specified amount.
    */
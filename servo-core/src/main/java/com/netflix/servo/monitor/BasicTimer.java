@@ -22,6 +22,7 @@ import com.netflix.servo.tag.Tags;
 import com.netflix.servo.util.Clock;
 import com.netflix.servo.util.ClockWithOffset;
 import com.netflix.servo.util.UnmodifiableList;
+import com.netflix.servo.util.Versioned;
 
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -31,7 +32,7 @@ import java.util.concurrent.TimeUnit;
  * have been recorded.
  */
 public class BasicTimer extends AbstractMonitor<Long>
-    implements Timer, CompositeMonitor<Long>, SpectatorMonitor {
+    implements Timer, CompositeMonitor<Long>, SpectatorMonitor, Versioned {
 
   private static final String STATISTIC = "statistic";
   private static final String UNIT = "unit";
@@ -92,6 +93,14 @@ public class BasicTimer extends AbstractMonitor<Long>
     return monitors;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return 0L;
+  }
+
   /**
    * {@inheritDoc}
    */
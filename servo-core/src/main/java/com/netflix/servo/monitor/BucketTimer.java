@@ -21,6 +21,7 @@ import com.netflix.servo.tag.Tags;
 import com.netflix.servo.util.Clock;
 import com.netflix.servo.util.ClockWithOffset;
 import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.Versioned;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -64,7 +65,7 @@ import java.util.concurrent.TimeUnit;
  */
 
 public class BucketTimer extends AbstractMonitor<Long>
-    implements Timer, CompositeMonitor<Long>, SpectatorMonitor {
+    implements Timer, CompositeMonitor<Long>, SpectatorMonitor, Versioned {
 
   private static final String STATISTIC = "statistic";
   private static final String BUCKET = "servo.bucket";
@@ -160,6 +161,14 @@ public class BucketTimer extends AbstractMonitor<Long>
     return monitors;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return 0L;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.monitor;
+
+/**
+ * Monitor that can cheaply indicate whether the value returned by {@link Monitor#getValue()}
+ * may have changed. Pollers can compare the epoch with the one seen on the previous poll and
+ * skip reading the value if it is the same.
+ */
+public interface ChangeTracked {
+  /**
+   * Returns a stamp for the current value of the monitor. If two calls return the same stamp,
+   * then the value did not change between the calls. The stamp is not required to increase,
+   * a different stamp only indicates that the value may have changed.
+   */
+  long getChangeEpoch();
+}
@@ -16,6 +16,7 @@
 package com.netflix.servo.monitor;
 
 import com.netflix.servo.tag.TagList;
+import com.netflix.servo.util.Versioned;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -25,7 +26,7 @@ import java.util.List;
  * Wraps another composite monitor object providing an alternative configuration.
  */
 class CompositeMonitorWrapper<T>
-    extends AbstractMonitor<T> implements CompositeMonitor<T>, SpectatorMonitor {
+    extends AbstractMonitor<T> implements CompositeMonitor<T>, SpectatorMonitor, Versioned {
 
   private final TagList tags;
   private final CompositeMonitor<T> monitor;
@@ -55,6 +56,16 @@ class CompositeMonitorWrapper<T>
     return Collections.unmodifiableList(wrappedMonitors);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return (monitor instanceof Versioned)
+        ? ((Versioned) monitor).getVersion()
+        : Versioned.UNKNOWN;
+  }
+
   /**
    * {@inheritDoc}
    */
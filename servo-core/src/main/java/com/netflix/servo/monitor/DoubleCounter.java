@@ -31,7 +31,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * previous interval as defined by the step.
  */
 class DoubleCounter extends AbstractMonitor<Number>
-    implements NumericMonitor<Number>, SpectatorMonitor {
+    implements NumericMonitor<Number>, SpectatorMonitor, ChangeTracked {
 
   private final MonitorConfig baseConfig;
   private final StepLong count;
@@ -70,6 +70,7 @@ class DoubleCounter extends AbstractMonitor<Number>
       for (int i = 0; i < Pollers.NUM_POLLERS; ++i) {
         add(count.getCurrent(i), amount);
       }
+      count.markUpdated();
     }
   }
 
@@ -80,6 +81,14 @@ class DoubleCounter extends AbstractMonitor<Number>
     return Double.longBitsToDouble(n) / stepSeconds;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getChangeEpoch() {
+    return count.changeEpoch(0);
+  }
+
   /**
    * Get the current count for the given poller index.
    */
@@ -25,7 +25,7 @@ import com.netflix.spectator.api.Id;
  * A {@link Gauge} that reports a double value.
  */
 public class DoubleGauge extends AbstractMonitor<Double>
-    implements Gauge<Double>, SpectatorMonitor {
+    implements Gauge<Double>, SpectatorMonitor, ChangeTracked {
 
   private final MonitorConfig baseConfig;
   private final AtomicDouble number;
@@ -107,6 +107,14 @@ public class DoubleGauge extends AbstractMonitor<Double>
     return number.get();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getChangeEpoch() {
+    return Double.doubleToLongBits(number.get());
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -29,7 +29,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * non-negative, the reset value is 0.
  */
 public class DoubleMaxGauge extends AbstractMonitor<Double>
-    implements Gauge<Double>, SpectatorMonitor {
+    implements Gauge<Double>, SpectatorMonitor, ChangeTracked {
 
   private final MonitorConfig baseConfig;
   private final StepLong max;
@@ -74,6 +74,7 @@ public class DoubleMaxGauge extends AbstractMonitor<Double>
     for (int i = 0; i < Pollers.NUM_POLLERS; ++i) {
       updateMax(i, v);
     }
+    max.markUpdated();
   }
 
   /**
@@ -84,6 +85,14 @@ public class DoubleMaxGauge extends AbstractMonitor<Double>
     return Double.longBitsToDouble(max.poll(nth));
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getChangeEpoch() {
+    return max.changeEpoch(0);
+  }
+
   /**
    * Returns the current max value since the last reset.
    */
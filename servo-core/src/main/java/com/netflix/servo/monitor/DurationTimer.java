@@ -18,6 +18,7 @@ package com.netflix.servo.monitor;
 import com.netflix.servo.util.Clock;
 import com.netflix.servo.util.ClockWithOffset;
 import com.netflix.servo.util.UnmodifiableList;
+import com.netflix.servo.util.Versioned;
 
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -41,7 +42,8 @@ import java.util.concurrent.atomic.AtomicLong;
  * The names for the monitors will be the base name passed to the constructor plus a
  * suffix of .duration and .activeTasks respectively.
  */
-public class DurationTimer extends AbstractMonitor<Long> implements CompositeMonitor<Long> {
+public class DurationTimer extends AbstractMonitor<Long>
+    implements CompositeMonitor<Long>, Versioned {
 
   private final List<Monitor<?>> monitors;
   private final AtomicLong nextTaskId = new AtomicLong(0L);
@@ -115,6 +117,14 @@ public class DurationTimer extends AbstractMonitor<Long> implements CompositeMon
     return monitors;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return 0L;
+  }
+
   /**
    * {@inheritDoc}
    */
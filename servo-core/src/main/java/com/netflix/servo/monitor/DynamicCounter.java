@@ -19,6 +19,7 @@ import com.netflix.servo.DefaultMonitorRegistry;
 import com.netflix.servo.tag.TagList;
 import com.netflix.servo.util.ExpiringCache;
 import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,7 +31,8 @@ import java.util.concurrent.TimeUnit;
  * {@link MonitorConfig}. Counters are automatically expired after 15 minutes of inactivity.
  */
 public final class DynamicCounter
-    extends AbstractMonitor<Long> implements CompositeMonitor<Long>, SpectatorMonitor {
+    extends AbstractMonitor<Long>
+    implements CompositeMonitor<Long>, SpectatorMonitor, Versioned {
   private static final Logger LOGGER = LoggerFactory.getLogger(DynamicCounter.class);
   private static final String DEFAULT_EXPIRATION = "15";
   private static final String DEFAULT_EXPIRATION_UNIT = "MINUTES";
@@ -128,6 +130,14 @@ public final class DynamicCounter
     return (List<Monitor<?>>) list;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return counters.getVersion();
+  }
+
   /**
    * {@inheritDoc}
    */
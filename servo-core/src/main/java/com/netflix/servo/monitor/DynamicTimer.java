@@ -19,6 +19,7 @@ import com.netflix.servo.DefaultMonitorRegistry;
 import com.netflix.servo.tag.TagList;
 import com.netflix.servo.util.ExpiringCache;
 import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.Versioned;
 
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -29,7 +30,7 @@ import java.util.concurrent.TimeUnit;
  * inactivity.
  */
 public final class DynamicTimer extends AbstractMonitor<Long>
-    implements CompositeMonitor<Long>, SpectatorMonitor {
+    implements CompositeMonitor<Long>, SpectatorMonitor, Versioned {
   private static final String DEFAULT_EXPIRATION = "15";
   private static final String DEFAULT_EXPIRATION_UNIT = "MINUTES";
   private static final String CLASS_NAME = DynamicTimer.class.getCanonicalName();
@@ -218,6 +219,14 @@ public final class DynamicTimer extends AbstractMonitor<Long>
     return (List<Monitor<?>>) list;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return timers.getVersion();
+  }
+
   /**
    * {@inheritDoc}
    */
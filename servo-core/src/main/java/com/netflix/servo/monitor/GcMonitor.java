@@ -0,0 +1,373 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.monitor;
+
+import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.Versioned;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Composite monitor that tracks garbage collection events using the notifications emitted by
+ * the {@link GarbageCollectorMXBean}s. Unlike the cumulative collection count and time
+ * reported by {@link com.netflix.servo.publish.JvmMetricPoller}, the values are recorded as
+ * each collection completes so nothing needs to be fetched when the monitor is polled.
+ * The following sub-monitors are maintained:
+ * <ul>
+ * <li>gcPause: {@link BucketTimer} with the duration of each collection, tagged with the
+ * collector name as the id.</li>
+ * <li>gcMaxPause: {@link MaxGauge} with the longest collection during the step for each
+ * collector.</li>
+ * <li>gcConcurrentPhaseTime: {@link BucketTimer} with the duration of each concurrent cycle,
+ * tagged with the collector name as the id. Collectors such as CMS, G1 concurrent, ZGC and
+ * Shenandoah report whole cycles that mostly run alongside the application, so they are kept
+ * out of gcPause and gcMaxPause.</li>
+ * <li>gcPoolGrowth: {@link BasicCounter} with the bytes each memory pool grew between the
+ * end of the previous collection and the start of the next, tagged with the pool name as the
+ * id. For the eden pool this is the allocation, for single generation collectors such as ZGC
+ * and Shenandoah it is the allocation for the whole heap.</li>
+ * <li>gcAllocated: bytes allocated in the young generation, computed from the size of the
+ * young pools before a collection minus their size after the previous one.</li>
+ * <li>gcPromoted: bytes promoted to the old generation, computed from the increase in size
+ * of the old pools during a collection.</li>
+ * </ul>
+ * The young and old pools for gcAllocated and gcPromoted are found by name, pools containing
+ * "Eden" are young and pools containing "Old Gen" or "Tenured" are old. Collectors with other
+ * pool layouts, for example ZGC or Shenandoah, do not update these two counters and
+ * gcPoolGrowth should be used instead.
+ * <p/>
+ * Sub-monitors for a collector or pool are created when its first event is seen. Call
+ * {@link #start()} to begin listening and register the monitor with a
+ * {@link com.netflix.servo.MonitorRegistry} to publish the values.
+ */
+public final class GcMonitor extends AbstractMonitor<Integer>
+    implements CompositeMonitor<Integer>, Versioned {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(GcMonitor.class);
+
+  private static final String ID = "id";
+
+  /**
+   * Collectors whose events describe a concurrent cycle rather than a pause.
+   */
+  private static final Set<String> CONCURRENT_COLLECTORS = Collections.unmodifiableSet(
+      new HashSet<>(Arrays.asList(
+          "ConcurrentMarkSweep",
+          "G1 Concurrent GC",
+          "Shenandoah Cycles",
+          "ZGC Cycles",
+          "ZGC Major Cycles",
+          "ZGC Minor Cycles")));
+
+  /**
+   * Cause reported for events that did not pause the application.
+   */
+  private static final String NO_GC_CAUSE = "No GC";
+
+  /**
+   * Default buckets, in milliseconds, used for the pause histogram.
+   */
+  public static final BucketConfig DEFAULT_BUCKETS = new BucketConfig.Builder()
+      .withTimeUnit(TimeUnit.MILLISECONDS)
+      .withBuckets(new long[]{1L, 5L, 10L, 25L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L,
+          10000L})
+      .build();
+
+  private final BucketConfig bucketConfig;
+  private final Counter allocated;
+  private final Counter promoted;
+  private final Map<String, CollectorMonitors> collectors = new ConcurrentHashMap<>();
+  private final Map<String, BucketTimer> concurrentPhases = new ConcurrentHashMap<>();
+  private final Map<String, Counter> poolGrowth = new ConcurrentHashMap<>();
+  private final AtomicLong version = new AtomicLong();
+  private volatile List<Monitor<?>> monitors;
+
+  private final NotificationListener listener = this::handleNotification;
+  private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+  // Size of the young pools after the previous collection, guarded by this
+  private long lastYoungSize = -1L;
+
+  // Size of each pool after the previous collection, guarded by this
+  private final Map<String, Long> lastPoolSizes = new HashMap<>();
+
+  /**
+   * Creates a new instance using the {@link #DEFAULT_BUCKETS} for the pause histogram.
+   */
+  public GcMonitor() {
+    this(DEFAULT_BUCKETS);
+  }
+
+  /**
+   * Creates a new instance using the specified buckets for the pause histogram.
+   */
+  public GcMonitor(BucketConfig bucketConfig) {
+    super(MonitorConfig.builder("gcMonitor").build());
+    this.bucketConfig = Preconditions.checkNotNull(bucketConfig, "bucketConfig");
+    this.allocated = new BasicCounter(MonitorConfig.builder("gcAllocated").build());
+    this.promoted = new BasicCounter(MonitorConfig.builder("gcPromoted").build());
+    this.monitors = buildMonitors();
+  }
+
+  /**
+   * Start listening for notifications from all garbage collectors that support them.
+   */
+  public synchronized void start() {
+    if (!emitters.isEmpty()) {
+      return;
+    }
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (bean instanceof NotificationEmitter) {
+        NotificationEmitter emitter = (NotificationEmitter) bean;
+        emitter.addNotificationListener(listener, null, null);
+        emitters.add(emitter);
+      }
+    }
+  }
+
+  /**
+   * Stop listening for notifications. The recorded values are retained.
+   */
+  public synchronized void stop() {
+    for (NotificationEmitter emitter : emitters) {
+      try {
+        emitter.removeNotificationListener(listener);
+      } catch (ListenerNotFoundException e) {
+        LOGGER.debug("listener already removed", e);
+      }
+    }
+    emitters.clear();
+  }
+
+  private void handleNotification(Notification notification, Object handback) {
+    final String type = notification.getType();
+    if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(type)) {
+      try {
+        GarbageCollectionNotificationInfo info =
+            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        GcInfo gcInfo = info.getGcInfo();
+        record(info.getGcName(), info.getGcCause(), gcInfo.getDuration(),
+            gcInfo.getMemoryUsageBeforeGc(), gcInfo.getMemoryUsageAfterGc());
+      } catch (RuntimeException e) {
+        LOGGER.warn("failed to process gc notification", e);
+      }
+    }
+  }
+
+  /**
+   * Record a single collection event.
+   */
+  void record(String gcName, String gcCause, long durationMillis,
+              Map<String, MemoryUsage> before, Map<String, MemoryUsage> after) {
+    if (isConcurrentPhase(gcName, gcCause)) {
+      concurrentPhase(gcName).record(durationMillis, TimeUnit.MILLISECONDS);
+    } else {
+      final CollectorMonitors c = collector(gcName);
+      c.pause.record(durationMillis, TimeUnit.MILLISECONDS);
+      c.maxPause.update(durationMillis);
+    }
+    updatePoolDeltas(before, after);
+  }
+
+  /**
+   * Returns true if the event is for a concurrent cycle rather than a pause.
+   */
+  static boolean isConcurrentPhase(String gcName, String gcCause) {
+    return NO_GC_CAUSE.equals(gcCause) || CONCURRENT_COLLECTORS.contains(gcName);
+  }
+
+  private synchronized void updatePoolDeltas(
+      Map<String, MemoryUsage> before, Map<String, MemoryUsage> after) {
+    long youngBefore = 0L;
+    long youngAfter = 0L;
+    long oldBefore = 0L;
+    long oldAfter = 0L;
+    boolean hasYoung = false;
+    boolean hasOld = false;
+    for (Map.Entry<String, MemoryUsage> entry : before.entrySet()) {
+      final String pool = entry.getKey();
+      final MemoryUsage usageAfter = after.get(pool);
+      if (usageAfter == null) {
+        continue;
+      }
+      final long used = entry.getValue().getUsed();
+      final Long lastSize = lastPoolSizes.put(pool, usageAfter.getUsed());
+      final Counter growth = poolGrowth(pool);
+      if (lastSize != null && used > lastSize) {
+        growth.increment(used - lastSize);
+      }
+      if (isYoungPool(pool)) {
+        hasYoung = true;
+        youngBefore += entry.getValue().getUsed();
+        youngAfter += usageAfter.getUsed();
+      } else if (isOldPool(pool)) {
+        hasOld = true;
+        oldBefore += entry.getValue().getUsed();
+        oldAfter += usageAfter.getUsed();
+      }
+    }
+
+    if (hasYoung) {
+      if (lastYoungSize >= 0L && youngBefore > lastYoungSize) {
+        allocated.increment(youngBefore - lastYoungSize);
+      }
+      lastYoungSize = youngAfter;
+    }
+
+    if (hasOld && oldAfter > oldBefore) {
+      promoted.increment(oldAfter - oldBefore);
+    }
+  }
+
+  private static boolean isYoungPool(String name) {
+    return name.contains("Eden");
+  }
+
+  private static boolean isOldPool(String name) {
+    return name.contains("Old Gen") || name.contains("Tenured");
+  }
+
+  private CollectorMonitors collector(String gcName) {
+    CollectorMonitors c = collectors.get(gcName);
+    if (c == null) {
+      synchronized (collectors) {
+        c = collectors.get(gcName);
+        if (c == null) {
+          c = new CollectorMonitors(gcName, bucketConfig);
+          collectors.put(gcName, c);
+          monitors = buildMonitors();
+          version.incrementAndGet();
+        }
+      }
+    }
+    return c;
+  }
+
+  private BucketTimer concurrentPhase(String gcName) {
+    BucketTimer t = concurrentPhases.get(gcName);
+    if (t == null) {
+      synchronized (collectors) {
+        t = concurrentPhases.get(gcName);
+        if (t == null) {
+          t = new BucketTimer(MonitorConfig.builder("gcConcurrentPhaseTime")
+              .withTag(ID, gcName)
+              .build(), bucketConfig);
+          concurrentPhases.put(gcName, t);
+          monitors = buildMonitors();
+          version.incrementAndGet();
+        }
+      }
+    }
+    return t;
+  }
+
+  private Counter poolGrowth(String pool) {
+    Counter c = poolGrowth.get(pool);
+    if (c == null) {
+      synchronized (collectors) {
+        c = poolGrowth.get(pool);
+        if (c == null) {
+          c = new BasicCounter(MonitorConfig.builder("gcPoolGrowth").withTag(ID, pool).build());
+          poolGrowth.put(pool, c);
+          monitors = buildMonitors();
+          version.incrementAndGet();
+        }
+      }
+    }
+    return c;
+  }
+
+  private List<Monitor<?>> buildMonitors() {
+    List<Monitor<?>> list = new ArrayList<>();
+    list.add(allocated);
+    list.add(promoted);
+    for (CollectorMonitors c : collectors.values()) {
+      list.add(c.pause);
+      list.add(c.maxPause);
+    }
+    list.addAll(concurrentPhases.values());
+    list.addAll(poolGrowth.values());
+    return Collections.unmodifiableList(list);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<Monitor<?>> getMonitors() {
+    return monitors;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Returns the number of collectors that have reported events.
+   */
+  @Override
+  public Integer getValue(int pollerIndex) {
+    return collectors.size() + concurrentPhases.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "GcMonitor{collectors=" + collectors.keySet()
+        + ", concurrentCollectors=" + concurrentPhases.keySet()
+        + ", pools=" + poolGrowth.keySet()
+        + ", monitors=" + monitors + '}';
+  }
+
+  private static class CollectorMonitors {
+    private final BucketTimer pause;
+    private final MaxGauge maxPause;
+
+    CollectorMonitors(String gcName, BucketConfig bucketConfig) {
+      pause = new BucketTimer(
+          MonitorConfig.builder("gcPause").withTag(ID, gcName).build(), bucketConfig);
+      maxPause = new MaxGauge(MonitorConfig.builder("gcMaxPause").withTag(ID, gcName).build());
+    }
+  }
+}
@@ -26,7 +26,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * A {@link Gauge} that reports a long value.
  */
 public class LongGauge extends AbstractMonitor<Long>
-    implements Gauge<Long>, SpectatorMonitor {
+    implements Gauge<Long>, SpectatorMonitor, ChangeTracked {
   private final MonitorConfig baseConfig;
   private final AtomicLong number;
   private final SpectatorContext.LazyGauge spectatorGauge;
@@ -105,6 +105,14 @@ public class LongGauge extends AbstractMonitor<Long>
     return number.get();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getChangeEpoch() {
+    return number.get();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -29,7 +29,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * non-negative, the reset value is 0.
  */
 public class MaxGauge extends AbstractMonitor<Long>
-    implements Gauge<Long>, SpectatorMonitor {
+    implements Gauge<Long>, SpectatorMonitor, ChangeTracked {
   private final MonitorConfig baseConfig;
   private final StepLong max;
   private final SpectatorContext.LazyGauge spectatorGauge;
@@ -73,6 +73,7 @@ public class MaxGauge extends AbstractMonitor<Long>
     for (int i = 0; i < Pollers.NUM_POLLERS; ++i) {
       updateMax(i, v);
     }
+    max.markUpdated();
   }
 
   /**
@@ -83,6 +84,14 @@ public class MaxGauge extends AbstractMonitor<Long>
     return max.poll(nth);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getChangeEpoch() {
+    return max.changeEpoch(0);
+  }
+
   /**
    * Returns the current max value since the last reset.
    */
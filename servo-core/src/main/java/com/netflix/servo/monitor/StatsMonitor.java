@@ -23,6 +23,7 @@ import com.netflix.servo.tag.TagList;
 import com.netflix.servo.tag.Tags;
 import com.netflix.servo.util.Clock;
 import com.netflix.servo.util.ThreadFactories;
+import com.netflix.servo.util.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,7 +48,7 @@ import java.util.stream.Collectors;
  * specified by the user using a {@link com.netflix.servo.stats.StatsConfig} object.
  */
 public class StatsMonitor extends AbstractMonitor<Long> implements
-    CompositeMonitor<Long>, NumericMonitor<Long>, SpectatorMonitor {
+    CompositeMonitor<Long>, NumericMonitor<Long>, SpectatorMonitor, Versioned {
 
   protected static final ScheduledExecutorService DEFAULT_EXECUTOR;
   private static final long EXPIRE_AFTER_MS;
@@ -438,6 +439,14 @@ public class StatsMonitor extends AbstractMonitor<Long> implements
     return monitors;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return 0L;
+  }
+
   /**
    * Record the measurement we want to perform statistics on.
    */
@@ -27,7 +27,8 @@ import com.netflix.spectator.api.Id;
  * A simple counter implementation backed by a StepLong. The value returned is a rate for the
  * previous interval as defined by the step.
  */
-public class StepCounter extends AbstractMonitor<Number> implements Counter, SpectatorMonitor {
+public class StepCounter extends AbstractMonitor<Number>
+    implements Counter, SpectatorMonitor, ChangeTracked {
 
   private final MonitorConfig baseConfig;
   private final StepLong count;
@@ -84,6 +85,14 @@ public class StepCounter extends AbstractMonitor<Number> implements Counter, Spe
     return n / stepSeconds;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getChangeEpoch() {
+    return count.changeEpoch(0);
+  }
+
   /**
    * Get the count for the last completed polling interval for the given poller index.
    */
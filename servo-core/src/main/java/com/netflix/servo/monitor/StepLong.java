@@ -36,6 +36,9 @@ class StepLong {
   private final AtomicLong[] data;
   private final AtomicLong[] lastInitPos;
 
+  // Time of the most recent update, used to compute the change epoch
+  private volatile long lastUpdateTime = -1L;
+
   StepLong(long init, Clock clock) {
     this.init = init;
     this.clock = clock;
@@ -50,11 +53,43 @@ class StepLong {
   }
 
   void addAndGet(long amount) {
+    final long now = clock.now();
     for (int i = 0; i < Pollers.NUM_POLLERS; ++i) {
-      getCurrent(i).addAndGet(amount);
+      rollCount(i, now);
+      data[2 * i + CURRENT].addAndGet(amount);
+    }
+    markUpdated(now);
+  }
+
+  /**
+   * Record that the current value was updated. This must be called by users that modify the
+   * value returned by {@link #getCurrent(int)} directly.
+   */
+  void markUpdated() {
+    markUpdated(clock.now());
+  }
+
+  private void markUpdated(long now) {
+    if (now > lastUpdateTime) {
+      lastUpdateTime = now;
     }
   }
 
+  /**
+   * Returns a stamp that changes whenever the value returned by {@link #poll(int)} may have
+   * changed. While there is activity the stamp is the current step. The polled value is for
+   * the previous step, so once there have been no updates for two steps it will stay at the
+   * init value and the stamp stops moving.
+   */
+  long changeEpoch(int pollerIndex) {
+    final long last = lastUpdateTime;
+    if (last < 0L) {
+      return -1L;
+    }
+    final long step = Pollers.POLLING_INTERVALS[pollerIndex];
+    return Math.min(clock.now() / step, last / step + 2);
+  }
+
   private void rollCount(int pollerIndex, long now) {
     final long step = Pollers.POLLING_INTERVALS[pollerIndex];
     final long stepTime = now / step;
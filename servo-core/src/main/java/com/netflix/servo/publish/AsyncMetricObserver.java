@@ -17,14 +17,19 @@ package com.netflix.servo.publish;
 
 import com.netflix.servo.Metric;
 import com.netflix.servo.monitor.Counter;
+import com.netflix.servo.monitor.MonitorConfig;
 import com.netflix.servo.monitor.Monitors;
 import com.netflix.servo.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Wraps another observer and asynchronously updates it in the background. The
@@ -33,6 +38,12 @@ import java.util.concurrent.LinkedBlockingDeque;
  * <p/>
  * If an exception is thrown when calling update on wrapped observer it will
  * be logged, but otherwise ignored.
+ * <p/>
+ * If created with an {@link AsyncObserverPool}, then the observer does not have its own thread
+ * or queue. Instead updates are merged into a single pending update, keeping the latest value
+ * for each {@link MonitorConfig}, and sent to the wrapped observer using one of the threads in
+ * the pool. If the pool does not have space for the new metrics, the pending values for this
+ * observer are dropped in favor of the new update.
  */
 public final class AsyncMetricObserver extends BaseMetricObserver {
 
@@ -47,6 +58,14 @@ public final class AsyncMetricObserver extends BaseMetricObserver {
 
   private final Thread processingThread;
 
+  // State when using a shared pool, pending is guarded by the lock
+  private final AsyncObserverPool pool;
+  private final Object lock = new Object();
+  private Map<MonitorConfig, Metric> pending = new LinkedHashMap<>();
+  private volatile long pendingSince = -1L;
+  private long lastUpdateTime = -1L;
+  private boolean scheduled = false;
+
   /**
    * The number of updates that have been expired and dropped.
    */
@@ -74,6 +93,7 @@ public final class AsyncMetricObserver extends BaseMetricObserver {
         String.format("invalid queueSize %d, size must be >= 1", queueSize));
 
     updateQueue = new LinkedBlockingDeque<>(queueSize);
+    pool = null;
 
     String threadName = getClass().getSimpleName() + "-" + name;
     processingThread = new Thread(new UpdateProcessor(), threadName);
@@ -81,6 +101,29 @@ public final class AsyncMetricObserver extends BaseMetricObserver {
     processingThread.start();
   }
 
+  /**
+   * Creates a new instance that uses a shared pool to update the wrapped observer.
+   *
+   * @param name       name of this observer
+   * @param observer   a wrapped observer that will be updated asynchronously
+   * @param pool       pool used to update the observer
+   * @param expireTime age in milliseconds before an update expires and will
+   *                   not be passed on to the wrapped observer
+   */
+  public AsyncMetricObserver(
+      String name,
+      MetricObserver observer,
+      AsyncObserverPool pool,
+      long expireTime) {
+    super(name);
+    this.expireTime = expireTime;
+    this.wrappedObserver = Preconditions.checkNotNull(observer, "observer");
+    this.pool = Preconditions.checkNotNull(pool, "pool");
+    this.updateQueue = null;
+    this.processingThread = null;
+    pool.register(this);
+  }
+
   /**
    * Creates a new instance with an unbounded queue and no expiration time.
    *
@@ -107,6 +150,11 @@ public final class AsyncMetricObserver extends BaseMetricObserver {
    * {@inheritDoc}
    */
   public void updateImpl(List<Metric> metrics) {
+    if (pool != null) {
+      enqueue(metrics);
+      return;
+    }
+
     long now = System.currentTimeMillis();
     TimestampedUpdate update = new TimestampedUpdate(now, metrics);
 
@@ -129,7 +177,122 @@ public final class AsyncMetricObserver extends BaseMetricObserver {
    */
   public void stop() {
     stopUpdateThread = true;
-    processingThread.interrupt(); // in case it is blocked on an empty queue
+    if (pool != null) {
+      pool.unregister(this);
+      synchronized (lock) {
+        pool.release(pending.size());
+        pending.clear();
+        pendingSince = -1L;
+      }
+    } else {
+      processingThread.interrupt(); // in case it is blocked on an empty queue
+    }
+  }
+
+  /**
+   * Returns the time when the oldest pending update was received, or -1 if there is no
+   * pending update. Only used with a shared pool.
+   */
+  long getPendingSince() {
+    return pendingSince;
+  }
+
+  /**
+   * Merge the metrics into the pending update and make sure a task is scheduled to send it.
+   */
+  private void enqueue(List<Metric> metrics) {
+    if (stopUpdateThread) {
+      return;
+    }
+
+    final long now = System.currentTimeMillis();
+    final int n = metrics.size();
+    boolean submit = false;
+    synchronized (lock) {
+      // Reserve space for the worst case where all metrics are new, the unused part is
+      // released after merging
+      if (!pool.reserve(n)) {
+        LOGGER.debug("pool is full, dropping {} pending metrics for {}", pending.size(),
+            getName());
+        pool.release(pending.size());
+        pending.clear();
+        pendingSince = -1L;
+        incrementFailedCount();
+        if (!pool.reserve(n)) {
+          return;
+        }
+      }
+
+      int added = 0;
+      for (Metric m : metrics) {
+        if (pending.put(m.getConfig(), m) == null) {
+          ++added;
+        }
+      }
+      pool.release(n - added);
+
+      if (pendingSince < 0L) {
+        pendingSince = now;
+      }
+      lastUpdateTime = now;
+      if (!scheduled) {
+        scheduled = true;
+        submit = true;
+      }
+    }
+
+    if (submit) {
+      schedule();
+    }
+  }
+
+  private void schedule() {
+    try {
+      pool.execute(this::drain);
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn("pool rejected update for {}", getName());
+      synchronized (lock) {
+        scheduled = false;
+      }
+      incrementFailedCount();
+    }
+  }
+
+  /**
+   * Send the pending update to the wrapped observer. Only one drain task is active for an
+   * observer at a time so the wrapped observer will not get concurrent updates.
+   */
+  private void drain() {
+    final Map<MonitorConfig, Metric> update;
+    final long updateTime;
+    synchronized (lock) {
+      update = pending;
+      updateTime = lastUpdateTime;
+      pending = new LinkedHashMap<>();
+      pendingSince = -1L;
+    }
+    pool.release(update.size());
+
+    try {
+      long cutoff = System.currentTimeMillis() - expireTime;
+      if (updateTime < cutoff) {
+        expiredUpdateCount.increment();
+      } else if (!update.isEmpty()) {
+        wrappedObserver.update(new ArrayList<>(update.values()));
+      }
+    } catch (Throwable t) {
+      LOGGER.warn("update failed for downstream queue", t);
+      incrementFailedCount();
+    } finally {
+      boolean resubmit;
+      synchronized (lock) {
+        resubmit = !pending.isEmpty();
+        scheduled = resubmit;
+      }
+      if (resubmit) {
+        schedule();
+      }
+    }
   }
 
   private void processUpdate() {
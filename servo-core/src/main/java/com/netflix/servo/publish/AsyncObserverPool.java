@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.monitor.BasicGauge;
+import com.netflix.servo.monitor.Monitor;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.ThreadFactories;
+import com.netflix.servo.util.UnmodifiableList;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared set of threads used to update {@link AsyncMetricObserver} instances. Using a pool
+ * many async observers can share a small number of threads. The memory used is bounded by the
+ * total number of metrics queued across all observers using the pool.
+ * <p/>
+ * The pool reports two gauges tagged with the pool name:
+ * {@code servo.asyncObserverPool.queuedMetrics} with the number of metrics waiting to be sent
+ * and {@code servo.asyncObserverPool.queueAge} with the age in milliseconds of the oldest
+ * update that is waiting.
+ */
+public final class AsyncObserverPool {
+
+  private final ThreadPoolExecutor executor;
+  private final long maxQueuedMetrics;
+  private final AtomicLong queuedMetrics = new AtomicLong();
+  private final Set<AsyncMetricObserver> observers = ConcurrentHashMap.newKeySet();
+  private final List<Monitor<?>> monitors;
+
+  /**
+   * Create a new pool.
+   *
+   * @param name             name of the pool, used for the thread names and gauges
+   * @param threads          number of threads used to update observers
+   * @param maxQueuedMetrics maximum number of metrics that can be queued across all
+   *                         observers using the pool
+   */
+  public AsyncObserverPool(String name, int threads, long maxQueuedMetrics) {
+    Preconditions.checkNotNull(name, "name");
+    Preconditions.checkArgument(threads > 0, "threads must be positive");
+    Preconditions.checkArgument(maxQueuedMetrics > 0L, "maxQueuedMetrics must be positive");
+    this.maxQueuedMetrics = maxQueuedMetrics;
+
+    // At most one task per observer is queued, so the queue is bounded by the number of
+    // observers
+    final String fmt = "ServoAsyncObserverPool-" + name.replace("%", "%%") + "-%d";
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), ThreadFactories.withName(fmt));
+
+    this.monitors = UnmodifiableList.<Monitor<?>>of(
+        new BasicGauge<>(
+            MonitorConfig.builder("servo.asyncObserverPool.queuedMetrics")
+                .withTag("pool", name)
+                .build(),
+            this::getQueuedMetrics),
+        new BasicGauge<>(
+            MonitorConfig.builder("servo.asyncObserverPool.queueAge")
+                .withTag("pool", name)
+                .build(),
+            this::getOldestUpdateAge));
+    for (Monitor<?> m : monitors) {
+      DefaultMonitorRegistry.getInstance().register(m);
+    }
+  }
+
+  /**
+   * Try to reserve space for a number of metrics. Returns false if there is not enough space.
+   */
+  boolean reserve(long n) {
+    long current;
+    do {
+      current = queuedMetrics.get();
+      if (current + n > maxQueuedMetrics) {
+        return false;
+      }
+    } while (!queuedMetrics.compareAndSet(current, current + n));
+    return true;
+  }
+
+  /**
+   * Release space that was previously reserved.
+   */
+  void release(long n) {
+    queuedMetrics.addAndGet(-n);
+  }
+
+  void execute(Runnable task) {
+    executor.execute(task);
+  }
+
+  void register(AsyncMetricObserver observer) {
+    observers.add(observer);
+  }
+
+  void unregister(AsyncMetricObserver observer) {
+    observers.remove(observer);
+  }
+
+  /**
+   * Returns the number of metrics that are queued across all observers.
+   */
+  public long getQueuedMetrics() {
+    return queuedMetrics.get();
+  }
+
+  /**
+   * Returns the age in milliseconds of the oldest update that is queued, or 0 if there are no
+   * queued updates.
+   */
+  public long getOldestUpdateAge() {
+    final long now = System.currentTimeMillis();
+    long age = 0L;
+    for (AsyncMetricObserver observer : observers) {
+      final long since = observer.getPendingSince();
+      if (since >= 0L) {
+        age = Math.max(age, now - since);
+      }
+    }
+    return age;
+  }
+
+  /**
+   * Stop the threads and unregister the gauges for the pool. Updates that are still queued
+   * will be dropped.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+    for (Monitor<?> m : monitors) {
+      DefaultMonitorRegistry.getInstance().unregister(m);
+    }
+  }
+}
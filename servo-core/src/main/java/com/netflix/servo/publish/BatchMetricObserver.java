@@ -0,0 +1,30 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.MetricBatch;
+
+/**
+ * Observer that can receive updates as a {@link MetricBatch}. The batch passed in should not
+ * be modified and should not be retained after the update returns unless the observer is the
+ * only consumer.
+ */
+public interface BatchMetricObserver extends MetricObserver {
+  /**
+   * Invoked with the most recent values for a set of metrics.
+   */
+  void update(MetricBatch batch);
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.MetricBatch;
+
+/**
+ * Poller that can return the values for a set of metrics as a {@link MetricBatch}. This avoids
+ * allocating a {@link com.netflix.servo.Metric} for each value.
+ */
+public interface BatchMetricPoller extends MetricPoller {
+  /**
+   * Fetch the current values for a set of metrics that match the provided
+   * filter. This method has the same requirements as {@link #poll(MetricFilter)}.
+   *
+   * @param filter restricts the set of metrics
+   * @return batch of current metric values
+   */
+  MetricBatch pollBatch(MetricFilter filter);
+}
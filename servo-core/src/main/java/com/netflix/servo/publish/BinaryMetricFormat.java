@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and encoding helpers for the binary metric log written by
+ * {@link BinaryMetricObserver} and read by {@link BinaryMetricReader}.
+ * <p/>
+ * A file starts with a header of the magic number and a format version. It is followed by a
+ * sequence of records, each starting with a byte indicating the type:
+ * <ul>
+ * <li>Config: assigns the next id to a {@link com.netflix.servo.monitor.MonitorConfig}. It
+ * has the name and then the number of tags followed by the key and value for each tag. A
+ * config record is written before the first poll record that uses it.</li>
+ * <li>Poll: the values for an update. It has the base timestamp, the max timestamp, the
+ * size in bytes of the entries and the number of entries. Each entry has the difference
+ * between its config id and the id of the previous entry, a flags byte with the value type,
+ * an optional timestamp offset from the base, and the value. Doubles that are integers are
+ * written as variable length longs since many metrics, such as counts, are integral.</li>
+ * </ul>
+ * Integers in the entries and strings use variable length encoding so that typical ids and
+ * lengths fit in a single byte. All other values are big-endian.
+ */
+final class BinaryMetricFormat {
+
+  private BinaryMetricFormat() {
+  }
+
+  /** Magic number at the start of the file, "SRVB" in ASCII. */
+  static final int MAGIC = 0x53525642;
+
+  /** Version of the format. */
+  static final byte VERSION = 1;
+
+  /** Record type for a config dictionary entry. */
+  static final byte CONFIG_RECORD = 1;
+
+  /** Record type for the values of an update. */
+  static final byte POLL_RECORD = 2;
+
+  /** Value type for a double value. */
+  static final int TYPE_DOUBLE = 0;
+
+  /** Value type for a string value. */
+  static final int TYPE_STRING = 1;
+
+  /**
+   * Value type for a double value that is an integer, written as a zig-zag encoded
+   * variable length long.
+   */
+  static final int TYPE_LONG = 2;
+
+  /** Mask for the value type in the flags. */
+  static final int TYPE_MASK = 0x0F;
+
+  /** Flag indicating that the entry has a timestamp offset. */
+  static final int FLAG_TIMESTAMP = 0x80;
+
+  /** Size of the fixed part of a poll record including the type. */
+  static final int POLL_HEADER_SIZE = 1 + 8 + 8 + 4 + 4;
+
+  /**
+   * Returns a buffer with at least {@code n} bytes remaining. If the buffer needs to grow,
+   * then a new buffer will be returned with the contents copied.
+   */
+  static ByteBuffer ensureRemaining(ByteBuffer buf, int n) {
+    if (buf.remaining() >= n) {
+      return buf;
+    }
+    final int capacity = Math.max(buf.capacity() * 2, buf.position() + n);
+    final ByteBuffer grown = ByteBuffer.allocate(capacity);
+    buf.flip();
+    grown.put(buf);
+    return grown;
+  }
+
+  /**
+   * Zig-zag encode an int so that small negative values are also small.
+   */
+  static int zigZag(int v) {
+    return (v << 1) ^ (v >> 31);
+  }
+
+  /**
+   * Decode a value encoded with {@link #zigZag(int)}.
+   */
+  static int unZigZag(int v) {
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  /**
+   * Zig-zag encode a long so that small negative values are also small.
+   */
+  static long zigZag(long v) {
+    return (v << 1) ^ (v >> 63);
+  }
+
+  /**
+   * Decode a value encoded with {@link #zigZag(long)}.
+   */
+  static long unZigZag(long v) {
+    return (v >>> 1) ^ -(v & 1L);
+  }
+
+  /**
+   * Returns true if the value can be stored as a long without losing information.
+   */
+  static boolean isIntegral(double v) {
+    return Double.doubleToRawLongBits(v) == Double.doubleToRawLongBits((double) (long) v);
+  }
+
+  /**
+   * Write an unsigned variable length long, the buffer must have at least 10 bytes remaining.
+   */
+  static void putVarLong(ByteBuffer buf, long v) {
+    long value = v;
+    while ((value & ~0x7FL) != 0L) {
+      buf.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buf.put((byte) value);
+  }
+
+  /**
+   * Read an unsigned variable length long.
+   */
+  static long getVarLong(ByteBuffer buf) {
+    long value = 0L;
+    int shift = 0;
+    byte b;
+    do {
+      b = buf.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  /**
+   * Write a string as the length followed by the UTF-8 bytes. Returns the buffer, which may
+   * be a new instance if it needed to grow.
+   */
+  static ByteBuffer putString(ByteBuffer buf, String s) {
+    final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    final ByteBuffer b = ensureRemaining(buf, bytes.length + 5);
+    putVarLong(b, bytes.length);
+    b.put(bytes);
+    return b;
+  }
+
+  /**
+   * Read a string written with {@link #putString(ByteBuffer, String)}.
+   */
+  static String getString(ByteBuffer buf) {
+    final int length = (int) getVarLong(buf);
+    final byte[] bytes = new byte[length];
+    buf.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.tag.Tag;
+import com.netflix.servo.util.Clock;
+import com.netflix.servo.util.ClockWithOffset;
+import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static com.netflix.servo.publish.BinaryMetricFormat.ensureRemaining;
+import static com.netflix.servo.publish.BinaryMetricFormat.putString;
+import static com.netflix.servo.publish.BinaryMetricFormat.putVarLong;
+import static com.netflix.servo.publish.BinaryMetricFormat.zigZag;
+
+/**
+ * Writes observations to a compact binary log that can be read back with
+ * {@link BinaryMetricReader}. Each {@link MonitorConfig} is written once per file and
+ * assigned an id. After that, an update only needs the id deltas and the values, so the
+ * files are much smaller than the text format written by {@link FileMetricObserver}.
+ * See {@link BinaryMetricFormat} for the details of the format.
+ * <p/>
+ * The file is kept open across updates. If a roll interval is set, a new file is started
+ * for the first update after each interval boundary. Call {@link #stop()} to close the
+ * current file.
+ */
+public final class BinaryMetricObserver extends BaseMetricObserver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BinaryMetricObserver.class);
+
+  private static final String FILE_DATE_FORMAT = "yyyy_MM_dd_HH_mm_ss_SSS";
+
+  /**
+   * Create a new builder for an observer that writes to files in the specified directory.
+   */
+  public static Builder builder(String name, File dir) {
+    return new Builder(name, dir);
+  }
+
+  private final File dir;
+  private final SimpleDateFormat fileFormat;
+  private final long rollIntervalMillis;
+  private final Clock clock;
+
+  // Guarded by synchronizing on this instance
+  private final Map<MonitorConfig, Integer> ids = new HashMap<>();
+  private final ByteBuffer header = ByteBuffer.allocate(BinaryMetricFormat.POLL_HEADER_SIZE);
+  private ByteBuffer dictionary = ByteBuffer.allocate(4096);
+  private ByteBuffer entries = ByteBuffer.allocate(64 * 1024);
+  private FileChannel channel;
+  private File currentFile;
+  private long rollTime;
+  private boolean stopped = false;
+
+  private BinaryMetricObserver(Builder builder) {
+    super(builder.name);
+    this.dir = builder.dir;
+    this.fileFormat = new SimpleDateFormat(
+        String.format("'%s'_%s'.bin'", builder.name, FILE_DATE_FORMAT));
+    this.fileFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    this.rollIntervalMillis = builder.rollIntervalMillis;
+    this.clock = builder.clock;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void updateImpl(List<Metric> metrics) {
+    Preconditions.checkNotNull(metrics, "metrics");
+    if (stopped) {
+      throw new IllegalStateException("observer " + getName() + " has been stopped");
+    }
+    if (metrics.isEmpty()) {
+      return;
+    }
+
+    final long now = clock.now();
+    try {
+      if (channel != null && rollIntervalMillis > 0L && now >= rollTime) {
+        close();
+      }
+      if (channel == null) {
+        open(now);
+      }
+      write(metrics);
+    } catch (IOException e) {
+      incrementFailedCount();
+      LOGGER.error("failed to write update to file {}", currentFile, e);
+      closeQuietly();
+    }
+  }
+
+  /**
+   * Returns the file that is currently being written or null if there is no open file.
+   */
+  @VisibleForTesting
+  synchronized File getCurrentFile() {
+    return channel == null ? null : currentFile;
+  }
+
+  /**
+   * Close the current file. After the observer is stopped it cannot be updated.
+   */
+  public synchronized void stop() {
+    stopped = true;
+    closeQuietly();
+  }
+
+  private void open(long now) throws IOException {
+    currentFile = new File(dir, fileFormat.format(new Date(now)));
+    channel = FileChannel.open(currentFile.toPath(),
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    ids.clear();
+    if (rollIntervalMillis > 0L) {
+      rollTime = now - now % rollIntervalMillis + rollIntervalMillis;
+    }
+
+    final ByteBuffer fileHeader = ByteBuffer.allocate(5);
+    fileHeader.putInt(BinaryMetricFormat.MAGIC).put(BinaryMetricFormat.VERSION).flip();
+    writeFully(fileHeader);
+    LOGGER.debug("opened file {}", currentFile);
+  }
+
+  private void close() throws IOException {
+    final FileChannel ch = channel;
+    channel = null;
+    ch.close();
+  }
+
+  private void closeQuietly() {
+    if (channel != null) {
+      try {
+        close();
+      } catch (IOException e) {
+        LOGGER.warn("failed to close file {}", currentFile, e);
+      }
+    }
+  }
+
+  private int idFor(MonitorConfig config) {
+    final Integer id = ids.get(config);
+    if (id != null) {
+      return id;
+    }
+
+    final int newId = ids.size();
+    ids.put(config, newId);
+    dictionary = ensureRemaining(dictionary, 6);
+    dictionary.put(BinaryMetricFormat.CONFIG_RECORD);
+    dictionary = putString(dictionary, config.getName());
+    putVarLong(dictionary, config.getTags().size());
+    for (Tag tag : config.getTags()) {
+      dictionary = putString(dictionary, tag.getKey());
+      dictionary = putString(dictionary, tag.getValue());
+    }
+    return newId;
+  }
+
+  private void write(List<Metric> metrics) throws IOException {
+    long base = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (Metric m : metrics) {
+      base = Math.min(base, m.getTimestamp());
+      max = Math.max(max, m.getTimestamp());
+    }
+
+    dictionary.clear();
+    entries.clear();
+    int prevId = -1;
+    for (Metric m : metrics) {
+      final int id = idFor(m.getConfig());
+      final long offset = m.getTimestamp() - base;
+      final boolean numeric = m.hasNumberValue();
+      final double v = numeric ? m.getDoubleValue() : Double.NaN;
+      final boolean integral = numeric && BinaryMetricFormat.isIntegral(v);
+      int flags = integral
+          ? BinaryMetricFormat.TYPE_LONG
+          : (numeric ? BinaryMetricFormat.TYPE_DOUBLE : BinaryMetricFormat.TYPE_STRING);
+      if (offset != 0L) {
+        flags |= BinaryMetricFormat.FLAG_TIMESTAMP;
+      }
+
+      entries = ensureRemaining(entries, 5 + 1 + 10 + 10);
+      putVarLong(entries, zigZag(id - prevId) & 0xFFFFFFFFL);
+      entries.put((byte) flags);
+      if (offset != 0L) {
+        putVarLong(entries, offset);
+      }
+      if (integral) {
+        putVarLong(entries, zigZag((long) v));
+      } else if (numeric) {
+        entries.putDouble(v);
+      } else {
+        entries = putString(entries, String.valueOf(m.getValue()));
+      }
+      prevId = id;
+    }
+
+    header.clear();
+    header.put(BinaryMetricFormat.POLL_RECORD)
+        .putLong(base)
+        .putLong(max)
+        .putInt(entries.position())
+        .putInt(metrics.size());
+
+    dictionary.flip();
+    header.flip();
+    entries.flip();
+    final ByteBuffer[] buffers = {dictionary, header, entries};
+    while (entries.hasRemaining()) {
+      channel.write(buffers);
+    }
+  }
+
+  private void writeFully(ByteBuffer buf) throws IOException {
+    while (buf.hasRemaining()) {
+      channel.write(buf);
+    }
+  }
+
+  /**
+   * Helper for creating a {@link BinaryMetricObserver}.
+   */
+  public static final class Builder {
+    private final String name;
+    private final File dir;
+    private long rollIntervalMillis = 0L;
+    private Clock clock = ClockWithOffset.INSTANCE;
+
+    Builder(String name, File dir) {
+      this.name = Preconditions.checkNotNull(name, "name");
+      this.dir = Preconditions.checkNotNull(dir, "dir");
+    }
+
+    /**
+     * Start a new file for the first update after each interval boundary. A value of 0 means
+     * a single file will be used for the lifetime of the observer.
+     */
+    public Builder withRollInterval(long interval, TimeUnit unit) {
+      Preconditions.checkArgument(interval >= 0L, "interval cannot be negative");
+      this.rollIntervalMillis = unit.toMillis(interval);
+      return this;
+    }
+
+    /**
+     * Clock used for the file names and roll interval. Useful for unit testing.
+     */
+    @VisibleForTesting
+    Builder withClock(Clock clock) {
+      this.clock = Preconditions.checkNotNull(clock, "clock");
+      return this;
+    }
+
+    /**
+     * Create the observer.
+     */
+    public BinaryMetricObserver build() {
+      return new BinaryMetricObserver(this);
+    }
+  }
+}
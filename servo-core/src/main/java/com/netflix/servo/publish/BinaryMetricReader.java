@@ -0,0 +1,274 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.netflix.servo.publish.BinaryMetricFormat.getString;
+import static com.netflix.servo.publish.BinaryMetricFormat.getVarLong;
+import static com.netflix.servo.publish.BinaryMetricFormat.unZigZag;
+
+/**
+ * Reads files written by {@link BinaryMetricObserver}. The file is memory mapped and
+ * decoded directly from the mapped buffer. The filter is checked once for each config in
+ * the dictionary, and poll records outside of the requested time range are skipped without
+ * decoding the entries.
+ * <p/>
+ * If the file ends with a partially written record, for example because the process was
+ * killed during an update, then the partial record is ignored.
+ */
+public final class BinaryMetricReader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BinaryMetricReader.class);
+
+  /** Integral values below this are written as a long. */
+  private static final double MAX_INTEGRAL = 1e15;
+
+  /**
+   * Receives the values that match a scan.
+   */
+  public interface Visitor {
+    /**
+     * Called for each numeric value.
+     */
+    void visit(MonitorConfig config, long timestamp, double value);
+
+    /**
+     * Called for each non-numeric value.
+     */
+    void visit(MonitorConfig config, long timestamp, String value);
+  }
+
+  private final File file;
+  private final ByteBuffer data;
+
+  /**
+   * Map a file for reading. The file must be smaller than 2GB.
+   */
+  public BinaryMetricReader(File file) throws IOException {
+    this.file = Preconditions.checkNotNull(file, "file");
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      Preconditions.checkArgument(size <= Integer.MAX_VALUE, "file is too large: " + file);
+      data = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+    }
+
+    final ByteBuffer buf = data.duplicate();
+    if (buf.remaining() < 5
+        || buf.getInt() != BinaryMetricFormat.MAGIC
+        || buf.get() != BinaryMetricFormat.VERSION) {
+      throw new IOException("not a binary metric log: " + file);
+    }
+  }
+
+  /**
+   * Pass all values matching the filter with a timestamp in the range
+   * {@code [start, end)} to the visitor.
+   */
+  public void scan(MetricFilter filter, long start, long end, Visitor visitor)
+      throws IOException {
+    Preconditions.checkNotNull(filter, "filter");
+    Preconditions.checkNotNull(visitor, "visitor");
+    final ByteBuffer buf = data.duplicate();
+    buf.position(5);
+
+    final Dictionary dictionary = new Dictionary();
+    while (buf.hasRemaining()) {
+      try {
+        final byte type = buf.get();
+        if (type == BinaryMetricFormat.CONFIG_RECORD) {
+          final MonitorConfig config = readConfig(buf);
+          dictionary.add(config, filter.matches(config));
+        } else if (type == BinaryMetricFormat.POLL_RECORD) {
+          final long base = buf.getLong();
+          final long max = buf.getLong();
+          final int length = buf.getInt();
+          final int count = buf.getInt();
+          if (length > buf.remaining()) {
+            LOGGER.warn("ignoring truncated record at end of {}", file);
+            return;
+          }
+
+          final int next = buf.position() + length;
+          if (max >= start && base < end) {
+            readEntries(buf, count, base, start, end, dictionary, visitor);
+          }
+          buf.position(next);
+        } else {
+          throw new IOException("unknown record type " + type + " in " + file);
+        }
+      } catch (BufferUnderflowException e) {
+        LOGGER.warn("ignoring truncated record at end of {}", file);
+        return;
+      }
+    }
+  }
+
+  private static MonitorConfig readConfig(ByteBuffer buf) {
+    final MonitorConfig.Builder builder = MonitorConfig.builder(getString(buf));
+    final int numTags = (int) getVarLong(buf);
+    for (int i = 0; i < numTags; ++i) {
+      final String key = getString(buf);
+      builder.withTag(key, getString(buf));
+    }
+    return builder.build();
+  }
+
+  private static void readEntries(ByteBuffer buf, int count, long base, long start, long end,
+                                  Dictionary dictionary, Visitor visitor) throws IOException {
+    final MonitorConfig[] configs = dictionary.configs;
+    final boolean[] matches = dictionary.matches;
+    int id = -1;
+    for (int i = 0; i < count; ++i) {
+      id += unZigZag((int) getVarLong(buf));
+      final int flags = buf.get();
+      final long t = ((flags & BinaryMetricFormat.FLAG_TIMESTAMP) != 0)
+          ? base + getVarLong(buf)
+          : base;
+      final boolean selected = matches[id] && t >= start && t < end;
+      final int type = flags & BinaryMetricFormat.TYPE_MASK;
+      if (type == BinaryMetricFormat.TYPE_LONG) {
+        final double v = unZigZag(getVarLong(buf));
+        if (selected) {
+          visitor.visit(configs[id], t, v);
+        }
+      } else if (type == BinaryMetricFormat.TYPE_DOUBLE) {
+        final double v = buf.getDouble();
+        if (selected) {
+          visitor.visit(configs[id], t, v);
+        }
+      } else if (type == BinaryMetricFormat.TYPE_STRING) {
+        final String v = getString(buf);
+        if (selected) {
+          visitor.visit(configs[id], t, v);
+        }
+      } else {
+        throw new IOException("unknown value type " + type);
+      }
+    }
+  }
+
+  /**
+   * Configs read from the file so far, indexed by id, and whether they match the filter.
+   */
+  private static final class Dictionary {
+    private MonitorConfig[] configs = new MonitorConfig[64];
+    private boolean[] matches = new boolean[64];
+    private int size = 0;
+
+    void add(MonitorConfig config, boolean match) {
+      if (size == configs.length) {
+        configs = Arrays.copyOf(configs, size * 2);
+        matches = Arrays.copyOf(matches, size * 2);
+      }
+      configs[size] = config;
+      matches[size] = match;
+      ++size;
+    }
+  }
+
+  /**
+   * Returns all values matching the filter with a timestamp in the range
+   * {@code [start, end)}.
+   */
+  public List<Metric> read(MetricFilter filter, long start, long end) throws IOException {
+    final List<Metric> metrics = new ArrayList<>();
+    scan(filter, start, end, new Visitor() {
+      @Override
+      public void visit(MonitorConfig config, long timestamp, double value) {
+        metrics.add(Metric.ofDouble(config, timestamp, value));
+      }
+
+      @Override
+      public void visit(MonitorConfig config, long timestamp, String value) {
+        metrics.add(new Metric(config, timestamp, value));
+      }
+    });
+    return metrics;
+  }
+
+  /**
+   * Write all values using the tab separated text format of {@link FileMetricObserver}.
+   */
+  public void writeText(final Writer out) throws IOException {
+    final IOException[] failure = new IOException[1];
+    scan(BasicMetricFilter.MATCH_ALL, Long.MIN_VALUE, Long.MAX_VALUE, new Visitor() {
+      @Override
+      public void visit(MonitorConfig config, long timestamp, double value) {
+        visit(config, timestamp, formatValue(value));
+      }
+
+      @Override
+      public void visit(MonitorConfig config, long timestamp, String value) {
+        if (failure[0] == null) {
+          try {
+            out.append(config.getName()).append('\t')
+                .append(config.getTags().toString()).append('\t')
+                .append(value).append('\n');
+          } catch (IOException e) {
+            failure[0] = e;
+          }
+        }
+      }
+    });
+    if (failure[0] != null) {
+      throw failure[0];
+    }
+    out.flush();
+  }
+
+  /**
+   * Integral values are written without a fraction so they match the text written by
+   * {@link FileMetricObserver} for integer metrics.
+   */
+  private static String formatValue(double value) {
+    return (value == Math.rint(value) && Math.abs(value) < MAX_INTEGRAL)
+        ? Long.toString((long) value)
+        : Double.toString(value);
+  }
+
+  /**
+   * Convert a binary metric log to the text format used by {@link FileMetricObserver}.
+   *
+   * @param binary file written by {@link BinaryMetricObserver}
+   * @param text   destination for the text output, it will be overwritten if it exists
+   */
+  public static void convertToText(File binary, File text) throws IOException {
+    final BinaryMetricReader reader = new BinaryMetricReader(binary);
+    try (Writer out = new OutputStreamWriter(
+        Files.newOutputStream(text.toPath()), StandardCharsets.UTF_8)) {
+      reader.writeText(out);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.Versioned;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filter that remembers the decision of another filter for each config. This is useful for
+ * filters that are expensive to evaluate, such as {@link RegexMetricFilter}, when the same
+ * configs are checked repeatedly, for example on every poll. The delegate filter must be
+ * deterministic, if the rules it uses change then {@link #invalidateAll()} should be called.
+ * The version is changed whenever decisions are invalidated, so that callers such as
+ * {@link MonitorRegistryMetricPoller} that keep their own copy of the decisions know to
+ * recompute them.
+ * <p/>
+ * The number of cached decisions is bounded. When the limit is reached the cache is cleared,
+ * so that a large amount of churn in the set of configs cannot cause it to grow without
+ * bound while the decisions for a stable set of configs will quickly be cached again.
+ */
+public final class CachingMetricFilter implements MetricFilter, Versioned {
+
+  /** Default maximum number of decisions to keep. */
+  public static final int DEFAULT_MAX_SIZE = 100000;
+
+  private final MetricFilter delegate;
+  private final int maxSize;
+  private final Map<MonitorConfig, Boolean> decisions = new ConcurrentHashMap<>();
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * Creates a new caching filter with the default maximum size.
+   *
+   * @param delegate filter used to compute the decision for configs that are not cached
+   */
+  public CachingMetricFilter(MetricFilter delegate) {
+    this(delegate, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Creates a new caching filter.
+   *
+   * @param delegate filter used to compute the decision for configs that are not cached
+   * @param maxSize  maximum number of decisions to keep
+   */
+  public CachingMetricFilter(MetricFilter delegate, int maxSize) {
+    Preconditions.checkArgument(maxSize > 0, "maxSize must be greater than 0");
+    this.delegate = Preconditions.checkNotNull(delegate, "delegate");
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the filter used to compute the decisions.
+   */
+  public MetricFilter getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean matches(MonitorConfig config) {
+    Boolean decision = decisions.get(config);
+    if (decision == null) {
+      decision = delegate.matches(config);
+      if (decisions.size() >= maxSize) {
+        decisions.clear();
+      }
+      decisions.put(config, decision);
+    }
+    return decision;
+  }
+
+  /**
+   * Remove the cached decision for a config.
+   */
+  public void invalidate(MonitorConfig config) {
+    decisions.remove(config);
+    version.incrementAndGet();
+  }
+
+  /**
+   * Remove all cached decisions.
+   */
+  public void invalidateAll() {
+    decisions.clear();
+    version.incrementAndGet();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Returns the number of cached decisions.
+   */
+  public int size() {
+    return decisions.size();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming decoder for a {@link CompressedChunk}. The samples are decoded one at a time
+ * without allocating:
+ *
+ * <pre>
+ * ChunkDecoder decoder = chunk.decoder();
+ * while (decoder.next()) {
+ *   process(decoder.getTimestamp(), decoder.getValue());
+ * }
+ * </pre>
+ *
+ * This class is not thread safe.
+ */
+public final class ChunkDecoder {
+
+  private final ByteBuffer data;
+  private final int count;
+
+  private long bitPosition = 0L;
+  private int index = 0;
+
+  private long timestamp;
+  private long delta;
+  private long bits;
+  private int leading;
+  private int trailing;
+
+  ChunkDecoder(ByteBuffer data, int count) {
+    this.data = data;
+    this.count = count;
+  }
+
+  /**
+   * Advance to the next sample. Returns false if there are no more samples.
+   */
+  public boolean next() {
+    if (index >= count) {
+      return false;
+    }
+
+    if (index == 0) {
+      timestamp = readBits(64);
+      bits = readBits(64);
+    } else {
+      delta += readDeltaOfDelta();
+      timestamp += delta;
+      bits ^= readXor();
+    }
+    ++index;
+    return true;
+  }
+
+  /**
+   * Returns the timestamp of the current sample.
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Returns the value of the current sample.
+   */
+  public double getValue() {
+    return Double.longBitsToDouble(bits);
+  }
+
+  private long readDeltaOfDelta() {
+    if (readBits(1) == 0L) {
+      return 0L;
+    } else if (readBits(1) == 0L) {
+      return signExtend(readBits(7), 7);
+    } else if (readBits(1) == 0L) {
+      return signExtend(readBits(9), 9);
+    } else if (readBits(1) == 0L) {
+      return signExtend(readBits(12), 12);
+    } else {
+      return readBits(64);
+    }
+  }
+
+  private long readXor() {
+    if (readBits(1) == 0L) {
+      return 0L;
+    }
+    if (readBits(1) == 1L) {
+      leading = (int) readBits(5);
+      int meaningful = (int) readBits(6);
+      if (meaningful == 0) {
+        meaningful = 64;
+      }
+      trailing = 64 - leading - meaningful;
+    }
+    return readBits(64 - leading - trailing) << trailing;
+  }
+
+  private static long signExtend(long value, int n) {
+    final int shift = 64 - n;
+    return (value << shift) >> shift;
+  }
+
+  /**
+   * Read {@code n} bits, most significant bit first.
+   */
+  private long readBits(int n) {
+    long value = 0L;
+    int remaining = n;
+    while (remaining > 0) {
+      final int b = data.get((int) (bitPosition >>> 3)) & 0xFF;
+      final int available = 8 - (int) (bitPosition & 7);
+      final int take = Math.min(available, remaining);
+      final int bitsValue = (b >>> (available - take)) & ((1 << take) - 1);
+      value = (value << take) | bitsValue;
+      bitPosition += take;
+      remaining -= take;
+    }
+    return value;
+  }
+}
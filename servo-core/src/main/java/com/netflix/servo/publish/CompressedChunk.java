@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Immutable block of samples compressed by {@link GorillaEncoder}. Use {@link #decoder()}
+ * to read the samples.
+ */
+public final class CompressedChunk {
+
+  private final ByteBuffer data;
+  private final int count;
+  private final long startTime;
+  private final long endTime;
+
+  CompressedChunk(ByteBuffer data, int count, long startTime, long endTime) {
+    this.data = data;
+    this.count = count;
+    this.startTime = startTime;
+    this.endTime = endTime;
+  }
+
+  /**
+   * Returns the number of samples in the chunk.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns the number of bytes used for the encoded samples.
+   */
+  public int sizeInBytes() {
+    return data.capacity();
+  }
+
+  /**
+   * Returns true if the encoded data is stored outside of the java heap.
+   */
+  public boolean isOffHeap() {
+    return data.isDirect();
+  }
+
+  /**
+   * Returns the timestamp of the first sample.
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Returns the timestamp of the last sample.
+   */
+  public long getEndTime() {
+    return endTime;
+  }
+
+  /**
+   * Returns a new decoder positioned before the first sample.
+   */
+  public ChunkDecoder decoder() {
+    return new ChunkDecoder(data.duplicate(), count);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "CompressedChunk{count=" + count + ", startTime=" + startTime
+        + ", endTime=" + endTime + ", bytes=" + sizeInBytes() + '}';
+  }
+}
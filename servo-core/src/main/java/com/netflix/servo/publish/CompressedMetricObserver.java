@@ -0,0 +1,323 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.Metric;
+import com.netflix.servo.monitor.Counter;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.monitor.Monitors;
+import com.netflix.servo.util.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Observer that keeps a compressed in-memory history of the numeric values for each series.
+ * Samples are encoded with {@link GorillaEncoder} into chunks that cover a fixed, aligned
+ * time range. When a sample for the next range arrives the current chunk is sealed into an
+ * immutable {@link CompressedChunk}, optionally copied into a direct buffer so the history
+ * is kept outside of the java heap. Chunks that end before the retention window are
+ * dropped, as are series that have not been updated within the retention window.
+ * <p/>
+ * For values reported at a regular interval the cost is typically between 2 bits and
+ * 2 bytes per sample depending on how much the value changes, plus a fixed overhead for
+ * each chunk and series. Non-numeric values are ignored. Memory is bounded by the maximum
+ * number of series, if the limit is reached then new series are dropped.
+ */
+public final class CompressedMetricObserver extends BaseMetricObserver {
+
+  private static final Counter DROPPED_SERIES =
+      newCounter("servo.compressedMetricObserver.droppedSeries");
+
+  private static final Counter OUT_OF_ORDER =
+      newCounter("servo.compressedMetricObserver.outOfOrder");
+
+  private static Counter newCounter(String name) {
+    Counter c = Monitors.newCounter(name);
+    DefaultMonitorRegistry.getInstance().register(c);
+    return c;
+  }
+
+  /**
+   * Receives the samples found by {@link #scan(MetricFilter, long, long, Visitor)}.
+   */
+  public interface Visitor {
+    /**
+     * Called for each sample that matches.
+     */
+    void visit(MonitorConfig config, long timestamp, double value);
+  }
+
+  /**
+   * Create a new builder for an observer.
+   */
+  public static Builder builder(String name) {
+    return new Builder(name);
+  }
+
+  private final long chunkMillis;
+  private final long retentionMillis;
+  private final boolean offHeap;
+  private final int maxSeries;
+
+  private final Map<MonitorConfig, Series> series = new ConcurrentHashMap<>();
+  private final AtomicInteger numSeries = new AtomicInteger();
+  private final AtomicLong nextSweep = new AtomicLong();
+
+  private CompressedMetricObserver(Builder builder) {
+    super(builder.name);
+    chunkMillis = builder.chunkMillis;
+    retentionMillis = builder.retentionMillis;
+    offHeap = builder.offHeap;
+    maxSeries = builder.maxSeries;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void updateImpl(List<Metric> metrics) {
+    long latest = 0L;
+    for (Metric m : metrics) {
+      if (m.hasNumberValue()) {
+        final Series s = getOrCreate(m.getConfig());
+        if (s != null) {
+          s.append(m.getTimestamp(), m.getDoubleValue());
+        }
+        latest = Math.max(latest, m.getTimestamp());
+      }
+    }
+    sweep(latest);
+  }
+
+  private Series getOrCreate(MonitorConfig config) {
+    Series s = series.get(config);
+    if (s == null) {
+      if (numSeries.incrementAndGet() > maxSeries) {
+        numSeries.decrementAndGet();
+        DROPPED_SERIES.increment();
+        return null;
+      }
+      final Series created = new Series();
+      s = series.putIfAbsent(config, created);
+      if (s == null) {
+        s = created;
+      } else {
+        numSeries.decrementAndGet();
+      }
+    }
+    return s;
+  }
+
+  /**
+   * Remove series that have not been updated within the retention window. The sweep is
+   * done at most once per chunk interval.
+   */
+  private void sweep(long now) {
+    final long next = nextSweep.get();
+    if (now >= next && nextSweep.compareAndSet(next, now + chunkMillis)) {
+      final long cutoff = now - retentionMillis;
+      Iterator<Series> it = series.values().iterator();
+      while (it.hasNext()) {
+        if (it.next().isOlderThan(cutoff)) {
+          it.remove();
+          numSeries.decrementAndGet();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of series that are stored.
+   */
+  public int size() {
+    return series.size();
+  }
+
+  /**
+   * Returns the configs for all series that are stored.
+   */
+  public Set<MonitorConfig> getConfigs() {
+    return Collections.unmodifiableSet(series.keySet());
+  }
+
+  /**
+   * Returns the total number of bytes used for the encoded samples of all series.
+   */
+  public long sizeInBytes() {
+    long total = 0L;
+    for (Series s : series.values()) {
+      total += s.sizeInBytes();
+    }
+    return total;
+  }
+
+  /**
+   * Returns the chunks for a series ordered by time. The last chunk is a snapshot of the
+   * samples that have been added to the current chunk. An empty list will be returned if
+   * there is no data for the series.
+   */
+  public List<CompressedChunk> getChunks(MonitorConfig config) {
+    final Series s = series.get(config);
+    return (s == null) ? Collections.emptyList() : s.chunks();
+  }
+
+  /**
+   * Decode all samples in the time range {@code [start, end]} for series matching the
+   * filter.
+   */
+  public void scan(MetricFilter filter, long start, long end, Visitor visitor) {
+    for (Map.Entry<MonitorConfig, Series> entry : series.entrySet()) {
+      final MonitorConfig config = entry.getKey();
+      if (!filter.matches(config)) {
+        continue;
+      }
+      for (CompressedChunk chunk : entry.getValue().chunks()) {
+        if (chunk.getEndTime() < start || chunk.getStartTime() > end) {
+          continue;
+        }
+        final ChunkDecoder decoder = chunk.decoder();
+        while (decoder.next()) {
+          final long t = decoder.getTimestamp();
+          if (t > end) {
+            break;
+          } else if (t >= start) {
+            visitor.visit(config, t, decoder.getValue());
+          }
+        }
+      }
+    }
+  }
+
+  private final class Series {
+    private final ArrayDeque<CompressedChunk> sealed = new ArrayDeque<>();
+    private GorillaEncoder current;
+    private long currentEnd;
+
+    synchronized void append(long timestamp, double value) {
+      if (current != null && timestamp >= currentEnd) {
+        sealed.addLast(current.toChunk(offHeap));
+        current = null;
+      }
+      if (current == null) {
+        current = new GorillaEncoder();
+        currentEnd = timestamp - Math.floorMod(timestamp, chunkMillis) + chunkMillis;
+      }
+      if (!current.append(timestamp, value)) {
+        OUT_OF_ORDER.increment();
+      }
+
+      final long cutoff = timestamp - retentionMillis;
+      while (!sealed.isEmpty() && sealed.peekFirst().getEndTime() < cutoff) {
+        sealed.removeFirst();
+      }
+    }
+
+    synchronized boolean isOlderThan(long cutoff) {
+      return current == null || current.getEndTime() < cutoff;
+    }
+
+    synchronized long sizeInBytes() {
+      long total = (current == null) ? 0L : current.sizeInBytes();
+      for (CompressedChunk chunk : sealed) {
+        total += chunk.sizeInBytes();
+      }
+      return total;
+    }
+
+    synchronized List<CompressedChunk> chunks() {
+      final List<CompressedChunk> chunks = new ArrayList<>(sealed.size() + 1);
+      chunks.addAll(sealed);
+      if (current != null && current.size() > 0) {
+        chunks.add(current.toChunk(false));
+      }
+      return chunks;
+    }
+  }
+
+  /**
+   * Builder for creating instances of {@link CompressedMetricObserver}.
+   */
+  public static final class Builder {
+    private final String name;
+    private long chunkMillis = TimeUnit.HOURS.toMillis(2);
+    private long retentionMillis = TimeUnit.HOURS.toMillis(24);
+    private boolean offHeap = false;
+    private int maxSeries = 100000;
+
+    private Builder(String name) {
+      this.name = Preconditions.checkNotNull(name, "name");
+    }
+
+    /**
+     * Set the time range covered by each chunk. Larger chunks compress better, but the
+     * current chunk is kept on the heap with some spare capacity until it is sealed.
+     * Default is 2 hours.
+     */
+    public Builder withChunkDuration(long duration, TimeUnit unit) {
+      final long millis = unit.toMillis(duration);
+      Preconditions.checkArgument(millis > 0, "duration must be at least 1ms");
+      chunkMillis = millis;
+      return this;
+    }
+
+    /**
+     * Set how long samples should be kept. Default is 24 hours.
+     */
+    public Builder withRetention(long retention, TimeUnit unit) {
+      final long millis = unit.toMillis(retention);
+      Preconditions.checkArgument(millis > 0, "retention must be at least 1ms");
+      retentionMillis = millis;
+      return this;
+    }
+
+    /**
+     * Store sealed chunks in direct buffers outside of the java heap. Default is false.
+     */
+    public Builder withOffHeap(boolean offHeap) {
+      this.offHeap = offHeap;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of series to store. Default is 100,000.
+     */
+    public Builder withMaxSeries(int maxSeries) {
+      Preconditions.checkArgument(maxSeries > 0, "maxSeries must be greater than 0");
+      this.maxSeries = maxSeries;
+      return this;
+    }
+
+    /**
+     * Create the observer.
+     */
+    public CompressedMetricObserver build() {
+      Preconditions.checkArgument(chunkMillis <= retentionMillis,
+          "chunk duration must not be greater than the retention");
+      return new CompressedMetricObserver(this);
+    }
+  }
+}
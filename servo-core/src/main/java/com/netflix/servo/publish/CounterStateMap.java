@@ -0,0 +1,299 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.monitor.MonitorConfig;
+
+/**
+ * Concurrent map holding the previous sample for each counter seen by
+ * {@link CounterToRateMetricTransform}. The map is split into segments that are each guarded
+ * by their own lock. A segment is an open-addressed table using linear probing with the
+ * previous timestamp and value stored in primitive arrays, so updating an existing counter
+ * does not allocate. The rate config for a counter is computed once when it is first seen
+ * and cached in the entry.
+ * <p/>
+ * Entries are not expired on access. Instead {@link #sweep(long)} should be called
+ * periodically to remove counters that have not been updated within the heartbeat.
+ */
+final class CounterStateMap {
+
+  /**
+   * Receives the rate computed for a counter.
+   */
+  interface RateConsumer {
+    /**
+     * Called with the rate config and the rate per second for a counter.
+     */
+    void accept(MonitorConfig rateConfig, long timestamp, double rate);
+  }
+
+  private static final int SEGMENT_BITS = 4;
+  private static final int SEGMENTS = 1 << SEGMENT_BITS;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final Segment[] segments;
+  private final long heartbeatMillis;
+  private final long firstIntervalMillis;
+
+  /**
+   * Create a new instance.
+   *
+   * @param heartbeatMillis     how long to keep the previous sample for a counter
+   * @param firstIntervalMillis estimated interval to use for the first sample of a counter,
+   *                            if zero no rate will be reported for the first sample
+   */
+  CounterStateMap(long heartbeatMillis, long firstIntervalMillis) {
+    this.heartbeatMillis = heartbeatMillis;
+    this.firstIntervalMillis = firstIntervalMillis;
+    this.segments = new Segment[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; ++i) {
+      segments[i] = new Segment(INITIAL_CAPACITY);
+    }
+  }
+
+  private static int mix(int h) {
+    // finalization step from murmur3 so both the high bits used for the segment and the
+    // low bits used for the slot are well distributed
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  /**
+   * Compute the rate per second for a delta over a duration. If the delta is negative the
+   * counter is assumed to have been reset and the rate will be 0.
+   */
+  static double computeRate(long durationMillis, double delta) {
+    final double millisPerSecond = 1000.0;
+    final double duration = durationMillis / millisPerSecond;
+    return (duration <= 0.0 || delta <= 0.0) ? 0.0 : delta / duration;
+  }
+
+  /**
+   * Record a new sample for a counter and pass the rate to the consumer if one can be
+   * computed. Samples that are older than the previous sample for the counter are ignored.
+   *
+   * @param config    config for the counter
+   * @param now       current time used to check if the previous sample has expired
+   * @param timestamp timestamp for the sample
+   * @param value     value of the counter
+   * @param consumer  receives the rate if one is available
+   */
+  void update(MonitorConfig config, long now, long timestamp, double value,
+              RateConsumer consumer) {
+    final int hash = mix(config.hashCode());
+    final Segment segment = segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+    final MonitorConfig rateConfig;
+    final double rate;
+    boolean emit = true;
+    synchronized (segment) {
+      int i = segment.find(config, hash);
+      if (segment.keys[i] == null) {
+        i = segment.insert(i, config, hash);
+        segment.timestamps[i] = timestamp;
+        segment.values[i] = value;
+        rateConfig = segment.rateConfigs[i];
+        rate = firstRate(value);
+        emit = firstIntervalMillis > 0L;
+      } else {
+        rateConfig = segment.rateConfigs[i];
+        final long prevTimestamp = segment.timestamps[i];
+        if (now - prevTimestamp > heartbeatMillis) {
+          // Previous sample has expired but has not been swept yet
+          segment.timestamps[i] = timestamp;
+          segment.values[i] = value;
+          rate = firstRate(value);
+          emit = firstIntervalMillis > 0L;
+        } else if (timestamp < prevTimestamp) {
+          // Out of order sample, possible if the transform is shared by parallel pollers
+          rate = 0.0;
+          emit = false;
+        } else {
+          rate = computeRate(timestamp - prevTimestamp, value - segment.values[i]);
+          segment.timestamps[i] = timestamp;
+          segment.values[i] = value;
+        }
+      }
+    }
+
+    if (emit) {
+      consumer.accept(rateConfig, timestamp, rate);
+    }
+  }
+
+  private double firstRate(double value) {
+    return computeRate(firstIntervalMillis, value);
+  }
+
+  /**
+   * Remove all counters where the previous sample is older than the heartbeat.
+   *
+   * @param now current time in milliseconds
+   * @return number of entries that were removed
+   */
+  int sweep(long now) {
+    final long cutoff = now - heartbeatMillis;
+    int removed = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        removed += segment.removeOlderThan(cutoff);
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Returns the number of counters with a previous sample.
+   */
+  int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Remove all entries.
+   */
+  void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.init(INITIAL_CAPACITY);
+      }
+    }
+  }
+
+  /**
+   * Open-addressed table for a subset of the counters. All access must be synchronized on
+   * the segment.
+   */
+  private static final class Segment {
+    private MonitorConfig[] keys;
+    private MonitorConfig[] rateConfigs;
+    private int[] hashes;
+    private long[] timestamps;
+    private double[] values;
+    private int size;
+
+    Segment(int capacity) {
+      init(capacity);
+    }
+
+    private void init(int capacity) {
+      keys = new MonitorConfig[capacity];
+      rateConfigs = new MonitorConfig[capacity];
+      hashes = new int[capacity];
+      timestamps = new long[capacity];
+      values = new double[capacity];
+      size = 0;
+    }
+
+    /**
+     * Returns the slot for the key or the empty slot where it should be inserted.
+     */
+    private int find(MonitorConfig key, int hash) {
+      final int mask = keys.length - 1;
+      int i = hash & mask;
+      while (keys[i] != null && (hashes[i] != hash || !keys[i].equals(key))) {
+        i = (i + 1) & mask;
+      }
+      return i;
+    }
+
+    /**
+     * Insert a new key into an empty slot found by {@link #find}. Returns the slot used,
+     * which will be different if the table needed to be resized.
+     */
+    private int insert(int slot, MonitorConfig key, int hash) {
+      int i = slot;
+      // keep the load factor at or below 0.5 so probe sequences stay short
+      if ((size + 1) * 2 > keys.length) {
+        resize(keys.length * 2);
+        i = find(key, hash);
+      }
+      keys[i] = key;
+      rateConfigs[i] = key.withAdditionalTag(DataSourceType.RATE);
+      hashes[i] = hash;
+      ++size;
+      return i;
+    }
+
+    private void resize(int capacity) {
+      final MonitorConfig[] oldKeys = keys;
+      final MonitorConfig[] oldRateConfigs = rateConfigs;
+      final int[] oldHashes = hashes;
+      final long[] oldTimestamps = timestamps;
+      final double[] oldValues = values;
+      init(capacity);
+      for (int j = 0; j < oldKeys.length; ++j) {
+        if (oldKeys[j] != null) {
+          copyFrom(j, oldKeys, oldRateConfigs, oldHashes, oldTimestamps, oldValues);
+        }
+      }
+    }
+
+    private void copyFrom(int j, MonitorConfig[] oldKeys, MonitorConfig[] oldRateConfigs,
+                          int[] oldHashes, long[] oldTimestamps, double[] oldValues) {
+      final int i = find(oldKeys[j], oldHashes[j]);
+      keys[i] = oldKeys[j];
+      rateConfigs[i] = oldRateConfigs[j];
+      hashes[i] = oldHashes[j];
+      timestamps[i] = oldTimestamps[j];
+      values[i] = oldValues[j];
+      ++size;
+    }
+
+    /**
+     * Remove entries with a timestamp before the cutoff. The table is rebuilt rather than
+     * deleting in place so that probe sequences do not need tombstones.
+     */
+    private int removeOlderThan(long cutoff) {
+      int expired = 0;
+      for (int j = 0; j < keys.length; ++j) {
+        if (keys[j] != null && timestamps[j] < cutoff) {
+          ++expired;
+        }
+      }
+      if (expired == 0) {
+        return 0;
+      }
+
+      final MonitorConfig[] oldKeys = keys;
+      final MonitorConfig[] oldRateConfigs = rateConfigs;
+      final int[] oldHashes = hashes;
+      final long[] oldTimestamps = timestamps;
+      final double[] oldValues = values;
+      int capacity = INITIAL_CAPACITY;
+      while ((size - expired) * 2 > capacity) {
+        capacity *= 2;
+      }
+      init(capacity);
+      for (int j = 0; j < oldKeys.length; ++j) {
+        if (oldKeys[j] != null && oldTimestamps[j] >= cutoff) {
+          copyFrom(j, oldKeys, oldRateConfigs, oldHashes, oldTimestamps, oldValues);
+        }
+      }
+      return expired;
+    }
+  }
+}
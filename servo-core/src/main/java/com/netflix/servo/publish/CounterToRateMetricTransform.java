@@ -16,21 +16,20 @@
 package com.netflix.servo.publish;
 
 import com.netflix.servo.Metric;
+import com.netflix.servo.MetricBatch;
 import com.netflix.servo.annotations.DataSourceType;
-import com.netflix.servo.monitor.MonitorConfig;
-import com.netflix.servo.tag.Tag;
 import com.netflix.servo.tag.TagList;
 import com.netflix.servo.util.Clock;
 import com.netflix.servo.util.ClockWithOffset;
 import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Converts counter metrics into a rate per second. The rate is calculated by
@@ -46,21 +45,27 @@ import java.util.concurrent.TimeUnit;
  * was reset and send a rate of 0. This is similar to the RRD concept of
  * type DERIVE with a min of 0.
  * <p/>
- * <p>This class is not thread safe and should generally be wrapped by an async
- * observer to prevent issues.
+ * <p>This class is thread safe and can be shared by pollers running in parallel. The
+ * previous sample for each counter is kept in a {@link CounterStateMap}. Expired counters are
+ * removed by a sweep that runs at most once per heartbeat interval. If parallel updates deliver
+ * samples for a counter out of order, the older sample is ignored.
+ * <p/>
+ * <p>Updates received as a {@link MetricBatch} are forwarded as a batch. If the downstream
+ * observer does not support batches, then it will be converted to a list.
  */
-public final class CounterToRateMetricTransform implements MetricObserver {
+public final class CounterToRateMetricTransform implements BatchMetricObserver {
 
   private static final Logger LOGGER =
       LoggerFactory.getLogger(CounterToRateMetricTransform.class);
 
   private static final String COUNTER_VALUE = DataSourceType.COUNTER.name();
-  private static final Tag RATE_TAG = DataSourceType.RATE;
 
   private final MetricObserver observer;
-  private final Map<MonitorConfig, CounterValue> cache;
+  private final CounterStateMap cache;
+  private final Clock clock;
 
-  private final long intervalMillis;
+  private final long heartbeatMillis;
+  private final AtomicLong nextSweep;
 
   /**
    * Creates a new instance with the specified heartbeat interval. The
@@ -95,20 +100,12 @@ public final class CounterToRateMetricTransform implements MetricObserver {
       MetricObserver observer, long heartbeat, long estPollingInterval, TimeUnit unit,
       final Clock clock) {
     this.observer = observer;
-    this.intervalMillis = TimeUnit.MILLISECONDS.convert(estPollingInterval, unit);
-
-    final long heartbeatMillis = TimeUnit.MILLISECONDS.convert(heartbeat, unit);
-    this.cache = new LinkedHashMap<MonitorConfig, CounterValue>(16, 0.75f, true) {
-      protected boolean removeEldestEntry(Map.Entry<MonitorConfig, CounterValue> eldest) {
-        final long now = clock.now();
-        final long lastMod = eldest.getValue().getTimestamp();
-        final boolean expired = (now - lastMod) > heartbeatMillis;
-        if (expired) {
-          LOGGER.debug("heartbeat interval exceeded, expiring {}", eldest.getKey());
-        }
-        return expired;
-      }
-    };
+    this.clock = clock;
+    this.heartbeatMillis = TimeUnit.MILLISECONDS.convert(heartbeat, unit);
+
+    final long intervalMillis = TimeUnit.MILLISECONDS.convert(estPollingInterval, unit);
+    this.cache = new CounterStateMap(heartbeatMillis, intervalMillis);
+    this.nextSweep = new AtomicLong(clock.now() + heartbeatMillis);
   }
 
   /**
@@ -148,23 +145,13 @@ public final class CounterToRateMetricTransform implements MetricObserver {
   public void update(List<Metric> metrics) {
     Preconditions.checkNotNull(metrics, "metrics");
     LOGGER.debug("received {} metrics", metrics.size());
+    final long now = now();
     final List<Metric> newMetrics = new ArrayList<>(metrics.size());
+    final CounterStateMap.RateConsumer consumer =
+        (config, t, rate) -> newMetrics.add(Metric.ofDouble(config, t, rate));
     for (Metric m : metrics) {
       if (isCounter(m)) {
-        final MonitorConfig rateConfig = toRateConfig(m.getConfig());
-        final CounterValue prev = cache.get(rateConfig);
-        if (prev != null) {
-          final double rate = prev.computeRate(m);
-          newMetrics.add(new Metric(rateConfig, m.getTimestamp(), rate));
-        } else {
-          CounterValue current = new CounterValue(m);
-          cache.put(rateConfig, current);
-          if (intervalMillis > 0L) {
-            final double delta = m.getNumberValue().doubleValue();
-            final double rate = current.computeRate(intervalMillis, delta);
-            newMetrics.add(new Metric(rateConfig, m.getTimestamp(), rate));
-          }
-        }
+        cache.update(m.getConfig(), now, m.getTimestamp(), m.getDoubleValue(), consumer);
       } else {
         newMetrics.add(m);
       }
@@ -173,6 +160,44 @@ public final class CounterToRateMetricTransform implements MetricObserver {
     observer.update(newMetrics);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public void update(MetricBatch batch) {
+    Preconditions.checkNotNull(batch, "batch");
+    LOGGER.debug("received batch of {} metrics", batch.size());
+    final long now = now();
+    final int n = batch.size();
+    final MetricBatch newBatch = new MetricBatch(batch.getTimestamp(), n);
+    final CounterStateMap.RateConsumer consumer =
+        (config, t, rate) -> newBatch.add(config, DataSourceType.RATE, t, rate);
+    for (int i = 0; i < n; ++i) {
+      final long t = batch.getTimestamp(i);
+      if (batch.getType(i) == DataSourceType.COUNTER && batch.hasNumberValue(i)) {
+        cache.update(batch.getConfig(i), now, t, batch.getValue(i), consumer);
+      } else {
+        newBatch.add(batch, i, t);
+      }
+    }
+    LOGGER.debug("writing batch of {} metrics to downstream observer", newBatch.size());
+    MetricBatches.update(observer, newBatch);
+  }
+
+  /**
+   * Returns the current time and sweeps expired counters from the cache if the heartbeat
+   * interval has elapsed since the last sweep. Only one of the concurrent callers will do
+   * the sweep.
+   */
+  private long now() {
+    final long now = clock.now();
+    final long next = nextSweep.get();
+    if (now >= next && nextSweep.compareAndSet(next, now + heartbeatMillis)) {
+      final int removed = cache.sweep(now);
+      LOGGER.debug("heartbeat interval exceeded, expired {} counters", removed);
+    }
+    return now;
+  }
+
   /**
    * Clear all cached state of previous counter values.
    */
@@ -181,11 +206,11 @@ public final class CounterToRateMetricTransform implements MetricObserver {
   }
 
   /**
-   * Convert a MonitorConfig for a counter to one that is explicit about
-   * being a RATE.
+   * Returns the number of counters with a cached previous value.
    */
-  private MonitorConfig toRateConfig(MonitorConfig config) {
-    return config.withAdditionalTag(RATE_TAG);
+  @VisibleForTesting
+  int getCacheSize() {
+    return cache.size();
   }
 
   private boolean isCounter(Metric m) {
@@ -193,41 +218,4 @@ public final class CounterToRateMetricTransform implements MetricObserver {
     final String value = tags.getValue(DataSourceType.KEY);
     return COUNTER_VALUE.equals(value);
   }
-
-  private static class CounterValue {
-    private long timestamp;
-    private double value;
-
-    CounterValue(long timestamp, double value) {
-      this.timestamp = timestamp;
-      this.value = value;
-    }
-
-    CounterValue(Metric m) {
-      this(m.getTimestamp(), m.getNumberValue().doubleValue());
-    }
-
-    public long getTimestamp() {
-      return timestamp;
-    }
-
-    public double computeRate(Metric m) {
-      final long currentTimestamp = m.getTimestamp();
-      final double currentValue = m.getNumberValue().doubleValue();
-
-      final long durationMillis = currentTimestamp - timestamp;
-      final double delta = currentValue - value;
-
-      timestamp = currentTimestamp;
-      value = currentValue;
-
-      return computeRate(durationMillis, delta);
-    }
-
-    public double computeRate(long durationMillis, double delta) {
-      final double millisPerSecond = 1000.0;
-      final double duration = durationMillis / millisPerSecond;
-      return (duration <= 0.0 || delta <= 0.0) ? 0.0 : delta / duration;
-    }
-  }
 }
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+/**
+ * Observer that can process updates that only contain changed metrics. The observer is
+ * responsible for carrying forward the previous value for metrics that did not change. See
+ * {@link MetricDelta}.
+ */
+public interface DeltaMetricObserver extends MetricObserver {
+  /**
+   * Invoked with the most recent values and the set that changed since the previous update.
+   */
+  void update(MetricDelta delta);
+}
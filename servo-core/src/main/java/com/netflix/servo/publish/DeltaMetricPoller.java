@@ -0,0 +1,31 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+/**
+ * Poller that can track which metrics changed since the previous poll. See
+ * {@link MetricDelta}.
+ */
+public interface DeltaMetricPoller extends MetricPoller {
+  /**
+   * Fetch the current values for a set of metrics that match the provided filter along with
+   * the subset that changed since the previous call to this method.
+   *
+   * @param filter restricts the set of metrics
+   * @return current values and the changes since the previous delta poll
+   */
+  MetricDelta pollDelta(MetricFilter filter);
+}
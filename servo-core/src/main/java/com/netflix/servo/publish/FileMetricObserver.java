@@ -37,7 +37,8 @@ import java.util.zip.GZIPOutputStream;
 
 /**
  * Writes observations to a file. The format is a basic text file with tabs
- * separating the fields.
+ * separating the fields. The file is opened and closed for each update, see
+ * {@link RollingFileMetricObserver} for a writer that keeps the file open across updates.
  */
 public final class FileMetricObserver extends BaseMetricObserver {
 
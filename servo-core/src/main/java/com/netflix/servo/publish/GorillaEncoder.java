@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compresses a series of timestamp and value pairs using the scheme described in the
+ * <a href="http://www.vldb.org/pvldb/vol8/p1816-teller.pdf">Gorilla paper</a>. Timestamps
+ * are stored as the delta of the deltas, so samples at a regular interval need a single bit.
+ * Values are XORed with the previous value and only the meaningful bits of the result are
+ * stored, so unchanged values need a single bit and slowly changing values need few bits.
+ * <p/>
+ * The first timestamp and value are stored in full. Each following sample is encoded as:
+ * <ul>
+ * <li>delta of delta: {@code 0} if zero, otherwise a prefix of {@code 10}, {@code 110},
+ * {@code 1110} or {@code 1111} followed by 7, 9, 12 or 64 bits respectively.</li>
+ * <li>value: {@code 0} if the same as the previous value, {@code 10} followed by the
+ * meaningful bits if they fit in the window of the previous value, otherwise {@code 11},
+ * 5 bits with the number of leading zeros, 6 bits with the number of meaningful bits and
+ * then the meaningful bits.</li>
+ * </ul>
+ * Timestamps must be strictly increasing. This class is not thread safe.
+ */
+public final class GorillaEncoder {
+
+  private byte[] buffer = new byte[32];
+  private long bitPosition = 0L;
+  private int count = 0;
+
+  private long startTime;
+  private long prevTime;
+  private long prevDelta;
+  private long prevBits;
+  private int prevLeading = -1;
+  private int prevTrailing;
+
+  /**
+   * Returns the number of samples that have been added.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns the number of bytes used for the encoded samples.
+   */
+  public int sizeInBytes() {
+    return (int) ((bitPosition + 7) >>> 3);
+  }
+
+  /**
+   * Returns the timestamp of the first sample.
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Returns the timestamp of the last sample.
+   */
+  public long getEndTime() {
+    return prevTime;
+  }
+
+  /**
+   * Add a sample. If the timestamp is not after the previous sample, then it will be
+   * ignored and false will be returned.
+   */
+  public boolean append(long timestamp, double value) {
+    final long bits = Double.doubleToRawLongBits(value);
+    if (count == 0) {
+      startTime = timestamp;
+      writeBits(timestamp, 64);
+      writeBits(bits, 64);
+    } else {
+      if (timestamp <= prevTime) {
+        return false;
+      }
+      final long delta = timestamp - prevTime;
+      writeDeltaOfDelta(delta - prevDelta);
+      writeValue(bits ^ prevBits);
+      prevDelta = delta;
+    }
+    prevTime = timestamp;
+    prevBits = bits;
+    ++count;
+    return true;
+  }
+
+  private void writeDeltaOfDelta(long dod) {
+    if (dod == 0L) {
+      writeBits(0L, 1);
+    } else if (dod >= -64L && dod <= 63L) {
+      writeBits(0b10L, 2);
+      writeBits(dod, 7);
+    } else if (dod >= -256L && dod <= 255L) {
+      writeBits(0b110L, 3);
+      writeBits(dod, 9);
+    } else if (dod >= -2048L && dod <= 2047L) {
+      writeBits(0b1110L, 4);
+      writeBits(dod, 12);
+    } else {
+      writeBits(0b1111L, 4);
+      writeBits(dod, 64);
+    }
+  }
+
+  private void writeValue(long xor) {
+    if (xor == 0L) {
+      writeBits(0L, 1);
+      return;
+    }
+
+    final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+    final int trailing = Long.numberOfTrailingZeros(xor);
+    if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+      writeBits(0b10L, 2);
+      writeBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+    } else {
+      final int meaningful = 64 - leading - trailing;
+      writeBits(0b11L, 2);
+      writeBits(leading, 5);
+      // 64 meaningful bits is stored as 0, a length of 0 is not possible for a non-zero xor
+      writeBits(meaningful & 0x3F, 6);
+      writeBits(xor >>> trailing, meaningful);
+      prevLeading = leading;
+      prevTrailing = trailing;
+    }
+  }
+
+  /**
+   * Write the low {@code n} bits of the value, most significant bit first.
+   */
+  private void writeBits(long value, int n) {
+    int remaining = n;
+    while (remaining > 0) {
+      final int byteIndex = (int) (bitPosition >>> 3);
+      if (byteIndex >= buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+      final int free = 8 - (int) (bitPosition & 7);
+      final int take = Math.min(free, remaining);
+      final int bits = (int) ((value >>> (remaining - take)) & ((1 << take) - 1));
+      buffer[byteIndex] |= (byte) (bits << (free - take));
+      bitPosition += take;
+      remaining -= take;
+    }
+  }
+
+  /**
+   * Create an immutable chunk with the samples added so far. The encoder can continue to
+   * be used after this call.
+   *
+   * @param offHeap if true the data will be copied to a direct buffer
+   */
+  public CompressedChunk toChunk(boolean offHeap) {
+    final int size = sizeInBytes();
+    final ByteBuffer data;
+    if (offHeap) {
+      data = ByteBuffer.allocateDirect(size);
+      data.put(buffer, 0, size);
+      data.flip();
+    } else {
+      data = ByteBuffer.wrap(Arrays.copyOf(buffer, size));
+    }
+    return new CompressedChunk(data.asReadOnlyBuffer(), count, startTime, prevTime);
+  }
+}
@@ -15,8 +15,11 @@
  */
 package com.netflix.servo.publish;
 
+import com.netflix.servo.DefaultMonitorRegistry;
 import com.netflix.servo.Metric;
 import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.Counter;
 import com.netflix.servo.monitor.MonitorConfig;
 import com.netflix.servo.tag.BasicTagList;
 import com.netflix.servo.tag.SmallTagMap;
@@ -24,6 +27,7 @@ import com.netflix.servo.tag.StandardTagKeys;
 import com.netflix.servo.tag.Tag;
 import com.netflix.servo.tag.TagList;
 import com.netflix.servo.tag.Tags;
+import com.netflix.servo.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,12 +35,16 @@ import javax.management.Attribute;
 import javax.management.InstanceNotFoundException;
 import javax.management.JMException;
 import javax.management.MBeanAttributeInfo;
-import javax.management.MBeanInfo;
 import javax.management.MBeanServerConnection;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.Notification;
+import javax.management.NotificationListener;
 import javax.management.ObjectName;
 import javax.management.ReflectionException;
 import javax.management.openmbean.CompositeData;
 import javax.management.openmbean.TabularData;
+import javax.management.relation.MBeanServerNotificationFilter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -44,11 +52,39 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Generic poller for fetching simple data from JMX.
+ * <p/>
+ * Using {@link Builder#withMetadataCaching(boolean)} the set of names matching each query, the
+ * attributes of each mbean, the tag lists and the results of the filters for each attribute
+ * are cached across polls. A listener is added to the {@link MBeanServerDelegate} of the
+ * connection so the cached data is invalidated when mbeans are registered or unregistered.
+ * The cache is reset if the connector returns a new connection and is periodically rebuilt in
+ * case notifications were lost. If the listener cannot be added, then nothing is cached and
+ * the metadata is fetched on every poll. The listener keeps a reference to the poller, so
+ * {@link #close()} should be called when a caching poller is no longer needed. Otherwise, for
+ * a local connection, the poller will remain reachable from the platform MBeanServer. Pollers
+ * created with the constructors do not cache metadata or add a listener.
+ * <p/>
+ * For remote connections most of the time for a poll is network latency. Using the
+ * {@link Builder} the mbeans can be read in parallel on an executor, and a deadline can be
+ * set for each poll. If the deadline is exceeded, then the metrics for the mbeans that were
+ * read are returned and the remaining tasks are cancelled. If batch loading the attributes of
+ * an mbean fails, then the attributes are loaded individually. With metadata caching the mbean
+ * is remembered so that later polls will not retry the batch call until the cache is rebuilt.
  */
-public final class JmxMetricPoller implements MetricPoller {
+public final class JmxMetricPoller implements MetricPoller, AutoCloseable {
 
   private static final Logger LOGGER =
       LoggerFactory.getLogger(JmxMetricPoller.class);
@@ -61,11 +97,38 @@ public final class JmxMetricPoller implements MetricPoller {
   private static final String COMPOSITE_PATH_KEY = "JmxCompositePath";
   private static final String PROP_KEY_PREFIX = "Jmx";
 
+  /** How often the cached metadata is rebuilt in case notifications were lost. */
+  private static final long FULL_REFRESH_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  /** Limit on cached tag lists for each mbean, composite paths for tabular data can vary. */
+  private static final int MAX_CACHED_METRICS = 10000;
+
+  private static final Counter DEADLINE_EXCEEDED = new BasicCounter(
+      MonitorConfig.builder("servo.jmxMetricPoller.deadlineExceeded").build());
+
+  static {
+    DefaultMonitorRegistry.getInstance().register(DEADLINE_EXCEEDED);
+  }
+
   private final JmxConnector connector;
   private final List<ObjectName> queries;
   private final MetricFilter counters;
   private final boolean onlyNumericMetrics;
   private final List<Tag> defaultTags;
+  private final ExecutorService executor;
+  private final int parallelism;
+  private final long pollDeadline;
+  private final boolean metadataCaching;
+
+  // Cached metadata, only accessed while holding the lock on this poller except for the
+  // updates from the notification listener
+  private final NotificationListener listener = (n, handback) -> handleNotification(n);
+  private final Map<ObjectName, MBeanEntry> entries = new ConcurrentHashMap<>();
+  private final Map<ObjectName, Set<ObjectName>> queryNames = new HashMap<>();
+  private final AtomicBoolean namesStale = new AtomicBoolean(false);
+  private MBeanServerConnection cachedConnection;
+  private boolean cachingEnabled;
+  private long nextFullRefresh;
 
   /**
    * Creates a new instance that polls mbeans matching the provided object
@@ -116,6 +179,22 @@ public final class JmxMetricPoller implements MetricPoller {
     this.counters = counters;
     this.onlyNumericMetrics = onlyNumericMetrics;
     this.defaultTags = defaultTags;
+    this.executor = null;
+    this.parallelism = 1;
+    this.pollDeadline = 0L;
+    this.metadataCaching = false;
+  }
+
+  private JmxMetricPoller(Builder builder) {
+    this.connector = builder.connector;
+    this.queries = new ArrayList<>(builder.queries);
+    this.counters = builder.counters;
+    this.onlyNumericMetrics = builder.onlyNumericMetrics;
+    this.defaultTags = builder.defaultTags;
+    this.executor = builder.executor;
+    this.parallelism = builder.parallelism;
+    this.pollDeadline = builder.pollDeadline;
+    this.metadataCaching = builder.metadataCaching;
   }
 
   /**
@@ -141,7 +220,8 @@ public final class JmxMetricPoller implements MetricPoller {
   }
 
   /**
-   * Create a new metric object and add it to the list.
+   * Create a new metric object and add it to the list. The tags should already include the
+   * data source type.
    */
   private void addMetric(
       List<Metric> metrics,
@@ -153,11 +233,7 @@ public final class JmxMetricPoller implements MetricPoller {
       value = asNumber(value);
     }
     if (value != null) {
-
-      TagList newTags = counters.matches(MonitorConfig.builder(name).withTags(tags).build())
-          ? getTagListWithAdditionalTag(tags, DataSourceType.COUNTER)
-          : getTagListWithAdditionalTag(tags, DataSourceType.GAUGE);
-      Metric m = new Metric(name, newTags, now, value);
+      Metric m = new Metric(name, tags, now, value);
       metrics.add(m);
     }
   }
@@ -189,61 +265,48 @@ public final class JmxMetricPoller implements MetricPoller {
       List<Metric> metrics,
       ObjectName name)
       throws JMException, IOException {
-    // Create tags from the object name
-    TagList tags = createTagList(name);
-    MBeanInfo info = con.getMBeanInfo(name);
-    MBeanAttributeInfo[] attrInfos = info.getAttributes();
-
-    // Restrict to attributes that match the filter
-    List<String> matchingNames = new ArrayList<>();
-    for (MBeanAttributeInfo attrInfo : attrInfos) {
-      String attrName = attrInfo.getName();
-      if (filter.matches(new MonitorConfig.Builder(attrName).withTags(tags).build())) {
-        matchingNames.add(attrName);
+    MBeanEntry entry = entries.get(name);
+    if (entry == null) {
+      // Create tags from the object name
+      entry = new MBeanEntry(createTagList(name), con.getMBeanInfo(name).getAttributes());
+      if (cachingEnabled) {
+        entries.put(name, entry);
       }
     }
-    List<Attribute> attributeList = safelyLoadAttributes(con, name, matchingNames);
+
+    // Restrict to attributes that match the filter
+    List<String> matchingNames = entry.getMatchingNames(filter);
+    List<Attribute> attributeList = safelyLoadAttributes(con, name, entry, matchingNames);
 
     for (Attribute attr : attributeList) {
       String attrName = attr.getName();
       Object obj = attr.getValue();
       if (obj instanceof TabularData) {
-        ((TabularData) obj).values().stream()
-            .filter(key -> key instanceof CompositeData)
-            .forEach(key -> addTabularMetrics(filter, metrics, tags, attrName,
-                (CompositeData) key));
+        for (Object row : ((TabularData) obj).values()) {
+          if (row instanceof CompositeData) {
+            // tabular composite data has a value called key and one called value
+            CompositeData data = (CompositeData) row;
+            addCompositeMetric(entry, metrics, attrName, data.get("key").toString(),
+                data.get("value"));
+          }
+        }
       } else if (obj instanceof CompositeData) {
-        addCompositeMetrics(filter, metrics, tags, attrName, (CompositeData) obj);
+        Map<String, Object> values = new HashMap<>();
+        extractValues(null, values, (CompositeData) obj);
+        for (Map.Entry<String, Object> e : values.entrySet()) {
+          addCompositeMetric(entry, metrics, attrName, e.getKey(), e.getValue());
+        }
       } else {
-        addMetric(metrics, attrName, tags, obj);
+        addMetric(metrics, attrName, entry.getMetricTags(attrName, null), obj);
       }
     }
   }
 
-  private void addCompositeMetrics(MetricFilter filter, List<Metric> metrics, TagList tags,
-                                   String attrName, CompositeData obj) {
-    Map<String, Object> values = new HashMap<>();
-    extractValues(null, values, obj);
-    for (Map.Entry<String, Object> e : values.entrySet()) {
-      final Tag compositeTag = Tags.newTag(COMPOSITE_PATH_KEY, e.getKey());
-      final TagList newTags = getTagListWithAdditionalTag(tags, compositeTag);
-      if (filter.matches(MonitorConfig.builder(attrName).withTags(newTags).build())) {
-        addMetric(metrics, attrName, newTags, e.getValue());
-      }
-    }
-  }
-
-  private void addTabularMetrics(MetricFilter filter, List<Metric> metrics, TagList tags,
-                                 String attrName, CompositeData obj) {
-    Map<String, Object> values = new HashMap<>();
-    // tabular composite data has a value called key and one called value
-    values.put(obj.get("key").toString(), obj.get("value"));
-    for (Map.Entry<String, Object> e : values.entrySet()) {
-      final Tag compositeTag = Tags.newTag(COMPOSITE_PATH_KEY, e.getKey());
-      final TagList newTags = getTagListWithAdditionalTag(tags, compositeTag);
-      if (filter.matches(MonitorConfig.builder(attrName).withTags(newTags).build())) {
-        addMetric(metrics, attrName, newTags, e.getValue());
-      }
+  private void addCompositeMetric(MBeanEntry entry, List<Metric> metrics, String attrName,
+                                  String path, Object value) {
+    final TagList tags = entry.getMetricTags(attrName, path);
+    if (tags != null) {
+      addMetric(metrics, attrName, tags, value);
     }
   }
 
@@ -275,22 +338,31 @@ public final class JmxMetricPoller implements MetricPoller {
    * {@inheritDoc}
    */
   public List<Metric> poll(MetricFilter filter, boolean reset) {
+    final long deadline = (pollDeadline > 0L)
+        ? System.currentTimeMillis() + pollDeadline
+        : Long.MAX_VALUE;
     List<Metric> metrics = new ArrayList<>();
     try {
       MBeanServerConnection con = connector.getConnection();
-      for (ObjectName query : queries) {
-        Set<ObjectName> names = con.queryNames(query, null);
-        if (names.isEmpty()) {
-          LOGGER.warn("no mbeans matched query: {}", query);
-        } else {
-          for (ObjectName name : names) {
-            try {
-              getMetrics(con, filter, metrics, name);
-            } catch (Exception e) {
-              LOGGER.warn("failed to get metrics for: {}", name, e);
-            }
+      synchronized (this) {
+        refreshCache(con);
+        List<ObjectName> names = new ArrayList<>();
+        for (ObjectName query : queries) {
+          Set<ObjectName> matches = getNames(con, query);
+          if (matches.isEmpty()) {
+            LOGGER.warn("no mbeans matched query: {}", query);
+          } else {
+            names.addAll(matches);
           }
         }
+
+        final int completed = (executor == null)
+            ? pollSequential(con, filter, names, deadline, metrics)
+            : pollParallel(con, filter, names, deadline, metrics);
+        if (completed < names.size()) {
+          DEADLINE_EXCEEDED.increment();
+          LOGGER.warn("poll deadline exceeded, read {} of {} mbeans", completed, names.size());
+        }
       }
     } catch (Exception e) {
       LOGGER.warn("failed to collect jmx metrics.", e);
@@ -298,24 +370,198 @@ public final class JmxMetricPoller implements MetricPoller {
     return metrics;
   }
 
+  /**
+   * Read the mbeans on the current thread. The deadline is checked before reading each mbean,
+   * so a single slow call can cause it to be exceeded. Returns the number of mbeans that were
+   * read.
+   */
+  private int pollSequential(MBeanServerConnection con, MetricFilter filter,
+                             List<ObjectName> names, long deadline, List<Metric> metrics) {
+    int completed = 0;
+    for (ObjectName name : names) {
+      if (System.currentTimeMillis() >= deadline) {
+        break;
+      }
+      getMetricsSafely(con, filter, metrics, name);
+      ++completed;
+    }
+    return completed;
+  }
+
+  /**
+   * Read the mbeans using at most {@code parallelism} tasks on the executor. If the deadline
+   * is exceeded or the polling thread is interrupted, the tasks are cancelled and the metrics
+   * for the mbeans that were read so far are returned. Returns the number of mbeans that were
+   * read.
+   */
+  private int pollParallel(MBeanServerConnection con, MetricFilter filter,
+                           List<ObjectName> names, long deadline, List<Metric> metrics) {
+    final Queue<Metric> results = new ConcurrentLinkedQueue<>();
+    final AtomicInteger next = new AtomicInteger();
+    final AtomicInteger completed = new AtomicInteger();
+    final int n = Math.min(parallelism, names.size());
+    final List<Future<?>> futures = new ArrayList<>(n);
+    for (int i = 0; i < n; ++i) {
+      futures.add(executor.submit(() -> {
+        final List<Metric> local = new ArrayList<>();
+        int idx = next.getAndIncrement();
+        while (idx < names.size() && System.currentTimeMillis() < deadline
+            && !Thread.currentThread().isInterrupted()) {
+          local.clear();
+          getMetricsSafely(con, filter, local, names.get(idx));
+          if (System.currentTimeMillis() >= deadline) {
+            // Results that arrive after the deadline are dropped
+            break;
+          }
+          results.addAll(local);
+          completed.incrementAndGet();
+          idx = next.getAndIncrement();
+        }
+      }));
+    }
+
+    try {
+      for (Future<?> future : futures) {
+        if (deadline == Long.MAX_VALUE) {
+          future.get();
+        } else {
+          future.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        }
+      }
+    } catch (TimeoutException e) {
+      LOGGER.debug("timeout waiting for mbeans to be read", e);
+    } catch (ExecutionException e) {
+      LOGGER.warn("failed to read mbeans", e);
+    } catch (InterruptedException e) {
+      // Keep the metrics that have been read and let the caller see the interrupt
+      LOGGER.debug("interrupted waiting for mbeans to be read", e);
+      Thread.currentThread().interrupt();
+    } finally {
+      for (Future<?> future : futures) {
+        future.cancel(true);
+      }
+    }
+
+    // Snapshot the count before the results so that the number reported will not include
+    // mbeans that finish after the deadline
+    final int count = completed.get();
+    metrics.addAll(results);
+    return count;
+  }
+
+  private void getMetricsSafely(MBeanServerConnection con, MetricFilter filter,
+                                List<Metric> metrics, ObjectName name) {
+    try {
+      getMetrics(con, filter, metrics, name);
+    } catch (Exception e) {
+      entries.remove(name);
+      LOGGER.warn("failed to get metrics for: {}", name, e);
+    }
+  }
+
+  /**
+   * Remove the notification listener from the connection and clear the cached metadata. If
+   * the poller is used again after being closed, the listener will be added on the next poll.
+   * This is a no-op if metadata caching is not enabled.
+   */
+  @Override
+  public synchronized void close() {
+    removeListener(cachedConnection);
+    entries.clear();
+    queryNames.clear();
+    cachedConnection = null;
+    cachingEnabled = false;
+  }
+
+  /**
+   * Reset the cached metadata if the connection changed or it is time for a full refresh,
+   * and clear the cached query results if mbeans were registered or unregistered.
+   */
+  private void refreshCache(MBeanServerConnection con) {
+    if (!metadataCaching) {
+      return;
+    }
+    final long now = System.currentTimeMillis();
+    if (con != cachedConnection || now >= nextFullRefresh) {
+      removeListener(cachedConnection);
+      entries.clear();
+      queryNames.clear();
+      namesStale.set(false);
+      cachedConnection = con;
+      cachingEnabled = addListener(con);
+      nextFullRefresh = now + FULL_REFRESH_MILLIS;
+    } else if (namesStale.getAndSet(false)) {
+      queryNames.clear();
+    }
+  }
+
+  private boolean addListener(MBeanServerConnection con) {
+    try {
+      MBeanServerNotificationFilter notificationFilter = new MBeanServerNotificationFilter();
+      notificationFilter.enableAllObjectNames();
+      con.addNotificationListener(
+          MBeanServerDelegate.DELEGATE_NAME, listener, notificationFilter, null);
+      return true;
+    } catch (Exception e) {
+      LOGGER.debug("failed to add mbean notification listener, metadata will not be cached",
+          e);
+      return false;
+    }
+  }
+
+  private void removeListener(MBeanServerConnection con) {
+    if (con != null && cachingEnabled) {
+      try {
+        con.removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener);
+      } catch (Exception e) {
+        LOGGER.debug("failed to remove mbean notification listener", e);
+      }
+    }
+  }
+
+  private void handleNotification(Notification notification) {
+    if (notification instanceof MBeanServerNotification) {
+      namesStale.set(true);
+      if (MBeanServerNotification.UNREGISTRATION_NOTIFICATION.equals(notification.getType())) {
+        entries.remove(((MBeanServerNotification) notification).getMBeanName());
+      }
+    }
+  }
+
+  private Set<ObjectName> getNames(MBeanServerConnection con, ObjectName query)
+      throws IOException {
+    Set<ObjectName> names = cachingEnabled ? queryNames.get(query) : null;
+    if (names == null) {
+      names = con.queryNames(query, null);
+      if (cachingEnabled) {
+        queryNames.put(query, names);
+      }
+    }
+    return names;
+  }
+
   /**
    * There are issues loading some JMX attributes on some systems. This protects us from a
    * single bad attribute stopping us reading any metrics (or just a random sampling) out of
    * the system.
    */
   private static List<Attribute> safelyLoadAttributes(
-      MBeanServerConnection server, ObjectName objectName, List<String> matchingNames) {
-    try {
-      // first try batch loading all attributes as this is faster
-      return batchLoadAttributes(server, objectName, matchingNames);
-    } catch (Exception e) {
-      // JBOSS ticket: https://issues.jboss.org/browse/AS7-4404
+      MBeanServerConnection server, ObjectName objectName, MBeanEntry entry,
+      List<String> matchingNames) {
+    if (!entry.isIndividualLoad()) {
+      try {
+        // first try batch loading all attributes as this is faster
+        return batchLoadAttributes(server, objectName, matchingNames);
+      } catch (Exception e) {
+        // JBOSS ticket: https://issues.jboss.org/browse/AS7-4404
 
-      LOGGER.info("Error batch loading attributes for {} : {}", objectName, e.getMessage());
-      // some containers (jboss I am looking at you) fail the entire getAttributes request
-      // if one is broken we can get the working attributes if we ask for them individually
-      return individuallyLoadAttributes(server, objectName, matchingNames);
+        LOGGER.info("Error batch loading attributes for {} : {}", objectName, e.getMessage());
+        entry.setIndividualLoad();
+      }
     }
+    // some containers (jboss I am looking at you) fail the entire getAttributes request
+    // if one is broken we can get the working attributes if we ask for them individually
+    return individuallyLoadAttributes(server, objectName, matchingNames);
   }
 
   private static List<Attribute> batchLoadAttributes(
@@ -339,4 +585,181 @@ public final class JmxMetricPoller implements MetricPoller {
     }
     return attributes;
   }
+
+  /**
+   * Builder for creating a poller with non-default settings.
+   */
+  public static class Builder {
+    private final JmxConnector connector;
+    private List<ObjectName> queries = new ArrayList<>();
+    private MetricFilter counters = BasicMetricFilter.MATCH_NONE;
+    private boolean onlyNumericMetrics = true;
+    private List<Tag> defaultTags = null;
+    private ExecutorService executor = null;
+    private int parallelism = 1;
+    private long pollDeadline = 0L;
+    private boolean metadataCaching = false;
+
+    /**
+     * Create a new builder for a poller that will use the connector to get a connection to
+     * an MBeanServer.
+     */
+    public Builder(JmxConnector connector) {
+      this.connector = Preconditions.checkNotNull(connector, "connector");
+    }
+
+    /**
+     * Add an object name pattern for selecting mbeans.
+     */
+    public Builder withQuery(ObjectName query) {
+      queries.add(Preconditions.checkNotNull(query, "query"));
+      return this;
+    }
+
+    /**
+     * Add object name patterns for selecting mbeans.
+     */
+    public Builder withQueries(List<ObjectName> queries) {
+      this.queries.addAll(queries);
+      return this;
+    }
+
+    /**
+     * Metrics matching this filter will be treated as counters, all others will be gauges.
+     * (Default is to treat all metrics as gauges.)
+     */
+    public Builder withCounters(MetricFilter counters) {
+      this.counters = Preconditions.checkNotNull(counters, "counters");
+      return this;
+    }
+
+    /**
+     * Only produce metrics that can be converted to a Number. (Default is true.)
+     */
+    public Builder withOnlyNumericMetrics(boolean onlyNumericMetrics) {
+      this.onlyNumericMetrics = onlyNumericMetrics;
+      return this;
+    }
+
+    /**
+     * Tags to attach to all metrics. (Default is null.)
+     */
+    public Builder withDefaultTags(List<Tag> defaultTags) {
+      this.defaultTags = defaultTags;
+      return this;
+    }
+
+    /**
+     * Read mbeans in parallel using at most {@code parallelism} concurrent tasks on the
+     * executor. The executor is not shutdown by the poller. (Default is null, mbeans are read
+     * on the polling thread.)
+     */
+    public Builder withExecutor(ExecutorService executor, int parallelism) {
+      Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+      this.executor = Preconditions.checkNotNull(executor, "executor");
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * Maximum time for a poll. If it is exceeded, then the metrics for the mbeans that have
+     * been read will be returned. When reading on the polling thread the deadline is checked
+     * before each mbean, use an executor to bound the time for slow calls. A value of 0
+     * disables the deadline. (Default is 0.)
+     */
+    public Builder withPollDeadline(long deadline, TimeUnit unit) {
+      Preconditions.checkArgument(deadline >= 0L, "deadline cannot be negative");
+      this.pollDeadline = unit.toMillis(deadline);
+      return this;
+    }
+
+    /**
+     * Cache the metadata for the mbeans across polls. This adds a notification listener to
+     * the MBeanServer, so {@link JmxMetricPoller#close()} should be called when the poller
+     * is no longer needed. (Default is false.)
+     */
+    public Builder withMetadataCaching(boolean metadataCaching) {
+      this.metadataCaching = metadataCaching;
+      return this;
+    }
+
+    /**
+     * Create a new poller with the settings from this builder.
+     */
+    public JmxMetricPoller build() {
+      Preconditions.checkArgument(!queries.isEmpty(), "at least one query is required");
+      return new JmxMetricPoller(this);
+    }
+  }
+
+  /**
+   * Cached metadata for an mbean. The decisions of the filter are kept for the last filter
+   * that was used. The methods are synchronized because a task that is still running after
+   * the deadline of a poll could overlap with the next poll.
+   */
+  private final class MBeanEntry {
+    private final TagList tags;
+    private final MBeanAttributeInfo[] attrInfos;
+    private final Map<String, TagList> metricTags = new HashMap<>();
+    private MetricFilter filter;
+    private List<String> matchingNames;
+    private volatile boolean individualLoad;
+
+    MBeanEntry(TagList tags, MBeanAttributeInfo[] attrInfos) {
+      this.tags = tags;
+      this.attrInfos = attrInfos;
+    }
+
+    boolean isIndividualLoad() {
+      return individualLoad;
+    }
+
+    void setIndividualLoad() {
+      individualLoad = true;
+    }
+
+    synchronized List<String> getMatchingNames(MetricFilter f) {
+      if (f != filter) {
+        filter = f;
+        metricTags.clear();
+        matchingNames = new ArrayList<>();
+        for (MBeanAttributeInfo attrInfo : attrInfos) {
+          String attrName = attrInfo.getName();
+          if (f.matches(new MonitorConfig.Builder(attrName).withTags(tags).build())) {
+            matchingNames.add(attrName);
+          }
+        }
+      }
+      return matchingNames;
+    }
+
+    /**
+     * Returns the tags, including the data source type, for an attribute or a path within a
+     * composite attribute. Returns null if a composite value does not match the filter.
+     */
+    synchronized TagList getMetricTags(String attrName, String path) {
+      final String key = (path == null) ? attrName : attrName + '\u0000' + path;
+      TagList result = metricTags.get(key);
+      if (result == null) {
+        TagList base = tags;
+        if (path != null) {
+          base = getTagListWithAdditionalTag(tags, Tags.newTag(COMPOSITE_PATH_KEY, path));
+        }
+        final MonitorConfig config = MonitorConfig.builder(attrName).withTags(base).build();
+        if (path != null && !filter.matches(config)) {
+          result = BasicTagList.EMPTY;
+        } else {
+          result = counters.matches(config)
+              ? getTagListWithAdditionalTag(base, DataSourceType.COUNTER)
+              : getTagListWithAdditionalTag(base, DataSourceType.GAUGE);
+        }
+        if (metricTags.size() >= MAX_CACHED_METRICS) {
+          metricTags.clear();
+        }
+        metricTags.put(key, result);
+      }
+      // The empty list is used to mark values that did not match the filter
+      return (result == BasicTagList.EMPTY) ? null : result;
+    }
+  }
 }
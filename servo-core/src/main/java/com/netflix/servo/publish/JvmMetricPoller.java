@@ -22,6 +22,8 @@ import com.netflix.servo.tag.BasicTagList;
 import com.netflix.servo.tag.Tag;
 import com.netflix.servo.tag.TagList;
 import com.netflix.servo.tag.Tags;
+import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,11 +40,21 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Poller for standard JVM metrics.
+ *
+ * <p>Cheap thread counts such as the live, peak and daemon counts are always reported. The
+ * detailed thread metrics (per state counts along with blocked and waited totals) require
+ * fetching a {@link ThreadInfo} per thread and can be disabled, sampled less often than the
+ * poll interval, or refreshed for only a rotating subset of threads per poll using the
+ * {@link Builder}. The detailed values are maintained incrementally from the last seen
+ * state of each thread, so threads that are not refreshed on a given poll keep contributing
+ * their previous values.</p>
  */
 public class JvmMetricPoller implements MetricPoller {
 
@@ -181,6 +193,18 @@ public class JvmMetricPoller implements MetricPoller {
           .withTag(DataSourceType.GAUGE)
           .build();
 
+  private static final MonitorConfig LIVE_THREAD_COUNT =
+      MonitorConfig.builder("liveThreadCount")
+          .withTag(CLASS, ThreadMXBean.class.getSimpleName())
+          .withTag(DataSourceType.GAUGE)
+          .build();
+
+  private static final MonitorConfig PEAK_THREAD_COUNT =
+      MonitorConfig.builder("peakThreadCount")
+          .withTag(CLASS, ThreadMXBean.class.getSimpleName())
+          .withTag(DataSourceType.GAUGE)
+          .build();
+
   private static final MonitorConfig[] THREAD_COUNTS = new MonitorConfig[VALID_STATES.length];
 
   private static final MonitorConfig TOTAL_STARTED_THREAD_COUNT =
@@ -215,19 +239,9 @@ public class JvmMetricPoller implements MetricPoller {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(JvmMetricPoller.class);
 
-  private static final int IDX_BLOCKED_COUNT = 0;
-  private static final int IDX_BLOCKED_TIME = 1;
-  private static final int IDX_WAITED_COUNT = 2;
-  private static final int IDX_WAITED_TIME = 3;
-  private static final long[] BASE_THREAD_COUNTS = new long[]{0L, 0L, 0L, 0L};
-
-  private static final Map<Thread.State, Integer> STATE_LOOKUP =
-      new HashMap<>();
-
   static {
     for (int i = 0; i < VALID_STATES.length; ++i) {
       Thread.State state = VALID_STATES[i];
-      STATE_LOOKUP.put(state, i);
       THREAD_COUNTS[i] =
           MonitorConfig.builder("threadCount")
               .withTag(CLASS, ThreadMXBean.class.getSimpleName())
@@ -237,7 +251,36 @@ public class JvmMetricPoller implements MetricPoller {
     }
   }
 
-  private ThreadInfo[] lastThreadInfos = new ThreadInfo[0];
+  private final boolean detailedThreadMetrics;
+  private final long threadSampleInterval;
+  private final int threadSampleSize;
+
+  // Last seen state of each live thread along with the running totals derived from them.
+  // Totals include the final values of threads that have since died so the counters stay
+  // monotonic. Guarded by this.
+  private final Map<Long, ThreadSample> threadSamples = new HashMap<>();
+  private final long[] stateCounts = new long[VALID_STATES.length];
+  private long blockedCount = 0L;
+  private long blockedTime = 0L;
+  private long waitedCount = 0L;
+  private long waitedTime = 0L;
+  private long sampleGeneration = 0L;
+  private long nextThreadSample = 0L;
+  private int threadCursor = 0;
+
+  /**
+   * Creates a new instance that reports the detailed thread metrics for all threads on
+   * every poll.
+   */
+  public JvmMetricPoller() {
+    this(new Builder());
+  }
+
+  private JvmMetricPoller(Builder builder) {
+    this.detailedThreadMetrics = builder.detailedThreadMetrics;
+    this.threadSampleInterval = builder.threadSampleInterval;
+    this.threadSampleSize = builder.threadSampleSize;
+  }
 
   /**
    * {@inheritDoc}
@@ -333,13 +376,17 @@ public class JvmMetricPoller implements MetricPoller {
 
   private void addThreadMetrics(long timestamp, MetricList metrics) {
     ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    metrics.add(new Metric(LIVE_THREAD_COUNT, timestamp, bean.getThreadCount()));
+    metrics.add(new Metric(PEAK_THREAD_COUNT, timestamp, bean.getPeakThreadCount()));
     metrics.add(new Metric(DAEMON_THREAD_COUNT, timestamp, bean.getDaemonThreadCount()));
     metrics.add(new Metric(TOTAL_STARTED_THREAD_COUNT,
         timestamp, bean.getTotalStartedThreadCount()));
-    addDetailedThreadMetrics(timestamp, metrics);
+    if (detailedThreadMetrics) {
+      addDetailedThreadMetrics(timestamp, metrics);
+    }
   }
 
-  private void addDetailedThreadMetrics(long timestamp, MetricList metrics) {
+  private synchronized void addDetailedThreadMetrics(long timestamp, MetricList metrics) {
     ThreadMXBean bean = ManagementFactory.getThreadMXBean();
 
     if (!bean.isThreadContentionMonitoringSupported()) {
@@ -350,53 +397,132 @@ public class JvmMetricPoller implements MetricPoller {
       bean.setThreadContentionMonitoringEnabled(true);
     }
 
-    ThreadInfo[] threadInfo = bean.dumpAllThreads(false, false);
-    Arrays.sort(
-        threadInfo,
-        (a, b) -> {
-          long diff = b.getThreadId() - a.getThreadId();
-          return ((diff == 0L) ? 0 : (diff < 0L) ? -1 : 1);
-        }
-    );
-    long[] stateCounts = new long[VALID_STATES.length];
+    if (timestamp >= nextThreadSample) {
+      sampleThreads(bean);
+      nextThreadSample = timestamp + threadSampleInterval;
+    }
+
+    metrics.add(new Metric(THREAD_BLOCKED_COUNT, timestamp, blockedCount));
+    metrics.add(new Metric(THREAD_BLOCKED_TIME, timestamp, blockedTime / 1000));
+    metrics.add(new Metric(THREAD_WAITED_COUNT, timestamp, waitedCount));
+    metrics.add(new Metric(THREAD_WAITED_TIME, timestamp, waitedTime / 1000));
     for (int i = 0; i < stateCounts.length; i++) {
-      stateCounts[i] = 0L;
+      metrics.add(new Metric(THREAD_COUNTS[i], timestamp, stateCounts[i]));
     }
-    long blockedCount = 0L;
-    long blockedTime = 0L;
-    long waitedCount = 0L;
-    long waitedTime = 0L;
-    int l = lastThreadInfos.length - 1;
-    for (int i = threadInfo.length - 1; i >= 0; i--) {
-      long currId = threadInfo[i].getThreadId();
-      while (l >= 0 && lastThreadInfos[l].getThreadId() < currId) {
-        --l;
+  }
+
+  /**
+   * Refresh the last seen state for threads that are new since the previous sample along
+   * with the next batch of known threads, and drop the threads that have died. The thread
+   * infos are fetched without stack traces or lock information.
+   */
+  private void sampleThreads(ThreadMXBean bean) {
+    final long[] ids = bean.getAllThreadIds();
+    final long generation = ++sampleGeneration;
+
+    long[] fetchIds = ids;
+    if (threadSampleSize > 0 && threadSampleSize < threadSamples.size()) {
+      fetchIds = new long[ids.length];
+      int n = 0;
+      for (long id : ids) {
+        ThreadSample sample = threadSamples.get(id);
+        if (sample == null) {
+          fetchIds[n++] = id;
+        } else {
+          sample.generation = generation;
+        }
       }
 
-      if (l >= 0 && lastThreadInfos[l].getThreadId() > currId) {
-        BASE_THREAD_COUNTS[IDX_BLOCKED_COUNT] += lastThreadInfos[l].getBlockedCount();
-        BASE_THREAD_COUNTS[IDX_BLOCKED_TIME] += lastThreadInfos[l].getBlockedTime();
-        BASE_THREAD_COUNTS[IDX_WAITED_COUNT] += lastThreadInfos[l].getWaitedCount();
-        BASE_THREAD_COUNTS[IDX_WAITED_TIME] += lastThreadInfos[l].getWaitedTime();
+      int known = 0;
+      for (int i = 0; i < ids.length && known < threadSampleSize; ++i) {
+        int idx = (threadCursor + i) % ids.length;
+        if (threadSamples.containsKey(ids[idx])) {
+          fetchIds[n++] = ids[idx];
+          ++known;
+          threadCursor = idx + 1;
+        }
       }
-      stateCounts[STATE_LOOKUP.get(threadInfo[i].getThreadState())]++;
-      blockedCount += threadInfo[i].getBlockedCount();
-      blockedTime += threadInfo[i].getBlockedTime();
-      waitedCount += threadInfo[i].getWaitedCount();
-      waitedTime += threadInfo[i].getWaitedTime();
+      fetchIds = Arrays.copyOf(fetchIds, n);
     }
-    metrics.add(new Metric(THREAD_BLOCKED_COUNT,
-        timestamp, blockedCount + BASE_THREAD_COUNTS[IDX_BLOCKED_COUNT]));
-    metrics.add(new Metric(THREAD_BLOCKED_TIME,
-        timestamp, (blockedTime + BASE_THREAD_COUNTS[IDX_BLOCKED_TIME]) / 1000));
-    metrics.add(new Metric(THREAD_WAITED_COUNT,
-        timestamp, waitedCount + BASE_THREAD_COUNTS[IDX_WAITED_COUNT]));
-    metrics.add(new Metric(THREAD_WAITED_TIME,
-        timestamp, (waitedTime + BASE_THREAD_COUNTS[IDX_WAITED_TIME]) / 1000));
-    for (int i = 0; i < stateCounts.length; i++) {
-      metrics.add(new Metric(THREAD_COUNTS[i], timestamp, stateCounts[i]));
+
+    ThreadInfo[] infos = bean.getThreadInfo(fetchIds, 0);
+    for (int i = 0; i < infos.length; ++i) {
+      if (infos[i] == null) {
+        retireThread(threadSamples.remove(fetchIds[i]));
+      } else {
+        updateThread(infos[i], generation);
+      }
+    }
+
+    Iterator<ThreadSample> iter = threadSamples.values().iterator();
+    while (iter.hasNext()) {
+      ThreadSample sample = iter.next();
+      if (sample.generation != generation) {
+        iter.remove();
+        retireThread(sample);
+      }
     }
-    lastThreadInfos = threadInfo;
+  }
+
+  private void updateThread(ThreadInfo info, long generation) {
+    ThreadSample sample = threadSamples.get(info.getThreadId());
+    if (sample == null) {
+      sample = new ThreadSample();
+      threadSamples.put(info.getThreadId(), sample);
+    } else {
+      stateCounts[sample.state]--;
+    }
+    sample.generation = generation;
+    sample.state = info.getThreadState().ordinal();
+    stateCounts[sample.state]++;
+
+    final long bc = info.getBlockedCount();
+    final long bt = contentionTime(info.getBlockedTime(), sample.blockedTime);
+    final long wc = info.getWaitedCount();
+    final long wt = contentionTime(info.getWaitedTime(), sample.waitedTime);
+    blockedCount += bc - sample.blockedCount;
+    blockedTime += increase(sample.blockedTime, bt);
+    waitedCount += wc - sample.waitedCount;
+    waitedTime += increase(sample.waitedTime, wt);
+    sample.blockedCount = bc;
+    sample.blockedTime = bt;
+    sample.waitedCount = wc;
+    sample.waitedTime = wt;
+  }
+
+  /**
+   * Times are -1 if contention monitoring was disabled by someone else, in that case the
+   * previous value is kept so the totals do not go backwards.
+   */
+  private static long contentionTime(long time, long previous) {
+    return (time < 0L) ? previous : time;
+  }
+
+  /**
+   * Returns the increase in a time since the previous sample. Times restart from 0 when
+   * contention monitoring is enabled again, so a lower value is all new time.
+   */
+  private static long increase(long previous, long current) {
+    return (current >= previous) ? current - previous : current;
+  }
+
+  /**
+   * The last seen values of a dead thread remain part of the totals, only the state count
+   * needs to be removed.
+   */
+  private void retireThread(ThreadSample sample) {
+    if (sample != null) {
+      stateCounts[sample.state]--;
+    }
+  }
+
+  /**
+   * Returns true if the thread with the given id is currently tracked for the detailed
+   * thread metrics.
+   */
+  @VisibleForTesting
+  synchronized boolean isThreadSampled(long id) {
+    return threadSamples.containsKey(id);
   }
 
   private void addOptionalMetric(
@@ -417,6 +543,18 @@ public class JvmMetricPoller implements MetricPoller {
     }
   }
 
+  /**
+   * Last seen values for a single thread.
+   */
+  private static class ThreadSample {
+    private long generation;
+    private int state;
+    private long blockedCount;
+    private long blockedTime;
+    private long waitedCount;
+    private long waitedTime;
+  }
+
   private static class MetricList {
     private final MetricFilter filter;
     private final List<Metric> list;
@@ -436,4 +574,51 @@ public class JvmMetricPoller implements MetricPoller {
       return list;
     }
   }
+
+  /**
+   * Helper for creating a poller with custom settings for the thread metrics.
+   */
+  public static class Builder {
+    private boolean detailedThreadMetrics = true;
+    private long threadSampleInterval = 0L;
+    private int threadSampleSize = 0;
+
+    /**
+     * Whether to report the per state thread counts and the blocked and waited totals.
+     * Default is true.
+     */
+    public Builder withDetailedThreadMetrics(boolean enabled) {
+      this.detailedThreadMetrics = enabled;
+      return this;
+    }
+
+    /**
+     * Minimum amount of time between samples of the thread state. Polls in between will
+     * report the values computed from the previous sample. Default is 0, sample on every
+     * poll.
+     */
+    public Builder withThreadSampleInterval(long interval, TimeUnit unit) {
+      Preconditions.checkArgument(interval >= 0, "interval must be >= 0");
+      this.threadSampleInterval = unit.toMillis(interval);
+      return this;
+    }
+
+    /**
+     * Maximum number of previously seen threads to refresh on each sample. Threads are
+     * chosen in a round robin order, new threads are always included. Default is 0,
+     * refresh all threads.
+     */
+    public Builder withThreadSampleSize(int size) {
+      Preconditions.checkArgument(size >= 0, "size must be >= 0");
+      this.threadSampleSize = size;
+      return this;
+    }
+
+    /**
+     * Create a new poller instance.
+     */
+    public JvmMetricPoller build() {
+      return new JvmMetricPoller(this);
+    }
+  }
 }
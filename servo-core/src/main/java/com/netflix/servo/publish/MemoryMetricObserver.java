@@ -22,13 +22,16 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * Keeps the last N observations in-memory.
+ * Keeps the last N observations in-memory. Optionally, the values can also be added to a
+ * {@link MemoryTimeSeriesStore} so that the recent history of a series can be queried
+ * without scanning all of the observations.
  */
 public final class MemoryMetricObserver extends BaseMetricObserver {
 
   private static final int DEFAULT_N = 10;
 
   private final List<Metric>[] observations;
+  private final MemoryTimeSeriesStore store;
   private int next;
 
   /**
@@ -41,10 +44,19 @@ public final class MemoryMetricObserver extends BaseMetricObserver {
   /**
    * Creates a new instance that keeps {@code num} copies in memory.
    */
-  @SuppressWarnings("unchecked")
   public MemoryMetricObserver(String name, int num) {
+    this(name, num, null);
+  }
+
+  /**
+   * Creates a new instance that keeps {@code num} copies in memory and adds the values
+   * to a time series store.
+   */
+  @SuppressWarnings("unchecked")
+  public MemoryMetricObserver(String name, int num, MemoryTimeSeriesStore store) {
     super(name);
     observations = (List<Metric>[]) new List[num];
+    this.store = store;
     next = 0;
   }
 
@@ -54,6 +66,16 @@ public final class MemoryMetricObserver extends BaseMetricObserver {
   public void updateImpl(List<Metric> metrics) {
     observations[next] = metrics;
     next = (next + 1) % observations.length;
+    if (store != null) {
+      store.update(metrics);
+    }
+  }
+
+  /**
+   * Returns the time series store used by this observer or null if there isn't one.
+   */
+  public MemoryTimeSeriesStore getStore() {
+    return store;
   }
 
   /**
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.Metric;
+import com.netflix.servo.monitor.Counter;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.monitor.Monitors;
+import com.netflix.servo.util.Clock;
+import com.netflix.servo.util.ClockWithOffset;
+import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory store of recent values for each series at a fixed step resolution. It is
+ * intended for local dashboards and health checks that need to look at the recent history
+ * of a metric without a remote backend.
+ * <p/>
+ * The store has one or more tiers, each with a step size and retention. For example, the
+ * default is a 10 second step kept for 1 hour and a 1 minute step kept for 24 hours. Each
+ * series has a primitive ring buffer per tier, and values are downsampled into the coarser
+ * tiers as they are added by averaging all samples that fall within a step. Non-numeric
+ * values are ignored.
+ * <p/>
+ * Memory is bounded by the maximum number of series. Each series needs about 12 bytes per
+ * slot, for example about 22KB with the default tiers. If the limit is reached, then new
+ * series are dropped until series that have not been updated within the longest retention
+ * are removed.
+ */
+public final class MemoryTimeSeriesStore {
+
+  private static final Counter DROPPED_SERIES =
+      newCounter("servo.memoryTimeSeriesStore.droppedSeries");
+
+  private static Counter newCounter(String name) {
+    Counter c = Monitors.newCounter(name);
+    DefaultMonitorRegistry.getInstance().register(c);
+    return c;
+  }
+
+  /**
+   * Create a new builder for a store.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final long[] steps;
+  private final int[] sizes;
+  private final long maxRetention;
+  private final int maxSeries;
+  private final Clock clock;
+
+  private final Map<String, Map<MonitorConfig, Series>> index = new ConcurrentHashMap<>();
+  private final AtomicInteger numSeries = new AtomicInteger();
+  private final AtomicLong nextSweep;
+
+  private MemoryTimeSeriesStore(Builder builder) {
+    final int n = builder.steps.size();
+    steps = new long[n];
+    sizes = new int[n];
+    long retention = 0L;
+    for (int i = 0; i < n; ++i) {
+      steps[i] = builder.steps.get(i);
+      sizes[i] = (int) (builder.retentions.get(i) / steps[i]);
+      retention = Math.max(retention, builder.retentions.get(i));
+    }
+    maxRetention = retention;
+    maxSeries = builder.maxSeries;
+    clock = builder.clock;
+    nextSweep = new AtomicLong(clock.now() + steps[n - 1]);
+  }
+
+  /**
+   * Add the numeric values from a list of metrics.
+   */
+  public void update(List<Metric> metrics) {
+    sweep();
+    for (Metric m : metrics) {
+      if (m.hasNumberValue()) {
+        add(m.getConfig(), m.getTimestamp(), m.getDoubleValue());
+      }
+    }
+  }
+
+  /**
+   * Add a value for a series.
+   */
+  public void add(MonitorConfig config, long timestamp, double value) {
+    final Series series = getOrCreate(config);
+    if (series != null) {
+      series.add(timestamp, value, clock.now());
+    }
+  }
+
+  private Series getOrCreate(MonitorConfig config) {
+    Map<MonitorConfig, Series> byConfig = index.get(config.getName());
+    if (byConfig == null) {
+      byConfig = index.computeIfAbsent(config.getName(), k -> new ConcurrentHashMap<>());
+    }
+    Series series = byConfig.get(config);
+    if (series == null) {
+      if (numSeries.incrementAndGet() > maxSeries) {
+        numSeries.decrementAndGet();
+        DROPPED_SERIES.increment();
+        return null;
+      }
+      final Series created = new Series(config);
+      series = byConfig.putIfAbsent(config, created);
+      if (series == null) {
+        series = created;
+      } else {
+        numSeries.decrementAndGet();
+      }
+    }
+    return series;
+  }
+
+  /**
+   * Remove series that have not been updated within the longest retention. Runs at most
+   * once per step of the coarsest tier.
+   */
+  private void sweep() {
+    final long now = clock.now();
+    final long next = nextSweep.get();
+    if (now >= next && nextSweep.compareAndSet(next, now + steps[steps.length - 1])) {
+      final long cutoff = now - maxRetention;
+      for (Map<MonitorConfig, Series> byConfig : index.values()) {
+        final Iterator<Series> it = byConfig.values().iterator();
+        while (it.hasNext()) {
+          if (it.next().getLastUpdateTime() < cutoff) {
+            it.remove();
+            numSeries.decrementAndGet();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of series in the store.
+   */
+  public int size() {
+    return numSeries.get();
+  }
+
+  /**
+   * Returns the step of the tier that will be used to answer a query for the given range.
+   * It is the finest tier with a retention that covers the start of the range. One step of
+   * allowance is given so a range computed from the current time just before the query, for
+   * example the last hour, will still use a tier with a retention of an hour.
+   */
+  @VisibleForTesting
+  long selectStep(long start) {
+    final long now = clock.now();
+    for (int i = 0; i < steps.length; ++i) {
+      if (start >= now - steps[i] * sizes[i] - steps[i]) {
+        return steps[i];
+      }
+    }
+    return steps[steps.length - 1];
+  }
+
+  /**
+   * Returns the values for all series with the specified name and a config that matches the
+   * filter. The values will be for the finest tier that covers the start of the range, the
+   * first interval is the step containing {@code start} and the last is the step containing
+   * {@code end - 1}. The range is limited to the retention of the tier, so if it starts before
+   * the retention the first interval will be later, and at most one interval more than the
+   * retention will be returned. If none of the range is within the retention, then an empty
+   * list is returned.
+   *
+   * @param name   name of the series
+   * @param filter predicate on the configs, typically to check tags
+   * @param start  start of the range in milliseconds, inclusive
+   * @param end    end of the range in milliseconds, exclusive
+   */
+  public List<TimeSeries> query(String name, MetricFilter filter, long start, long end) {
+    Preconditions.checkNotNull(name, "name");
+    Preconditions.checkNotNull(filter, "filter");
+    Preconditions.checkArgument(start < end, "start must be before end");
+
+    final Map<MonitorConfig, Series> byConfig = index.get(name);
+    if (byConfig == null) {
+      return Collections.emptyList();
+    }
+
+    final long step = selectStep(start);
+    int tier = 0;
+    while (steps[tier] != step) {
+      ++tier;
+    }
+    final int size = sizes[tier];
+    final long oldestIdx = Math.floorDiv(clock.now() - step * size, step);
+    final long startIdx = Math.max(Math.floorDiv(start, step), oldestIdx);
+    final long endIdx = Math.min(Math.floorDiv(end - 1, step), startIdx + size);
+    if (startIdx > endIdx) {
+      return Collections.emptyList();
+    }
+    final List<TimeSeries> results = new ArrayList<>();
+    for (Series series : byConfig.values()) {
+      if (filter.matches(series.config)) {
+        final double[] values = series.read(tier, startIdx, endIdx);
+        results.add(new TimeSeries(series.config, startIdx * step, step, values));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Values for a series across all tiers. All access is synchronized on the instance.
+   */
+  private final class Series {
+    private final MonitorConfig config;
+    private final double[][] sums;
+    private final int[][] counts;
+    private final long[] lastIndexes;
+    private long lastUpdateTime;
+
+    Series(MonitorConfig config) {
+      this.config = config;
+      final int n = steps.length;
+      sums = new double[n][];
+      counts = new int[n][];
+      lastIndexes = new long[n];
+      for (int i = 0; i < n; ++i) {
+        sums[i] = new double[sizes[i]];
+        counts[i] = new int[sizes[i]];
+        lastIndexes[i] = Long.MIN_VALUE;
+      }
+    }
+
+    synchronized long getLastUpdateTime() {
+      return lastUpdateTime;
+    }
+
+    synchronized void add(long timestamp, double value, long now) {
+      lastUpdateTime = now;
+      for (int i = 0; i < steps.length; ++i) {
+        add(i, Math.floorDiv(timestamp, steps[i]), value);
+      }
+    }
+
+    private void add(int tier, long idx, double value) {
+      final int size = sizes[tier];
+      final long last = lastIndexes[tier];
+      if (last == Long.MIN_VALUE || idx - last >= size) {
+        Arrays.fill(sums[tier], 0.0);
+        Arrays.fill(counts[tier], 0);
+        lastIndexes[tier] = idx;
+      } else if (idx > last) {
+        // Clear the slots for intervals that were skipped since the last update
+        for (long j = last + 1; j <= idx; ++j) {
+          final int slot = (int) Math.floorMod(j, (long) size);
+          sums[tier][slot] = 0.0;
+          counts[tier][slot] = 0;
+        }
+        lastIndexes[tier] = idx;
+      } else if (idx <= last - size) {
+        // Too old for the retention of this tier
+        return;
+      }
+
+      final int slot = (int) Math.floorMod(idx, (long) size);
+      sums[tier][slot] += value;
+      ++counts[tier][slot];
+    }
+
+    synchronized double[] read(int tier, long startIdx, long endIdx) {
+      final int size = sizes[tier];
+      final long last = lastIndexes[tier];
+      final double[] values = new double[(int) (endIdx - startIdx + 1)];
+      for (int i = 0; i < values.length; ++i) {
+        final long idx = startIdx + i;
+        if (idx > last || idx <= last - size) {
+          values[i] = Double.NaN;
+        } else {
+          final int slot = (int) Math.floorMod(idx, (long) size);
+          final int count = counts[tier][slot];
+          values[i] = (count == 0) ? Double.NaN : sums[tier][slot] / count;
+        }
+      }
+      return values;
+    }
+  }
+
+  /**
+   * Helper for creating a {@link MemoryTimeSeriesStore}.
+   */
+  public static final class Builder {
+    private final List<Long> steps = new ArrayList<>();
+    private final List<Long> retentions = new ArrayList<>();
+    private int maxSeries = 1000;
+    private Clock clock = ClockWithOffset.INSTANCE;
+
+    Builder() {
+    }
+
+    /**
+     * Add a tier with the given step size and retention. Tiers must be added from finest
+     * to coarsest, and the retention must be a positive multiple of the step. If no tiers are
+     * added, then the defaults of a 10 second step for 1 hour and a 1 minute step for
+     * 24 hours will be used.
+     */
+    public Builder withTier(long step, long retention, TimeUnit unit) {
+      final long stepMillis = unit.toMillis(step);
+      final long retentionMillis = unit.toMillis(retention);
+      Preconditions.checkArgument(stepMillis > 0L, "step must be positive");
+      Preconditions.checkArgument(retentionMillis >= stepMillis,
+          "retention must be at least one step");
+      Preconditions.checkArgument(retentionMillis % stepMillis == 0L,
+          "retention must be a multiple of the step");
+      Preconditions.checkArgument(retentionMillis / stepMillis <= Integer.MAX_VALUE,
+          "too many steps for retention");
+      Preconditions.checkArgument(steps.isEmpty() || stepMillis > steps.get(steps.size() - 1),
+          "tiers must be added from finest to coarsest");
+      steps.add(stepMillis);
+      retentions.add(retentionMillis);
+      return this;
+    }
+
+    /**
+     * Set the maximum number of series that will be stored. Defaults to 1000.
+     */
+    public Builder withMaxSeries(int maxSeries) {
+      Preconditions.checkArgument(maxSeries > 0, "maxSeries must be positive");
+      this.maxSeries = maxSeries;
+      return this;
+    }
+
+    /**
+     * Clock used for expiring series and selecting tiers. Useful for unit testing.
+     */
+    @VisibleForTesting
+    Builder withClock(Clock clock) {
+      this.clock = Preconditions.checkNotNull(clock, "clock");
+      return this;
+    }
+
+    /**
+     * Create the store.
+     */
+    public MemoryTimeSeriesStore build() {
+      if (steps.isEmpty()) {
+        withTier(10, 3600, TimeUnit.SECONDS);
+        withTier(60, 24 * 3600, TimeUnit.SECONDS);
+      }
+      return new MemoryTimeSeriesStore(this);
+    }
+  }
+}
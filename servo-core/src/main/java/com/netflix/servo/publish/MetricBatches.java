@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.MetricBatch;
+
+/**
+ * Helper functions for working with pollers and observers that may or may not support
+ * {@link MetricBatch}.
+ */
+public final class MetricBatches {
+  private MetricBatches() {
+  }
+
+  /**
+   * Poll the metrics as a batch. If the poller does not support batches, then the list of
+   * metrics will be converted.
+   */
+  public static MetricBatch poll(MetricPoller poller, MetricFilter filter) {
+    return (poller instanceof BatchMetricPoller)
+        ? ((BatchMetricPoller) poller).pollBatch(filter)
+        : MetricBatch.from(poller.poll(filter));
+  }
+
+  /**
+   * Send a batch to an observer. If the observer does not support batches, then it will be
+   * converted to a list of metrics.
+   */
+  public static void update(MetricObserver observer, MetricBatch batch) {
+    if (observer instanceof BatchMetricObserver) {
+      ((BatchMetricObserver) observer).update(batch);
+    } else {
+      observer.update(batch.toList());
+    }
+  }
+
+  /**
+   * Returns true if any of the observers supports batches.
+   */
+  public static boolean anyBatchObservers(Iterable<MetricObserver> observers) {
+    for (MetricObserver o : observers) {
+      if (o instanceof BatchMetricObserver) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
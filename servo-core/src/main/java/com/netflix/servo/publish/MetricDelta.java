@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import com.netflix.servo.util.Preconditions;
+
+import java.util.List;
+
+/**
+ * Result of a delta poll. It has the current values for all metrics along with the subset
+ * that changed since the previous delta poll. Periodically a full snapshot is sent where all
+ * metrics are considered changed. Observers that only keep the changed values should replace
+ * their state when receiving a snapshot so that metrics that are no longer present get dropped.
+ */
+public final class MetricDelta {
+  private final List<Metric> metrics;
+  private final List<Metric> changed;
+  private final boolean snapshot;
+
+  /**
+   * Create a new instance.
+   *
+   * @param metrics  current values for all metrics
+   * @param changed  metrics with values that changed since the previous poll
+   * @param snapshot true if this is a full snapshot, in that case changed should be the same
+   *                 as metrics
+   */
+  public MetricDelta(List<Metric> metrics, List<Metric> changed, boolean snapshot) {
+    this.metrics = Preconditions.checkNotNull(metrics, "metrics");
+    this.changed = Preconditions.checkNotNull(changed, "changed");
+    this.snapshot = snapshot;
+  }
+
+  /**
+   * Returns the current values for all metrics.
+   */
+  public List<Metric> getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Returns the metrics with values that changed since the previous poll. For a snapshot this
+   * will have all metrics.
+   */
+  public List<Metric> getChanged() {
+    return changed;
+  }
+
+  /**
+   * Returns true if this is a full snapshot.
+   */
+  public boolean isSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "MetricDelta{metrics=" + metrics.size() + ", changed=" + changed.size()
+        + ", snapshot=" + snapshot + '}';
+  }
+}
@@ -0,0 +1,508 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import com.netflix.servo.MetricBatch;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.monitor.DynamicCounter;
+import com.netflix.servo.monitor.DynamicTimer;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.tag.TagList;
+import com.netflix.servo.util.Clock;
+import com.netflix.servo.util.ClockWithOffset;
+import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Observer that applies a chain of transforms in a single pass over the metrics before
+ * forwarding them to a downstream observer. It can replace a chain such as a
+ * {@link CounterToRateMetricTransform} wrapping a {@link NormalizationTransform} wrapping
+ * a publishing observer, where each layer would allocate a new list, classify each metric
+ * again by parsing the tags, and copy the metrics forward.
+ * <p/>
+ * The stages are always applied in the following order, skipping any that are not enabled
+ * on the {@link Builder}:
+ * <ol>
+ * <li>filter, metrics that do not match are dropped</li>
+ * <li>rate conversion, counters are converted to a rate per second</li>
+ * <li>normalization, rates are normalized to step boundaries</li>
+ * <li>tag rewriting, common tags are added and then a custom rewrite is applied</li>
+ * <li>sanitization, non-numeric and non-finite values are dropped</li>
+ * </ol>
+ * The result of the filter, the data source type and the output config are computed the
+ * first time a config is seen and cached with the rate and normalization state, so a metric
+ * needs a single lookup per update. The output is sent to the downstream observer as a
+ * {@link MetricBatch}.
+ * <p/>
+ * The rate conversion and normalization behave the same as the standalone transforms. The
+ * pipeline is thread safe and calls to the downstream observer are serialized.
+ * <p/>
+ * The time spent on the transform pass and on the downstream observer is recorded in the
+ * timer {@code servo.metricPipeline.duration} with tags for the pipeline name and the stage.
+ * The number of metrics dropped by each stage is recorded in the counter
+ * {@code servo.metricPipeline.dropped}.
+ */
+public final class MetricPipeline implements BatchMetricObserver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetricPipeline.class);
+
+  private static final String DURATION = "servo.metricPipeline.duration";
+  private static final String DROPPED = "servo.metricPipeline.dropped";
+
+  private static final long DEFAULT_EXPIRATION = TimeUnit.MINUTES.toMillis(15);
+
+  private static final int SHARD_BITS = 4;
+  private static final int SHARDS = 1 << SHARD_BITS;
+
+  // Indexes into the array of counts for dropped metrics
+  private static final int FILTER = 0;
+  private static final int RATE = 1;
+  private static final int NORMALIZATION = 2;
+  private static final int SANITIZATION = 3;
+  private static final String[] STAGES = {"filter", "rate", "normalization", "sanitization"};
+
+  /**
+   * Create a new builder for a pipeline that will forward to the specified observer.
+   */
+  public static Builder builder(MetricObserver observer) {
+    return new Builder(observer);
+  }
+
+  private final String name;
+  private final MetricObserver observer;
+  private final MetricFilter filter;
+  private final boolean rateConversion;
+  private final long rateHeartbeatMillis;
+  private final long rateIntervalMillis;
+  private final boolean normalization;
+  private final long stepMillis;
+  private final long normHeartbeatMillis;
+  private final TagList commonTags;
+  private final Function<MonitorConfig, MonitorConfig> configRewrite;
+  private final boolean dropInvalid;
+  private final Clock clock;
+
+  private final long expirationMillis;
+  private final AtomicLong nextSweep;
+  private final Shard[] shards;
+  private final Object observerLock = new Object();
+
+  private final MonitorConfig transformDuration;
+  private final MonitorConfig observerDuration;
+  private final MonitorConfig[] droppedConfigs;
+
+  private MetricPipeline(Builder builder) {
+    this.name = builder.name == null ? builder.observer.getName() : builder.name;
+    this.observer = builder.observer;
+    this.filter = builder.filter;
+    this.rateConversion = builder.rateConversion;
+    this.rateHeartbeatMillis = builder.rateHeartbeatMillis;
+    this.rateIntervalMillis = builder.rateIntervalMillis;
+    this.normalization = builder.normalization;
+    this.stepMillis = builder.stepMillis;
+    this.normHeartbeatMillis = builder.normHeartbeatMillis;
+    this.commonTags = builder.commonTags;
+    this.configRewrite = builder.configRewrite;
+    this.dropInvalid = builder.dropInvalid;
+    this.clock = builder.clock;
+
+    final long heartbeat = Math.max(rateHeartbeatMillis, normHeartbeatMillis);
+    this.expirationMillis = heartbeat > 0L ? heartbeat : DEFAULT_EXPIRATION;
+    this.nextSweep = new AtomicLong(clock.now() + expirationMillis);
+    this.shards = new Shard[SHARDS];
+    for (int i = 0; i < SHARDS; ++i) {
+      shards[i] = new Shard();
+    }
+
+    this.transformDuration = MonitorConfig.builder(DURATION)
+        .withTag("pipeline", name)
+        .withTag("stage", "transform")
+        .build();
+    this.observerDuration = MonitorConfig.builder(DURATION)
+        .withTag("pipeline", name)
+        .withTag("stage", "observer")
+        .build();
+    this.droppedConfigs = new MonitorConfig[STAGES.length];
+    for (int i = 0; i < STAGES.length; ++i) {
+      droppedConfigs[i] = MonitorConfig.builder(DROPPED)
+          .withTag("pipeline", name)
+          .withTag("stage", STAGES[i])
+          .build();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void update(List<Metric> metrics) {
+    Preconditions.checkNotNull(metrics, "metrics");
+    update(MetricBatch.from(metrics));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void update(MetricBatch batch) {
+    Preconditions.checkNotNull(batch, "batch");
+    final long start = System.nanoTime();
+    final long now = now();
+    final int n = batch.size();
+    final long batchTime = normalization
+        ? batch.getTimestamp() - batch.getTimestamp() % stepMillis
+        : batch.getTimestamp();
+    final MetricBatch out = new MetricBatch(batchTime, n);
+    final int[] dropped = new int[STAGES.length];
+
+    for (int i = 0; i < n; ++i) {
+      process(batch, i, now, out, dropped);
+    }
+
+    final long transformEnd = System.nanoTime();
+    DynamicTimer.record(transformDuration, TimeUnit.MILLISECONDS,
+        transformEnd - start, TimeUnit.NANOSECONDS);
+    for (int i = 0; i < STAGES.length; ++i) {
+      if (dropped[i] > 0) {
+        DynamicCounter.increment(droppedConfigs[i], dropped[i]);
+      }
+    }
+
+    LOGGER.debug("writing batch of {} metrics to {}", out.size(), observer.getName());
+    try {
+      synchronized (observerLock) {
+        MetricBatches.update(observer, out);
+      }
+    } finally {
+      DynamicTimer.record(observerDuration, TimeUnit.MILLISECONDS,
+          System.nanoTime() - transformEnd, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Apply all stages to a single entry of the batch.
+   */
+  private void process(MetricBatch batch, int i, long now, MetricBatch out, int[] dropped) {
+    final MonitorConfig config = batch.getConfig(i);
+    final Shard shard = shardFor(config);
+    final boolean numeric = batch.hasNumberValue(i);
+    long t = batch.getTimestamp(i);
+    double value = batch.getValue(i);
+    final Entry entry;
+    synchronized (shard) {
+      entry = shard.get(config, now);
+      if (!entry.accepted) {
+        ++dropped[FILTER];
+        return;
+      }
+
+      if (entry.counter) {
+        if (!numeric) {
+          ++dropped[RATE];
+          return;
+        }
+        final long prevTimestamp = entry.prevTimestamp;
+        final double prevValue = entry.prevValue;
+        if (prevTimestamp != NormalizedValue.NO_PREVIOUS_UPDATE && t < prevTimestamp) {
+          // Out of order sample, keep the newer state
+          ++dropped[RATE];
+          return;
+        }
+        entry.prevTimestamp = t;
+        entry.prevValue = value;
+        if (prevTimestamp == NormalizedValue.NO_PREVIOUS_UPDATE
+            || now - prevTimestamp > rateHeartbeatMillis) {
+          if (rateIntervalMillis <= 0L) {
+            ++dropped[RATE];
+            return;
+          }
+          value = CounterStateMap.computeRate(rateIntervalMillis, value);
+        } else {
+          value = CounterStateMap.computeRate(t - prevTimestamp, value - prevValue);
+        }
+      }
+
+      if (normalization) {
+        final long stepBoundary = t - t % stepMillis;
+        final DataSourceType type = entry.type;
+        if (type == DataSourceType.RATE) {
+          value = entry.updateAndGet(stepMillis, normHeartbeatMillis, t, value);
+          t = stepBoundary;
+        } else if (type == DataSourceType.GAUGE || type == DataSourceType.NORMALIZED) {
+          t = stepBoundary;
+        } else if (type == DataSourceType.INFORMATIONAL) {
+          ++dropped[NORMALIZATION];
+          return;
+        }
+      }
+    }
+
+    if (numeric) {
+      if (dropInvalid && (Double.isNaN(value) || Double.isInfinite(value))) {
+        ++dropped[SANITIZATION];
+      } else {
+        out.add(entry.outConfig, entry.type, t, value);
+      }
+    } else if (dropInvalid) {
+      ++dropped[SANITIZATION];
+    } else {
+      out.add(entry.outConfig, t, batch.getObjectValue(i));
+    }
+  }
+
+  /**
+   * Returns the current time and sweeps expired state if the expiration interval has
+   * elapsed since the last sweep. Only one of the concurrent callers will do the sweep.
+   */
+  private long now() {
+    final long now = clock.now();
+    final long next = nextSweep.get();
+    if (now >= next && nextSweep.compareAndSet(next, now + expirationMillis)) {
+      final long cutoff = now - expirationMillis;
+      for (Shard shard : shards) {
+        synchronized (shard) {
+          shard.removeOlderThan(cutoff);
+        }
+      }
+    }
+    return now;
+  }
+
+  private Shard shardFor(MonitorConfig config) {
+    int h = config.hashCode();
+    h ^= h >>> 16;
+    return shards[h & (SHARDS - 1)];
+  }
+
+  /**
+   * Returns the number of configs with cached state.
+   */
+  @VisibleForTesting
+  int getCacheSize() {
+    int size = 0;
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        size += shard.entries.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Determine how a given input config will be processed by the pipeline.
+   */
+  private Entry compile(MonitorConfig config) {
+    if (filter != null && !filter.matches(config)) {
+      return new Entry(false, false, null, null);
+    }
+
+    MonitorConfig outConfig = config;
+    DataSourceType type = MetricBatch.typeOf(config);
+    boolean counter = false;
+    if (rateConversion && type == DataSourceType.COUNTER) {
+      outConfig = outConfig.withAdditionalTag(DataSourceType.RATE);
+      type = DataSourceType.RATE;
+      counter = true;
+    } else if (normalization && config.getTags().getValue(DataSourceType.KEY) == null) {
+      // Consistent with NormalizationTransform, metrics without a type are treated as rates
+      type = DataSourceType.RATE;
+    }
+
+    if (commonTags != null) {
+      outConfig = outConfig.withAdditionalTags(commonTags);
+    }
+    if (configRewrite != null) {
+      outConfig = configRewrite.apply(outConfig);
+    }
+    return new Entry(true, counter, type, outConfig);
+  }
+
+  /**
+   * Configs are split across shards so that concurrent updates only contend if the configs
+   * are in the same shard. All access must be synchronized on the shard.
+   */
+  private final class Shard {
+    private final Map<MonitorConfig, Entry> entries = new HashMap<>();
+
+    Entry get(MonitorConfig config, long now) {
+      Entry entry = entries.get(config);
+      if (entry == null) {
+        entry = compile(config);
+        entries.put(config, entry);
+      }
+      entry.lastAccessTime = now;
+      return entry;
+    }
+
+    void removeOlderThan(long cutoff) {
+      final Iterator<Entry> it = entries.values().iterator();
+      while (it.hasNext()) {
+        if (it.next().lastAccessTime < cutoff) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Cached processing decisions for an input config along with the state for the rate
+   * conversion and normalization.
+   */
+  private static final class Entry extends NormalizedValue {
+    private final boolean accepted;
+    private final boolean counter;
+    private final DataSourceType type;
+    private final MonitorConfig outConfig;
+
+    private long lastAccessTime = NO_PREVIOUS_UPDATE;
+    private long prevTimestamp = NO_PREVIOUS_UPDATE;
+    private double prevValue = 0.0;
+
+    Entry(boolean accepted, boolean counter, DataSourceType type, MonitorConfig outConfig) {
+      this.accepted = accepted;
+      this.counter = counter;
+      this.type = type;
+      this.outConfig = outConfig;
+    }
+  }
+
+  /**
+   * Helper for creating a pipeline.
+   */
+  public static final class Builder {
+    private final MetricObserver observer;
+    private String name;
+    private MetricFilter filter;
+    private boolean rateConversion = false;
+    private long rateHeartbeatMillis = 0L;
+    private long rateIntervalMillis = 0L;
+    private boolean normalization = false;
+    private long stepMillis = 0L;
+    private long normHeartbeatMillis = 0L;
+    private TagList commonTags;
+    private Function<MonitorConfig, MonitorConfig> configRewrite;
+    private boolean dropInvalid = false;
+    private Clock clock = ClockWithOffset.INSTANCE;
+
+    Builder(MetricObserver observer) {
+      this.observer = Preconditions.checkNotNull(observer, "observer");
+    }
+
+    /**
+     * Set the name of the pipeline. Defaults to the name of the downstream observer.
+     */
+    public Builder withName(String name) {
+      this.name = Preconditions.checkNotNull(name, "name");
+      return this;
+    }
+
+    /**
+     * Only forward metrics that match the filter.
+     */
+    public Builder withFilter(MetricFilter filter) {
+      this.filter = Preconditions.checkNotNull(filter, "filter");
+      return this;
+    }
+
+    /**
+     * Convert counters to a rate per second. See {@link CounterToRateMetricTransform} for
+     * details on the parameters.
+     */
+    public Builder withRateConversion(long heartbeat, long estPollingInterval, TimeUnit unit) {
+      Preconditions.checkArgument(heartbeat > 0, "heartbeat must be positive");
+      Preconditions.checkArgument(estPollingInterval >= 0,
+          "estPollingInterval cannot be negative");
+      this.rateConversion = true;
+      this.rateHeartbeatMillis = unit.toMillis(heartbeat);
+      this.rateIntervalMillis = unit.toMillis(estPollingInterval);
+      return this;
+    }
+
+    /**
+     * Normalize rates to step boundaries. See {@link NormalizationTransform} for details on
+     * the parameters.
+     */
+    public Builder withNormalization(long step, long heartbeat, TimeUnit unit) {
+      Preconditions.checkArgument(step > 0, "step must be positive");
+      Preconditions.checkArgument(heartbeat > 0, "heartbeat must be positive");
+      this.normalization = true;
+      this.stepMillis = unit.toMillis(step);
+      this.normHeartbeatMillis = unit.toMillis(heartbeat);
+      return this;
+    }
+
+    /**
+     * Add a set of tags to all metrics.
+     */
+    public Builder withCommonTags(TagList tags) {
+      this.commonTags = Preconditions.checkNotNull(tags, "tags");
+      return this;
+    }
+
+    /**
+     * Rewrite the config for all metrics, for example to replace characters that are
+     * not supported by the backend. The rewrite is applied after the common tags have
+     * been added and the result is cached, so it should be a pure function of the config.
+     */
+    public Builder withConfigRewrite(Function<MonitorConfig, MonitorConfig> rewrite) {
+      this.configRewrite = Preconditions.checkNotNull(rewrite, "rewrite");
+      return this;
+    }
+
+    /**
+     * Drop metrics with non-numeric values or values that are NaN or infinite.
+     */
+    public Builder withInvalidValuesDropped() {
+      this.dropInvalid = true;
+      return this;
+    }
+
+    /**
+     * Set the clock to use for expiring state. Useful for unit testing.
+     */
+    @VisibleForTesting
+    Builder withClock(Clock clock) {
+      this.clock = Preconditions.checkNotNull(clock, "clock");
+      return this;
+    }
+
+    /**
+     * Create the pipeline.
+     */
+    public MetricPipeline build() {
+      return new MetricPipeline(this);
+    }
+  }
+}
@@ -17,8 +17,10 @@ package com.netflix.servo.publish;
 
 import com.netflix.servo.DefaultMonitorRegistry;
 import com.netflix.servo.Metric;
+import com.netflix.servo.MetricBatch;
 import com.netflix.servo.MonitorRegistry;
 import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.ChangeTracked;
 import com.netflix.servo.monitor.CompositeMonitor;
 import com.netflix.servo.monitor.Counter;
 import com.netflix.servo.monitor.DynamicCounter;
@@ -26,26 +28,73 @@ import com.netflix.servo.monitor.Monitor;
 import com.netflix.servo.monitor.MonitorConfig;
 import com.netflix.servo.util.Clock;
 import com.netflix.servo.util.ClockWithOffset;
+import com.netflix.servo.util.Preconditions;
 import com.netflix.servo.util.ThreadFactories;
 import com.netflix.servo.util.TimeLimiter;
+import com.netflix.servo.util.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Poller for fetching {@link com.netflix.servo.annotations.Monitor} metrics
  * from a monitor registry.
+ * <p/>
+ * The flattened list of monitors is refreshed incrementally. If the registry or a composite
+ * monitor implements {@link Versioned}, then it will only be walked again when the version
+ * changes. The result of the filter is computed once for each leaf monitor. Decisions are also
+ * cached by config for each filter that is passed in, see {@link CachingMetricFilter}, so the
+ * filter is only evaluated for new configs even if monitors are recreated or several filters
+ * are used with the same poller. Filters with rules that change at runtime should be wrapped
+ * in a {@link CachingMetricFilter} by the caller. Calling
+ * {@link CachingMetricFilter#invalidateAll()} after the rules change will cause the decisions
+ * for all monitors to be recomputed.
+ * <p/>
+ * By default the value of each monitor is fetched using a {@link TimeLimiter} so that a
+ * single slow monitor cannot block the poller. Alternatively, a poll deadline can be set
+ * using {@link Builder#withPollDeadline(long, TimeUnit)}. In that mode all values are read by
+ * a single task that must complete before the deadline. If it does not, the monitor that was
+ * being read is put in quarantine and will be skipped by later polls. Monitors that take
+ * longer than the slow monitor threshold to return a value are also quarantined. Quarantined
+ * monitors are re-checked asynchronously and released once they respond within the threshold.
+ * <p/>
+ * For very large registries the values can be read in parallel by setting a fork-join pool
+ * using {@link Builder#withForkJoinPool(ForkJoinPool)}. The flattened monitor list is split
+ * into chunks that are read on the pool and all metrics for a poll will have the same
+ * timestamp. Values are read directly on the pool threads so this mode cannot be combined
+ * with a poll deadline.
+ * <p/>
+ * The values can also be fetched as a {@link MetricBatch} using {@link #pollBatch}. All
+ * values in a batch have the same timestamp.
+ * <p/>
+ * Using {@link #pollDelta} the poller will track which values changed since the previous delta
+ * poll. For monitors that implement {@link ChangeTracked} the value will only be read if the
+ * epoch changed, otherwise the previous value is reused. A full snapshot is sent periodically,
+ * see {@link Builder#withDeltaSnapshotInterval(long, TimeUnit)}, and whenever a monitor is
+ * removed.
  */
-public final class MonitorRegistryMetricPoller implements MetricPoller {
+public final class MonitorRegistryMetricPoller implements BatchMetricPoller, DeltaMetricPoller {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MonitorRegistryMetricPoller.class);
   private static final String GET_VALUE_ERROR = "servo.getValueError";
@@ -53,8 +102,22 @@ public final class MonitorRegistryMetricPoller implements MetricPoller {
       .builder(GET_VALUE_ERROR)
       .withTag("id", "timeout")
       .build());
+  private static final String QUARANTINE = "servo.getValueQuarantine";
+  private static final Counter QUARANTINE_ADDED = newQuarantineCounter("added");
+  private static final Counter QUARANTINE_RELEASED = newQuarantineCounter("released");
+  private static final Counter QUARANTINE_SKIPPED = newQuarantineCounter("skipped");
   static {
     DefaultMonitorRegistry.getInstance().register(TIMEOUT_ERROR);
+    DefaultMonitorRegistry.getInstance().register(QUARANTINE_ADDED);
+    DefaultMonitorRegistry.getInstance().register(QUARANTINE_RELEASED);
+    DefaultMonitorRegistry.getInstance().register(QUARANTINE_SKIPPED);
+  }
+
+  /** Maximum number of distinct filters to keep cached decisions for. */
+  private static final int MAX_FILTER_CACHES = 8;
+
+  private static Counter newQuarantineCounter(String action) {
+    return new BasicCounter(MonitorConfig.builder(QUARANTINE).withTag("action", action).build());
   }
 
   private final MonitorRegistry registry;
@@ -66,13 +129,32 @@ public final class MonitorRegistryMetricPoller implements MetricPoller {
 
   private final AtomicLong cacheLastUpdateTime = new AtomicLong(0L);
 
+  // Flattened view of the registry, only accessed while holding the lock for
+  // refreshMonitorCache
+  private MetricFilter cachedFilter;
+  private long cachedFilterVersion = Versioned.UNKNOWN;
+  private final Map<MetricFilter, CachingMetricFilter> filterCaches = new IdentityHashMap<>();
+  private long registryVersion = Versioned.UNKNOWN;
+  private List<MonitorNode> roots;
+
   // Put limit on fetching the monitor value in-case someone does something silly like call a
   // remote service inline
   private final TimeLimiter limiter;
+  private final DeadlineReader deadlineReader;
+  private final ForkJoinPool pool;
+  private final int chunkSize;
   private final ExecutorService service;
 
   private final Clock clock;
 
+  // State for delta polls, only accessed while holding the delta lock
+  private final Object deltaLock = new Object();
+  private final long deltaSnapshotInterval;
+  private List<Monitor<?>> deltaMonitors;
+  private long[] deltaEpochs;
+  private Object[] deltaValues;
+  private long lastSnapshotTime;
+
   /**
    * Creates a new instance using {@link com.netflix.servo.DefaultMonitorRegistry}.
    */
@@ -125,18 +207,41 @@ public final class MonitorRegistryMetricPoller implements MetricPoller {
   public MonitorRegistryMetricPoller(
       MonitorRegistry registry, long cacheTTL, TimeUnit unit, boolean useLimiter,
       Clock clock) {
-    this.registry = registry;
-    this.cacheTTL = TimeUnit.MILLISECONDS.convert(cacheTTL, unit);
-    this.clock = clock;
+    this(new Builder(registry)
+        .withCacheTTL(cacheTTL, unit)
+        .withTimeLimiter(useLimiter)
+        .withClock(clock));
+  }
 
-    if (useLimiter) {
+  private MonitorRegistryMetricPoller(Builder builder) {
+    this.registry = Preconditions.checkNotNull(builder.registry, "registry");
+    this.cacheTTL = builder.cacheTTL;
+    this.clock = builder.clock;
+    this.pool = builder.pool;
+    this.chunkSize = builder.chunkSize;
+    this.deltaSnapshotInterval = builder.deltaSnapshotInterval;
+
+    if (pool != null) {
+      service = null;
+      limiter = null;
+      deadlineReader = null;
+    } else if (builder.pollDeadline > 0L) {
+      final ThreadFactory factory =
+          ThreadFactories.withName("ServoMonitorGetValueBatch-%d");
+      service = Executors.newCachedThreadPool(factory);
+      limiter = null;
+      deadlineReader = new DeadlineReader(service, builder.pollDeadline,
+          builder.slowMonitorThreshold, builder.recheckDelay);
+    } else if (builder.useLimiter) {
       final ThreadFactory factory =
           ThreadFactories.withName("ServoMonitorGetValueLimiter-%d");
       service = Executors.newSingleThreadExecutor(factory);
       limiter = new TimeLimiter(service);
+      deadlineReader = null;
     } else {
       service = null;
       limiter = null;
+      deadlineReader = null;
     }
   }
 
@@ -152,37 +257,85 @@ public final class MonitorRegistryMetricPoller implements MetricPoller {
       LOGGER.warn("timeout trying to get value for {}", monitor.getConfig());
       TIMEOUT_ERROR.increment();
     } catch (Exception e) {
-      LOGGER.warn("failed to get value for {}", monitor.getConfig(), e);
-      DynamicCounter.increment(GET_VALUE_ERROR, "id", e.getClass().getSimpleName());
+      recordError(monitor, e);
     }
     return null;
   }
 
-  private void getMonitors(List<Monitor<?>> monitors, MetricFilter filter, Monitor<?> monitor) {
-    if (monitor instanceof CompositeMonitor<?>) {
-      for (Monitor<?> m : ((CompositeMonitor<?>) monitor).getMonitors()) {
-        getMonitors(monitors, filter, m);
+  private static void recordError(Monitor<?> monitor, Exception e) {
+    LOGGER.warn("failed to get value for {}", monitor.getConfig(), e);
+    DynamicCounter.increment(GET_VALUE_ERROR, "id", e.getClass().getSimpleName());
+  }
+
+  private static long versionOf(Object obj) {
+    return (obj instanceof Versioned) ? ((Versioned) obj).getVersion() : Versioned.UNKNOWN;
+  }
+
+  /**
+   * Update the list of top level nodes from the registry, reusing the nodes for monitors that
+   * were already present. Returns true if the set of top level monitors changed.
+   */
+  private boolean refreshRoots(MetricFilter filter) {
+    final long version = versionOf(registry);
+    if (version != Versioned.UNKNOWN && version == registryVersion && roots != null) {
+      return false;
+    }
+    final Collection<Monitor<?>> monitors = registry.getRegisteredMonitors();
+    final List<MonitorNode> updated = MonitorNode.merge(roots, monitors, filter);
+    final boolean changed = updated != roots;
+    roots = updated;
+    registryVersion = version;
+    return changed;
+  }
+
+  /**
+   * Returns a filter that caches the decisions of the provided filter. The same caching filter
+   * is returned for a given filter instance, so that the decisions are reused across polls.
+   */
+  private MetricFilter cachingFilter(MetricFilter filter) {
+    if (filter instanceof CachingMetricFilter) {
+      return filter;
+    }
+    CachingMetricFilter caching = filterCaches.get(filter);
+    if (caching == null) {
+      if (filterCaches.size() >= MAX_FILTER_CACHES) {
+        filterCaches.clear();
       }
-    } else if (filter.matches(monitor.getConfig())) {
-      monitors.add(monitor);
+      caching = new CachingMetricFilter(filter);
+      filterCaches.put(filter, caching);
     }
+    return caching;
   }
 
-  private void refreshMonitorCache(MetricFilter filter) {
+  private synchronized void refreshMonitorCache(MetricFilter rawFilter) {
     final long age = System.currentTimeMillis() - cacheLastUpdateTime.get();
-    if (age > cacheTTL) {
-      List<Monitor<?>> monitors = new ArrayList<>();
-      for (Monitor<?> monitor : registry.getRegisteredMonitors()) {
-        try {
-          getMonitors(monitors, filter, monitor);
-        } catch (Exception e) {
-          LOGGER.warn("failed to get monitors for composite {}", monitor.getConfig(), e);
-        }
+    if (age >= cacheTTL) {
+      // The nodes keep the filter decisions, so they must be rebuilt if the filter changes or
+      // its cached decisions have been invalidated
+      final MetricFilter filter = cachingFilter(rawFilter);
+      final long filterVersion = versionOf(filter);
+      if (rawFilter != cachedFilter || filterVersion != cachedFilterVersion) {
+        roots = null;
+        cachedFilter = rawFilter;
+        cachedFilterVersion = filterVersion;
+      }
+      boolean changed = refreshRoots(filter);
+      for (MonitorNode node : roots) {
+        changed |= node.refresh(filter);
       }
       cacheLastUpdateTime.set(clock.now());
-      cachedMonitors.set(monitors);
-      LOGGER.debug("cache refreshed, {} monitors matched filter, previous age {} seconds",
-          monitors.size(), age / 1000);
+      if (changed || cachedMonitors.get() == null) {
+        List<Monitor<?>> monitors = new ArrayList<>();
+        for (MonitorNode node : roots) {
+          node.addMatches(monitors);
+        }
+        cachedMonitors.set(monitors);
+        LOGGER.debug("cache refreshed, {} monitors matched filter, previous age {} seconds",
+            monitors.size(), age / 1000);
+      } else {
+        LOGGER.debug("cache is unchanged, {} monitors matched filter",
+            cachedMonitors.get().size());
+      }
     } else {
       LOGGER.debug("cache age of {} seconds is within ttl of {} seconds",
           age / 1000, cacheTTL / 1000);
@@ -202,16 +355,192 @@ public final class MonitorRegistryMetricPoller implements MetricPoller {
   public List<Metric> poll(MetricFilter filter, boolean reset) {
     refreshMonitorCache(filter);
     List<Monitor<?>> monitors = cachedMonitors.get();
+    if (pool != null) {
+      return parallelPoll(monitors);
+    }
     List<Metric> metrics = new ArrayList<>(monitors.size());
-    for (Monitor<?> monitor : monitors) {
-      Object v = getValue(monitor);
-      if (v != null) {
-        metrics.add(new Metric(monitor.getConfig(), clock.now(), v));
+    if (deadlineReader != null) {
+      final AtomicReferenceArray<Object> values = deadlineReader.read(monitors);
+      for (int i = 0; i < values.length(); ++i) {
+        Object v = values.get(i);
+        if (v != null) {
+          metrics.add(new Metric(monitors.get(i).getConfig(), clock.now(), v));
+        }
+      }
+    } else {
+      for (Monitor<?> monitor : monitors) {
+        Object v = getValue(monitor);
+        if (v != null) {
+          metrics.add(new Metric(monitor.getConfig(), clock.now(), v));
+        }
       }
     }
     return metrics;
   }
 
+  private List<Metric> parallelPoll(List<Monitor<?>> monitors) {
+    final long timestamp = clock.now();
+    final Object[] values = readValues(monitors);
+    final Metric[] results = new Metric[values.length];
+    int n = 0;
+    for (int i = 0; i < values.length; ++i) {
+      if (values[i] != null) {
+        results[n++] = new Metric(monitors.get(i).getConfig(), timestamp, values[i]);
+      }
+    }
+    return Collections.unmodifiableList(Arrays.asList(results).subList(0, n));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public MetricBatch pollBatch(MetricFilter filter) {
+    refreshMonitorCache(filter);
+    final List<Monitor<?>> monitors = cachedMonitors.get();
+    final long timestamp = clock.now();
+    final Object[] values = readValues(monitors);
+    final MetricBatch batch = new MetricBatch(timestamp, values.length);
+    for (int i = 0; i < values.length; ++i) {
+      if (values[i] != null) {
+        batch.add(monitors.get(i).getConfig(), timestamp, values[i]);
+      }
+    }
+    return batch;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public MetricDelta pollDelta(MetricFilter filter) {
+    refreshMonitorCache(filter);
+    final List<Monitor<?>> monitors = cachedMonitors.get();
+    synchronized (deltaLock) {
+      final boolean first = deltaMonitors == null;
+      final boolean removed = alignDeltaState(monitors);
+      final long timestamp = clock.now();
+      final boolean snapshot = first || removed
+          || timestamp - lastSnapshotTime >= deltaSnapshotInterval;
+
+      // Determine which monitors need to be read, the epoch must be checked before reading
+      // the value so that a concurrent update will be picked up on the next poll
+      final int n = monitors.size();
+      final int[] positions = new int[n];
+      final long[] epochs = new long[n];
+      final List<Monitor<?>> toRead = new ArrayList<>();
+      for (int i = 0; i < n; ++i) {
+        final Monitor<?> monitor = monitors.get(i);
+        long epoch = deltaEpochs[i];
+        boolean unchanged = false;
+        if (monitor instanceof ChangeTracked) {
+          try {
+            epoch = ((ChangeTracked) monitor).getChangeEpoch();
+            unchanged = deltaValues[i] != null && epoch == deltaEpochs[i];
+          } catch (Exception e) {
+            LOGGER.debug("failed to get change epoch for {}", monitor.getConfig(), e);
+          }
+        }
+        if (!unchanged) {
+          positions[toRead.size()] = i;
+          epochs[toRead.size()] = epoch;
+          toRead.add(monitor);
+        }
+      }
+      final Object[] values = readValues(toRead.size() == n ? monitors : toRead);
+
+      final List<Metric> metrics = new ArrayList<>(n);
+      final List<Metric> changed = snapshot ? metrics : new ArrayList<Metric>();
+      int j = 0;
+      for (int i = 0; i < n; ++i) {
+        boolean isChanged = false;
+        if (j < values.length && positions[j] == i) {
+          final Object v = values[j];
+          isChanged = v != null && !v.equals(deltaValues[i]);
+          deltaValues[i] = v;
+          deltaEpochs[i] = epochs[j];
+          ++j;
+        }
+        final Object v = deltaValues[i];
+        if (v != null) {
+          final Metric m = new Metric(monitors.get(i).getConfig(), timestamp, v);
+          metrics.add(m);
+          if (isChanged && !snapshot) {
+            changed.add(m);
+          }
+        }
+      }
+      if (snapshot) {
+        lastSnapshotTime = timestamp;
+      }
+      LOGGER.debug("delta poll read {} of {} monitors, {} changed, snapshot {}",
+          values.length, n, changed.size(), snapshot);
+      return new MetricDelta(metrics, changed, snapshot);
+    }
+  }
+
+  /**
+   * Update the delta state to match the current list of monitors, keeping the state for
+   * monitors that were already present. Returns true if any monitor was removed.
+   */
+  private boolean alignDeltaState(List<Monitor<?>> monitors) {
+    if (monitors == deltaMonitors) {
+      return false;
+    }
+    final int n = monitors.size();
+    final long[] epochs = new long[n];
+    final Object[] values = new Object[n];
+    int retained = 0;
+    if (deltaMonitors != null) {
+      final Map<Monitor<?>, Integer> previous = new IdentityHashMap<>();
+      for (int i = 0; i < deltaMonitors.size(); ++i) {
+        previous.put(deltaMonitors.get(i), i);
+      }
+      for (int i = 0; i < n; ++i) {
+        final Integer p = previous.get(monitors.get(i));
+        if (p != null) {
+          epochs[i] = deltaEpochs[p];
+          values[i] = deltaValues[p];
+          ++retained;
+        }
+      }
+    }
+    final boolean removed = deltaMonitors != null && retained < deltaMonitors.size();
+    deltaMonitors = monitors;
+    deltaEpochs = epochs;
+    deltaValues = values;
+    return removed;
+  }
+
+  /**
+   * Read the values for all monitors using the configured mode. The value will be null for
+   * monitors that could not be read.
+   */
+  private Object[] readValues(List<Monitor<?>> monitors) {
+    final Object[] values = new Object[monitors.size()];
+    if (pool != null) {
+      pool.invoke(new ReadTask(monitors, values, 0, values.length, chunkSize));
+    } else if (deadlineReader != null) {
+      final AtomicReferenceArray<Object> results = deadlineReader.read(monitors);
+      for (int i = 0; i < values.length; ++i) {
+        values[i] = results.get(i);
+      }
+    } else {
+      for (int i = 0; i < values.length; ++i) {
+        values[i] = getValue(monitors.get(i));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns the number of monitors that are currently in quarantine. This will always be 0
+   * unless a poll deadline has been set.
+   */
+  public int getQuarantinedCount() {
+    return (deadlineReader == null) ? 0 : deadlineReader.quarantined.size();
+  }
+
   /**
    * Shutsdown the thread executor used for time limiting the get value calls. It is a good idea
    * to call this and explicitly cleanup the thread. In most cases the threads will be cleaned
@@ -223,6 +552,355 @@ public final class MonitorRegistryMetricPoller implements MetricPoller {
     }
   }
 
+  /**
+   * Builder for creating a poller with non-default settings.
+   */
+  public static class Builder {
+    private final MonitorRegistry registry;
+    private long cacheTTL = 0L;
+    private boolean useLimiter = true;
+    private Clock clock = ClockWithOffset.INSTANCE;
+    private long pollDeadline = 0L;
+    private long slowMonitorThreshold = TimeUnit.SECONDS.toMillis(1);
+    private long recheckDelay = TimeUnit.MINUTES.toMillis(1);
+    private ForkJoinPool pool = null;
+    private int chunkSize = 1024;
+    private long deltaSnapshotInterval = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Create a new builder for a poller that will fetch the monitors from the registry.
+     */
+    public Builder(MonitorRegistry registry) {
+      this.registry = registry;
+    }
+
+    /**
+     * How long to cache the filtered monitor list from the registry. (Default is 0.)
+     */
+    public Builder withCacheTTL(long ttl, TimeUnit unit) {
+      this.cacheTTL = unit.toMillis(ttl);
+      return this;
+    }
+
+    /**
+     * Whether to use a time limiter for getting the value of each monitor. This is ignored
+     * if a poll deadline is set. (Default is true.)
+     */
+    public Builder withTimeLimiter(boolean useLimiter) {
+      this.useLimiter = useLimiter;
+      return this;
+    }
+
+    /**
+     * Clock to use for the timestamps of the metrics.
+     */
+    public Builder withClock(Clock clock) {
+      this.clock = Preconditions.checkNotNull(clock, "clock");
+      return this;
+    }
+
+    /**
+     * Read all monitor values in a single task that must finish within the given time. A value
+     * of 0 disables the deadline and the time limiter will be used instead. (Default is 0.)
+     */
+    public Builder withPollDeadline(long deadline, TimeUnit unit) {
+      Preconditions.checkArgument(deadline >= 0L, "deadline cannot be negative");
+      this.pollDeadline = unit.toMillis(deadline);
+      return this;
+    }
+
+    /**
+     * When using a poll deadline, monitors that take longer than this time to return a value
+     * will be quarantined. (Default is 1s.)
+     */
+    public Builder withSlowMonitorThreshold(long threshold, TimeUnit unit) {
+      Preconditions.checkArgument(threshold > 0L, "threshold must be positive");
+      this.slowMonitorThreshold = unit.toMillis(threshold);
+      return this;
+    }
+
+    /**
+     * How long to wait before checking if a quarantined monitor has recovered. The delay will
+     * double each time the check fails. (Default is 1m.)
+     */
+    public Builder withQuarantineRecheckDelay(long delay, TimeUnit unit) {
+      Preconditions.checkArgument(delay > 0L, "delay must be positive");
+      this.recheckDelay = unit.toMillis(delay);
+      return this;
+    }
+
+    /**
+     * Read the monitor values in parallel using the pool. The time limiter is not used when
+     * reading values in parallel. (Default is null, values are read on the polling thread.)
+     */
+    public Builder withForkJoinPool(ForkJoinPool pool) {
+      this.pool = pool;
+      return this;
+    }
+
+    /**
+     * Maximum number of monitors that will be read by a single task when reading values in
+     * parallel. (Default is 1024.)
+     */
+    public Builder withParallelChunkSize(int size) {
+      Preconditions.checkArgument(size > 0, "chunk size must be positive");
+      this.chunkSize = size;
+      return this;
+    }
+
+    /**
+     * How often a full snapshot should be sent when using delta polls. (Default is 1m.)
+     */
+    public Builder withDeltaSnapshotInterval(long interval, TimeUnit unit) {
+      Preconditions.checkArgument(interval >= 0L, "interval cannot be negative");
+      this.deltaSnapshotInterval = unit.toMillis(interval);
+      return this;
+    }
+
+    /**
+     * Create a new poller.
+     */
+    public MonitorRegistryMetricPoller build() {
+      Preconditions.checkArgument(pool == null || pollDeadline == 0L,
+          "poll deadline cannot be used with a fork-join pool");
+      return new MonitorRegistryMetricPoller(this);
+    }
+  }
+
+  /**
+   * Reads the values for all monitors in a single task with a shared deadline, see the class
+   * comment for details.
+   */
+  private static final class DeadlineReader {
+    private static final int MAX_BACKOFF_SHIFT = 5;
+
+    private final ExecutorService executor;
+    private final long deadlineMillis;
+    private final long slowThresholdNanos;
+    private final long recheckDelayNanos;
+
+    // Copy on write so the batch task can check it without locking, updates are done while
+    // holding the lock for this object
+    private volatile Map<Monitor<?>, Quarantine> quarantined = Collections.emptyMap();
+
+    DeadlineReader(ExecutorService executor, long deadlineMillis, long slowThresholdMillis,
+                   long recheckDelayMillis) {
+      this.executor = executor;
+      this.deadlineMillis = deadlineMillis;
+      this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+      this.recheckDelayNanos = TimeUnit.MILLISECONDS.toNanos(recheckDelayMillis);
+    }
+
+    AtomicReferenceArray<Object> read(List<Monitor<?>> monitors) {
+      if (!quarantined.isEmpty()) {
+        releaseMissing(monitors);
+        scheduleRechecks();
+      }
+
+      final Batch batch = new Batch(monitors);
+      final Future<?> future = executor.submit(batch);
+      try {
+        future.get(deadlineMillis, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // Abort before interrupting so the batch cannot move past the blocked monitor
+        batch.abort();
+        future.cancel(true);
+      } catch (InterruptedException e) {
+        batch.abort();
+        future.cancel(true);
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        LOGGER.warn("failed to read monitor values", e);
+      }
+      return batch.values;
+    }
+
+    private synchronized void quarantine(Monitor<?> monitor) {
+      if (!quarantined.containsKey(monitor)) {
+        Map<Monitor<?>, Quarantine> updated = new IdentityHashMap<>(quarantined);
+        updated.put(monitor, new Quarantine(System.nanoTime() + recheckDelayNanos));
+        quarantined = updated;
+        QUARANTINE_ADDED.increment();
+        LOGGER.warn("monitor {} is too slow and has been quarantined", monitor.getConfig());
+      }
+    }
+
+    private synchronized void release(Monitor<?> monitor) {
+      if (quarantined.containsKey(monitor)) {
+        Map<Monitor<?>, Quarantine> updated = new IdentityHashMap<>(quarantined);
+        updated.remove(monitor);
+        quarantined = updated;
+        QUARANTINE_RELEASED.increment();
+        LOGGER.info("monitor {} has recovered and has been released", monitor.getConfig());
+      }
+    }
+
+    /** Release monitors that are no longer returned from the registry. */
+    private synchronized void releaseMissing(List<Monitor<?>> monitors) {
+      final Map<Monitor<?>, Quarantine> current = new IdentityHashMap<>();
+      for (Monitor<?> m : monitors) {
+        Quarantine q = quarantined.get(m);
+        if (q != null) {
+          current.put(m, q);
+        }
+      }
+      if (current.size() != quarantined.size()) {
+        quarantined = current;
+      }
+    }
+
+    private void scheduleRechecks() {
+      final long now = System.nanoTime();
+      for (Map.Entry<Monitor<?>, Quarantine> entry : quarantined.entrySet()) {
+        final Monitor<?> monitor = entry.getKey();
+        final Quarantine q = entry.getValue();
+        if (now - q.nextCheck >= 0L && q.checking.compareAndSet(false, true)) {
+          executor.execute(() -> recheck(monitor, q));
+        }
+      }
+    }
+
+    private void recheck(Monitor<?> monitor, Quarantine q) {
+      try {
+        final long start = System.nanoTime();
+        try {
+          monitor.getValue();
+        } catch (Exception e) {
+          LOGGER.debug("failed to get value for {}", monitor.getConfig(), e);
+        }
+        final long duration = System.nanoTime() - start;
+        if (duration <= slowThresholdNanos) {
+          release(monitor);
+        } else {
+          q.failures = Math.min(q.failures + 1, MAX_BACKOFF_SHIFT);
+          q.nextCheck = System.nanoTime() + (recheckDelayNanos << q.failures);
+        }
+      } finally {
+        q.checking.set(false);
+      }
+    }
+
+    /**
+     * State for a quarantined monitor. Only one re-check will be in progress at a time.
+     */
+    private static final class Quarantine {
+      private final AtomicBoolean checking = new AtomicBoolean(false);
+      private volatile long nextCheck;
+      private volatile int failures;
+
+      Quarantine(long nextCheck) {
+        this.nextCheck = nextCheck;
+      }
+    }
+
+    /**
+     * Task that reads the values for a list of monitors in order. The position of the current
+     * read is tracked so that the monitor blocking the task can be identified if the deadline
+     * is exceeded.
+     */
+    private final class Batch implements Runnable {
+      private final List<Monitor<?>> monitors;
+      private final AtomicReferenceArray<Object> values;
+      private volatile int position = -1;
+      private volatile boolean aborted;
+
+      Batch(List<Monitor<?>> monitors) {
+        this.monitors = monitors;
+        this.values = new AtomicReferenceArray<>(monitors.size());
+      }
+
+      @Override
+      public void run() {
+        final Map<Monitor<?>, Quarantine> skip = quarantined;
+        final int n = monitors.size();
+        for (int i = 0; i < n && !aborted; ++i) {
+          final Monitor<?> monitor = monitors.get(i);
+          if (!skip.isEmpty() && skip.containsKey(monitor)) {
+            QUARANTINE_SKIPPED.increment();
+            continue;
+          }
+
+          final long start = System.nanoTime();
+          position = i;
+          try {
+            final Object v = monitor.getValue();
+            if (!aborted) {
+              values.set(i, v);
+            }
+          } catch (Exception e) {
+            recordError(monitor, e);
+          }
+          if (System.nanoTime() - start > slowThresholdNanos) {
+            quarantine(monitor);
+          }
+        }
+        position = n;
+      }
+
+      /**
+       * Called if the deadline is exceeded. The monitor currently being read is always
+       * quarantined, even if the deadline is shorter than the slow threshold, otherwise a
+       * monitor that never returns would tie up another thread on every poll.
+       */
+      void abort() {
+        aborted = true;
+        final int pos = position;
+        final int n = monitors.size();
+        if (pos < 0) {
+          LOGGER.warn("deadline exceeded before reading any of {} monitors", n);
+          TIMEOUT_ERROR.increment();
+        } else if (pos < n) {
+          final Monitor<?> monitor = monitors.get(pos);
+          LOGGER.warn("deadline exceeded after reading {} of {} monitors, blocked on {}",
+              pos, n, monitor.getConfig());
+          TIMEOUT_ERROR.increment();
+          quarantine(monitor);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the values for a range of monitors, splitting the range in half until it is smaller
+   * than the chunk size.
+   */
+  private static final class ReadTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<Monitor<?>> monitors;
+    private final transient Object[] values;
+    private final int start;
+    private final int end;
+    private final int chunkSize;
+
+    ReadTask(List<Monitor<?>> monitors, Object[] values, int start, int end, int chunkSize) {
+      this.monitors = monitors;
+      this.values = values;
+      this.start = start;
+      this.end = end;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start <= chunkSize) {
+        for (int i = start; i < end; ++i) {
+          final Monitor<?> monitor = monitors.get(i);
+          try {
+            values[i] = monitor.getValue();
+          } catch (Exception e) {
+            recordError(monitor, e);
+          }
+        }
+      } else {
+        final int mid = (start + end) >>> 1;
+        invokeAll(
+            new ReadTask(monitors, values, start, mid, chunkSize),
+            new ReadTask(monitors, values, mid, end, chunkSize));
+      }
+    }
+  }
+
   private static class MonitorValueCallable implements Callable<Object> {
 
     private final Monitor<?> monitor;
@@ -235,4 +913,110 @@ public final class MonitorRegistryMetricPoller implements MetricPoller {
       return monitor.getValue();
     }
   }
+
+  /**
+   * Cached state for a monitor in the registry. For composites it keeps the version and nodes
+   * for the sub-monitors that were seen at the last refresh, for other monitors it keeps the
+   * result of the filter.
+   */
+  private static final class MonitorNode {
+    private final Monitor<?> monitor;
+    private final boolean matches;
+    private long version = Versioned.UNKNOWN;
+    private List<MonitorNode> children;
+
+    MonitorNode(Monitor<?> monitor, MetricFilter filter) {
+      this.monitor = monitor;
+      this.matches = !(monitor instanceof CompositeMonitor<?>) && matches(filter, monitor);
+    }
+
+    private static boolean matches(MetricFilter filter, Monitor<?> monitor) {
+      try {
+        return filter.matches(monitor.getConfig());
+      } catch (Exception e) {
+        LOGGER.warn("failed to apply filter to {}", monitor.getConfig(), e);
+        return false;
+      }
+    }
+
+    /**
+     * Create a list of nodes for the monitors. Nodes from the previous list are reused if
+     * the same monitor instance is still present. If the set of monitors is the same, then
+     * the previous list will be returned.
+     */
+    static List<MonitorNode> merge(
+        List<MonitorNode> previous, Collection<Monitor<?>> monitors, MetricFilter filter) {
+      if (previous != null && previous.size() == monitors.size()) {
+        int i = 0;
+        boolean same = true;
+        for (Monitor<?> m : monitors) {
+          if (previous.get(i++).monitor != m) {
+            same = false;
+            break;
+          }
+        }
+        if (same) {
+          return previous;
+        }
+      }
+
+      final Map<Monitor<?>, MonitorNode> existing = new IdentityHashMap<>();
+      if (previous != null) {
+        for (MonitorNode node : previous) {
+          existing.put(node.monitor, node);
+        }
+      }
+      final List<MonitorNode> nodes = new ArrayList<>(monitors.size());
+      for (Monitor<?> m : monitors) {
+        MonitorNode node = existing.get(m);
+        nodes.add(node == null ? new MonitorNode(m, filter) : node);
+      }
+      return nodes;
+    }
+
+    /**
+     * Refresh the sub-monitors for composites. Returns true if any of the composites in
+     * this sub-tree changed.
+     */
+    boolean refresh(MetricFilter filter) {
+      if (!(monitor instanceof CompositeMonitor<?>)) {
+        return false;
+      }
+
+      boolean changed = false;
+      try {
+        // Version must be read before getting the monitors so that a concurrent update
+        // will be picked up on the next refresh
+        final long v = versionOf(monitor);
+        if (v == Versioned.UNKNOWN || v != version || children == null) {
+          final List<Monitor<?>> monitors = ((CompositeMonitor<?>) monitor).getMonitors();
+          final List<MonitorNode> updated = merge(children, monitors, filter);
+          changed = updated != children;
+          children = updated;
+          version = v;
+        }
+      } catch (Exception e) {
+        LOGGER.warn("failed to get monitors for composite {}", monitor.getConfig(), e);
+        changed = children != null && !children.isEmpty();
+        children = new ArrayList<>();
+        version = Versioned.UNKNOWN;
+      }
+
+      for (MonitorNode child : children) {
+        changed |= child.refresh(filter);
+      }
+      return changed;
+    }
+
+    /** Add all leaf monitors in this sub-tree that matched the filter. */
+    void addMatches(List<Monitor<?>> monitors) {
+      if (children != null) {
+        for (MonitorNode child : children) {
+          child.addMatches(monitors);
+        }
+      } else if (matches) {
+        monitors.add(monitor);
+      }
+    }
+  }
 }
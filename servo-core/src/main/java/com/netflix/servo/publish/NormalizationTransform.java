@@ -17,11 +17,11 @@ package com.netflix.servo.publish;
 
 import com.netflix.servo.DefaultMonitorRegistry;
 import com.netflix.servo.Metric;
+import com.netflix.servo.MetricBatch;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.monitor.Counter;
 import com.netflix.servo.monitor.MonitorConfig;
 import com.netflix.servo.monitor.Monitors;
-import com.netflix.servo.tag.TagList;
 import com.netflix.servo.util.Clock;
 import com.netflix.servo.util.ClockWithOffset;
 import com.netflix.servo.util.Preconditions;
@@ -30,22 +30,35 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Converts rate metrics into normalized values. See
  * <a href="http://www.vandenbogaerdt.nl/rrdtool/process.php">Rates, normalizing and
  * consolidating</a> for a
  * discussion on normalization of rates as done by rrdtool.
+ * <p/>
+ * Updates received as a {@link MetricBatch} are forwarded as a batch. If the downstream
+ * observer does not support batches, then it will be converted to a list.
+ * <p/>
+ * This class is thread safe and can be fed by multiple pollers concurrently. The state for
+ * each {@link MonitorConfig} is kept in one of several shards that are locked independently.
+ * The state includes the data source type, so the tag only needs to be parsed the first time
+ * a config is seen. Updates to the downstream observer are serialized, so it will never
+ * receive concurrent calls from this transform. State that has not been updated within
+ * the heartbeat is removed by a sweep that runs at most once per heartbeat interval.
  */
-public final class NormalizationTransform implements MetricObserver {
+public final class NormalizationTransform implements BatchMetricObserver {
   private static final Logger LOGGER =
       LoggerFactory.getLogger(NormalizationTransform.class);
 
-  private static final String DEFAULT_DSTYPE = DataSourceType.RATE.name();
+  private static final int SHARD_BITS = 4;
+  private static final int SHARDS = 1 << SHARD_BITS;
 
   static Counter newCounter(String name) {
     Counter c = Monitors.newCounter(name);
@@ -59,7 +72,10 @@ public final class NormalizationTransform implements MetricObserver {
   private final MetricObserver observer;
   private final long heartbeatMillis;
   private final long stepMillis;
-  private final Map<MonitorConfig, NormalizedValue> cache;
+  private final Clock clock;
+  private final Shard[] shards;
+  private final AtomicLong nextSweep;
+  private final Object observerLock = new Object();
 
   /**
    * Creates a new instance with the specified sampling and heartbeat interval using the default
@@ -136,60 +152,60 @@ public final class NormalizationTransform implements MetricObserver {
     Preconditions.checkArgument(heartbeat > 0, "heartbeat must be positive");
     this.heartbeatMillis = unit.toMillis(heartbeat);
 
-    this.cache = new LinkedHashMap<MonitorConfig, NormalizedValue>(16, 0.75f, true) {
-      protected boolean removeEldestEntry(Map.Entry<MonitorConfig, NormalizedValue> eldest) {
-        final long lastMod = eldest.getValue().lastUpdateTime;
-        if (lastMod < 0) {
-          return false;
-        }
-
-        final long now = clock.now();
-        final boolean expired = (now - lastMod) > heartbeatMillis;
-        if (expired) {
-          HEARTBEAT_EXCEEDED.increment();
-          LOGGER.debug("heartbeat interval exceeded, expiring {}", eldest.getKey());
-        }
-        return expired;
-      }
-    };
-  }
+    this.clock = clock;
 
-  private static String getDataSourceType(Metric m) {
-    final TagList tags = m.getConfig().getTags();
-    final String value = tags.getValue(DataSourceType.KEY);
-    if (value != null) {
-      return value;
-    } else {
-      return DEFAULT_DSTYPE;
+    this.shards = new Shard[SHARDS];
+    for (int i = 0; i < SHARDS; ++i) {
+      shards[i] = new Shard();
     }
+    this.nextSweep = new AtomicLong(clock.now() + heartbeatMillis);
   }
 
-  private static boolean isGauge(String dsType) {
-    return dsType.equals(DataSourceType.GAUGE.name());
+  /**
+   * Determine the data source type for a config. Configs without a type are treated as rates
+   * and null is returned if the type is not recognized.
+   */
+  private static DataSourceType getDataSourceType(MonitorConfig config) {
+    if (config.getTags().getValue(DataSourceType.KEY) == null) {
+      return DataSourceType.RATE;
+    }
+    return MetricBatch.typeOf(config);
   }
 
-  private static boolean isRate(String dsType) {
-    return dsType.equals(DataSourceType.RATE.name());
+  private Shard shardFor(MonitorConfig config) {
+    int h = config.hashCode();
+    h ^= h >>> 16;
+    return shards[h & (SHARDS - 1)];
   }
 
-  private static boolean isNormalized(String dsType) {
-    return dsType.equals(DataSourceType.NORMALIZED.name());
+  /**
+   * Returns the current time and sweeps expired state if the heartbeat interval has elapsed
+   * since the last sweep. Only one of the concurrent callers will do the sweep.
+   */
+  private long now() {
+    final long now = clock.now();
+    final long next = nextSweep.get();
+    if (now >= next && nextSweep.compareAndSet(next, now + heartbeatMillis)) {
+      final long cutoff = now - heartbeatMillis;
+      for (Shard shard : shards) {
+        synchronized (shard) {
+          shard.removeOlderThan(cutoff);
+        }
+      }
+    }
+    return now;
   }
 
-  private static boolean isInformational(String dsType) {
-    return dsType.equals(DataSourceType.INFORMATIONAL.name());
+  private void updateObserver(List<Metric> metrics) {
+    synchronized (observerLock) {
+      observer.update(metrics);
+    }
   }
 
-  private Metric normalize(Metric m, long stepBoundary) {
-    NormalizedValue normalizedValue = cache.get(m.getConfig());
-    if (normalizedValue == null) {
-      normalizedValue = new NormalizedValue();
-      cache.put(m.getConfig(), normalizedValue);
+  private void updateObserver(MetricBatch batch) {
+    synchronized (observerLock) {
+      MetricBatches.update(observer, batch);
     }
-
-    double value = normalizedValue.updateAndGet(m.getTimestamp(),
-        m.getNumberValue().doubleValue());
-    return new Metric(m.getConfig(), stepBoundary, value);
   }
 
   /**
@@ -198,26 +214,73 @@ public final class NormalizationTransform implements MetricObserver {
   @Override
   public void update(List<Metric> metrics) {
     Preconditions.checkNotNull(metrics, "metrics");
+    final long now = now();
     final List<Metric> newMetrics = new ArrayList<>(metrics.size());
 
     for (Metric m : metrics) {
-      long offset = m.getTimestamp() % stepMillis;
-      long stepBoundary = m.getTimestamp() - offset;
-      String dsType = getDataSourceType(m);
-      if (isGauge(dsType) || isNormalized(dsType)) {
-        Metric atStepBoundary = new Metric(m.getConfig(), stepBoundary, m.getValue());
-        newMetrics.add(atStepBoundary); // gauges are not normalized
-      } else if (isRate(dsType)) {
-        Metric normalized = normalize(m, stepBoundary);
-        if (normalized != null) {
-          newMetrics.add(normalized);
+      final MonitorConfig config = m.getConfig();
+      final long t = m.getTimestamp();
+      final long stepBoundary = t - t % stepMillis;
+      final Shard shard = shardFor(config);
+      final DataSourceType type;
+      double value = Double.NaN;
+      synchronized (shard) {
+        final ConfigState state = shard.get(config, now);
+        type = state.type;
+        if (type == DataSourceType.RATE) {
+          value = state.updateAndGet(stepMillis, heartbeatMillis, t, m.getDoubleValue());
         }
-      } else if (!isInformational(dsType)) {
+      }
+
+      if (type == DataSourceType.GAUGE || type == DataSourceType.NORMALIZED) {
+        // gauges are not normalized, only the timestamp needs to be adjusted
+        newMetrics.add(t == stepBoundary ? m : m.withTimestamp(stepBoundary));
+      } else if (type == DataSourceType.RATE) {
+        newMetrics.add(Metric.ofDouble(config, stepBoundary, value));
+      } else if (type != DataSourceType.INFORMATIONAL) {
         // unknown type - use a safe fallback
         newMetrics.add(m); // we cannot normalize this
       }
     }
-    observer.update(newMetrics);
+    updateObserver(newMetrics);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void update(MetricBatch batch) {
+    Preconditions.checkNotNull(batch, "batch");
+    final long now = now();
+    final long batchTime = batch.getTimestamp();
+    final MetricBatch newBatch = new MetricBatch(batchTime - batchTime % stepMillis, batch.size());
+
+    final int n = batch.size();
+    for (int i = 0; i < n; ++i) {
+      final long t = batch.getTimestamp(i);
+      final long stepBoundary = t - t % stepMillis;
+      DataSourceType type = batch.getType(i);
+      if (type == null && batch.getConfig(i).getTags().getValue(DataSourceType.KEY) == null) {
+        type = DataSourceType.RATE;
+      }
+
+      if (type == DataSourceType.GAUGE || type == DataSourceType.NORMALIZED) {
+        newBatch.add(batch, i, stepBoundary); // gauges are not normalized
+      } else if (type == DataSourceType.RATE) {
+        final MonitorConfig config = batch.getConfig(i);
+        final Shard shard = shardFor(config);
+        final double value;
+        synchronized (shard) {
+          value = shard.get(config, now)
+              .updateAndGet(stepMillis, heartbeatMillis, t, batch.getValue(i));
+        }
+        newBatch.add(config, type, stepBoundary, value);
+      } else if (type != DataSourceType.INFORMATIONAL) {
+        // unknown type - use a safe fallback
+        newBatch.add(batch, i, t);
+      }
+    }
+    updateObserver(newBatch);
   }
 
   /**
@@ -228,52 +291,48 @@ public final class NormalizationTransform implements MetricObserver {
     return observer.getName();
   }
 
-  private static final long NO_PREVIOUS_UPDATE = -1L;
-
-  private class NormalizedValue {
-    private long lastUpdateTime = NO_PREVIOUS_UPDATE;
-    private double lastValue = 0.0;
+  /**
+   * Configs are split across shards so that concurrent updates only contend if the configs
+   * are in the same shard. All access must be synchronized on the shard.
+   */
+  private final class Shard {
+    private final Map<MonitorConfig, ConfigState> states = new HashMap<>();
 
-    private double weightedValue(long offset, double value) {
-      double weight = (double) offset / stepMillis;
-      return value * weight;
+    ConfigState get(MonitorConfig config, long now) {
+      ConfigState state = states.get(config);
+      if (state == null) {
+        state = new ConfigState(getDataSourceType(config));
+        states.put(config, state);
+      }
+      state.lastAccessTime = now;
+      return state;
     }
 
-    double updateAndGet(long timestamp, double value) {
-      double result = Double.NaN;
-      if (timestamp > lastUpdateTime) {
-        if (lastUpdateTime > 0 && timestamp - lastUpdateTime > heartbeatMillis) {
-          lastUpdateTime = NO_PREVIOUS_UPDATE;
-          lastValue = 0.0;
-        }
-
-        long offset = timestamp % stepMillis;
-        long stepBoundary = timestamp - offset;
-
-        if (lastUpdateTime < stepBoundary) {
-          if (lastUpdateTime != NO_PREVIOUS_UPDATE) {
-            long intervalOffset = lastUpdateTime % stepMillis;
-            lastValue += weightedValue(stepMillis - intervalOffset, value);
-            result = lastValue;
-          } else if (offset == 0) {
-            result = value;
-          } else {
-            result = weightedValue(stepMillis - offset, value);
+    void removeOlderThan(long cutoff) {
+      final Iterator<Map.Entry<MonitorConfig, ConfigState>> it = states.entrySet().iterator();
+      while (it.hasNext()) {
+        final Map.Entry<MonitorConfig, ConfigState> entry = it.next();
+        if (entry.getValue().lastAccessTime < cutoff) {
+          if (entry.getValue().hasPreviousUpdate()) {
+            HEARTBEAT_EXCEEDED.increment();
+            LOGGER.debug("heartbeat interval exceeded, expiring {}", entry.getKey());
           }
-
-          lastValue = weightedValue(offset, value);
-        } else {
-          // Didn't cross step boundary, so update is more frequent than step
-          // and we just need to
-          // add in the weighted value
-          long intervalOffset = timestamp - lastUpdateTime;
-          lastValue += weightedValue(intervalOffset, value);
-          result = lastValue;
+          it.remove();
         }
       }
+    }
+  }
+
+  /**
+   * Cached data source type for a config and, for rates, the state needed to normalize
+   * the values.
+   */
+  private static final class ConfigState extends NormalizedValue {
+    private final DataSourceType type;
+    private long lastAccessTime = NO_PREVIOUS_UPDATE;
 
-      lastUpdateTime = timestamp;
-      return result;
+    ConfigState(DataSourceType type) {
+      this.type = type;
     }
   }
 }
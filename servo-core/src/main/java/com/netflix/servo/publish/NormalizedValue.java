@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+/**
+ * State needed to normalize a rate to step boundaries. See {@link NormalizationTransform} for
+ * more details. This class is not thread safe, access needs to be synchronized by the owner.
+ */
+class NormalizedValue {
+
+  /** Value used for the last update time if there has not been an update. */
+  static final long NO_PREVIOUS_UPDATE = -1L;
+
+  private long lastUpdateTime = NO_PREVIOUS_UPDATE;
+  private double lastValue = 0.0;
+
+  /**
+   * Returns true if a value has been received since the state was created.
+   */
+  boolean hasPreviousUpdate() {
+    return lastUpdateTime != NO_PREVIOUS_UPDATE;
+  }
+
+  private static double weightedValue(long stepMillis, long offset, double value) {
+    double weight = (double) offset / stepMillis;
+    return value * weight;
+  }
+
+  /**
+   * Update with a new sample and return the normalized value for the step boundary before
+   * the timestamp. NaN will be returned if the sample is not newer than the last update.
+   *
+   * @param stepMillis      step size in milliseconds
+   * @param heartbeatMillis if the time since the last update exceeds the heartbeat, then the
+   *                        sample will be treated as the first value
+   * @param timestamp       time in milliseconds for the sample
+   * @param value           rate for the sample
+   */
+  double updateAndGet(long stepMillis, long heartbeatMillis, long timestamp, double value) {
+    double result = Double.NaN;
+    if (timestamp > lastUpdateTime) {
+      if (lastUpdateTime > 0 && timestamp - lastUpdateTime > heartbeatMillis) {
+        lastUpdateTime = NO_PREVIOUS_UPDATE;
+        lastValue = 0.0;
+      }
+
+      long offset = timestamp % stepMillis;
+      long stepBoundary = timestamp - offset;
+
+      if (lastUpdateTime < stepBoundary) {
+        if (lastUpdateTime != NO_PREVIOUS_UPDATE) {
+          long intervalOffset = lastUpdateTime % stepMillis;
+          lastValue += weightedValue(stepMillis, stepMillis - intervalOffset, value);
+          result = lastValue;
+        } else if (offset == 0) {
+          result = value;
+        } else {
+          result = weightedValue(stepMillis, stepMillis - offset, value);
+        }
+
+        lastValue = weightedValue(stepMillis, offset, value);
+      } else {
+        // Didn't cross step boundary, so update is more frequent than step
+        // and we just need to
+        // add in the weighted value
+        long intervalOffset = timestamp - lastUpdateTime;
+        lastValue += weightedValue(stepMillis, intervalOffset, value);
+        result = lastValue;
+      }
+    }
+
+    lastUpdateTime = timestamp;
+    return result;
+  }
+}
@@ -16,25 +16,68 @@
 package com.netflix.servo.publish;
 
 import com.netflix.servo.Metric;
+import com.netflix.servo.MetricBatch;
+import com.netflix.servo.monitor.DynamicCounter;
+import com.netflix.servo.monitor.DynamicTimer;
+import com.netflix.servo.monitor.MonitorConfig;
 import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.ThreadFactories;
 import com.netflix.servo.util.UnmodifiableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- * Runnable that will send updates to a collection of observers.
+ * Runnable that will send updates to a collection of observers. If the poller implements
+ * {@link BatchMetricPoller} and at least one of the observers implements
+ * {@link BatchMetricObserver}, then the values will be polled as a {@link MetricBatch}. Other
+ * observers will get the batch converted to a list of metrics. Similarly, if the poller
+ * implements {@link DeltaMetricPoller} and at least one observer implements
+ * {@link DeltaMetricObserver}, then a delta poll will be used and other observers will get the
+ * full list of metrics. Delta polls take precedence over batches. Neither is used if the
+ * runnable is created with reset set to true.
+ * <p/>
+ * By default the observers are updated one after another on the polling thread. Using
+ * {@link Builder#withParallelDispatch(long, TimeUnit)} each observer gets its own thread and
+ * all observers are updated in parallel with the same immutable list of metrics. The polling
+ * thread waits at most until the deadline. Observers that have not finished by then are
+ * interrupted. If an observer is still busy with a previous update, the new update is skipped
+ * for that observer so a stuck observer cannot delay the others or queue up updates.
+ * <p/>
+ * Failures are recorded with the {@code servo.pollRunnable.observerFailures} counter tagged
+ * with the observer name and a reason of error, timeout, or rejected. With parallel dispatch
+ * the time taken by each observer is also recorded with the
+ * {@code servo.pollRunnable.observerLatency} timer tagged with the observer name.
  */
 public class PollRunnable implements Runnable {
   private static final Logger LOGGER =
       LoggerFactory.getLogger(PollRunnable.class);
 
+  private static final String OBSERVER_LATENCY = "servo.pollRunnable.observerLatency";
+  private static final String OBSERVER_FAILURES = "servo.pollRunnable.observerFailures";
+
   private final MetricPoller poller;
   private final MetricFilter filter;
   private final boolean reset;
   private final List<MetricObserver> observers;
+  private final boolean useBatch;
+  private final boolean useDelta;
+  private final boolean anyListObservers;
+
+  // Only used for parallel dispatch
+  private final long deadlineNanos;
+  private final List<Bulkhead> bulkheads;
 
   /**
    * Creates a new runnable instance that executes poll with the given filter
@@ -56,10 +99,7 @@ public class PollRunnable implements Runnable {
       MetricFilter filter,
       boolean reset,
       Collection<MetricObserver> observers) {
-    this.poller = Preconditions.checkNotNull(poller, "poller");
-    this.filter = Preconditions.checkNotNull(filter, "poller");
-    this.reset = reset;
-    this.observers = UnmodifiableList.copyOf(observers);
+    this(new Builder(poller, filter).withReset(reset).withObservers(observers));
   }
 
   /**
@@ -73,22 +113,266 @@ public class PollRunnable implements Runnable {
     this(poller, filter, false, UnmodifiableList.copyOf(observers));
   }
 
+  private PollRunnable(Builder builder) {
+    this.poller = Preconditions.checkNotNull(builder.poller, "poller");
+    this.filter = Preconditions.checkNotNull(builder.filter, "filter");
+    this.reset = builder.reset;
+    this.observers = UnmodifiableList.copyOf(builder.observers);
+    this.useDelta = !reset
+        && poller instanceof DeltaMetricPoller
+        && anyDeltaObservers(this.observers);
+    this.useBatch = !reset
+        && poller instanceof BatchMetricPoller
+        && MetricBatches.anyBatchObservers(this.observers);
+    this.anyListObservers = anyListObservers(this.observers);
+
+    this.deadlineNanos = builder.deadlineNanos;
+    if (deadlineNanos > 0L) {
+      List<Bulkhead> bs = new ArrayList<>(observers.size());
+      for (MetricObserver o : observers) {
+        bs.add(new Bulkhead(o));
+      }
+      this.bulkheads = Collections.unmodifiableList(bs);
+    } else {
+      this.bulkheads = Collections.emptyList();
+    }
+  }
+
+  private static boolean anyDeltaObservers(List<MetricObserver> observers) {
+    for (MetricObserver o : observers) {
+      if (o instanceof DeltaMetricObserver) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean anyListObservers(List<MetricObserver> observers) {
+    for (MetricObserver o : observers) {
+      if (!(o instanceof BatchMetricObserver)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public void run() {
+    final Update update;
     try {
-      List<Metric> metrics = poller.poll(filter, reset);
+      update = poll();
+    } catch (Throwable t) {
+      LOGGER.warn("failed to poll metrics", t);
+      return;
+    }
+
+    if (bulkheads.isEmpty()) {
       for (MetricObserver o : observers) {
-        try {
+        send(o, update);
+      }
+    } else {
+      dispatchParallel(update);
+    }
+  }
+
+  /**
+   * Poll the metrics and return an update that can be sent to any of the observers. The
+   * update must be safe to send to several observers concurrently.
+   */
+  private Update poll() {
+    if (useDelta) {
+      final MetricDelta delta = ((DeltaMetricPoller) poller).pollDelta(filter);
+      final List<Metric> metrics = Collections.unmodifiableList(delta.getMetrics());
+      return o -> {
+        if (o instanceof DeltaMetricObserver) {
+          ((DeltaMetricObserver) o).update(delta);
+        } else {
           o.update(metrics);
-        } catch (Throwable t) {
-          LOGGER.warn("failed to send metrics to {}", o.getName(), t);
         }
-      }
+      };
+    } else if (useBatch) {
+      final MetricBatch batch = ((BatchMetricPoller) poller).pollBatch(filter);
+      final List<Metric> metrics = anyListObservers
+          ? Collections.unmodifiableList(batch.toList())
+          : Collections.<Metric>emptyList();
+      return o -> {
+        if (o instanceof BatchMetricObserver) {
+          ((BatchMetricObserver) o).update(batch);
+        } else {
+          o.update(metrics);
+        }
+      };
+    } else {
+      final List<Metric> metrics = poller.poll(filter, reset);
+      final List<Metric> shared = bulkheads.isEmpty()
+          ? metrics
+          : Collections.unmodifiableList(metrics);
+      return o -> o.update(shared);
+    }
+  }
+
+  private static void send(MetricObserver o, Update update) {
+    try {
+      update.sendTo(o);
     } catch (Throwable t) {
-      LOGGER.warn("failed to poll metrics", t);
+      LOGGER.warn("failed to send metrics to {}", o.getName(), t);
+      recordFailure(o, "error");
+    }
+  }
+
+  private static void recordFailure(MetricObserver o, String reason) {
+    DynamicCounter.increment(OBSERVER_FAILURES, "observer", o.getName(), "reason", reason);
+  }
+
+  private void dispatchParallel(Update update) {
+    final long deadline = System.nanoTime() + deadlineNanos;
+    final int n = bulkheads.size();
+    final List<Future<?>> futures = new ArrayList<>(n);
+    for (Bulkhead b : bulkheads) {
+      futures.add(b.submit(update));
+    }
+
+    for (int i = 0; i < n; ++i) {
+      final Future<?> future = futures.get(i);
+      if (future == null) {
+        continue;
+      }
+      final MetricObserver o = bulkheads.get(i).observer;
+      try {
+        future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        LOGGER.warn("observer {} did not complete before the deadline", o.getName());
+        future.cancel(true);
+        recordFailure(o, "timeout");
+      } catch (ExecutionException e) {
+        // Failures are handled by send, this should not happen
+        LOGGER.warn("failed to send metrics to {}", o.getName(), e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Stop the threads used for parallel dispatch. This is only needed if the runnable was
+   * created with parallel dispatch, the threads are daemon threads so they will not prevent
+   * the JVM from exiting.
+   */
+  public void shutdown() {
+    for (Bulkhead b : bulkheads) {
+      b.executor.shutdownNow();
+    }
+  }
+
+  /** Update that can be sent to any of the observers. */
+  private interface Update {
+    void sendTo(MetricObserver o);
+  }
+
+  /**
+   * Single thread used to update an observer. The thread does not have a queue, if it is busy
+   * new updates will be rejected.
+   */
+  private static final class Bulkhead {
+    private final MetricObserver observer;
+    private final MonitorConfig latencyConfig;
+    private final ThreadPoolExecutor executor;
+
+    Bulkhead(MetricObserver observer) {
+      this.observer = observer;
+      this.latencyConfig = MonitorConfig.builder(OBSERVER_LATENCY)
+          .withTag("observer", observer.getName())
+          .build();
+      this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+          new SynchronousQueue<Runnable>(),
+          ThreadFactories.withName("ServoObserverDispatch-%d"));
+    }
+
+    private void send(Update update) {
+      final long start = System.nanoTime();
+      try {
+        PollRunnable.send(observer, update);
+      } finally {
+        DynamicTimer.record(latencyConfig, TimeUnit.MILLISECONDS,
+            System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    Future<?> submit(Update update) {
+      try {
+        return executor.submit(() -> send(update));
+      } catch (RejectedExecutionException e) {
+        LOGGER.warn("observer {} is busy with a previous update, skipping", observer.getName());
+        recordFailure(observer, "rejected");
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Builder for creating a poll runnable with non-default settings.
+   */
+  public static class Builder {
+    private final MetricPoller poller;
+    private final MetricFilter filter;
+    private boolean reset = false;
+    private final List<MetricObserver> observers = new ArrayList<>();
+    private long deadlineNanos = 0L;
+
+    /**
+     * Create a new builder for a runnable that executes poll with the given filter.
+     */
+    public Builder(MetricPoller poller, MetricFilter filter) {
+      this.poller = poller;
+      this.filter = filter;
+    }
+
+    /**
+     * Whether the poller should reset the values. (Default is false.)
+     */
+    public Builder withReset(boolean r) {
+      this.reset = r;
+      return this;
+    }
+
+    /**
+     * Add an observer that will receive the metrics.
+     */
+    public Builder withObserver(MetricObserver observer) {
+      this.observers.add(Preconditions.checkNotNull(observer, "observer"));
+      return this;
+    }
+
+    /**
+     * Add observers that will receive the metrics.
+     */
+    public Builder withObservers(Collection<MetricObserver> os) {
+      for (MetricObserver o : os) {
+        withObserver(o);
+      }
+      return this;
+    }
+
+    /**
+     * Update the observers in parallel, waiting at most until the deadline for them to
+     * complete. See the class comment for details. (Default is to update the observers
+     * sequentially on the polling thread.)
+     */
+    public Builder withParallelDispatch(long deadline, TimeUnit unit) {
+      Preconditions.checkArgument(deadline > 0L, "deadline must be positive");
+      this.deadlineNanos = unit.toNanos(deadline);
+      return this;
+    }
+
+    /**
+     * Create a new runnable.
+     */
+    public PollRunnable build() {
+      return new PollRunnable(this);
     }
   }
 }
@@ -15,11 +15,29 @@
  */
 package com.netflix.servo.publish;
 
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.BasicTimer;
+import com.netflix.servo.monitor.Counter;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.monitor.Timer;
+import com.netflix.servo.util.Clock;
+import com.netflix.servo.util.ClockWithOffset;
+import com.netflix.servo.util.Preconditions;
 import com.netflix.servo.util.ThreadFactories;
+import com.netflix.servo.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -28,8 +46,23 @@ import java.util.concurrent.atomic.AtomicReference;
  * can add {@link PollRunnable} objects but not remove them individually.
  * If you stop the instance and then start it again all of the prior tasks
  * will be thrown away.
+ * <p/>
+ * Tasks added with {@link #addPoller} run with a fixed delay between the end of one poll and
+ * the start of the next, so the poll times will drift. Tasks added with
+ * {@link #addAlignedPoller} run at a fixed offset from the step boundaries instead. If a poll
+ * takes longer than the step, the boundaries that were missed are skipped rather than queued
+ * and counted with the {@code servo.pollScheduler.overruns} counter. The time between the
+ * scheduled and the actual start of aligned polls is tracked by the
+ * {@code servo.pollScheduler.lag} timer, and their duration by the
+ * {@code servo.pollScheduler.duration} timer. These monitors are tagged with the step so
+ * pollers running at different frequencies are kept apart. Fixed delay tasks are scheduled
+ * as is and are not monitored.
  */
 public final class PollScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PollScheduler.class);
+
+  private static final Map<Long, PollMonitors> POLL_MONITORS = new ConcurrentHashMap<>();
+
   private static final PollScheduler INSTANCE = new PollScheduler();
 
   /**
@@ -58,6 +91,69 @@ public final class PollScheduler {
     }
   }
 
+  /**
+   * Add a task that executes once per step at a fixed offset from the step boundary. To avoid
+   * all hosts in a fleet polling at exactly the same time, an additional delay between 0 and
+   * {@code maxJitter} is added. The jitter is based on the host name so it is stable for a
+   * given host.
+   *
+   * @param task      task to execute
+   * @param step      how often the task should run
+   * @param offset    delay after the step boundary before running the task
+   * @param maxJitter maximum additional delay, the sum of the offset and jitter must be less
+   *                  than the step
+   * @param timeUnit  unit for the step, offset, and jitter
+   */
+  public void addAlignedPoller(PollRunnable task, long step, long offset, long maxJitter,
+                               TimeUnit timeUnit) {
+    final long stepMillis = timeUnit.toMillis(step);
+    final long offsetMillis = timeUnit.toMillis(offset);
+    final long jitterMillis = timeUnit.toMillis(maxJitter);
+    Preconditions.checkArgument(stepMillis > 0L, "step must be positive");
+    Preconditions.checkArgument(offsetMillis >= 0L, "offset cannot be negative");
+    Preconditions.checkArgument(jitterMillis >= 0L, "maxJitter cannot be negative");
+    Preconditions.checkArgument(offsetMillis + jitterMillis < stepMillis,
+        "offset + maxJitter must be less than step");
+
+    final long delay = offsetMillis + hostJitter(jitterMillis);
+    LOGGER.debug("scheduling aligned poller with step {}ms and offset {}ms", stepMillis, delay);
+    AlignedTask aligned = new AlignedTask(
+        getService(), task, stepMillis, delay, ClockWithOffset.INSTANCE);
+    aligned.scheduleNext();
+  }
+
+  private ScheduledExecutorService getService() {
+    ScheduledExecutorService service = executor.get();
+    if (service == null) {
+      throw new IllegalStateException(
+          "you must start the scheduler before tasks can be submitted");
+    }
+    return service;
+  }
+
+  /**
+   * Returns the monitors for tasks with the given step, creating and registering them if this
+   * is the first task with that step.
+   */
+  @VisibleForTesting
+  static PollMonitors pollMonitors(long stepMillis) {
+    return POLL_MONITORS.computeIfAbsent(stepMillis, PollMonitors::new);
+  }
+
+  private static long hostJitter(long maxJitter) {
+    return (maxJitter == 0L) ? 0L : Math.floorMod(HostHash.VALUE, maxJitter + 1);
+  }
+
+  /**
+   * Returns the next time after {@code now} that is {@code delay} milliseconds after a step
+   * boundary.
+   */
+  @VisibleForTesting
+  static long nextRunTime(long now, long step, long delay) {
+    final long next = now - Math.floorMod(now, step) + delay;
+    return (next > now) ? next : next + step;
+  }
+
   /**
    * Start scheduling tasks with a default thread pool, sized based on the
    * number of available processors.
@@ -95,4 +191,128 @@ public final class PollScheduler {
   public boolean isStarted() {
     return executor.get() != null;
   }
+
+  /**
+   * Hash of the host name used for the jitter. Kept in a separate class so that the host name
+   * is only looked up if aligned polling is used.
+   */
+  private static final class HostHash {
+    static final long VALUE = compute();
+
+    private static long compute() {
+      long h;
+      try {
+        h = InetAddress.getLocalHost().getHostName().hashCode();
+      } catch (Exception e) {
+        LOGGER.debug("failed to get host name, using random jitter", e);
+        h = ThreadLocalRandom.current().nextLong();
+      }
+      // Spread similar host names across the range
+      return h * 0x9E3779B97F4A7C15L;
+    }
+  }
+
+  /**
+   * Overrun counter and lag and duration timers for the tasks with a given step.
+   */
+  @VisibleForTesting
+  static final class PollMonitors {
+    private final Counter overruns;
+    private final Timer lag;
+    private final Timer duration;
+
+    PollMonitors(long stepMillis) {
+      final String step = Duration.ofMillis(stepMillis).toString();
+      overruns = new BasicCounter(MonitorConfig.builder("servo.pollScheduler.overruns")
+          .withTag("step", step)
+          .build());
+      lag = new BasicTimer(MonitorConfig.builder("servo.pollScheduler.lag")
+          .withTag("step", step)
+          .build(), TimeUnit.MILLISECONDS);
+      duration = new BasicTimer(MonitorConfig.builder("servo.pollScheduler.duration")
+          .withTag("step", step)
+          .build(), TimeUnit.MILLISECONDS);
+      DefaultMonitorRegistry.getInstance().register(overruns);
+      DefaultMonitorRegistry.getInstance().register(lag);
+      DefaultMonitorRegistry.getInstance().register(duration);
+    }
+
+    Counter getOverruns() {
+      return overruns;
+    }
+
+    Timer getLag() {
+      return lag;
+    }
+
+    Timer getDuration() {
+      return duration;
+    }
+  }
+
+  /**
+   * Task that reschedules itself for the next step boundary after each run.
+   */
+  @VisibleForTesting
+  static final class AlignedTask implements Runnable {
+    private final ScheduledExecutorService service;
+    private final Runnable task;
+    private final long step;
+    private final long delay;
+    private final Clock clock;
+    private final PollMonitors monitors;
+
+    private long scheduledTime = -1L;
+
+    AlignedTask(ScheduledExecutorService service, Runnable task, long step, long delay,
+                Clock clock) {
+      this.service = service;
+      this.task = task;
+      this.step = step;
+      this.delay = delay;
+      this.clock = clock;
+      this.monitors = pollMonitors(step);
+    }
+
+    void scheduleNext() {
+      final long now = clock.now();
+      long next = nextRunTime(now, step, delay);
+      if (next <= scheduledTime) {
+        // The executor delay is based on nanoTime, so the task can fire slightly before the
+        // scheduled wall clock time. Move to the next boundary so a step isn't polled twice.
+        next += step;
+      }
+      if (scheduledTime >= 0L) {
+        final long skipped = (next - scheduledTime) / step - 1;
+        if (skipped > 0L) {
+          LOGGER.warn("poll overran the step of {}ms, skipping {} step(s)", step, skipped);
+          monitors.getOverruns().increment(skipped);
+        }
+      }
+      scheduledTime = next;
+      try {
+        service.schedule(this, next - now, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("scheduler was stopped, aligned poller will not be rescheduled");
+      }
+    }
+
+    @VisibleForTesting
+    long getScheduledTime() {
+      return scheduledTime;
+    }
+
+    @Override
+    public void run() {
+      final long start = clock.now();
+      monitors.getLag().record(Math.max(0L, start - scheduledTime), TimeUnit.MILLISECONDS);
+      try {
+        task.run();
+      } catch (Throwable t) {
+        LOGGER.warn("aligned poll task failed", t);
+      }
+      monitors.getDuration().record(clock.now() - start, TimeUnit.MILLISECONDS);
+      scheduleNext();
+    }
+  }
 }
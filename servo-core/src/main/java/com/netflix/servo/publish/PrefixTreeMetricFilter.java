@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.tag.Tag;
+import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.Strings;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Filter that checks for a prefix match on a given tag, or the name, and delegates to the
+ * filter associated with the longest matching prefix. It has the same behavior as
+ * {@link PrefixMetricFilter}, but the prefixes are stored in a radix tree so the cost of a
+ * match is proportional to the length of the value being checked rather than the number of
+ * prefixes. This is useful for large rule sets, for example prefixes generated from a list of
+ * owners for each package.
+ * <p/>
+ * The prefixes are copied when the filter is created, later changes to the map will not be
+ * reflected. An empty prefix matches all values.
+ */
+public final class PrefixTreeMetricFilter implements MetricFilter {
+
+  private final String tagKey;
+  private final MetricFilter root;
+  private final Node tree = new Node("");
+
+  /**
+   * Creates a new prefix filter.
+   *
+   * @param tagKey  the tag to perform matching on, if null the name will be
+   *                checked
+   * @param root    filter used if there are no prefix matches
+   * @param filters map of prefix to sub-filter. The filter associated with
+   *                the longest matching prefix will be used.
+   */
+  public PrefixTreeMetricFilter(
+      String tagKey,
+      MetricFilter root,
+      Map<String, MetricFilter> filters) {
+    this.tagKey = tagKey;
+    this.root = Preconditions.checkNotNull(root, "root");
+    for (Map.Entry<String, MetricFilter> entry : filters.entrySet()) {
+      insert(entry.getKey(), Preconditions.checkNotNull(entry.getValue(), "filter"));
+    }
+  }
+
+  private void insert(String prefix, MetricFilter filter) {
+    Node node = tree;
+    int offset = 0;
+    while (offset < prefix.length()) {
+      final int idx = node.indexOf(prefix.charAt(offset));
+      if (idx < 0) {
+        final Node child = new Node(prefix.substring(offset));
+        child.filter = filter;
+        node.addChild(child);
+        return;
+      }
+
+      final Node child = node.children[idx];
+      final int common = commonPrefixLength(child.label, prefix, offset);
+      if (common < child.label.length()) {
+        // Split the edge so the new prefix ends on or branches from an intermediate node
+        final Node mid = new Node(child.label.substring(0, common));
+        child.label = child.label.substring(common);
+        mid.addChild(child);
+        node.children[idx] = mid;
+        node = mid;
+      } else {
+        node = child;
+      }
+      offset += common;
+    }
+    node.filter = filter;
+  }
+
+  private static int commonPrefixLength(String label, String prefix, int offset) {
+    final int n = Math.min(label.length(), prefix.length() - offset);
+    int i = 0;
+    while (i < n && label.charAt(i) == prefix.charAt(offset + i)) {
+      ++i;
+    }
+    return i;
+  }
+
+  /**
+   * Returns the filter for the longest prefix that matches the value or null if no prefix
+   * matches.
+   */
+  private MetricFilter longestMatch(String value) {
+    MetricFilter best = tree.filter;
+    Node node = tree;
+    int offset = 0;
+    while (offset < value.length()) {
+      final int idx = node.indexOf(value.charAt(offset));
+      if (idx < 0) {
+        break;
+      }
+      final Node child = node.children[idx];
+      final String label = child.label;
+      if (!value.regionMatches(offset, label, 0, label.length())) {
+        break;
+      }
+      offset += label.length();
+      node = child;
+      if (node.filter != null) {
+        best = node.filter;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean matches(MonitorConfig config) {
+    String value;
+    if (tagKey == null) {
+      value = config.getName();
+    } else {
+      Tag t = config.getTags().getTag(tagKey);
+      value = (t == null) ? null : t.getValue();
+    }
+
+    if (Strings.isNullOrEmpty(value)) {
+      return root.matches(config);
+    }
+    final MetricFilter filter = longestMatch(value);
+    return (filter == null) ? root.matches(config) : filter.matches(config);
+  }
+
+  /**
+   * Node in the radix tree. The children are sorted by the first character of the label so
+   * they can be found using a binary search.
+   */
+  private static final class Node {
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private String label;
+    private MetricFilter filter;
+    private char[] firstChars = NO_CHARS;
+    private Node[] children = NO_NODES;
+
+    Node(String label) {
+      this.label = label;
+    }
+
+    int indexOf(char c) {
+      return Arrays.binarySearch(firstChars, c);
+    }
+
+    void addChild(Node child) {
+      final char c = child.label.charAt(0);
+      final int pos = -(indexOf(c) + 1);
+      final int n = children.length;
+      final char[] cs = new char[n + 1];
+      final Node[] ns = new Node[n + 1];
+      System.arraycopy(firstChars, 0, cs, 0, pos);
+      System.arraycopy(children, 0, ns, 0, pos);
+      cs[pos] = c;
+      ns[pos] = child;
+      System.arraycopy(firstChars, pos, cs, pos + 1, n - pos);
+      System.arraycopy(children, pos, ns, pos + 1, n - pos);
+      firstChars = cs;
+      children = ns;
+    }
+  }
+}
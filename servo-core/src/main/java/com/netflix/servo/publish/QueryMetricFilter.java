@@ -0,0 +1,546 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.util.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Filter based on a query expression over the name and tags of a config. The expression uses
+ * a comma separated stack language, similar to the query language used by Atlas. The key
+ * {@code name} refers to the name of the config, other keys refer to tags. Supported
+ * operations:
+ * <ul>
+ * <li>{@code k,v,:eq}: value for key k is equal to v.</li>
+ * <li>{@code k,(,v1,v2,),:in}: value for key k is one of the values in the list.</li>
+ * <li>{@code k,p,:prefix}: value for key k starts with p.</li>
+ * <li>{@code k,r,:re}: value for key k matches the regular expression r. The whole value
+ * must match, the same as {@link RegexMetricFilter}.</li>
+ * <li>{@code q1,q2,:and}, {@code q1,q2,:or} and {@code q,:not}: combine queries.</li>
+ * <li>{@code :true} and {@code :false}: match all or nothing.</li>
+ * </ul>
+ * For example, {@code name,(,requests,errors,),:in,status,5,:prefix,:and} matches configs
+ * named requests or errors with a status tag that starts with 5. If a config does not have
+ * the tag for a key, then the check for that key is false.
+ * <p/>
+ * The expression is compiled to a predicate tree where the operands of each and and or are
+ * ordered so that cheap checks, such as exact matches, are done before expensive checks such
+ * as regular expressions. Top level alternatives that only match a fixed set of names are
+ * put in a hash index by name, so only the alternatives that could match the name of a config
+ * need to be evaluated.
+ */
+public final class QueryMetricFilter implements MetricFilter {
+
+  /** Key used to refer to the name of a config. */
+  public static final String NAME = "name";
+
+  /**
+   * Compile a query expression.
+   *
+   * @throws IllegalArgumentException if the expression is invalid
+   */
+  public static QueryMetricFilter compile(String query) {
+    return new QueryMetricFilter(query);
+  }
+
+  private final String query;
+  private final Node tree;
+  private final Map<String, Node> byName;
+  private final Node fallback;
+
+  private QueryMetricFilter(String query) {
+    this.query = Preconditions.checkNotNull(query, "query");
+    this.tree = parse(query);
+
+    // Index the top level alternatives by the names they can match
+    final Map<String, List<Node>> indexed = new HashMap<>();
+    final List<Node> others = new ArrayList<>();
+    final List<Node> alternatives = (tree instanceof Or)
+        ? Arrays.asList(((Or) tree).children)
+        : Collections.singletonList(tree);
+    for (Node alternative : alternatives) {
+      final Set<String> names = alternative.names();
+      if (names == null) {
+        others.add(alternative);
+      } else {
+        for (String name : names) {
+          indexed.computeIfAbsent(name, k -> new ArrayList<>()).add(alternative);
+        }
+      }
+    }
+    byName = new HashMap<>();
+    for (Map.Entry<String, List<Node>> entry : indexed.entrySet()) {
+      byName.put(entry.getKey(), or(entry.getValue()));
+    }
+    fallback = or(others);
+  }
+
+  /**
+   * Returns the query expression used to create the filter.
+   */
+  public String getQuery() {
+    return query;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean matches(MonitorConfig config) {
+    final Node node = byName.get(config.getName());
+    return (node != null && node.test(config)) || fallback.test(config);
+  }
+
+  /**
+   * Returns the compiled expression. The operands may be in a different order than the
+   * original query.
+   */
+  @Override
+  public String toString() {
+    return tree.toString();
+  }
+
+  //
+  // Parsing
+  //
+
+  private static IllegalArgumentException error(String query, String msg) {
+    return new IllegalArgumentException("invalid query '" + query + "': " + msg);
+  }
+
+  private static Node parse(String query) {
+    final Deque<Object> stack = new ArrayDeque<>();
+    List<String> list = null;
+    for (String rawToken : query.split(",")) {
+      final String token = rawToken.trim();
+      if (token.isEmpty()) {
+        continue;
+      }
+      if (list != null) {
+        if (")".equals(token)) {
+          stack.push(list);
+          list = null;
+        } else {
+          list.add(token);
+        }
+      } else if ("(".equals(token)) {
+        list = new ArrayList<>();
+      } else if (token.startsWith(":")) {
+        stack.push(apply(query, token, stack));
+      } else {
+        stack.push(token);
+      }
+    }
+    if (list != null) {
+      throw error(query, "unmatched '('");
+    }
+    if (stack.size() != 1 || !(stack.peek() instanceof Node)) {
+      throw error(query, "expected a single query on the stack, found " + stack);
+    }
+    return (Node) stack.pop();
+  }
+
+  private static <T> T pop(String query, String op, Deque<Object> stack, Class<T> type) {
+    final Object obj = stack.poll();
+    if (!type.isInstance(obj)) {
+      throw error(query, "invalid operands for " + op);
+    }
+    return type.cast(obj);
+  }
+
+  private static Node apply(String query, String op, Deque<Object> stack) {
+    switch (op) {
+      case ":true":
+        return TRUE;
+      case ":false":
+        return FALSE;
+      case ":not":
+        return not(pop(query, op, stack, Node.class));
+      case ":and":
+      case ":or":
+        final Node q2 = pop(query, op, stack, Node.class);
+        final List<Node> operands = Arrays.asList(pop(query, op, stack, Node.class), q2);
+        return ":and".equals(op) ? and(operands) : or(operands);
+      case ":in":
+        final List<?> values = pop(query, op, stack, List.class);
+        final String inKey = pop(query, op, stack, String.class);
+        final Set<String> valueSet = new LinkedHashSet<>();
+        for (Object v : values) {
+          valueSet.add((String) v);
+        }
+        return new In(inKey, valueSet);
+      case ":eq":
+      case ":prefix":
+      case ":re":
+        final String value = pop(query, op, stack, String.class);
+        final String key = pop(query, op, stack, String.class);
+        return keyValue(query, op, key, value);
+      default:
+        throw error(query, "unknown operation " + op);
+    }
+  }
+
+  private static Node keyValue(String query, String op, String key, String value) {
+    if (":eq".equals(op)) {
+      return new Eq(key, value);
+    } else if (":prefix".equals(op)) {
+      return new Prefix(key, value);
+    } else {
+      try {
+        return new Re(key, Pattern.compile(value));
+      } catch (PatternSyntaxException e) {
+        throw error(query, "invalid regex '" + value + "'");
+      }
+    }
+  }
+
+  //
+  // Predicate tree
+  //
+
+  private static final Comparator<Node> BY_COST = Comparator.comparingInt(Node::cost);
+
+  private static Node and(List<Node> operands) {
+    final List<Node> flattened = new ArrayList<>();
+    for (Node n : operands) {
+      if (n == FALSE) {
+        return FALSE;
+      } else if (n instanceof And) {
+        flattened.addAll(Arrays.asList(((And) n).children));
+      } else if (n != TRUE) {
+        flattened.add(n);
+      }
+    }
+    if (flattened.isEmpty()) {
+      return TRUE;
+    }
+    return (flattened.size() == 1) ? flattened.get(0) : new And(flattened);
+  }
+
+  private static Node or(List<Node> operands) {
+    final List<Node> flattened = new ArrayList<>();
+    for (Node n : operands) {
+      if (n == TRUE) {
+        return TRUE;
+      } else if (n instanceof Or) {
+        flattened.addAll(Arrays.asList(((Or) n).children));
+      } else if (n != FALSE) {
+        flattened.add(n);
+      }
+    }
+    if (flattened.isEmpty()) {
+      return FALSE;
+    }
+    return (flattened.size() == 1) ? flattened.get(0) : new Or(flattened);
+  }
+
+  private static Node not(Node n) {
+    if (n == TRUE) {
+      return FALSE;
+    } else if (n == FALSE) {
+      return TRUE;
+    } else if (n instanceof Not) {
+      return ((Not) n).child;
+    }
+    return new Not(n);
+  }
+
+  private static String valueOf(MonitorConfig config, String key) {
+    return NAME.equals(key) ? config.getName() : config.getTags().getValue(key);
+  }
+
+  /** Node in the compiled predicate tree. */
+  private abstract static class Node {
+    /** Returns true if the config matches. */
+    abstract boolean test(MonitorConfig config);
+
+    /** Relative cost of evaluating the node. */
+    abstract int cost();
+
+    /** Returns the set of names that can match or null if it is not restricted. */
+    Set<String> names() {
+      return null;
+    }
+  }
+
+  private static final Node TRUE = new Node() {
+    @Override boolean test(MonitorConfig config) {
+      return true;
+    }
+
+    @Override int cost() {
+      return 0;
+    }
+
+    @Override public String toString() {
+      return ":true";
+    }
+  };
+
+  private static final Node FALSE = new Node() {
+    @Override boolean test(MonitorConfig config) {
+      return false;
+    }
+
+    @Override int cost() {
+      return 0;
+    }
+
+    @Override public String toString() {
+      return ":false";
+    }
+  };
+
+  private static final class Eq extends Node {
+    private final String key;
+    private final String value;
+
+    Eq(String key, String value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override boolean test(MonitorConfig config) {
+      return value.equals(valueOf(config, key));
+    }
+
+    @Override int cost() {
+      return NAME.equals(key) ? 1 : 2;
+    }
+
+    @Override Set<String> names() {
+      return NAME.equals(key) ? Collections.singleton(value) : null;
+    }
+
+    @Override public String toString() {
+      return key + "," + value + ",:eq";
+    }
+  }
+
+  private static final class In extends Node {
+    private final String key;
+    private final Set<String> values;
+
+    In(String key, Set<String> values) {
+      this.key = key;
+      this.values = values;
+    }
+
+    @Override boolean test(MonitorConfig config) {
+      final String v = valueOf(config, key);
+      return v != null && values.contains(v);
+    }
+
+    @Override int cost() {
+      return NAME.equals(key) ? 2 : 3;
+    }
+
+    @Override Set<String> names() {
+      return NAME.equals(key) ? values : null;
+    }
+
+    @Override public String toString() {
+      final StringBuilder buf = new StringBuilder(key).append(",(,");
+      for (String v : values) {
+        buf.append(v).append(',');
+      }
+      return buf.append("),:in").toString();
+    }
+  }
+
+  private static final class Prefix extends Node {
+    private final String key;
+    private final String prefix;
+
+    Prefix(String key, String prefix) {
+      this.key = key;
+      this.prefix = prefix;
+    }
+
+    @Override boolean test(MonitorConfig config) {
+      final String v = valueOf(config, key);
+      return v != null && v.startsWith(prefix);
+    }
+
+    @Override int cost() {
+      return 4;
+    }
+
+    @Override public String toString() {
+      return key + "," + prefix + ",:prefix";
+    }
+  }
+
+  private static final class Re extends Node {
+    private final String key;
+    private final Pattern pattern;
+
+    Re(String key, Pattern pattern) {
+      this.key = key;
+      this.pattern = pattern;
+    }
+
+    @Override boolean test(MonitorConfig config) {
+      final String v = valueOf(config, key);
+      return v != null && pattern.matcher(v).matches();
+    }
+
+    @Override int cost() {
+      return 20;
+    }
+
+    @Override public String toString() {
+      return key + "," + pattern.pattern() + ",:re";
+    }
+  }
+
+  private static final class Not extends Node {
+    private final Node child;
+
+    Not(Node child) {
+      this.child = child;
+    }
+
+    @Override boolean test(MonitorConfig config) {
+      return !child.test(config);
+    }
+
+    @Override int cost() {
+      return child.cost() + 1;
+    }
+
+    @Override public String toString() {
+      return child + ",:not";
+    }
+  }
+
+  private static Node[] sortByCost(List<Node> children) {
+    final Node[] sorted = children.toArray(new Node[children.size()]);
+    Arrays.sort(sorted, BY_COST);
+    return sorted;
+  }
+
+  private static int sumCost(Node[] children) {
+    int total = 0;
+    for (Node n : children) {
+      total += n.cost();
+    }
+    return total;
+  }
+
+  private static String join(Node[] children, String op) {
+    final StringBuilder buf = new StringBuilder(children[0].toString());
+    for (int i = 1; i < children.length; ++i) {
+      buf.append(',').append(children[i]).append(',').append(op);
+    }
+    return buf.toString();
+  }
+
+  private static final class And extends Node {
+    private final Node[] children;
+    private final int cost;
+
+    And(List<Node> children) {
+      this.children = sortByCost(children);
+      this.cost = sumCost(this.children);
+    }
+
+    @Override boolean test(MonitorConfig config) {
+      for (Node n : children) {
+        if (!n.test(config)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override int cost() {
+      return cost;
+    }
+
+    @Override Set<String> names() {
+      Set<String> names = null;
+      for (Node n : children) {
+        final Set<String> ns = n.names();
+        if (ns != null) {
+          if (names == null) {
+            names = new HashSet<>(ns);
+          } else {
+            names.retainAll(ns);
+          }
+        }
+      }
+      return names;
+    }
+
+    @Override public String toString() {
+      return join(children, ":and");
+    }
+  }
+
+  private static final class Or extends Node {
+    private final Node[] children;
+    private final int cost;
+
+    Or(List<Node> children) {
+      this.children = sortByCost(children);
+      this.cost = sumCost(this.children);
+    }
+
+    @Override boolean test(MonitorConfig config) {
+      for (Node n : children) {
+        if (n.test(config)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override int cost() {
+      return cost;
+    }
+
+    @Override Set<String> names() {
+      final Set<String> names = new HashSet<>();
+      for (Node n : children) {
+        final Set<String> ns = n.names();
+        if (ns == null) {
+          return null;
+        }
+        names.addAll(ns);
+      }
+      return names;
+    }
+
+    @Override public String toString() {
+      return join(children, ":or");
+    }
+  }
+}
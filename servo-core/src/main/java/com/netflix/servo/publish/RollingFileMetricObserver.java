@@ -0,0 +1,491 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.util.Clock;
+import com.netflix.servo.util.ClockWithOffset;
+import com.netflix.servo.util.Preconditions;
+import com.netflix.servo.util.ThreadFactories;
+import com.netflix.servo.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes observations to a file using the same tab separated format as
+ * {@link FileMetricObserver}. Unlike that class, the file is kept open across updates and
+ * a new file is started when the current file exceeds a maximum size or a roll interval has
+ * passed. Lines are encoded into a reusable buffer that is written to a {@link FileChannel}.
+ * The name and tags for each metric are encoded once per file and reused.
+ * <p/>
+ * If compression is enabled, the whole file is a single gzip stream. It is flushed after
+ * each update, so data for the completed updates can be read before the file is finished.
+ * <p/>
+ * The {@link SyncPolicy} controls whether data is forced to the storage device and when.
+ * The sync is done by a background thread so updates do not wait for the disk.
+ * <p/>
+ * Call {@link #stop()} to close the current file when the observer is no longer needed.
+ */
+public final class RollingFileMetricObserver extends BaseMetricObserver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RollingFileMetricObserver.class);
+
+  private static final String FILE_DATE_FORMAT = "yyyy_MM_dd_HH_mm_ss_SSS";
+
+  /**
+   * Controls when data written to a file is forced to the storage device.
+   */
+  public enum SyncPolicy {
+    /** Never force data to disk, rely on the operating system to write it out. */
+    NONE,
+
+    /** Force data to disk in the background after a file has been rolled or closed. */
+    ON_ROLL,
+
+    /**
+     * Force data for the current file to disk periodically in the background, and after
+     * it has been rolled or closed.
+     */
+    PERIODIC
+  }
+
+  /**
+   * Create a new builder for an observer that writes to files in the specified directory.
+   */
+  public static Builder builder(String name, File dir) {
+    return new Builder(name, dir);
+  }
+
+  private final File dir;
+  private final SimpleDateFormat fileFormat;
+  private final boolean compress;
+  private final long maxFileSize;
+  private final long rollIntervalMillis;
+  private final SyncPolicy syncPolicy;
+  private final Clock clock;
+  private final ScheduledExecutorService syncExecutor;
+
+  // Guarded by synchronizing on this instance
+  private final ByteBuffer buffer;
+  private final Map<MonitorConfig, byte[]> prefixes = new HashMap<>();
+  private volatile FileChannel channel;
+  private GzipStream compressedOut;
+  private File currentFile;
+  private long rollTime;
+  private boolean stopped = false;
+
+  private RollingFileMetricObserver(Builder builder) {
+    super(builder.name);
+    this.dir = builder.dir;
+    this.fileFormat = new SimpleDateFormat(builder.namePattern != null
+        ? builder.namePattern
+        : String.format("'%s'_%s", builder.name, FILE_DATE_FORMAT)
+            + (builder.compress ? "'.log.gz'" : "'.log'"));
+    this.fileFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    this.compress = builder.compress;
+    this.maxFileSize = builder.maxFileSize;
+    this.rollIntervalMillis = builder.rollIntervalMillis;
+    this.syncPolicy = builder.syncPolicy;
+    this.clock = builder.clock;
+    this.buffer = ByteBuffer.allocate(builder.bufferSize);
+
+    if (syncPolicy == SyncPolicy.NONE) {
+      syncExecutor = null;
+    } else {
+      syncExecutor = Executors.newSingleThreadScheduledExecutor(
+          ThreadFactories.withName("ServoFileSync-" + builder.name + "-%d"));
+      if (syncPolicy == SyncPolicy.PERIODIC) {
+        final long interval = builder.syncIntervalMillis;
+        syncExecutor.scheduleWithFixedDelay(this::syncCurrent, interval, interval,
+            TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void updateImpl(List<Metric> metrics) {
+    Preconditions.checkNotNull(metrics, "metrics");
+    if (stopped) {
+      throw new IllegalStateException("observer " + getName() + " has been stopped");
+    }
+    final long now = clock.now();
+    try {
+      if (channel != null && rollIntervalMillis > 0L && now >= rollTime) {
+        closeCurrent();
+      }
+      if (channel == null) {
+        open(now);
+      }
+
+      LOGGER.debug("writing {} metrics to file {}", metrics.size(), currentFile);
+      for (Metric m : metrics) {
+        write(m);
+      }
+      flush();
+
+      if (maxFileSize > 0L && channel.position() >= maxFileSize) {
+        closeCurrent();
+      }
+    } catch (IOException e) {
+      incrementFailedCount();
+      LOGGER.error("failed to write update to file {}", currentFile, e);
+      abandonCurrent();
+    }
+  }
+
+  /**
+   * Returns the file that is currently being written or null if there is no open file.
+   */
+  @VisibleForTesting
+  synchronized File getCurrentFile() {
+    return channel == null ? null : currentFile;
+  }
+
+  /**
+   * Close the current file and stop the background sync thread. After the observer is
+   * stopped it cannot be updated.
+   */
+  public synchronized void stop() {
+    if (stopped) {
+      return;
+    }
+    stopped = true;
+    try {
+      if (channel != null) {
+        closeCurrent();
+      }
+    } catch (IOException e) {
+      LOGGER.warn("failed to close file {}", currentFile, e);
+      abandonCurrent();
+    }
+    if (syncExecutor != null) {
+      syncExecutor.shutdown();
+      try {
+        if (!syncExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+          LOGGER.warn("timed out waiting for files to sync");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void open(long now) throws IOException {
+    currentFile = new File(dir, fileFormat.format(new Date(now)));
+    final FileChannel ch = FileChannel.open(currentFile.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    if (compress) {
+      compressedOut = new GzipStream(Channels.newOutputStream(ch), buffer.capacity());
+    }
+    channel = ch;
+    if (rollIntervalMillis > 0L) {
+      rollTime = now - now % rollIntervalMillis + rollIntervalMillis;
+    }
+    prefixes.clear();
+    LOGGER.debug("opened file {}", currentFile);
+  }
+
+  /**
+   * Finish the current file and hand it off to be synced and closed.
+   */
+  private void closeCurrent() throws IOException {
+    final FileChannel ch = channel;
+    channel = null;
+    if (compressedOut != null) {
+      // Write the gzip trailer without closing the underlying channel
+      final GzipStream out = compressedOut;
+      compressedOut = null;
+      out.finishAndEnd();
+    }
+    if (syncExecutor == null) {
+      ch.close();
+    } else {
+      final File file = currentFile;
+      syncExecutor.execute(() -> syncAndClose(file, ch));
+    }
+  }
+
+  /**
+   * Close the current file after a failure, the data in the buffer is discarded.
+   */
+  private void abandonCurrent() {
+    buffer.clear();
+    if (compressedOut != null) {
+      compressedOut.end();
+      compressedOut = null;
+    }
+    final FileChannel ch = channel;
+    channel = null;
+    if (ch != null) {
+      try {
+        ch.close();
+      } catch (IOException e) {
+        LOGGER.debug("failed to close file {}", currentFile, e);
+      }
+    }
+  }
+
+  private static void syncAndClose(File file, FileChannel ch) {
+    try {
+      ch.force(true);
+    } catch (IOException e) {
+      LOGGER.warn("failed to sync file {}", file, e);
+    } finally {
+      try {
+        ch.close();
+      } catch (IOException e) {
+        LOGGER.warn("failed to close file {}", file, e);
+      }
+    }
+  }
+
+  private void syncCurrent() {
+    final FileChannel ch = channel;
+    if (ch != null) {
+      try {
+        ch.force(false);
+      } catch (ClosedChannelException e) {
+        // file was rolled, it will be synced when closed
+        LOGGER.debug("file was closed before it could be synced");
+      } catch (IOException e) {
+        LOGGER.warn("failed to sync file", e);
+      }
+    }
+  }
+
+  private void write(Metric m) throws IOException {
+    final MonitorConfig config = m.getConfig();
+    byte[] prefix = prefixes.get(config);
+    if (prefix == null) {
+      final String s = config.getName() + '\t' + config.getTags().toString() + '\t';
+      prefix = s.getBytes(StandardCharsets.UTF_8);
+      prefixes.put(config, prefix);
+    }
+    put(prefix);
+    putString(m.getValue().toString());
+    ensureRemaining(1);
+    buffer.put((byte) '\n');
+  }
+
+  private void put(byte[] bytes) throws IOException {
+    if (bytes.length > buffer.capacity()) {
+      writeBuffer();
+      writeBytes(ByteBuffer.wrap(bytes));
+    } else {
+      ensureRemaining(bytes.length);
+      buffer.put(bytes);
+    }
+  }
+
+  private void putString(String s) throws IOException {
+    final int n = s.length();
+    for (int i = 0; i < n; ++i) {
+      if (s.charAt(i) >= 0x80) {
+        put(s.getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+    }
+    if (n > buffer.capacity()) {
+      put(s.getBytes(StandardCharsets.UTF_8));
+    } else {
+      ensureRemaining(n);
+      for (int i = 0; i < n; ++i) {
+        buffer.put((byte) s.charAt(i));
+      }
+    }
+  }
+
+  private void ensureRemaining(int n) throws IOException {
+    if (buffer.remaining() < n) {
+      writeBuffer();
+    }
+  }
+
+  private void writeBuffer() throws IOException {
+    buffer.flip();
+    writeBytes(buffer);
+    buffer.clear();
+  }
+
+  private void writeBytes(ByteBuffer bytes) throws IOException {
+    if (compressedOut != null) {
+      compressedOut.write(bytes.array(), bytes.arrayOffset() + bytes.position(),
+          bytes.remaining());
+      bytes.position(bytes.limit());
+    } else {
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+    }
+  }
+
+  private void flush() throws IOException {
+    writeBuffer();
+    if (compressedOut != null) {
+      compressedOut.flush();
+    }
+  }
+
+  /**
+   * Gzip stream that can release the native deflater without closing the underlying stream.
+   * Using {@link GZIPOutputStream#finish()} alone leaves the deflater allocated until it is
+   * garbage collected.
+   */
+  private static final class GzipStream extends GZIPOutputStream {
+    GzipStream(OutputStream out, int size) throws IOException {
+      // Sync flush so each update is readable without finishing the stream
+      super(out, size, true);
+    }
+
+    /** Write the gzip trailer and release the deflater. */
+    void finishAndEnd() throws IOException {
+      try {
+        finish();
+      } finally {
+        end();
+      }
+    }
+
+    /** Release the deflater, any data that has not been written is discarded. */
+    void end() {
+      def.end();
+    }
+  }
+
+  /**
+   * Helper for creating a {@link RollingFileMetricObserver}.
+   */
+  public static final class Builder {
+    private final String name;
+    private final File dir;
+    private String namePattern;
+    private boolean compress = false;
+    private long maxFileSize = 0L;
+    private long rollIntervalMillis = 0L;
+    private SyncPolicy syncPolicy = SyncPolicy.NONE;
+    private long syncIntervalMillis = TimeUnit.SECONDS.toMillis(10);
+    private int bufferSize = 64 * 1024;
+    private Clock clock = ClockWithOffset.INSTANCE;
+
+    Builder(String name, File dir) {
+      this.name = Preconditions.checkNotNull(name, "name");
+      this.dir = Preconditions.checkNotNull(dir, "dir");
+    }
+
+    /**
+     * Date format pattern used to create the file names. Defaults to the name of the
+     * observer followed by a timestamp in the format {@code yyyy_MM_dd_HH_mm_ss_SSS}.
+     */
+    public Builder withNamePattern(String pattern) {
+      this.namePattern = Preconditions.checkNotNull(pattern, "pattern");
+      return this;
+    }
+
+    /**
+     * Whether to compress the files using gzip.
+     */
+    public Builder withCompression(boolean compress) {
+      this.compress = compress;
+      return this;
+    }
+
+    /**
+     * Start a new file after an update causes the size of the current file to reach
+     * the limit. A value of 0 means there is no limit.
+     */
+    public Builder withMaxFileSize(long bytes) {
+      Preconditions.checkArgument(bytes >= 0L, "maxFileSize cannot be negative");
+      this.maxFileSize = bytes;
+      return this;
+    }
+
+    /**
+     * Start a new file for the first update after each interval boundary. A value of 0 means
+     * that files will only be rolled based on size.
+     */
+    public Builder withRollInterval(long interval, TimeUnit unit) {
+      Preconditions.checkArgument(interval >= 0L, "interval cannot be negative");
+      this.rollIntervalMillis = unit.toMillis(interval);
+      return this;
+    }
+
+    /**
+     * Set the policy for syncing files to the storage device.
+     */
+    public Builder withSyncPolicy(SyncPolicy policy) {
+      this.syncPolicy = Preconditions.checkNotNull(policy, "policy");
+      return this;
+    }
+
+    /**
+     * How often to sync the current file when using {@link SyncPolicy#PERIODIC}.
+     */
+    public Builder withSyncInterval(long interval, TimeUnit unit) {
+      Preconditions.checkArgument(interval > 0L, "interval must be positive");
+      this.syncIntervalMillis = unit.toMillis(interval);
+      return this;
+    }
+
+    /**
+     * Size of the buffer used for encoding the metrics.
+     */
+    public Builder withBufferSize(int size) {
+      Preconditions.checkArgument(size > 0, "size must be positive");
+      this.bufferSize = size;
+      return this;
+    }
+
+    /**
+     * Clock used for the file names and roll interval. Useful for unit testing.
+     */
+    @VisibleForTesting
+    Builder withClock(Clock clock) {
+      this.clock = Preconditions.checkNotNull(clock, "clock");
+      return this;
+    }
+
+    /**
+     * Create the observer.
+     */
+    public RollingFileMetricObserver build() {
+      return new RollingFileMetricObserver(this);
+    }
+  }
+}
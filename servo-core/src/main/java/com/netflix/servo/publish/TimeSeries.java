@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.util.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Values for a single time series returned from a query of {@link MemoryTimeSeriesStore}.
+ * The value at index {@code i} is for the interval starting at {@code start + i * step}.
+ * Intervals without any data have a value of NaN.
+ */
+public final class TimeSeries {
+
+  private final MonitorConfig config;
+  private final long start;
+  private final long step;
+  private final double[] values;
+
+  /**
+   * Create a new instance.
+   *
+   * @param config config for the series
+   * @param start  start time in milliseconds of the first interval
+   * @param step   size of each interval in milliseconds
+   * @param values value for each interval, the array is used directly and not copied
+   */
+  public TimeSeries(MonitorConfig config, long start, long step, double[] values) {
+    this.config = Preconditions.checkNotNull(config, "config");
+    this.start = start;
+    this.step = step;
+    this.values = Preconditions.checkNotNull(values, "values");
+  }
+
+  /**
+   * Returns the config for the series.
+   */
+  public MonitorConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Returns the start time in milliseconds of the first interval.
+   */
+  public long getStart() {
+    return start;
+  }
+
+  /**
+   * Returns the size of each interval in milliseconds.
+   */
+  public long getStep() {
+    return step;
+  }
+
+  /**
+   * Returns the number of intervals.
+   */
+  public int size() {
+    return values.length;
+  }
+
+  /**
+   * Returns the start time of the interval at the given index.
+   */
+  public long getTimestamp(int i) {
+    return start + i * step;
+  }
+
+  /**
+   * Returns the value of the interval at the given index.
+   */
+  public double getValue(int i) {
+    return values[i];
+  }
+
+  /**
+   * Returns the most recent value that is not NaN, or NaN if there are no values.
+   */
+  public double getLastValue() {
+    for (int i = values.length - 1; i >= 0; --i) {
+      if (!Double.isNaN(values[i])) {
+        return values[i];
+      }
+    }
+    return Double.NaN;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof TimeSeries)) {
+      return false;
+    }
+    TimeSeries other = (TimeSeries) obj;
+    return config.equals(other.config)
+        && start == other.start
+        && step == other.step
+        && Arrays.equals(values, other.values);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    int result = config.hashCode();
+    result = 31 * result + (int) (start ^ (start >>> 32));
+    result = 31 * result + (int) (step ^ (step >>> 32));
+    result = 31 * result + Arrays.hashCode(values);
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "TimeSeries{config=" + config + ", start=" + start + ", step=" + step
+        + ", values=" + Arrays.toString(values) + '}';
+  }
+}
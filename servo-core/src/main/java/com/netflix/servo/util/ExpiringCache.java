@@ -22,6 +22,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -32,11 +33,12 @@ import java.util.stream.Collectors;
  * @param <K> The type of keys maintained
  * @param <V> The type of values maintained
  */
-public class ExpiringCache<K, V> {
+public class ExpiringCache<K, V> implements Versioned {
   private final ConcurrentHashMap<K, Entry<V>> map;
   private final long expireAfterMs;
   private final Function<K, Entry<V>> entryGetter;
   private final Clock clock;
+  private final AtomicLong version = new AtomicLong(0L);
 
   private static final class Entry<V> {
     private volatile long accessTime;
@@ -116,7 +118,11 @@ public class ExpiringCache<K, V> {
     final Runnable expirationJob = () -> {
       long tooOld = clock.now() - expireAfterMs;
       map.entrySet().stream().filter(entry -> entry.getValue().accessTime < tooOld)
-          .forEach(entry -> map.remove(entry.getKey(), entry.getValue()));
+          .forEach(entry -> {
+            if (map.remove(entry.getKey(), entry.getValue())) {
+              version.incrementAndGet();
+            }
+          });
     };
     SERVICE.scheduleWithFixedDelay(expirationJob, 1, expirationFreqMs, TimeUnit.MILLISECONDS);
   }
@@ -139,6 +145,7 @@ public class ExpiringCache<K, V> {
       v = map.putIfAbsent(key, tmp);
       if (v == null) {
         v = tmp;
+        version.incrementAndGet();
       }
     }
     return v;
@@ -170,6 +177,15 @@ public class ExpiringCache<K, V> {
     return map.size();
   }
 
+  /**
+   * Returns a version number that changes whenever an entry is added to or evicted
+   * from the cache.
+   */
+  @Override
+  public long getVersion() {
+    return version.get();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -30,21 +30,23 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.function.Predicate;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.PriorityQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
- * Keep track of the cpu usage for threads in the jvm.
+ * Keep track of the cpu usage and allocations for threads in the jvm. If the
+ * {@link com.sun.management.ThreadMXBean} extension is available the values for all threads
+ * are fetched with a single call for each, otherwise the cpu time is fetched per thread and
+ * the allocations are not tracked.
  */
 public final class ThreadCpuStats {
 
@@ -100,12 +102,16 @@ public final class ThreadCpuStats {
    * Threads.
    */
   public static final String THREADS = "threads";
+  /**
+   * Allocation rate for a thread in bytes per second.
+   */
+  public static final String ALLOCATION_RATE = "alloc_bytes_per_sec";
 
   private volatile boolean running = false;
 
   private final CpuUsage jvmCpuUsage = new CpuUsage(-1, "jvm");
 
-  private final Map<Long, CpuUsage> threadCpuUsages = new ConcurrentHashMap<>();
+  private final UsageTable threadCpuUsages = new UsageTable();
 
   /**
    * Return the singleton instance.
@@ -157,7 +163,37 @@ public final class ThreadCpuStats {
    * List of cpu usages for each thread.
    */
   public List<CpuUsage> getThreadCpuUsages() {
-    return new ArrayList<>(threadCpuUsages.values());
+    synchronized (threadCpuUsages) {
+      return threadCpuUsages.values();
+    }
+  }
+
+  /**
+   * List of the top {@code k} thread usages sorted based on the {@link CpuUsageComparator}
+   * passed. Use the allocation comparators to find the threads allocating the most.
+   *
+   * @param cmp order to use for the results
+   * @param k   maximum number of threads to return
+   */
+  public List<CpuUsage> getTopThreadCpuUsages(CpuUsageComparator cmp, int k) {
+    Preconditions.checkArgument(k >= 0, "k must be >= 0");
+    final List<CpuUsage> usages = getThreadCpuUsages();
+    if (usages.size() <= k) {
+      usages.sort(cmp);
+      return usages;
+    }
+
+    // Keep a heap of the best k seen so far with the worst of them at the head
+    final PriorityQueue<CpuUsage> heap = new PriorityQueue<>(k + 1, cmp.reversed());
+    for (CpuUsage usage : usages) {
+      heap.add(usage);
+      if (heap.size() > k) {
+        heap.poll();
+      }
+    }
+    final List<CpuUsage> top = new ArrayList<>(heap);
+    top.sort(cmp);
+    return top;
   }
 
   /**
@@ -167,6 +203,14 @@ public final class ThreadCpuStats {
     return (total > 0) ? 100.0 * value / total : 0.0;
   }
 
+  /**
+   * Helper function for computing a rate per second from an amount over an interval in
+   * nanoseconds.
+   */
+  public static double toRate(long value, long intervalNanos) {
+    return (intervalNanos > 0) ? value * 1e9 / intervalNanos : 0.0;
+  }
+
   private static long append(StringBuilder buf, char label, long unit, long time) {
     if (time > unit) {
       long multiple = time / unit;
@@ -225,12 +269,21 @@ public final class ThreadCpuStats {
    * @param cmp order to use for the results
    */
   public Map<String, Object> getThreadCpuUsages(CpuUsageComparator cmp) {
+    return getThreadCpuUsages(cmp, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Utility function that returns a Map containing cpu usages for the top {@code k} threads.
+   * Output will be sorted based on the {@link CpuUsageComparator} passed.
+   *
+   * @param cmp order to use for the results
+   * @param k   maximum number of threads to include
+   */
+  public Map<String, Object> getThreadCpuUsages(CpuUsageComparator cmp, int k) {
     final CpuUsage overall = getOverallCpuUsage();
-    final List<CpuUsage> usages = getThreadCpuUsages();
+    final List<CpuUsage> usages = getTopThreadCpuUsages(cmp, k);
     final Map<String, Object> result = new HashMap<>();
 
-    Collections.sort(usages, cmp);
-
     final Date now = new Date();
     result.put(CURRENT_TIME, now.getTime());
 
@@ -266,6 +319,13 @@ public final class ThreadCpuStats {
       threadInfo.put(OVERALL, toPercent(usage.getOverall(), overall.getOverall()));
       threadInfo.put(ID, usage.getThreadId());
       threadInfo.put(NAME, usage.getName());
+
+      final Map<String, Double> allocationRate = new HashMap<>();
+      allocationRate.put(ONE_MIN, toRate(usage.getOneMinuteAllocation(), ONE_MINUTE_NANOS));
+      allocationRate.put(FIVE_MIN, toRate(usage.getFiveMinuteAllocation(), FIVE_MINUTE_NANOS));
+      allocationRate.put(FIFTEEN_MIN, toRate(usage.getFifteenMinuteAllocation(),
+          FIFTEEN_MINUTE_NANOS));
+      threadInfo.put(ALLOCATION_RATE, allocationRate);
       threads.add(threadInfo);
     }
     result.put(THREADS, threads);
@@ -280,8 +340,20 @@ public final class ThreadCpuStats {
    * @param cmp order to use for the results
    */
   public void printThreadCpuUsages(OutputStream out, CpuUsageComparator cmp) {
+    printThreadCpuUsages(out, cmp, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Utility function that dumps the cpu usages and allocation rates for the top {@code k}
+   * threads. Output will be sorted based on the {@link CpuUsageComparator} passed.
+   *
+   * @param out stream where output will be written
+   * @param cmp order to use for the results
+   * @param k   maximum number of threads to include
+   */
+  public void printThreadCpuUsages(OutputStream out, CpuUsageComparator cmp, int k) {
     final PrintWriter writer = getPrintWriter(out);
-    final Map<String, Object> threadCpuUsages = getThreadCpuUsages(cmp);
+    final Map<String, Object> threadCpuUsages = getThreadCpuUsages(cmp, k);
 
     writer.printf("Time: %s%n%n", new Date((Long) threadCpuUsages.get(CURRENT_TIME)));
     final long uptimeMillis = (Long) threadCpuUsages.get(UPTIME_MS);
@@ -334,6 +406,21 @@ public final class ThreadCpuStats {
           thread.get(NAME));
     }
     writer.println();
+
+    writer.println("Allocation rate by thread (bytes/second):");
+    writer.printf("%11s %11s %11s   %7s   %s%n",
+        "1-min", "5-min", "15-min", "id", "name");
+    for (Map<String, Object> thread : threads) {
+      @SuppressWarnings("unchecked")
+      final Map<String, Double> rate = (Map<String, Double>) thread.get(ALLOCATION_RATE);
+      writer.printf("%11.0f %11.0f %11.0f   %7d   %s%n",
+          rate.get(ONE_MIN),
+          rate.get(FIVE_MIN),
+          rate.get(FIFTEEN_MIN),
+          thread.get(ID),
+          thread.get(NAME));
+    }
+    writer.println();
     writer.flush();
   }
 
@@ -346,24 +433,27 @@ public final class ThreadCpuStats {
   /**
    * Update the stats for all threads and the jvm.
    */
-  private void updateStats() {
+  @VisibleForTesting
+  void updateStats() {
     final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
     if (bean.isThreadCpuTimeEnabled()) {
       // Update stats for all current threads
       final long[] ids = bean.getAllThreadIds();
       Arrays.sort(ids);
+      final long[] cpuTimes = getThreadCpuTimes(bean, ids);
+      final long[] allocatedBytes = getThreadAllocatedBytes(bean, ids);
       long totalCpuTime = 0L;
-      for (long id : ids) {
-        long cpuTime = bean.getThreadCpuTime(id);
-        if (cpuTime != -1) {
-          totalCpuTime += cpuTime;
-          CpuUsage usage = threadCpuUsages.get(id);
-          if (usage == null) {
-            final ThreadInfo info = bean.getThreadInfo(id);
-            usage = new CpuUsage(id, info.getThreadName());
-            threadCpuUsages.put(id, usage);
+      synchronized (threadCpuUsages) {
+        addNewThreads(bean, ids, cpuTimes);
+        for (int i = 0; i < ids.length; ++i) {
+          final long cpuTime = cpuTimes[i];
+          if (cpuTime != -1) {
+            totalCpuTime += cpuTime;
+            final CpuUsage usage = threadCpuUsages.get(ids[i]);
+            if (usage != null) {
+              usage.update(cpuTime, allocatedBytes[i]);
+            }
           }
-          usage.update(cpuTime);
         }
       }
 
@@ -381,31 +471,78 @@ public final class ThreadCpuStats {
       try {
         final Method m = osBean.getClass().getMethod("getProcessCpuTime");
         final long jvmCpuTime = (Long) m.invoke(osBean);
-        jvmCpuUsage.update((jvmCpuTime < 0) ? totalCpuTime : jvmCpuTime);
+        jvmCpuUsage.update((jvmCpuTime < 0) ? totalCpuTime : jvmCpuTime, 0L);
       } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-        jvmCpuUsage.update(totalCpuTime);
+        jvmCpuUsage.update(totalCpuTime, 0L);
       }
 
       // Handle ids in the map that no longer exist:
       // * Remove old entries if the last update time is over AGE_LIMIT
       // * Otherwise, update usage so rolling window is correct
       final long now = System.currentTimeMillis();
-      final Iterator<Map.Entry<Long, CpuUsage>> iter = threadCpuUsages.entrySet().iterator();
-      while (iter.hasNext()) {
-        final Map.Entry<Long, CpuUsage> entry = iter.next();
-        final long id = entry.getKey();
-        final CpuUsage usage = entry.getValue();
-        if (now - usage.getLastUpdateTime() > AGE_LIMIT) {
-          iter.remove();
-        } else if (Arrays.binarySearch(ids, id) < 0) {
-          usage.updateNoValue();
-        }
+      synchronized (threadCpuUsages) {
+        threadCpuUsages.removeIf(usage -> {
+          if (now - usage.getLastUpdateTime() > AGE_LIMIT) {
+            return true;
+          }
+          if (Arrays.binarySearch(ids, usage.getThreadId()) < 0) {
+            usage.updateNoValue();
+          }
+          return false;
+        });
       }
     } else {
       LOGGER.debug("ThreadMXBean.isThreadCpuTimeEnabled() == false, cannot collect stats");
     }
   }
 
+  /**
+   * Create entries for threads that are not yet tracked. The names are fetched with a single
+   * call for all of the new threads. Threads that exit before the names are fetched will be
+   * picked up on the next update if the id is still present.
+   */
+  private void addNewThreads(ThreadMXBean bean, long[] ids, long[] cpuTimes) {
+    final long[] newIds = new long[ids.length];
+    int n = 0;
+    for (int i = 0; i < ids.length; ++i) {
+      if (cpuTimes[i] != -1 && threadCpuUsages.get(ids[i]) == null) {
+        newIds[n++] = ids[i];
+      }
+    }
+    if (n > 0) {
+      final ThreadInfo[] infos = bean.getThreadInfo(Arrays.copyOf(newIds, n));
+      for (ThreadInfo info : infos) {
+        if (info != null) {
+          threadCpuUsages.put(new CpuUsage(info.getThreadId(), info.getThreadName()));
+        }
+      }
+    }
+  }
+
+  private static long[] getThreadCpuTimes(ThreadMXBean bean, long[] ids) {
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean).getThreadCpuTime(ids);
+    }
+    final long[] cpuTimes = new long[ids.length];
+    for (int i = 0; i < ids.length; ++i) {
+      cpuTimes[i] = bean.getThreadCpuTime(ids[i]);
+    }
+    return cpuTimes;
+  }
+
+  private static long[] getThreadAllocatedBytes(ThreadMXBean bean, long[] ids) {
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+      if (sunBean.isThreadAllocatedMemorySupported()
+          && sunBean.isThreadAllocatedMemoryEnabled()) {
+        return sunBean.getThreadAllocatedBytes(ids);
+      }
+    }
+    final long[] allocatedBytes = new long[ids.length];
+    Arrays.fill(allocatedBytes, -1L);
+    return allocatedBytes;
+  }
+
   /**
    * Update the stats for threads each minute.
    */
@@ -449,6 +586,11 @@ public final class ThreadCpuStats {
      */
     private final AtomicLongArray totals = new AtomicLongArray(BUFFER_SIZE);
 
+    /**
+     * Cumulative allocated bytes for the different intervals.
+     */
+    private final AtomicLongArray allocations = new AtomicLongArray(BUFFER_SIZE);
+
     private CpuUsage(long id, String name) {
       this.id = id;
       this.name = name;
@@ -488,38 +630,75 @@ public final class ThreadCpuStats {
      * Returns the usage for the last one minute.
      */
     public long getOneMinute() {
-      return get(1);
+      return get(totals, 1);
     }
 
     /**
      * Returns the usage for the last five minutes.
      */
     public long getFiveMinute() {
-      return get(5);
+      return get(totals, 5);
     }
 
     /**
      * Returns the usage for the last fifteen minutes.
      */
     public long getFifteenMinute() {
-      return get(15);
+      return get(totals, 15);
+    }
+
+    /**
+     * Returns the bytes allocated over the lifetime of the thread.
+     */
+    public long getOverallAllocation() {
+      final int currentPos = toIndex(nextPos.get() - 1);
+      return allocations.get(currentPos);
+    }
+
+    /**
+     * Returns the bytes allocated in the last one minute.
+     */
+    public long getOneMinuteAllocation() {
+      return get(allocations, 1);
+    }
+
+    /**
+     * Returns the bytes allocated in the last five minutes.
+     */
+    public long getFiveMinuteAllocation() {
+      return get(allocations, 5);
+    }
+
+    /**
+     * Returns the bytes allocated in the last fifteen minutes.
+     */
+    public long getFifteenMinuteAllocation() {
+      return get(allocations, 15);
     }
 
     private int toIndex(int v) {
       return ((v < 0) ? v + BUFFER_SIZE : v) % BUFFER_SIZE;
     }
 
-    private long get(int n) {
+    private long get(AtomicLongArray values, int n) {
       final int currentPos = toIndex(nextPos.get() - 1);
       final int startPos = toIndex(currentPos - n);
-      final long currentValue = totals.get(currentPos);
-      final long startValue = totals.get(startPos);
+      final long currentValue = values.get(currentPos);
+      final long startValue = values.get(startPos);
       final long diff = currentValue - startValue;
       return (diff < 0L) ? 0L : diff;
     }
 
-    private void update(long threadTotal) {
-      totals.set(toIndex(nextPos.getAndIncrement()), threadTotal);
+    /**
+     * Record the latest totals. If the allocated bytes are not available, indicated by a
+     * negative value, the previous allocation total is carried forward.
+     */
+    private void update(long threadTotal, long allocatedTotal) {
+      final int currentPos = toIndex(nextPos.get() - 1);
+      final int pos = toIndex(nextPos.get());
+      totals.set(pos, threadTotal);
+      allocations.set(pos, (allocatedTotal < 0L) ? allocations.get(currentPos) : allocatedTotal);
+      nextPos.incrementAndGet();
       lastUpdateTime.set(System.currentTimeMillis());
     }
 
@@ -529,7 +708,110 @@ public final class ThreadCpuStats {
      */
     private void updateNoValue() {
       final int currentPos = toIndex(nextPos.get() - 1);
-      totals.set(toIndex(nextPos.getAndIncrement()), totals.get(currentPos));
+      final int pos = toIndex(nextPos.get());
+      totals.set(pos, totals.get(currentPos));
+      allocations.set(pos, allocations.get(currentPos));
+      nextPos.incrementAndGet();
+    }
+  }
+
+  /**
+   * Open-addressed table of the usages keyed by the primitive thread id using linear probing.
+   * All access must be synchronized on the table.
+   */
+  private static final class UsageTable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] ids;
+    private CpuUsage[] usages;
+    private int size;
+
+    UsageTable() {
+      init(INITIAL_CAPACITY);
+    }
+
+    private void init(int capacity) {
+      ids = new long[capacity];
+      usages = new CpuUsage[capacity];
+      size = 0;
+    }
+
+    private static int slot(long id, int mask) {
+      // thread ids are mostly sequential, spread them with the 64-bit golden ratio
+      return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /**
+     * Returns the slot for the id or the empty slot where it should be inserted.
+     */
+    private int find(long id) {
+      final int mask = ids.length - 1;
+      int i = slot(id, mask);
+      while (usages[i] != null && ids[i] != id) {
+        i = (i + 1) & mask;
+      }
+      return i;
+    }
+
+    CpuUsage get(long id) {
+      return usages[find(id)];
+    }
+
+    void put(CpuUsage usage) {
+      int i = find(usage.getThreadId());
+      if (usages[i] == null) {
+        // keep the load factor at or below 0.5 so probe sequences stay short
+        if ((size + 1) * 2 > ids.length) {
+          resize(ids.length * 2);
+          i = find(usage.getThreadId());
+        }
+        ++size;
+      }
+      ids[i] = usage.getThreadId();
+      usages[i] = usage;
+    }
+
+    List<CpuUsage> values() {
+      final List<CpuUsage> values = new ArrayList<>(size);
+      for (CpuUsage usage : usages) {
+        if (usage != null) {
+          values.add(usage);
+        }
+      }
+      return values;
+    }
+
+    /**
+     * Remove entries matching the predicate. The table is rebuilt rather than deleting in
+     * place so that probe sequences do not need tombstones.
+     */
+    void removeIf(Predicate<CpuUsage> predicate) {
+      final List<CpuUsage> remaining = new ArrayList<>(size);
+      for (CpuUsage usage : usages) {
+        if (usage != null && !predicate.test(usage)) {
+          remaining.add(usage);
+        }
+      }
+      if (remaining.size() < size) {
+        int capacity = INITIAL_CAPACITY;
+        while (remaining.size() * 2 > capacity) {
+          capacity *= 2;
+        }
+        init(capacity);
+        for (CpuUsage usage : remaining) {
+          put(usage);
+        }
+      }
+    }
+
+    private void resize(int capacity) {
+      final CpuUsage[] oldUsages = usages;
+      init(capacity);
+      for (CpuUsage usage : oldUsages) {
+        if (usage != null) {
+          put(usage);
+        }
+      }
     }
   }
 
@@ -555,7 +837,27 @@ public final class ThreadCpuStats {
     /**
      * Sort based on overall usage column.
      */
-    OVERALL(3);
+    OVERALL(3),
+
+    /**
+     * Sort based on bytes allocated in the last minute.
+     */
+    ONE_MINUTE_ALLOCATION(4),
+
+    /**
+     * Sort based on bytes allocated in the last five minutes.
+     */
+    FIVE_MINUTE_ALLOCATION(5),
+
+    /**
+     * Sort based on bytes allocated in the last fifteen minutes.
+     */
+    FIFTEEN_MINUTE_ALLOCATION(6),
+
+    /**
+     * Sort based on bytes allocated over the lifetime of the thread.
+     */
+    OVERALL_ALLOCATION(7);
 
     private final int col;
 
@@ -578,6 +880,18 @@ public final class ThreadCpuStats {
         case 2:
           cmp = u2.getFifteenMinute() - u1.getFifteenMinute();
           break;
+        case 4:
+          cmp = u2.getOneMinuteAllocation() - u1.getOneMinuteAllocation();
+          break;
+        case 5:
+          cmp = u2.getFiveMinuteAllocation() - u1.getFiveMinuteAllocation();
+          break;
+        case 6:
+          cmp = u2.getFifteenMinuteAllocation() - u1.getFifteenMinuteAllocation();
+          break;
+        case 7:
+          cmp = u2.getOverallAllocation() - u1.getOverallAllocation();
+          break;
         default:
           cmp = u2.getOverall() - u1.getOverall();
           break;
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.util;
+
+/**
+ * Used as a mixin for objects that can cheaply report when their structure has changed. For
+ * a registry the version changes when monitors are registered or unregistered, for a composite
+ * monitor it changes when the set of sub-monitors changes. Pollers can compare versions between
+ * polls to avoid walking structures that are unchanged.
+ */
+public interface Versioned {
+  /**
+   * Version that can be returned by implementations, such as wrappers, that cannot track
+   * changes. Callers should assume the structure may have changed.
+   */
+  long UNKNOWN = -1L;
+
+  /**
+   * Returns the current version. The value has no meaning other than that it will be
+   * different after a structural change.
+   */
+  long getVersion();
+}
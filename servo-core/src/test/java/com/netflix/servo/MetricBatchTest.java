@@ -0,0 +1,153 @@
+/**
+ * Copyright 2013 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo;
+
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.util.UnmodifiableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class MetricBatchTest {
+
+  private static final MonitorConfig GAUGE = MonitorConfig.builder("gauge")
+      .withTag(DataSourceType.GAUGE)
+      .build();
+
+  private static final MonitorConfig COUNTER = MonitorConfig.builder("counter")
+      .withTag(DataSourceType.COUNTER)
+      .build();
+
+  private static final MonitorConfig INFO = MonitorConfig.builder("info")
+      .withTag(DataSourceType.INFORMATIONAL)
+      .build();
+
+  private static final MonitorConfig UNTYPED = MonitorConfig.builder("untyped").build();
+
+  @Test
+  public void testAddAndGet() throws Exception {
+    MetricBatch batch = new MetricBatch(42L, 0);
+    assertTrue(batch.isEmpty());
+    batch.add(GAUGE, 1.0);
+    batch.add(COUNTER, 2.0);
+    batch.add(UNTYPED, 3.0);
+
+    assertEquals(batch.size(), 3);
+    assertEquals(batch.getConfig(1), COUNTER);
+    assertEquals(batch.getType(0), DataSourceType.GAUGE);
+    assertEquals(batch.getType(1), DataSourceType.COUNTER);
+    assertNull(batch.getType(2));
+    assertEquals(batch.getValue(2), 3.0, 1e-12);
+    assertEquals(batch.getTimestamp(2), 42L);
+    assertTrue(batch.hasNumberValue(0));
+  }
+
+  @Test
+  public void testNonNumericValue() throws Exception {
+    MetricBatch batch = new MetricBatch(42L);
+    batch.add(GAUGE, 1.0);
+    batch.add(INFO, 42L, "foo");
+
+    assertTrue(batch.hasNumberValue(0));
+    assertFalse(batch.hasNumberValue(1));
+    assertEquals(batch.getType(1), DataSourceType.INFORMATIONAL);
+    assertTrue(Double.isNaN(batch.getValue(1)));
+    assertEquals(batch.getObjectValue(1), "foo");
+    assertEquals(batch.getObjectValue(0), 1.0);
+  }
+
+  @Test
+  public void testEntryTimestamp() throws Exception {
+    MetricBatch batch = new MetricBatch(42L);
+    batch.add(GAUGE, 1.0);
+    batch.add(COUNTER, DataSourceType.COUNTER, 43L, 2.0);
+    batch.add(UNTYPED, 4.0);
+
+    assertEquals(batch.getTimestamp(), 42L);
+    assertEquals(batch.getTimestamp(0), 42L);
+    assertEquals(batch.getTimestamp(1), 43L);
+    assertEquals(batch.getTimestamp(2), 42L);
+  }
+
+  @Test
+  public void testGrow() throws Exception {
+    MetricBatch batch = new MetricBatch(0L, 1);
+    batch.add(INFO, 0L, "foo");
+    for (int i = 1; i < 1000; ++i) {
+      batch.add(GAUGE, DataSourceType.GAUGE, i, i);
+    }
+    assertEquals(batch.size(), 1000);
+    assertEquals(batch.getObjectValue(0), "foo");
+    for (int i = 1; i < 1000; ++i) {
+      assertEquals(batch.getValue(i), i, 1e-12);
+      assertEquals(batch.getTimestamp(i), i);
+      assertTrue(batch.hasNumberValue(i));
+    }
+  }
+
+  @Test
+  public void testListRoundTrip() throws Exception {
+    List<Metric> metrics = UnmodifiableList.of(
+        new Metric(GAUGE, 10L, 1.0),
+        new Metric(COUNTER, 20L, 2.0),
+        new Metric(INFO, 10L, "foo"));
+    MetricBatch batch = MetricBatch.from(metrics);
+    assertEquals(batch.getTimestamp(), 10L);
+    assertEquals(batch.toList(), metrics);
+    assertEquals(batch.getMetric(1), metrics.get(1));
+  }
+
+  @Test
+  public void testFromEmptyList() throws Exception {
+    MetricBatch batch = MetricBatch.from(UnmodifiableList.<Metric>of());
+    assertTrue(batch.isEmpty());
+    assertTrue(batch.toList().isEmpty());
+  }
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testIndexOutOfBounds() throws Exception {
+    MetricBatch batch = new MetricBatch(0L, 16);
+    batch.add(GAUGE, 1.0);
+    batch.getValue(1);
+  }
+
+  @Test
+  public void testCopyEntry() throws Exception {
+    MetricBatch batch = new MetricBatch(0L);
+    batch.add(GAUGE, 1.0);
+    batch.add(INFO, 0L, "foo");
+
+    MetricBatch copy = new MetricBatch(10L);
+    copy.add(batch, 1, 10L);
+    copy.add(batch, 0, 10L);
+    assertEquals(copy.getObjectValue(0), "foo");
+    assertEquals(copy.getValue(1), 1.0, 1e-12);
+    assertEquals(copy.getType(1), DataSourceType.GAUGE);
+  }
+
+  @Test
+  public void testTypeOf() throws Exception {
+    assertEquals(MetricBatch.typeOf(COUNTER), DataSourceType.COUNTER);
+    assertNull(MetricBatch.typeOf(UNTYPED));
+    assertNull(MetricBatch.typeOf(MonitorConfig.builder("a").withTag("type", "FOO").build()));
+  }
+}
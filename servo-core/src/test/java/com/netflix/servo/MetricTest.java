@@ -86,4 +86,49 @@ public class MetricTest {
     assertTrue(m1.hashCode() != m2.hashCode());
     assertTrue(m1.hashCode() == m3.hashCode());
   }
+
+  @Test
+  public void testOfDouble() throws Exception {
+    long now = System.currentTimeMillis();
+    MonitorConfig config = new MonitorConfig.Builder("a").withTags(tags1).build();
+    Metric m1 = Metric.ofDouble(config, now, 42.0);
+    Metric m2 = new Metric(config, now, 42.0);
+
+    assertTrue(m1.hasNumberValue());
+    assertEquals(m1.getDoubleValue(), 42.0, 1e-12);
+    assertEquals(m1.getValue(), 42.0);
+    assertEquals(m1.getNumberValue().intValue(), 42);
+    assertTrue(m1.equals(m2));
+    assertTrue(m2.equals(m1));
+    assertTrue(m1.hashCode() == m2.hashCode());
+    assertEquals(m1.toString(), m2.toString());
+  }
+
+  @Test
+  public void testNonNumericValue() throws Exception {
+    long now = System.currentTimeMillis();
+    Metric m = new Metric("a", tags1, now, "foo");
+    assertFalse(m.hasNumberValue());
+    assertTrue(Double.isNaN(m.getDoubleValue()));
+    assertEquals(m.getValue(), "foo");
+  }
+
+  @Test
+  public void testPrimitiveValueOfBoxedNumber() throws Exception {
+    long now = System.currentTimeMillis();
+    Metric m = new Metric("a", tags1, now, 42L);
+    assertTrue(m.hasNumberValue());
+    assertEquals(m.getDoubleValue(), 42.0, 1e-12);
+    assertEquals(m.getValue(), 42L);
+  }
+
+  @Test
+  public void testWithTimestampAndConfig() throws Exception {
+    long now = System.currentTimeMillis();
+    MonitorConfig config = new MonitorConfig.Builder("b").build();
+    Metric m = Metric.ofDouble(new MonitorConfig.Builder("a").build(), now, 1.0);
+    assertEquals(m.withTimestamp(now + 1), Metric.ofDouble(m.getConfig(), now + 1, 1.0));
+    assertEquals(m.withConfig(config), Metric.ofDouble(config, now, 1.0));
+    assertEquals(new Metric("a", tags1, now, 42).withTimestamp(0L).getValue(), 42);
+  }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.monitor;
+
+import org.testng.annotations.Test;
+
+import java.lang.management.MemoryUsage;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class GcMonitorTest {
+
+  private static final String YOUNG = "G1 Young Generation";
+  private static final String EDEN = "G1 Eden Space";
+  private static final String OLD = "G1 Old Gen";
+  private static final String CAUSE = "G1 Evacuation Pause";
+
+  private static Monitor<?> find(GcMonitor gc, String name, String id) {
+    for (Monitor<?> m : gc.getMonitors()) {
+      MonitorConfig config = m.getConfig();
+      if (name.equals(config.getName())
+          && (id == null || id.equals(config.getTags().getValue("id")))) {
+        return m;
+      }
+    }
+    throw new AssertionError("monitor not found: " + name);
+  }
+
+  private static Map<String, MemoryUsage> pools(long eden, long old) {
+    Map<String, MemoryUsage> pools = new HashMap<>();
+    pools.put(EDEN, new MemoryUsage(0L, eden, eden, -1L));
+    pools.put(OLD, new MemoryUsage(0L, old, old, -1L));
+    pools.put("Metaspace", new MemoryUsage(0L, 42L, 42L, -1L));
+    return pools;
+  }
+
+  @Test
+  public void testPause() throws Exception {
+    GcMonitor gc = new GcMonitor();
+    long version = gc.getVersion();
+    gc.record(YOUNG, CAUSE, 12L, pools(0L, 0L), pools(0L, 0L));
+    gc.record(YOUNG, CAUSE, 40L, pools(0L, 0L), pools(0L, 0L));
+    assertNotEquals(gc.getVersion(), version);
+    assertEquals(gc.getValue().intValue(), 1);
+
+    BucketTimer pause = (BucketTimer) find(gc, "gcPause", YOUNG);
+    assertEquals(pause.getCount(0).longValue(), 2L);
+    assertEquals(pause.getTotalTime().longValue(), 52L);
+
+    MaxGauge max = (MaxGauge) find(gc, "gcMaxPause", YOUNG);
+    assertEquals(max.getCurrentValue(0), 40L);
+
+    version = gc.getVersion();
+    gc.record(YOUNG, CAUSE, 1L, pools(0L, 0L), pools(0L, 0L));
+    assertEquals(gc.getVersion(), version);
+    gc.record("G1 Old Generation", CAUSE, 100L, pools(0L, 0L), pools(0L, 0L));
+    assertNotEquals(gc.getVersion(), version);
+    // allocated, promoted, 2 per collector and growth for the 3 pools
+    assertEquals(gc.getMonitors().size(), 9);
+  }
+
+  @Test
+  public void testConcurrentPhase() throws Exception {
+    GcMonitor gc = new GcMonitor();
+    gc.record(YOUNG, CAUSE, 5L, pools(0L, 0L), pools(0L, 0L));
+    gc.record("ZGC Cycles", "Allocation Rate", 3000L, pools(0L, 0L), pools(0L, 0L));
+    gc.record("G1 Concurrent GC", "No GC", 800L, pools(0L, 0L), pools(0L, 0L));
+    gc.record("ConcurrentMarkSweep", "CMS Final Remark", 2000L, pools(0L, 0L), pools(0L, 0L));
+    assertEquals(gc.getValue().intValue(), 4);
+
+    BucketTimer zgc = (BucketTimer) find(gc, "gcConcurrentPhaseTime", "ZGC Cycles");
+    assertEquals(zgc.getCount(0).longValue(), 1L);
+    assertEquals(zgc.getTotalTime().longValue(), 3000L);
+    find(gc, "gcConcurrentPhaseTime", "G1 Concurrent GC");
+    find(gc, "gcConcurrentPhaseTime", "ConcurrentMarkSweep");
+
+    // Concurrent cycles are not included in the pause monitors
+    for (Monitor<?> m : gc.getMonitors()) {
+      String name = m.getConfig().getName();
+      if ("gcPause".equals(name) || "gcMaxPause".equals(name)) {
+        assertEquals(m.getConfig().getTags().getValue("id"), YOUNG);
+      }
+    }
+    MaxGauge max = (MaxGauge) find(gc, "gcMaxPause", YOUNG);
+    assertEquals(max.getCurrentValue(0), 5L);
+  }
+
+  @Test
+  public void testIsConcurrentPhase() throws Exception {
+    assertTrue(GcMonitor.isConcurrentPhase("Shenandoah Cycles", "Concurrent GC"));
+    assertTrue(GcMonitor.isConcurrentPhase("Some Collector", "No GC"));
+    assertFalse(GcMonitor.isConcurrentPhase("Shenandoah Pauses", "Concurrent GC"));
+    assertFalse(GcMonitor.isConcurrentPhase("PS MarkSweep", "System.gc()"));
+  }
+
+  @Test
+  public void testAllocationAndPromotion() throws Exception {
+    GcMonitor gc = new GcMonitor();
+    Monitor<?> allocated = find(gc, "gcAllocated", null);
+    Monitor<?> promoted = find(gc, "gcPromoted", null);
+
+    // First event has no baseline for the allocation
+    gc.record(YOUNG, CAUSE, 1L, pools(100L, 50L), pools(0L, 70L));
+    assertEquals(((Number) allocated.getValue()).longValue(), 0L);
+    assertEquals(((Number) promoted.getValue()).longValue(), 20L);
+
+    gc.record(YOUNG, CAUSE, 1L, pools(300L, 70L), pools(10L, 70L));
+    assertEquals(((Number) allocated.getValue()).longValue(), 300L);
+    assertEquals(((Number) promoted.getValue()).longValue(), 20L);
+
+    // Old gen shrinking during a collection is not promotion
+    gc.record(YOUNG, CAUSE, 1L, pools(60L, 70L), pools(0L, 30L));
+    assertEquals(((Number) allocated.getValue()).longValue(), 350L);
+    assertEquals(((Number) promoted.getValue()).longValue(), 20L);
+  }
+
+  @Test
+  public void testPoolGrowth() throws Exception {
+    GcMonitor gc = new GcMonitor();
+    Map<String, MemoryUsage> before = new HashMap<>();
+    Map<String, MemoryUsage> after = new HashMap<>();
+    before.put("ZHeap", new MemoryUsage(0L, 500L, 500L, -1L));
+    after.put("ZHeap", new MemoryUsage(0L, 200L, 200L, -1L));
+    gc.record("ZGC Pauses", "Allocation Rate", 1L, before, after);
+    Monitor<?> growth = find(gc, "gcPoolGrowth", "ZHeap");
+    assertEquals(((Number) growth.getValue()).longValue(), 0L);
+
+    long version = gc.getVersion();
+    before.put("ZHeap", new MemoryUsage(0L, 900L, 900L, -1L));
+    after.put("ZHeap", new MemoryUsage(0L, 100L, 100L, -1L));
+    gc.record("ZGC Pauses", "Allocation Rate", 1L, before, after);
+    assertEquals(((Number) growth.getValue()).longValue(), 700L);
+    assertEquals(gc.getVersion(), version);
+
+    // Generational counters are only updated for known pool names
+    assertEquals(((Number) find(gc, "gcAllocated", null).getValue()).longValue(), 0L);
+    assertEquals(((Number) find(gc, "gcPromoted", null).getValue()).longValue(), 0L);
+
+    gc.record(YOUNG, CAUSE, 1L, pools(100L, 50L), pools(0L, 70L));
+    gc.record(YOUNG, CAUSE, 1L, pools(300L, 70L), pools(10L, 70L));
+    assertEquals(((Number) find(gc, "gcPoolGrowth", EDEN).getValue()).longValue(), 300L);
+    assertEquals(((Number) find(gc, "gcPoolGrowth", OLD).getValue()).longValue(), 0L);
+  }
+
+  @Test
+  public void testStartStop() throws Exception {
+    GcMonitor gc = new GcMonitor();
+    gc.start();
+    gc.start();
+    gc.stop();
+    gc.stop();
+  }
+}
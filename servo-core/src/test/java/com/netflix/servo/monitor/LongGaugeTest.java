@@ -19,6 +19,7 @@ import com.netflix.servo.annotations.DataSourceType;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class LongGaugeTest extends AbstractMonitorTest<LongGauge> {
   @Override
@@ -49,4 +50,13 @@ public class LongGaugeTest extends AbstractMonitorTest<LongGauge> {
     assertEquals(gauge.getConfig(), expectedConfig);
   }
 
+  @Test
+  public void testChangeEpoch() throws Exception {
+    LongGauge gauge = newInstance("test");
+    final long initial = gauge.getChangeEpoch();
+    gauge.set(0L);
+    assertEquals(gauge.getChangeEpoch(), initial);
+    gauge.set(10L);
+    assertTrue(gauge.getChangeEpoch() != initial);
+  }
 }
@@ -197,4 +197,33 @@ public class StepCounterTest {
     clock.set(time(41));
     assertEquals(c.getValue(1).doubleValue(), 0.3, DELTA);
   }
+
+  @Test
+  public void testChangeEpoch() {
+    final long step = Pollers.POLLING_INTERVALS[0];
+    clock.set(10 * step);
+    StepCounter c = newInstance("foo");
+    final long initial = c.getChangeEpoch();
+    clock.set(11 * step);
+    assertEquals(c.getChangeEpoch(), initial);
+
+    c.increment();
+    final long active = c.getChangeEpoch();
+    assertTrue(active != initial);
+
+    // Increment is reported during the next step
+    clock.set(12 * step);
+    final long reported = c.getChangeEpoch();
+    assertTrue(reported != active);
+    clock.set(12 * step + step / 2);
+    assertEquals(c.getChangeEpoch(), reported);
+
+    // Value goes back to 0 and then stays the same
+    clock.set(13 * step);
+    final long idle = c.getChangeEpoch();
+    assertTrue(idle != reported);
+    clock.set(20 * step);
+    assertEquals(c.getChangeEpoch(), idle);
+    assertEquals(c.getValue(0).doubleValue(), 0.0, DELTA);
+  }
 }
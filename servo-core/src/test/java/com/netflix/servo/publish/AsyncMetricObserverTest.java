@@ -20,7 +20,10 @@ import com.netflix.servo.tag.SortedTagList;
 import com.netflix.servo.util.UnmodifiableList;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
@@ -31,6 +34,42 @@ public class AsyncMetricObserverTest {
     return UnmodifiableList.of(new Metric("m", SortedTagList.EMPTY, 0L, v));
   }
 
+  private List<Metric> mkList(String name, int v) {
+    return UnmodifiableList.of(new Metric(name, SortedTagList.EMPTY, 0L, v));
+  }
+
+  /**
+   * Observer that blocks the first update until the latch is released.
+   */
+  private static class BlockingMetricObserver extends BaseMetricObserver {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<List<Metric>> observations = new ArrayList<>();
+
+    BlockingMetricObserver() {
+      super("blocking");
+    }
+
+    @Override
+    public void updateImpl(List<Metric> metrics) {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      synchronized (observations) {
+        observations.add(metrics);
+      }
+    }
+
+    List<List<Metric>> getObservations() {
+      synchronized (observations) {
+        return new ArrayList<>(observations);
+      }
+    }
+  }
+
   @Test
   public void testUpdate() throws Exception {
     MemoryMetricObserver mmo = new MemoryMetricObserver("mem", 50);
@@ -100,4 +139,80 @@ public class AsyncMetricObserverTest {
     Thread.sleep(1000);
     amo.stop();
   }
+
+  @Test
+  public void testPooledUpdate() throws Exception {
+    AsyncObserverPool pool = new AsyncObserverPool("test", 2, 100);
+    try {
+      MemoryMetricObserver mmo1 = new MemoryMetricObserver("mem1", 50);
+      MemoryMetricObserver mmo2 = new MemoryMetricObserver("mem2", 50);
+      AsyncMetricObserver amo1 = new AsyncMetricObserver("async1", mmo1, pool, Long.MAX_VALUE);
+      AsyncMetricObserver amo2 = new AsyncMetricObserver("async2", mmo2, pool, Long.MAX_VALUE);
+      amo1.update(mkList(1));
+      amo2.update(mkList(2));
+      Thread.sleep(500);
+      assertEquals(mmo1.getObservations(), UnmodifiableList.of(mkList(1)));
+      assertEquals(mmo2.getObservations(), UnmodifiableList.of(mkList(2)));
+      assertEquals(pool.getQueuedMetrics(), 0L);
+      amo1.stop();
+      amo2.stop();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testPooledCoalescing() throws Exception {
+    AsyncObserverPool pool = new AsyncObserverPool("test", 1, 100);
+    try {
+      BlockingMetricObserver bmo = new BlockingMetricObserver();
+      AsyncMetricObserver amo = new AsyncMetricObserver("async", bmo, pool, Long.MAX_VALUE);
+      amo.update(mkList("a", 1));
+      assertTrue(bmo.started.await(1, TimeUnit.SECONDS));
+
+      // Observer is busy, these updates should get merged keeping the latest value
+      amo.update(mkList("a", 2));
+      amo.update(mkList("b", 3));
+      amo.update(mkList("a", 4));
+      assertEquals(pool.getQueuedMetrics(), 2L);
+      assertTrue(pool.getOldestUpdateAge() >= 0L);
+
+      bmo.release.countDown();
+      Thread.sleep(500);
+
+      List<Metric> merged = new ArrayList<>();
+      merged.add(mkList("a", 4).get(0));
+      merged.add(mkList("b", 3).get(0));
+      assertEquals(bmo.getObservations(),
+          UnmodifiableList.of(mkList("a", 1), merged));
+      assertEquals(pool.getQueuedMetrics(), 0L);
+      amo.stop();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testPooledExceedQueueSize() throws Exception {
+    AsyncObserverPool pool = new AsyncObserverPool("test", 1, 1);
+    try {
+      BlockingMetricObserver bmo = new BlockingMetricObserver();
+      AsyncMetricObserver amo = new AsyncMetricObserver("async", bmo, pool, Long.MAX_VALUE);
+      amo.update(mkList("a", 1));
+      assertTrue(bmo.started.await(1, TimeUnit.SECONDS));
+
+      // Only space for a single pending metric, b replaces the pending value for a
+      amo.update(mkList("a", 2));
+      amo.update(mkList("b", 3));
+      assertEquals(pool.getQueuedMetrics(), 1L);
+
+      bmo.release.countDown();
+      Thread.sleep(500);
+      assertEquals(bmo.getObservations(),
+          UnmodifiableList.of(mkList("a", 1), mkList("b", 3)));
+      amo.stop();
+    } finally {
+      pool.shutdown();
+    }
+  }
 }
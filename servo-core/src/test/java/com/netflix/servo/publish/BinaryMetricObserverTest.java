@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.tag.SortedTagList;
+import com.netflix.servo.tag.TagList;
+import com.netflix.servo.util.ManualClock;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+public class BinaryMetricObserverTest {
+
+  private static final TagList TAGS = SortedTagList.builder()
+      .withTag("cluster", "foo")
+      .withTag("zone", "a")
+      .build();
+
+  private List<Metric> mkList(long t, int n) {
+    List<Metric> metrics = new ArrayList<>(n);
+    for (int i = 0; i < n; ++i) {
+      metrics.add(Metric.ofDouble(
+          MonitorConfig.builder("m" + i).withTags(TAGS).build(), t, t / 1000.0 + i));
+    }
+    return metrics;
+  }
+
+  private void deleteRecursively(File f) throws IOException {
+    File[] files = f.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        deleteRecursively(file);
+      }
+    }
+    if (f.exists() && !f.delete()) {
+      throw new IOException("could not delete " + f);
+    }
+  }
+
+  private static File createTempDir() throws IOException {
+    return Files.createTempDirectory("binary-metrics").toFile();
+  }
+
+  private File write(File dir, List<List<Metric>> updates) {
+    BinaryMetricObserver observer = BinaryMetricObserver.builder("test", dir)
+        .withClock(new ManualClock(0L))
+        .build();
+    for (List<Metric> update : updates) {
+      observer.update(update);
+    }
+    File file = observer.getCurrentFile();
+    observer.stop();
+    assertNotNull(file);
+    return file;
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    File dir = createTempDir();
+    try {
+      List<List<Metric>> updates = new ArrayList<>();
+      List<Metric> expected = new ArrayList<>();
+      for (int i = 0; i < 100; ++i) {
+        List<Metric> update = mkList(i * 60000L, 5);
+        if (i == 5) {
+          // New config in the middle, string value and different timestamp
+          update.add(new Metric(MonitorConfig.builder("info").build(), i * 60000L, "abc"));
+          update.add(Metric.ofDouble(MonitorConfig.builder("late").build(),
+              i * 60000L + 1234L, 42.5));
+        }
+        updates.add(update);
+        expected.addAll(update);
+      }
+
+      File file = write(dir, updates);
+      BinaryMetricReader reader = new BinaryMetricReader(file);
+      List<Metric> actual = reader.read(BasicMetricFilter.MATCH_ALL, 0L, Long.MAX_VALUE);
+      assertEquals(actual, expected);
+
+      // Binary format should be much smaller than the text format
+      File text = new File(dir, "test.log");
+      BinaryMetricReader.convertToText(file, text);
+      assertTrue(file.length() * 2 < text.length(),
+          "binary " + file.length() + ", text " + text.length());
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+
+  @Test
+  public void testFilterAndTimeRange() throws Exception {
+    File dir = createTempDir();
+    try {
+      List<List<Metric>> updates = new ArrayList<>();
+      for (int i = 0; i < 10; ++i) {
+        updates.add(mkList(i * 60000L, 5));
+      }
+      File file = write(dir, updates);
+
+      BinaryMetricReader reader = new BinaryMetricReader(file);
+      MetricFilter filter = config -> config.getName().equals("m2");
+      List<Metric> actual = reader.read(filter, 120000L, 240000L);
+
+      List<Metric> expected = new ArrayList<>();
+      expected.add(mkList(120000L, 5).get(2));
+      expected.add(mkList(180000L, 5).get(2));
+      assertEquals(actual, expected);
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+
+  @Test
+  public void testTruncatedFile() throws Exception {
+    File dir = createTempDir();
+    try {
+      List<List<Metric>> updates = new ArrayList<>();
+      updates.add(mkList(0L, 5));
+      updates.add(mkList(60000L, 5));
+      File file = write(dir, updates);
+
+      // Simulate a partially written final record
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        raf.setLength(raf.length() - 3);
+      }
+
+      BinaryMetricReader reader = new BinaryMetricReader(file);
+      List<Metric> actual = reader.read(BasicMetricFilter.MATCH_ALL, 0L, Long.MAX_VALUE);
+      assertEquals(actual, mkList(0L, 5));
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+
+  @Test
+  public void testConvertToText() throws Exception {
+    File dir = createTempDir();
+    try {
+      List<List<Metric>> updates = new ArrayList<>();
+      List<Metric> update = mkList(0L, 2);
+      update.add(Metric.ofDouble(
+          MonitorConfig.builder("m2").withTags(TAGS).build(), 0L, 0.25));
+      updates.add(update);
+      File file = write(dir, updates);
+
+      File text = new File(dir, "test.log");
+      BinaryMetricReader.convertToText(file, text);
+      List<String> lines = Files.readAllLines(text.toPath(), StandardCharsets.UTF_8);
+      List<String> expected = new ArrayList<>();
+      expected.add("m0\t" + TAGS + "\t0");
+      expected.add("m1\t" + TAGS + "\t1");
+      expected.add("m2\t" + TAGS + "\t0.25");
+      assertEquals(lines, expected);
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+
+  @Test
+  public void testRollInterval() throws Exception {
+    File dir = createTempDir();
+    try {
+      ManualClock clock = new ManualClock(0L);
+      BinaryMetricObserver observer = BinaryMetricObserver.builder("test", dir)
+          .withRollInterval(1, TimeUnit.HOURS)
+          .withClock(clock)
+          .build();
+      observer.update(mkList(0L, 3));
+      clock.set(TimeUnit.HOURS.toMillis(1));
+      observer.update(mkList(clock.now(), 3));
+      File second = observer.getCurrentFile();
+      observer.stop();
+
+      assertEquals(dir.listFiles().length, 2);
+
+      // Each file has its own dictionary
+      BinaryMetricReader reader = new BinaryMetricReader(second);
+      assertEquals(reader.read(BasicMetricFilter.MATCH_ALL, 0L, Long.MAX_VALUE),
+          mkList(clock.now(), 3));
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+}
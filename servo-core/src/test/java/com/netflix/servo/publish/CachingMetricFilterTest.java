@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.monitor.MonitorConfig;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class CachingMetricFilterTest {
+
+  private static MonitorConfig config(String name) {
+    return MonitorConfig.builder(name).withTag("c", "a.b." + name).build();
+  }
+
+  @Test
+  public void testDecisionsCached() {
+    AtomicInteger calls = new AtomicInteger();
+    MetricFilter regex = new RegexMetricFilter(null, Pattern.compile("^m[0-4]$"), false, false);
+    CachingMetricFilter filter = new CachingMetricFilter(config -> {
+      calls.incrementAndGet();
+      return regex.matches(config);
+    });
+
+    for (int i = 0; i < 3; ++i) {
+      assertTrue(filter.matches(config("m1")));
+      assertFalse(filter.matches(config("m5")));
+    }
+    assertEquals(calls.get(), 2);
+    assertEquals(filter.size(), 2);
+
+    long version = filter.getVersion();
+    filter.invalidate(config("m1"));
+    assertNotEquals(filter.getVersion(), version);
+    assertTrue(filter.matches(config("m1")));
+    assertEquals(calls.get(), 3);
+
+    version = filter.getVersion();
+    filter.invalidateAll();
+    assertNotEquals(filter.getVersion(), version);
+    assertEquals(filter.size(), 0);
+    assertFalse(filter.matches(config("m5")));
+    assertEquals(calls.get(), 4);
+  }
+
+  @Test
+  public void testBounded() {
+    CachingMetricFilter filter = new CachingMetricFilter(BasicMetricFilter.MATCH_ALL, 10);
+    for (int i = 0; i < 100; ++i) {
+      assertTrue(filter.matches(config("m" + i)));
+      assertTrue(filter.size() <= 10);
+    }
+  }
+}
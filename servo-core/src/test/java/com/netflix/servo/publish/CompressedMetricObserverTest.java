@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import com.netflix.servo.monitor.MonitorConfig;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class CompressedMetricObserverTest {
+
+  private static final MonitorConfig A =
+      MonitorConfig.builder("requests").withTag("status", "200").build();
+  private static final MonitorConfig B =
+      MonitorConfig.builder("requests").withTag("status", "500").build();
+
+  private CompressedMetricObserver newObserver(boolean offHeap) {
+    return CompressedMetricObserver.builder("test")
+        .withChunkDuration(1, TimeUnit.MINUTES)
+        .withRetention(5, TimeUnit.MINUTES)
+        .withOffHeap(offHeap)
+        .build();
+  }
+
+  private void poll(CompressedMetricObserver observer, long t) {
+    List<Metric> metrics = new ArrayList<>();
+    metrics.add(new Metric(A, t, t / 10000L));
+    metrics.add(new Metric(B, t, 1.5));
+    metrics.add(new Metric(MonitorConfig.builder("text").build(), t, "foo"));
+    observer.update(metrics);
+  }
+
+  @Test
+  public void testChunksAndScan() {
+    CompressedMetricObserver observer = newObserver(true);
+    for (int i = 0; i < 15; ++i) {
+      poll(observer, i * 10000L);
+    }
+    assertEquals(observer.size(), 2);
+
+    List<CompressedChunk> chunks = observer.getChunks(A);
+    assertEquals(chunks.size(), 3);
+    assertEquals(chunks.get(0).size(), 6);
+    assertTrue(chunks.get(0).isOffHeap());
+    assertEquals(chunks.get(2).size(), 3);
+
+    List<Double> values = new ArrayList<>();
+    MetricFilter status200 = config -> "200".equals(config.getTags().getValue("status"));
+    observer.scan(status200, 50000L, 80000L, (config, t, v) -> {
+      assertEquals(config, A);
+      assertEquals(v, t / 10000.0);
+      values.add(v);
+    });
+    assertEquals(values, Arrays.asList(5.0, 6.0, 7.0, 8.0));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testChunkDurationLessThanMillisecond() {
+    CompressedMetricObserver.builder("test").withChunkDuration(500, TimeUnit.MICROSECONDS);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testRetentionLessThanMillisecond() {
+    CompressedMetricObserver.builder("test").withRetention(500, TimeUnit.MICROSECONDS);
+  }
+
+  @Test
+  public void testRetention() {
+    CompressedMetricObserver observer = newObserver(false);
+    for (int i = 0; i < 60; ++i) {
+      poll(observer, i * 10000L);
+    }
+    // 6 samples per chunk, only chunks that end within the last 5 minutes are kept
+    List<CompressedChunk> chunks = observer.getChunks(A);
+    assertEquals(chunks.size(), 6);
+    assertTrue(chunks.get(0).getEndTime() >= 590000L - 300000L);
+
+    // Series that are no longer updated are removed
+    long t = 600000L;
+    for (int i = 0; i < 60; ++i, t += 10000L) {
+      observer.update(Collections.singletonList(new Metric(A, t, 1.0)));
+    }
+    assertEquals(observer.size(), 1);
+    assertEquals(observer.getChunks(B), Collections.emptyList());
+  }
+
+  @Test
+  public void testMaxSeries() {
+    CompressedMetricObserver observer = CompressedMetricObserver.builder("test")
+        .withMaxSeries(1)
+        .build();
+    poll(observer, 0L);
+    assertEquals(observer.size(), 1);
+    assertTrue(observer.sizeInBytes() > 0L);
+  }
+}
@@ -16,16 +16,21 @@
 package com.netflix.servo.publish;
 
 import com.netflix.servo.Metric;
+import com.netflix.servo.MetricBatch;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.tag.SortedTagList;
 import com.netflix.servo.tag.TagList;
+import com.netflix.servo.util.ManualClock;
 import com.netflix.servo.util.UnmodifiableList;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
@@ -150,4 +155,122 @@ public class CounterToRateMetricTransformTest {
     assertEquals(metrics.size(), 3);
     assertEquals(metrics.get("m3"), 1.0, 0.00001);
   }
+
+  @Test
+  public void testSimpleRateBatch() throws Exception {
+    MemoryMetricObserver mmo = new MemoryMetricObserver("m", 1);
+    BatchMetricObserver transform =
+        new CounterToRateMetricTransform(mmo, 120, TimeUnit.SECONDS);
+    Map<String, Double> metrics;
+
+    // Make time look like the future to avoid expirations
+    long baseTime = System.currentTimeMillis() + 100000L;
+
+    // First sample
+    transform.update(MetricBatch.from(mkList(baseTime + 0, 0)));
+    metrics = mkMap(mmo.getObservations());
+    assertEquals(metrics.size(), 2);
+    assertTrue(metrics.get("m3") == null);
+
+    // Delta of 5 in 5 seconds
+    transform.update(MetricBatch.from(mkList(baseTime + 5000, 5)));
+    metrics = mkMap(mmo.getObservations());
+    assertEquals(metrics.size(), 3);
+    assertEquals(metrics.get("m3"), 1.0, 0.00001);
+    assertEquals(mkTypeMap(mmo.getObservations()).get("m3"), "RATE");
+
+    // Mixing list and batch updates uses the same state
+    transform.update(mkList(baseTime + 10000, 20));
+    metrics = mkMap(mmo.getObservations());
+    assertEquals(metrics.get("m3"), 3.0, 0.00001);
+
+    // Decrease from previous sample
+    transform.update(MetricBatch.from(mkList(baseTime + 15000, 19)));
+    metrics = mkMap(mmo.getObservations());
+    assertEquals(metrics.size(), 3);
+    assertEquals(metrics.get("m3"), 0.0, 0.00001);
+  }
+
+  @Test
+  public void testHeartbeatExpiration() throws Exception {
+    ManualClock clock = new ManualClock(0L);
+    MemoryMetricObserver mmo = new MemoryMetricObserver("m", 1);
+    CounterToRateMetricTransform transform =
+        new CounterToRateMetricTransform(mmo, 120, 0, TimeUnit.SECONDS, clock);
+
+    transform.update(mkList(0L, 0));
+    transform.update(mkList(5000L, 5));
+    assertEquals(mkMap(mmo.getObservations()).get("m3"), 1.0, 0.00001);
+    assertEquals(transform.getCacheSize(), 1);
+
+    // Previous sample is expired, should be treated as the first sample even before the
+    // sweep removes it
+    clock.set(130000L);
+    transform.update(mkList(130000L, 100));
+    assertTrue(mkMap(mmo.getObservations()).get("m3") == null);
+    assertEquals(transform.getCacheSize(), 1);
+
+    // Sweep runs on the next update after the heartbeat and removes counters that are no
+    // longer reported
+    clock.set(260000L);
+    transform.update(UnmodifiableList.of(new Metric("m2", GAUGE, 260000L, 1)));
+    assertEquals(transform.getCacheSize(), 0);
+  }
+
+  @Test
+  public void testOutOfOrderSample() throws Exception {
+    MemoryMetricObserver mmo = new MemoryMetricObserver("m", 1);
+    MetricObserver transform = new CounterToRateMetricTransform(mmo, 120, TimeUnit.SECONDS);
+    long baseTime = System.currentTimeMillis() + 100000L;
+
+    transform.update(mkList(baseTime + 5000, 5));
+    transform.update(mkList(baseTime, 0));
+    assertTrue(mkMap(mmo.getObservations()).get("m3") == null);
+
+    // State should still reflect the newest sample
+    transform.update(mkList(baseTime + 10000, 15));
+    assertEquals(mkMap(mmo.getObservations()).get("m3"), 2.0, 0.00001);
+  }
+
+  @Test
+  public void testConcurrentUpdates() throws Exception {
+    final int threads = 4;
+    final int counters = 1000;
+    final AtomicInteger ones = new AtomicInteger();
+    final MetricObserver check = new BaseMetricObserver("check") {
+      @Override
+      public void updateImpl(List<Metric> metrics) {
+        for (Metric m : metrics) {
+          if (Math.abs(m.getDoubleValue() - 1.0) < 0.00001) {
+            ones.incrementAndGet();
+          }
+        }
+      }
+    };
+    final CounterToRateMetricTransform transform =
+        new CounterToRateMetricTransform(check, 120, TimeUnit.SECONDS);
+    final long baseTime = System.currentTimeMillis() + 100000L;
+    final CountDownLatch done = new CountDownLatch(threads);
+
+    // Each thread owns a disjoint set of counters and reports two samples for each
+    for (int t = 0; t < threads; ++t) {
+      final int id = t;
+      new Thread(() -> {
+        List<Metric> first = new ArrayList<>();
+        List<Metric> second = new ArrayList<>();
+        for (int i = 0; i < counters; ++i) {
+          String name = "c-" + id + "-" + i;
+          first.add(new Metric(name, COUNTER, baseTime, 0));
+          second.add(new Metric(name, COUNTER, baseTime + 5000, 5));
+        }
+        transform.update(first);
+        transform.update(second);
+        done.countDown();
+      }).start();
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(transform.getCacheSize(), threads * counters);
+    assertEquals(ones.get(), threads * counters);
+  }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class GorillaEncoderTest {
+
+  private void assertRoundTrip(long[] ts, double[] vs, boolean offHeap) {
+    GorillaEncoder encoder = new GorillaEncoder();
+    for (int i = 0; i < ts.length; ++i) {
+      assertTrue(encoder.append(ts[i], vs[i]));
+    }
+    CompressedChunk chunk = encoder.toChunk(offHeap);
+    assertEquals(chunk.size(), ts.length);
+    assertEquals(chunk.isOffHeap(), offHeap);
+    assertEquals(chunk.getStartTime(), ts[0]);
+    assertEquals(chunk.getEndTime(), ts[ts.length - 1]);
+
+    ChunkDecoder decoder = chunk.decoder();
+    for (int i = 0; i < ts.length; ++i) {
+      assertTrue(decoder.next());
+      assertEquals(decoder.getTimestamp(), ts[i]);
+      assertEquals(Double.doubleToRawLongBits(decoder.getValue()),
+          Double.doubleToRawLongBits(vs[i]));
+    }
+    assertFalse(decoder.next());
+  }
+
+  @Test
+  public void testRoundTripSpecialValues() {
+    long[] ts = {-5000L, 0L, 1L, 10001L, 10002L, 10500L, 13000L, 5000000000L, Long.MAX_VALUE};
+    double[] vs = {0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        Double.MIN_VALUE, Double.MAX_VALUE, 1.0, -1.0};
+    assertRoundTrip(ts, vs, false);
+    assertRoundTrip(ts, vs, true);
+  }
+
+  @Test
+  public void testRoundTripRandom() {
+    Random r = new Random(42);
+    int n = 5000;
+    long[] ts = new long[n];
+    double[] vs = new double[n];
+    long t = 1500000000000L;
+    for (int i = 0; i < n; ++i) {
+      t += 1 + r.nextInt(20000) + ((i % 100 == 0) ? r.nextInt(Integer.MAX_VALUE) : 0);
+      ts[i] = t;
+      vs[i] = (i % 3 == 0) ? r.nextDouble() : (i % 3 == 1) ? r.nextInt(100) : vs[i - 1];
+    }
+    assertRoundTrip(ts, vs, false);
+  }
+
+  @Test
+  public void testOutOfOrderIgnored() {
+    GorillaEncoder encoder = new GorillaEncoder();
+    assertTrue(encoder.append(10000L, 1.0));
+    assertFalse(encoder.append(10000L, 2.0));
+    assertFalse(encoder.append(5000L, 2.0));
+    assertTrue(encoder.append(20000L, 3.0));
+    assertEquals(encoder.size(), 2);
+  }
+
+  @Test
+  public void testCompressionRegularInterval() {
+    // A counter rate that is constant most of the time with occasional changes, reported
+    // every 10 seconds with small jitter in the timestamps
+    Random r = new Random(42);
+    GorillaEncoder encoder = new GorillaEncoder();
+    int n = 720;
+    double v = 0.0;
+    for (int i = 0; i < n; ++i) {
+      if (i % 10 == 0) {
+        v = r.nextInt(1000) / 10.0;
+      }
+      encoder.append(i * 10000L + r.nextInt(3), v);
+    }
+    double bytesPerSample = (double) encoder.sizeInBytes() / n;
+    assertTrue(bytesPerSample < 2.0, "bytes per sample: " + bytesPerSample);
+
+    GorillaEncoder constant = new GorillaEncoder();
+    for (int i = 0; i < n; ++i) {
+      constant.append(i * 10000L, 42.0);
+    }
+    // 16 bytes for the first sample and then 2 bits per sample, plus the first delta
+    assertTrue(constant.sizeInBytes() < 16 + n / 4 + 16, "size: " + constant.sizeInBytes());
+  }
+}
@@ -21,12 +21,23 @@ import com.netflix.servo.tag.Tags;
 import org.testng.annotations.Test;
 
 import javax.management.MBeanServer;
+import javax.management.MBeanServerConnection;
 import javax.management.ObjectName;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.netflix.servo.publish.BasicMetricFilter.MATCH_ALL;
 import static com.netflix.servo.publish.BasicMetricFilter.MATCH_NONE;
@@ -119,8 +130,12 @@ public class JmxMetricPollerTest {
     private final ObjectName objectName;
 
     MapMXBean() throws Exception {
+      this("Obj");
+    }
+
+    MapMXBean(String id) throws Exception {
       MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
-      objectName = new ObjectName("com.netflix.servo.test", "Test", "Obj");
+      objectName = new ObjectName("com.netflix.servo.test", "Test", id);
       destroy();
       mbs.registerMBean(this, objectName);
     }
@@ -180,4 +195,219 @@ public class JmxMetricPollerTest {
       mapMXBean.destroy();
     }
   }
+
+  private static int count(Map<String, AtomicInteger> calls, String method) {
+    AtomicInteger n = calls.get(method);
+    return (n == null) ? 0 : n.get();
+  }
+
+  /**
+   * Connection to the platform mbean server that counts the calls for each method. If the
+   * object name for a getAttributes call has an id of slowId, then it will sleep before
+   * making the call. If it has an id of brokenId, then it will fail.
+   */
+  private static MBeanServerConnection countingConnection(
+      Map<String, AtomicInteger> calls, String slowId, String brokenId) {
+    MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+    return (MBeanServerConnection) Proxy.newProxyInstance(
+        JmxMetricPollerTest.class.getClassLoader(),
+        new Class<?>[] {MBeanServerConnection.class},
+        (proxy, method, args) -> {
+          calls.computeIfAbsent(method.getName(), k -> new AtomicInteger()).incrementAndGet();
+          if ("getAttributes".equals(method.getName())) {
+            String id = ((ObjectName) args[0]).getKeyProperty("Test");
+            if (id.equals(slowId)) {
+              Thread.sleep(5000);
+            } else if (id.equals(brokenId)) {
+              throw new IOException("batch loading is not supported");
+            }
+          }
+          try {
+            return method.invoke(mbs, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+  }
+
+  @Test
+  public void testMetadataCached() throws Exception {
+    Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    MBeanServerConnection con = countingConnection(calls, null, null);
+
+    MapMXBean first = new MapMXBean("Obj1");
+    MapMXBean second = null;
+    try (JmxMetricPoller poller = new JmxMetricPoller.Builder(() -> con)
+        .withQuery(new ObjectName("com.netflix.servo.test:*"))
+        .withMetadataCaching(true)
+        .build()) {
+      MetricFilter filter = config -> config.getName().equals("Count");
+
+      for (int i = 0; i < 3; ++i) {
+        assertEquals(poller.poll(filter).size(), 2);
+      }
+      assertEquals(count(calls, "queryNames"), 1);
+      assertEquals(count(calls, "getMBeanInfo"), 1);
+      assertEquals(count(calls, "getAttributes"), 3);
+
+      // Registration invalidates the cached names
+      second = new MapMXBean("Obj2");
+      assertEquals(poller.poll(filter).size(), 4);
+      assertEquals(count(calls, "queryNames"), 2);
+      assertEquals(count(calls, "getMBeanInfo"), 2);
+
+      // Unregistration invalidates the cached names and info
+      second.destroy();
+      second = null;
+      assertEquals(poller.poll(filter).size(), 2);
+      assertEquals(count(calls, "queryNames"), 3);
+      assertEquals(count(calls, "getMBeanInfo"), 2);
+
+      poller.close();
+      assertEquals(count(calls, "removeNotificationListener"), 1);
+    } finally {
+      first.destroy();
+      if (second != null) {
+        second.destroy();
+      }
+    }
+  }
+
+  @Test
+  public void testMetadataNotCachedByDefault() throws Exception {
+    Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    MBeanServerConnection con = countingConnection(calls, null, null);
+    MapMXBean mbean = new MapMXBean("Obj1");
+    try {
+      MetricPoller poller = new JmxMetricPoller(
+          () -> con, new ObjectName("com.netflix.servo.test:*"), MATCH_ALL);
+      MetricFilter filter = config -> config.getName().equals("Count");
+      for (int i = 0; i < 3; ++i) {
+        assertEquals(poller.poll(filter).size(), 2);
+      }
+      assertEquals(count(calls, "addNotificationListener"), 0);
+      assertEquals(count(calls, "queryNames"), 3);
+      assertEquals(count(calls, "getMBeanInfo"), 3);
+    } finally {
+      mbean.destroy();
+    }
+  }
+
+  private static Set<String> configs(List<Metric> metrics) {
+    Set<String> configs = new TreeSet<>();
+    for (Metric m : metrics) {
+      configs.add(m.getConfig().toString());
+    }
+    return configs;
+  }
+
+  @Test
+  public void testParallelPoll() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      ObjectName query = new ObjectName("java.lang:type=OperatingSystem,*");
+      ObjectName query2 = new ObjectName("java.lang:type=Threading,*");
+      MetricPoller sequential = new JmxMetricPoller.Builder(new LocalJmxConnector())
+          .withQuery(query)
+          .withQuery(query2)
+          .build();
+      MetricPoller parallel = new JmxMetricPoller.Builder(new LocalJmxConnector())
+          .withQuery(query)
+          .withQuery(query2)
+          .withExecutor(executor, 2)
+          .withPollDeadline(1, TimeUnit.MINUTES)
+          .build();
+      Set<String> expected = configs(sequential.poll(MATCH_ALL));
+      assertTrue(!expected.isEmpty());
+      assertEquals(configs(parallel.poll(MATCH_ALL)), expected);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testDeadlinePartialResults() throws Exception {
+    Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    MBeanServerConnection con = countingConnection(calls, "Slow", null);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    MapMXBean fast = new MapMXBean("Fast");
+    MapMXBean slow = new MapMXBean("Slow");
+    try {
+      MetricPoller poller = new JmxMetricPoller.Builder(() -> con)
+          .withQuery(new ObjectName("com.netflix.servo.test:*"))
+          .withExecutor(executor, 2)
+          .withPollDeadline(500, TimeUnit.MILLISECONDS)
+          .build();
+
+      long start = System.currentTimeMillis();
+      List<Metric> metrics = poller.poll(config -> config.getName().equals("Count"));
+      assertTrue(System.currentTimeMillis() - start < 4000);
+      assertEquals(metrics.size(), 2);
+      for (Metric m : metrics) {
+        assertEquals(m.getConfig().getTags().getValue("Jmx.Test"), "Fast");
+      }
+    } finally {
+      executor.shutdownNow();
+      fast.destroy();
+      slow.destroy();
+    }
+  }
+
+  @Test
+  public void testInterruptedPartialResults() throws Exception {
+    Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    MBeanServerConnection con = countingConnection(calls, "Slow", null);
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    MapMXBean fast = new MapMXBean("Fast");
+    MapMXBean slow = new MapMXBean("Slow");
+    try {
+      MetricPoller poller = new JmxMetricPoller.Builder(() -> con)
+          .withQuery(new ObjectName("com.netflix.servo.test:*"))
+          .withExecutor(executor, 2)
+          .build();
+
+      final Thread pollingThread = Thread.currentThread();
+      executor.execute(() -> {
+        try {
+          Thread.sleep(500);
+          pollingThread.interrupt();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+
+      long start = System.currentTimeMillis();
+      List<Metric> metrics = poller.poll(config -> config.getName().equals("Count"));
+      assertTrue(Thread.interrupted());
+      assertTrue(System.currentTimeMillis() - start < 4000);
+      assertEquals(metrics.size(), 2);
+      for (Metric m : metrics) {
+        assertEquals(m.getConfig().getTags().getValue("Jmx.Test"), "Fast");
+      }
+    } finally {
+      Thread.interrupted();
+      executor.shutdownNow();
+      fast.destroy();
+      slow.destroy();
+    }
+  }
+
+  @Test
+  public void testIndividualLoadRemembered() throws Exception {
+    Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    MBeanServerConnection con = countingConnection(calls, null, "Broken");
+    MapMXBean broken = new MapMXBean("Broken");
+    try (JmxMetricPoller poller = new JmxMetricPoller.Builder(() -> con)
+        .withQuery(new ObjectName("com.netflix.servo.test:*"))
+        .withMetadataCaching(true)
+        .build()) {
+      for (int i = 0; i < 3; ++i) {
+        assertEquals(poller.poll(config -> config.getName().equals("Count")).size(), 2);
+      }
+      assertEquals(count(calls, "getAttributes"), 1);
+      assertEquals(count(calls, "getAttribute"), 3);
+    } finally {
+      broken.destroy();
+    }
+  }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import org.testng.annotations.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.netflix.servo.publish.BasicMetricFilter.MATCH_ALL;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class JvmMetricPollerTest {
+
+  private static Metric find(List<Metric> metrics, String name, String state) {
+    for (Metric m : metrics) {
+      if (name.equals(m.getConfig().getName())
+          && (state == null || state.equals(m.getConfig().getTags().getValue("state")))) {
+        return m;
+      }
+    }
+    return null;
+  }
+
+  private static long waitingCount(List<Metric> metrics) {
+    return find(metrics, "threadCount", "WAITING").getNumberValue().longValue();
+  }
+
+  private static long blockedTime(List<Metric> metrics) {
+    return find(metrics, "threadBlockedTime", null).getNumberValue().longValue();
+  }
+
+  private static List<Thread> startWaitingThreads(int n, CountDownLatch latch) throws Exception {
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < n; ++i) {
+      Thread t = new Thread(() -> {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      t.setDaemon(true);
+      t.start();
+      threads.add(t);
+    }
+    for (Thread t : threads) {
+      while (t.getState() != Thread.State.WAITING) {
+        Thread.sleep(1);
+      }
+    }
+    return threads;
+  }
+
+  @Test
+  public void testThreadMetrics() throws Exception {
+    List<Metric> metrics = new JvmMetricPoller().poll(MATCH_ALL);
+    assertTrue(find(metrics, "liveThreadCount", null).getNumberValue().longValue() > 0);
+    assertNotNull(find(metrics, "peakThreadCount", null));
+    assertNotNull(find(metrics, "threadBlockedCount", null));
+
+    long total = 0L;
+    for (Thread.State state : Thread.State.values()) {
+      total += find(metrics, "threadCount", state.name()).getNumberValue().longValue();
+    }
+    assertTrue(total > 0);
+  }
+
+  @Test
+  public void testDetailedThreadMetricsDisabled() throws Exception {
+    JvmMetricPoller poller = new JvmMetricPoller.Builder()
+        .withDetailedThreadMetrics(false)
+        .build();
+    List<Metric> metrics = poller.poll(MATCH_ALL);
+    assertNotNull(find(metrics, "liveThreadCount", null));
+    assertNotNull(find(metrics, "daemonThreadCount", null));
+    assertNull(find(metrics, "threadCount", null));
+    assertNull(find(metrics, "threadWaitedCount", null));
+  }
+
+  @Test
+  public void testSampleSizeTracksNewAndDeadThreads() throws Exception {
+    JvmMetricPoller poller = new JvmMetricPoller.Builder()
+        .withThreadSampleSize(1)
+        .build();
+    poller.poll(MATCH_ALL);
+
+    // New threads are always sampled even if the sample size is small
+    CountDownLatch latch = new CountDownLatch(1);
+    List<Thread> threads = startWaitingThreads(5, latch);
+    poller.poll(MATCH_ALL);
+    for (Thread t : threads) {
+      assertTrue(poller.isThreadSampled(t.getId()));
+    }
+
+    latch.countDown();
+    for (Thread t : threads) {
+      t.join();
+    }
+    poller.poll(MATCH_ALL);
+    for (Thread t : threads) {
+      assertFalse(poller.isThreadSampled(t.getId()));
+    }
+  }
+
+  @Test
+  public void testSampleIntervalReusesValues() throws Exception {
+    JvmMetricPoller poller = new JvmMetricPoller.Builder()
+        .withThreadSampleInterval(1, TimeUnit.HOURS)
+        .build();
+    long before = waitingCount(poller.poll(MATCH_ALL));
+
+    CountDownLatch latch = new CountDownLatch(1);
+    List<Thread> threads = startWaitingThreads(3, latch);
+    try {
+      assertEquals(waitingCount(poller.poll(MATCH_ALL)), before);
+      for (Thread t : threads) {
+        assertFalse(poller.isThreadSampled(t.getId()));
+      }
+    } finally {
+      latch.countDown();
+    }
+  }
+
+  @Test
+  public void testContentionMonitoringDisabled() throws Exception {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!bean.isThreadContentionMonitoringSupported()) {
+      return;
+    }
+    final boolean enabled = bean.isThreadContentionMonitoringEnabled();
+    bean.setThreadContentionMonitoringEnabled(true);
+    JvmMetricPoller poller = new JvmMetricPoller.Builder().build();
+    final Object lock = new Object();
+    Thread t;
+    try {
+      synchronized (lock) {
+        t = new Thread(() -> {
+          synchronized (lock) {
+            lock.notifyAll();
+          }
+        });
+        t.setDaemon(true);
+        t.start();
+        Thread.sleep(1100);
+        long blocked = blockedTime(poller.poll(MATCH_ALL));
+        assertTrue(blocked >= 1L, "blocked time " + blocked);
+
+        // Disabling resets the per thread times, they should not be subtracted
+        bean.setThreadContentionMonitoringEnabled(false);
+        assertTrue(blockedTime(poller.poll(MATCH_ALL)) >= blocked);
+      }
+      t.join();
+    } finally {
+      bean.setThreadContentionMonitoringEnabled(enabled);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.util.ManualClock;
+import com.netflix.servo.util.UnmodifiableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class MemoryTimeSeriesStoreTest {
+
+  private static final MonitorConfig A =
+      MonitorConfig.builder("requests").withTag("status", "200").build();
+  private static final MonitorConfig B =
+      MonitorConfig.builder("requests").withTag("status", "500").build();
+
+  private MemoryTimeSeriesStore newStore(ManualClock clock) {
+    return MemoryTimeSeriesStore.builder()
+        .withTier(10, 60, TimeUnit.SECONDS)
+        .withTier(60, 600, TimeUnit.SECONDS)
+        .withClock(clock)
+        .build();
+  }
+
+  @Test
+  public void testQueryFinestTier() {
+    ManualClock clock = new ManualClock(0L);
+    MemoryTimeSeriesStore store = newStore(clock);
+    for (int i = 0; i < 6; ++i) {
+      long t = i * 10000L;
+      clock.set(t);
+      store.add(A, t, i);
+      store.add(B, t, 10 * i);
+    }
+
+    MetricFilter status200 = config -> "200".equals(config.getTags().getValue("status"));
+    List<TimeSeries> results = store.query("requests", status200, 20000L, 60000L);
+    assertEquals(results.size(), 1);
+    assertEquals(results.get(0),
+        new TimeSeries(A, 20000L, 10000L, new double[] {2.0, 3.0, 4.0, 5.0}));
+    assertEquals(results.get(0).getLastValue(), 5.0);
+
+    assertEquals(store.query("requests", BasicMetricFilter.MATCH_ALL, 0L, 60000L).size(), 2);
+    assertTrue(store.query("unknown", BasicMetricFilter.MATCH_ALL, 0L, 60000L).isEmpty());
+  }
+
+  @Test
+  public void testDownsampledTier() {
+    ManualClock clock = new ManualClock(0L);
+    MemoryTimeSeriesStore store = newStore(clock);
+    for (int i = 0; i < 30; ++i) {
+      long t = i * 10000L;
+      clock.set(t);
+      store.add(A, t, i);
+    }
+
+    // Start is outside of the 1 minute retention of the finest tier
+    assertEquals(store.selectStep(0L), 60000L);
+    List<TimeSeries> results = store.query("requests", BasicMetricFilter.MATCH_ALL,
+        0L, 300000L);
+    assertEquals(results.size(), 1);
+    double[] expected = {2.5, 8.5, 14.5, 20.5, 26.5};
+    assertEquals(results.get(0), new TimeSeries(A, 0L, 60000L, expected));
+
+    // Older than the finest retention is missing
+    assertEquals(store.selectStep(250000L), 10000L);
+    results = store.query("requests", BasicMetricFilter.MATCH_ALL, 230000L, 300000L);
+    TimeSeries ts = results.get(0);
+    assertTrue(Double.isNaN(ts.getValue(0)));
+    assertEquals(ts.getValue(ts.size() - 1), 29.0);
+  }
+
+  @Test
+  public void testMaxSeries() {
+    ManualClock clock = new ManualClock(0L);
+    MemoryTimeSeriesStore store = MemoryTimeSeriesStore.builder()
+        .withMaxSeries(1)
+        .withClock(clock)
+        .build();
+    store.add(A, 0L, 1.0);
+    store.add(B, 0L, 1.0);
+    assertEquals(store.size(), 1);
+    assertEquals(store.query("requests", BasicMetricFilter.MATCH_ALL, 0L, 10000L).size(), 1);
+  }
+
+  @Test
+  public void testExpiration() {
+    ManualClock clock = new ManualClock(0L);
+    MemoryTimeSeriesStore store = newStore(clock);
+    store.update(UnmodifiableList.of(new Metric(A, 0L, 1.0)));
+    assertEquals(store.size(), 1);
+
+    clock.set(700000L);
+    store.update(UnmodifiableList.of(new Metric(B, 700000L, 1.0)));
+    assertEquals(store.size(), 1);
+    assertEquals(store.query("requests", BasicMetricFilter.MATCH_ALL, 690000L, 700001L)
+        .get(0).getConfig(), B);
+  }
+
+  @Test
+  public void testMemoryMetricObserver() {
+    MemoryTimeSeriesStore store = MemoryTimeSeriesStore.builder().build();
+    MemoryMetricObserver mmo = new MemoryMetricObserver("test", 1, store);
+    long now = System.currentTimeMillis();
+    mmo.update(UnmodifiableList.of(
+        new Metric(A, now, 42.0),
+        new Metric(MonitorConfig.builder("info").build(), now, "not a number")));
+    assertEquals(store.size(), 1);
+    List<TimeSeries> results = store.query("requests", BasicMetricFilter.MATCH_ALL,
+        now - 60000L, now + 1);
+    assertEquals(results.get(0).getLastValue(), 42.0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testZeroRetention() {
+    MemoryTimeSeriesStore.builder().withTier(10, 0, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testQueryLimitedToRetention() {
+    ManualClock clock = new ManualClock(7200000L);
+    MemoryTimeSeriesStore store = MemoryTimeSeriesStore.builder().withClock(clock).build();
+    store.add(A, 7200000L, 42.0);
+
+    // Default tiers, the range is limited to the 24 hour retention of the coarsest tier
+    List<TimeSeries> results = store.query("requests", BasicMetricFilter.MATCH_ALL,
+        0L, Long.MAX_VALUE);
+    TimeSeries ts = results.get(0);
+    assertEquals(ts.getStep(), 60000L);
+    assertTrue(ts.size() <= 1441, "size " + ts.size());
+    assertEquals(ts.getLastValue(), 42.0);
+
+    // Single tier with a start before the retention
+    clock.set(1500000000000L);
+    MemoryTimeSeriesStore small = MemoryTimeSeriesStore.builder()
+        .withTier(1, 60, TimeUnit.SECONDS)
+        .withClock(clock)
+        .build();
+    small.add(A, clock.now(), 1.0);
+    ts = small.query("requests", BasicMetricFilter.MATCH_ALL, 0L, clock.now() + 1).get(0);
+    assertTrue(ts.size() <= 61, "size " + ts.size());
+    assertEquals(ts.getLastValue(), 1.0);
+
+    // Entirely before the retention
+    assertTrue(small.query("requests", BasicMetricFilter.MATCH_ALL, 0L, 1000L).isEmpty());
+  }
+
+  @Test
+  public void testLastHourUsesFinestTier() {
+    ManualClock clock = new ManualClock(10000000L);
+    MemoryTimeSeriesStore store = MemoryTimeSeriesStore.builder().withClock(clock).build();
+    long start = clock.now() - 3600000L;
+    clock.set(clock.now() + 5L);
+    assertEquals(store.selectStep(start), 10000L);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.tag.BasicTagList;
+import com.netflix.servo.util.ManualClock;
+import com.netflix.servo.util.UnmodifiableList;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+public class MetricPipelineTest {
+
+  private static final MonitorConfig COUNTER =
+      MonitorConfig.builder("c").withTag(DataSourceType.COUNTER).build();
+  private static final MonitorConfig GAUGE =
+      MonitorConfig.builder("g").withTag(DataSourceType.GAUGE).build();
+  private static final MonitorConfig UNTYPED = MonitorConfig.builder("u").build();
+  private static final MonitorConfig INFO =
+      MonitorConfig.builder("i").withTag(DataSourceType.INFORMATIONAL).build();
+
+  private List<Metric> mkList(long t, int i) {
+    return UnmodifiableList.of(
+        new Metric(COUNTER, t, 10.0 * i * i),
+        new Metric(GAUGE, t, (double) i),
+        new Metric(UNTYPED, t, i / 60.0),
+        new Metric(INFO, t, "info-" + i));
+  }
+
+  @Test
+  public void testSameAsChainedTransforms() {
+    ManualClock clock = new ManualClock(0L);
+    MemoryMetricObserver chainedMmo = new MemoryMetricObserver("chained", 1);
+    MetricObserver chained = new CounterToRateMetricTransform(
+        new NormalizationTransform(chainedMmo, 60, 120, TimeUnit.SECONDS, clock),
+        120, 0, TimeUnit.SECONDS, clock);
+
+    MemoryMetricObserver pipelineMmo = new MemoryMetricObserver("pipeline", 1);
+    MetricObserver pipeline = MetricPipeline.builder(pipelineMmo)
+        .withRateConversion(120, 0, TimeUnit.SECONDS)
+        .withNormalization(60, 120, TimeUnit.SECONDS)
+        .withClock(clock)
+        .build();
+
+    for (int i = 1; i < 8; ++i) {
+      long t = 20000L + i * 60000L;
+      clock.set(t);
+      List<Metric> metrics = mkList(t, i);
+      chained.update(metrics);
+      pipeline.update(metrics);
+      assertEquals(pipelineMmo.getObservations(), chainedMmo.getObservations());
+    }
+  }
+
+  @Test
+  public void testFilterAndRewrite() {
+    MemoryMetricObserver mmo = new MemoryMetricObserver("m", 1);
+    MetricObserver pipeline = MetricPipeline.builder(mmo)
+        .withFilter(config -> !config.getName().equals("g"))
+        .withCommonTags(BasicTagList.of("app", "foo"))
+        .withConfigRewrite(config -> MonitorConfig.builder(config.getName().toUpperCase())
+            .withTags(config.getTags())
+            .build())
+        .withInvalidValuesDropped()
+        .build();
+
+    List<Metric> metrics = new ArrayList<>(mkList(0L, 1));
+    metrics.add(new Metric(UNTYPED.withAdditionalTag(DataSourceType.GAUGE), 0L, Double.NaN));
+    pipeline.update(metrics);
+
+    List<Metric> expected = UnmodifiableList.of(
+        new Metric(MonitorConfig.builder("C")
+            .withTag(DataSourceType.COUNTER)
+            .withTag("app", "foo")
+            .build(), 0L, 10.0),
+        new Metric(MonitorConfig.builder("U").withTag("app", "foo").build(), 0L, 1 / 60.0));
+    assertEquals(mmo.getObservations().get(0), expected);
+  }
+
+  @Test
+  public void testCacheExpiration() {
+    ManualClock clock = new ManualClock(0L);
+    MemoryMetricObserver mmo = new MemoryMetricObserver("m", 1);
+    MetricPipeline pipeline = MetricPipeline.builder(mmo)
+        .withRateConversion(120, 0, TimeUnit.SECONDS)
+        .withClock(clock)
+        .build();
+
+    pipeline.update(mkList(0L, 1));
+    assertEquals(pipeline.getCacheSize(), 4);
+
+    clock.set(130000L);
+    pipeline.update(UnmodifiableList.of(new Metric(GAUGE, 130000L, 1.0)));
+    assertEquals(pipeline.getCacheSize(), 1);
+  }
+}
@@ -17,18 +17,34 @@ package com.netflix.servo.publish;
 
 import com.netflix.servo.BasicMonitorRegistry;
 import com.netflix.servo.Metric;
+import com.netflix.servo.MetricBatch;
 import com.netflix.servo.MonitorRegistry;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.monitor.AbstractMonitor;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.BasicInformational;
+import com.netflix.servo.monitor.ChangeTracked;
+import com.netflix.servo.monitor.CompositeMonitor;
 import com.netflix.servo.monitor.Counter;
+import com.netflix.servo.monitor.Monitor;
 import com.netflix.servo.monitor.MonitorConfig;
 import com.netflix.servo.monitor.Monitors;
+import com.netflix.servo.util.ManualClock;
 import org.testng.annotations.Test;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.netflix.servo.publish.BasicMetricFilter.MATCH_ALL;
 import static org.testng.Assert.assertEquals;
@@ -73,6 +89,242 @@ public class MonitorRegistryMetricPollerTest {
     assertEquals(metric.getConfig(), expected);
   }
 
+  @Test
+  public void testFilterCachedPerMonitor() throws Exception {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    registry.register(Monitors.newCounter("a"));
+    registry.register(Monitors.newTimer("b"));
+
+    CountingFilter filter = new CountingFilter();
+    MetricPoller poller =
+        new MonitorRegistryMetricPoller(registry, 0L, TimeUnit.MILLISECONDS, false);
+    int size = poller.poll(filter).size();
+    int calls = filter.calls.get();
+    assertEquals(calls, size);
+    for (int i = 0; i < 5; ++i) {
+      assertEquals(poller.poll(filter).size(), size);
+    }
+    assertEquals(filter.calls.get(), calls);
+
+    Counter c = Monitors.newCounter("c");
+    registry.register(c);
+    assertEquals(poller.poll(filter).size(), size + 1);
+    assertEquals(filter.calls.get(), calls + 1);
+
+    registry.unregister(c);
+    assertEquals(poller.poll(filter).size(), size);
+    assertEquals(filter.calls.get(), calls + 1);
+
+    // Decisions are cached by config, so a new monitor instance with the same config does
+    // not need the filter to be evaluated
+    registry.register(Monitors.newCounter("c"));
+    assertEquals(poller.poll(filter).size(), size + 1);
+    assertEquals(filter.calls.get(), calls + 1);
+
+    CountingFilter other = new CountingFilter();
+    assertEquals(poller.poll(other).size(), size + 1);
+    assertEquals(other.calls.get(), size + 1);
+
+    // Switching back to the previous filter reuses its decisions
+    assertEquals(poller.poll(filter).size(), size + 1);
+    assertEquals(filter.calls.get(), calls + 1);
+  }
+
+  @Test
+  public void testInvalidatedFilterReevaluated() throws Exception {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    registry.register(Monitors.newCounter("a"));
+    registry.register(Monitors.newCounter("b"));
+
+    // Filter with rules that change at runtime
+    final AtomicReference<String> allowed = new AtomicReference<>("a");
+    CachingMetricFilter filter =
+        new CachingMetricFilter(config -> config.getName().equals(allowed.get()));
+    MetricPoller poller =
+        new MonitorRegistryMetricPoller(registry, 0L, TimeUnit.MILLISECONDS, false);
+
+    List<Metric> metrics = poller.poll(filter);
+    assertEquals(metrics.size(), 1);
+    assertEquals(metrics.get(0).getConfig().getName(), "a");
+
+    // Decisions are frozen until the filter is invalidated
+    allowed.set("b");
+    assertEquals(poller.poll(filter).get(0).getConfig().getName(), "a");
+
+    filter.invalidateAll();
+    metrics = poller.poll(filter);
+    assertEquals(metrics.size(), 1);
+    assertEquals(metrics.get(0).getConfig().getName(), "b");
+  }
+
+  @Test
+  public void testCompositeChanges() throws Exception {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    GrowingComposite composite = new GrowingComposite("composite");
+    registry.register(composite);
+
+    CountingFilter filter = new CountingFilter();
+    MetricPoller poller =
+        new MonitorRegistryMetricPoller(registry, 0L, TimeUnit.MILLISECONDS, false);
+    assertEquals(poller.poll(filter).size(), 0);
+
+    composite.add("a");
+    composite.add("b");
+    List<Metric> metrics = poller.poll(filter);
+    assertEquals(metrics.size(), 2);
+    assertEquals(metrics.get(0).getConfig().getName(), "a");
+    assertEquals(metrics.get(1).getConfig().getName(), "b");
+
+    composite.add("c");
+    assertEquals(poller.poll(filter).size(), 3);
+    assertEquals(filter.calls.get(), 3);
+  }
+
+  @Test
+  public void testDeadlineQuarantinesBlockedMonitor() throws Exception {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    registry.register(new SlowCounter("slow"));
+    registry.register(Monitors.newCounter("test"));
+
+    MonitorRegistryMetricPoller poller = new MonitorRegistryMetricPoller.Builder(registry)
+        .withPollDeadline(200, TimeUnit.MILLISECONDS)
+        .withSlowMonitorThreshold(100, TimeUnit.MILLISECONDS)
+        .withQuarantineRecheckDelay(1, TimeUnit.HOURS)
+        .build();
+    try {
+      long start = System.currentTimeMillis();
+      poller.poll(MATCH_ALL);
+      assertTrue(System.currentTimeMillis() - start < TEN_SECONDS);
+      assertEquals(poller.getQuarantinedCount(), 1);
+
+      // Slow monitor is skipped so all other monitors can be read
+      List<Metric> metrics = poller.poll(MATCH_ALL);
+      assertEquals(metrics.size(), 1);
+      assertEquals(metrics.get(0).getConfig().getName(), "test");
+    } finally {
+      poller.shutdown();
+    }
+  }
+
+  @Test
+  public void testDeadlineShorterThanSlowThreshold() throws Exception {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    DelayedGauge gauge = new DelayedGauge("delayed");
+    gauge.delay = 500L;
+    registry.register(gauge);
+    registry.register(Monitors.newCounter("test"));
+
+    // Default slow threshold of 1s is longer than both the deadline and the delay
+    MonitorRegistryMetricPoller poller = new MonitorRegistryMetricPoller.Builder(registry)
+        .withPollDeadline(50, TimeUnit.MILLISECONDS)
+        .withQuarantineRecheckDelay(1, TimeUnit.HOURS)
+        .build();
+    try {
+      for (int i = 0; i < 10; ++i) {
+        poller.poll(MATCH_ALL);
+      }
+      assertEquals(poller.getQuarantinedCount(), 1);
+
+      // Later polls skip the quarantined monitor, so only one thread was ever blocked on it
+      assertEquals(gauge.reads.get(), 1);
+    } finally {
+      poller.shutdown();
+    }
+  }
+
+  @Test
+  public void testDeadlineQuarantineRecheck() throws Exception {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    DelayedGauge gauge = new DelayedGauge("delayed");
+    registry.register(gauge);
+
+    MonitorRegistryMetricPoller poller = new MonitorRegistryMetricPoller.Builder(registry)
+        .withPollDeadline(5, TimeUnit.SECONDS)
+        .withSlowMonitorThreshold(100, TimeUnit.MILLISECONDS)
+        .withQuarantineRecheckDelay(10, TimeUnit.MILLISECONDS)
+        .build();
+    try {
+      gauge.delay = 300;
+      assertEquals(poller.poll(MATCH_ALL).size(), 1);
+      assertEquals(poller.getQuarantinedCount(), 1);
+
+      gauge.delay = 0;
+      int retries = 0;
+      for (; retries < 50 && poller.getQuarantinedCount() > 0; ++retries) {
+        Thread.sleep(50);
+        poller.poll(MATCH_ALL);
+      }
+      assertEquals(poller.getQuarantinedCount(), 0);
+      assertEquals(poller.poll(MATCH_ALL).size(), 1);
+    } finally {
+      poller.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelPoll() throws Exception {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    for (int i = 0; i < 5000; ++i) {
+      registry.register(Monitors.newCounter("test-" + i));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      MetricPoller sequential =
+          new MonitorRegistryMetricPoller(registry, 0L, TimeUnit.MILLISECONDS, false);
+      MetricPoller parallel = new MonitorRegistryMetricPoller.Builder(registry)
+          .withForkJoinPool(pool)
+          .withParallelChunkSize(100)
+          .build();
+
+      List<Metric> expected = sequential.poll(MATCH_ALL);
+      List<Metric> actual = parallel.poll(MATCH_ALL);
+      assertEquals(actual.size(), expected.size());
+      long timestamp = actual.get(0).getTimestamp();
+      for (int i = 0; i < actual.size(); ++i) {
+        assertEquals(actual.get(i).getConfig(), expected.get(i).getConfig());
+        assertEquals(actual.get(i).getTimestamp(), timestamp);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testPollBatch() throws Exception {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    for (int i = 0; i < 100; ++i) {
+      registry.register(Monitors.newCounter("test-" + i));
+    }
+    BasicInformational info = new BasicInformational(MonitorConfig.builder("info").build());
+    info.setValue("foo");
+    registry.register(info);
+
+    MonitorRegistryMetricPoller poller =
+        new MonitorRegistryMetricPoller(registry, 0L, TimeUnit.MILLISECONDS, false);
+    List<Metric> expected = poller.poll(MATCH_ALL);
+    MetricBatch batch = poller.pollBatch(MATCH_ALL);
+    assertEquals(batch.size(), expected.size());
+    for (int i = 0; i < batch.size(); ++i) {
+      assertEquals(batch.getConfig(i), expected.get(i).getConfig());
+      assertEquals(batch.getTimestamp(i), batch.getTimestamp());
+      if (batch.hasNumberValue(i)) {
+        assertEquals(batch.getType(i), DataSourceType.COUNTER);
+        assertEquals(batch.getValue(i), 0.0, 1e-12);
+      } else {
+        assertEquals(batch.getType(i), DataSourceType.INFORMATIONAL);
+      }
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testParallelPollWithDeadline() throws Exception {
+    new MonitorRegistryMetricPoller.Builder(new BasicMonitorRegistry())
+        .withForkJoinPool(ForkJoinPool.commonPool())
+        .withPollDeadline(1, TimeUnit.SECONDS)
+        .build();
+  }
+
   @Test(enabled = false)
   public void testShutdown() throws Exception {
     MonitorRegistry registry = new BasicMonitorRegistry();
@@ -128,6 +380,149 @@ public class MonitorRegistryMetricPollerTest {
     return count;
   }
 
+  private static List<String> names(List<Metric> metrics) {
+    List<String> names = new ArrayList<>();
+    for (Metric m : metrics) {
+      names.add(m.getConfig().getName());
+    }
+    Collections.sort(names);
+    return names;
+  }
+
+  @Test
+  public void testDeltaPoll() throws Exception {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    BasicCounter c1 = new BasicCounter(MonitorConfig.builder("c1").build());
+    BasicCounter c2 = new BasicCounter(MonitorConfig.builder("c2").build());
+    TrackedGauge tracked = new TrackedGauge("tracked");
+    DelayedGauge untracked = new DelayedGauge("untracked");
+    registry.register(c1);
+    registry.register(c2);
+    registry.register(tracked);
+    registry.register(untracked);
+
+    ManualClock clock = new ManualClock(0L);
+    MonitorRegistryMetricPoller poller = new MonitorRegistryMetricPoller.Builder(registry)
+        .withTimeLimiter(false)
+        .withClock(clock)
+        .withDeltaSnapshotInterval(1, TimeUnit.MINUTES)
+        .build();
+
+    MetricDelta delta = poller.pollDelta(MATCH_ALL);
+    assertTrue(delta.isSnapshot());
+    assertEquals(names(delta.getChanged()), Arrays.asList("c1", "c2", "tracked", "untracked"));
+    assertEquals(tracked.reads.get(), 1);
+
+    // Nothing changed, tracked monitor should not be read again
+    clock.set(10000L);
+    delta = poller.pollDelta(MATCH_ALL);
+    assertTrue(!delta.isSnapshot());
+    assertEquals(delta.getMetrics().size(), 4);
+    assertTrue(delta.getChanged().isEmpty());
+    assertEquals(tracked.reads.get(), 1);
+    for (Metric m : delta.getMetrics()) {
+      assertEquals(m.getTimestamp(), 10000L);
+    }
+
+    // Only the updated monitors are included
+    clock.set(20000L);
+    c1.increment();
+    tracked.set(2L);
+    delta = poller.pollDelta(MATCH_ALL);
+    assertEquals(names(delta.getChanged()), Arrays.asList("c1", "tracked"));
+    assertEquals(tracked.reads.get(), 2);
+
+    // Full snapshot once the interval has passed
+    clock.set(80000L);
+    delta = poller.pollDelta(MATCH_ALL);
+    assertTrue(delta.isSnapshot());
+    assertEquals(delta.getChanged().size(), 4);
+
+    // Removing a monitor forces a snapshot
+    clock.set(90000L);
+    registry.unregister(c2);
+    delta = poller.pollDelta(MATCH_ALL);
+    assertTrue(delta.isSnapshot());
+    assertEquals(names(delta.getChanged()), Arrays.asList("c1", "tracked", "untracked"));
+  }
+
+  private static class TrackedGauge extends AbstractMonitor<Number> implements ChangeTracked {
+    private final AtomicLong value = new AtomicLong();
+    private final AtomicInteger reads = new AtomicInteger();
+
+    TrackedGauge(String name) {
+      super(MonitorConfig.builder(name).withTag(DataSourceType.GAUGE).build());
+    }
+
+    void set(long v) {
+      value.set(v);
+    }
+
+    @Override
+    public long getChangeEpoch() {
+      return value.get();
+    }
+
+    @Override
+    public Number getValue(int pollerIndex) {
+      reads.incrementAndGet();
+      return value.get();
+    }
+  }
+
+  private static class CountingFilter implements MetricFilter {
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public boolean matches(MonitorConfig config) {
+      calls.incrementAndGet();
+      return true;
+    }
+  }
+
+  private static class GrowingComposite extends AbstractMonitor<Integer>
+      implements CompositeMonitor<Integer> {
+    private final List<Monitor<?>> monitors = new CopyOnWriteArrayList<>();
+
+    GrowingComposite(String name) {
+      super(MonitorConfig.builder(name).build());
+    }
+
+    void add(String name) {
+      monitors.add(new BasicCounter(MonitorConfig.builder(name).build()));
+    }
+
+    @Override
+    public List<Monitor<?>> getMonitors() {
+      return monitors;
+    }
+
+    @Override
+    public Integer getValue(int pollerIndex) {
+      return monitors.size();
+    }
+  }
+
+  private static class DelayedGauge extends AbstractMonitor<Number> {
+    private final AtomicInteger reads = new AtomicInteger();
+    private volatile long delay = 0L;
+
+    DelayedGauge(String name) {
+      super(MonitorConfig.builder(name).withTag(DataSourceType.GAUGE).build());
+    }
+
+    @Override
+    public Number getValue(int pollerIndex) {
+      reads.incrementAndGet();
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return 42;
+    }
+  }
+
   private static class SlowCounter extends AbstractMonitor<Number> implements Counter {
     private final AtomicLong count = new AtomicLong();
 
@@ -16,6 +16,8 @@
 package com.netflix.servo.publish;
 
 import com.netflix.servo.Metric;
+import com.netflix.servo.MetricBatch;
+import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.monitor.AbstractMonitor;
 import com.netflix.servo.monitor.BasicCounter;
 import com.netflix.servo.monitor.LongGauge;
@@ -28,9 +30,15 @@ import org.testng.annotations.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
 public class NormalizationTransformTest {
   Metric newMetric(long t, double v) {
@@ -95,6 +103,18 @@ public class NormalizationTransformTest {
       assertEquals(TimeVal.from(result), expected.get(i));
       i++;
     }
+
+    // Same input sent as batches should produce the same output
+    MemoryMetricObserver batchMmo = new MemoryMetricObserver("m", 1);
+    BatchMetricObserver batchTransform = new NormalizationTransform(batchMmo, step, heartbeat,
+        TimeUnit.MILLISECONDS, clock);
+    i = 0;
+    for (Metric m : input) {
+      batchTransform.update(MetricBatch.from(UnmodifiableList.of(m)));
+      Metric result = batchMmo.getObservations().get(0).get(0);
+      assertEquals(TimeVal.from(result), expected.get(i));
+      i++;
+    }
   }
 
   @Test
@@ -280,4 +300,57 @@ public class NormalizationTransformTest {
     assertEquals(NormalizationTransform.HEARTBEAT_EXCEEDED.getValue(0).longValue(), 1);
 
   }
+
+  @Test
+  public void testGaugeOnStepBoundaryNotCopied() {
+    MemoryMetricObserver mmo = new MemoryMetricObserver("m", 1);
+    MetricObserver transform = new NormalizationTransform(mmo, 60, 120, TimeUnit.SECONDS,
+        new ManualClock(0));
+    MonitorConfig config = MonitorConfig.builder("g").withTag(DataSourceType.GAUGE).build();
+    Metric m = new Metric(config, 60000L, 1.0);
+    transform.update(UnmodifiableList.of(m));
+    assertSame(mmo.getObservations().get(0).get(0), m);
+  }
+
+  @Test
+  public void testConcurrentUpdates() throws Exception {
+    final int threads = 4;
+    final int configs = 500;
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicBoolean overlapped = new AtomicBoolean(false);
+    final AtomicInteger received = new AtomicInteger();
+    final MetricObserver downstream = new BaseMetricObserver("downstream") {
+      @Override
+      public void updateImpl(List<Metric> metrics) {
+        if (inFlight.incrementAndGet() > 1) {
+          overlapped.set(true);
+        }
+        received.addAndGet(metrics.size());
+        inFlight.decrementAndGet();
+      }
+    };
+    final NormalizationTransform transform = new NormalizationTransform(downstream, 60, 120,
+        TimeUnit.SECONDS, new ManualClock(0));
+    final CountDownLatch done = new CountDownLatch(threads);
+
+    // Each thread acts as a separate poller with its own set of rate metrics
+    for (int t = 0; t < threads; ++t) {
+      final int id = t;
+      new Thread(() -> {
+        for (int step = 1; step <= 5; ++step) {
+          List<Metric> metrics = new ArrayList<>(configs);
+          for (int i = 0; i < configs; ++i) {
+            MonitorConfig config = MonitorConfig.builder("r-" + id + "-" + i).build();
+            metrics.add(new Metric(config, step * 60000L, 1.0));
+          }
+          transform.update(metrics);
+        }
+        done.countDown();
+      }).start();
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertFalse(overlapped.get());
+    assertEquals(received.get(), threads * configs * 5);
+  }
 }
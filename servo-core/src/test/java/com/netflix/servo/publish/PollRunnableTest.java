@@ -0,0 +1,235 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.BasicMonitorRegistry;
+import com.netflix.servo.Metric;
+import com.netflix.servo.MonitorRegistry;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.DynamicTimer;
+import com.netflix.servo.monitor.Monitor;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.util.UnmodifiableList;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.netflix.servo.publish.BasicMetricFilter.MATCH_ALL;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class PollRunnableTest {
+
+  private static MockMetricPoller newPoller() {
+    MockMetricPoller poller = new MockMetricPoller();
+    poller.setMetrics(UnmodifiableList.of(
+        new Metric("a", null, 0L, 1.0),
+        new Metric("b", null, 0L, 2.0)));
+    return poller;
+  }
+
+  /** Observer that blocks until released, ignoring interrupts. */
+  private static class StuckObserver extends BaseMetricObserver {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    StuckObserver() {
+      super("stuck");
+    }
+
+    @Override
+    public void updateImpl(List<Metric> metrics) {
+      calls.incrementAndGet();
+      boolean done = false;
+      while (!done) {
+        try {
+          done = release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          // ignore so the observer stays stuck
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSequential() throws Exception {
+    MemoryMetricObserver m1 = new MemoryMetricObserver("m1", 1);
+    MemoryMetricObserver m2 = new MemoryMetricObserver("m2", 1);
+    PollRunnable task = new PollRunnable.Builder(newPoller(), MATCH_ALL)
+        .withObserver(new FailingMetricObserver())
+        .withObserver(m1)
+        .withObserver(m2)
+        .build();
+    task.run();
+    assertEquals(m1.getObservations().get(0).size(), 2);
+    assertEquals(m2.getObservations().get(0).size(), 2);
+  }
+
+  private static boolean hasLatencyTimer(String observer) throws Exception {
+    Field instance = DynamicTimer.class.getDeclaredField("INSTANCE");
+    instance.setAccessible(true);
+    for (Monitor<?> m : ((DynamicTimer) instance.get(null)).getMonitors()) {
+      MonitorConfig config = m.getConfig();
+      if ("servo.pollRunnable.observerLatency".equals(config.getName())
+          && observer.equals(config.getTags().getValue("observer"))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testLatencyOnlyRecordedForParallelDispatch() throws Exception {
+    PollRunnable sequential = new PollRunnable.Builder(newPoller(), MATCH_ALL)
+        .withObserver(new MemoryMetricObserver("latencySequential", 1))
+        .build();
+    sequential.run();
+    assertFalse(hasLatencyTimer("latencySequential"));
+
+    PollRunnable parallel = new PollRunnable.Builder(newPoller(), MATCH_ALL)
+        .withObserver(new MemoryMetricObserver("latencyParallel", 1))
+        .withParallelDispatch(1, TimeUnit.SECONDS)
+        .build();
+    try {
+      parallel.run();
+      assertTrue(hasLatencyTimer("latencyParallel"));
+    } finally {
+      parallel.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelDispatchIsolatesStuckObserver() throws Exception {
+    StuckObserver stuck = new StuckObserver();
+    MemoryMetricObserver fast = new MemoryMetricObserver("fast", 2);
+    PollRunnable task = new PollRunnable.Builder(newPoller(), MATCH_ALL)
+        .withObserver(stuck)
+        .withObserver(fast)
+        .withParallelDispatch(100, TimeUnit.MILLISECONDS)
+        .build();
+    try {
+      long start = System.nanoTime();
+      task.run();
+      task.run();
+      long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      assertTrue(elapsed < 5000L, "took " + elapsed + "ms");
+
+      // Fast observer gets both updates, the second update for the stuck observer is
+      // rejected rather than queued
+      assertEquals(fast.getObservations().size(), 2);
+      assertEquals(stuck.calls.get(), 1);
+    } finally {
+      stuck.release.countDown();
+      task.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelDispatchSharesList() throws Exception {
+    final AtomicReference<List<Metric>> first = new AtomicReference<>();
+    final AtomicReference<List<Metric>> second = new AtomicReference<>();
+    PollRunnable task = new PollRunnable.Builder(newPoller(), MATCH_ALL)
+        .withObserver(new BaseMetricObserver("first") {
+          @Override
+          public void updateImpl(List<Metric> metrics) {
+            first.set(metrics);
+          }
+        })
+        .withObserver(new BaseMetricObserver("second") {
+          @Override
+          public void updateImpl(List<Metric> metrics) {
+            second.set(metrics);
+          }
+        })
+        .withParallelDispatch(10, TimeUnit.SECONDS)
+        .build();
+    try {
+      task.run();
+      assertTrue(first.get() == second.get());
+      assertEquals(first.get().size(), 2);
+    } finally {
+      task.shutdown();
+    }
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testParallelDispatchListIsImmutable() throws Exception {
+    final AtomicReference<List<Metric>> received = new AtomicReference<>();
+    MockMetricPoller poller = new MockMetricPoller() {
+      @Override
+      public List<Metric> pollImpl(boolean reset) {
+        return new ArrayList<>(super.pollImpl(reset));
+      }
+    };
+    PollRunnable task = new PollRunnable.Builder(poller, MATCH_ALL)
+        .withObserver(new BaseMetricObserver("o") {
+          @Override
+          public void updateImpl(List<Metric> metrics) {
+            received.set(metrics);
+          }
+        })
+        .withParallelDispatch(10, TimeUnit.SECONDS)
+        .build();
+    try {
+      task.run();
+      received.get().clear();
+    } finally {
+      task.shutdown();
+    }
+  }
+
+  @Test
+  public void testDeltaDispatch() throws Exception {
+    MonitorRegistry registry = new BasicMonitorRegistry();
+    BasicCounter c = new BasicCounter(MonitorConfig.builder("c").build());
+    registry.register(c);
+    MetricPoller poller = new MonitorRegistryMetricPoller(registry, 0L, TimeUnit.MILLISECONDS,
+        false);
+
+    final AtomicReference<MetricDelta> delta = new AtomicReference<>();
+    DeltaMetricObserver deltaObserver = new DeltaMetricObserver() {
+      @Override
+      public void update(MetricDelta d) {
+        delta.set(d);
+      }
+
+      @Override
+      public void update(List<Metric> metrics) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String getName() {
+        return "delta";
+      }
+    };
+    MemoryMetricObserver listObserver = new MemoryMetricObserver("list", 1);
+    PollRunnable task = new PollRunnable(poller, MATCH_ALL, deltaObserver, listObserver);
+
+    task.run();
+    assertTrue(delta.get().isSnapshot());
+    task.run();
+    assertTrue(delta.get().getChanged().isEmpty());
+    assertEquals(listObserver.getObservations().get(0).size(), 1);
+  }
+}
@@ -15,11 +15,20 @@
  */
 package com.netflix.servo.publish;
 
+import com.netflix.servo.Metric;
+import com.netflix.servo.monitor.Counter;
+import com.netflix.servo.util.ManualClock;
 import org.testng.annotations.Test;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
@@ -60,4 +69,106 @@ public class PollSchedulerTest {
     assertTrue(!PollScheduler.getInstance().isStarted());
     assertTrue(s.isShutdown());
   }
+
+  @Test
+  public void testNextRunTime() throws Exception {
+    assertEquals(PollScheduler.nextRunTime(12345L, 1000L, 100L), 13100L);
+    assertEquals(PollScheduler.nextRunTime(12050L, 1000L, 100L), 12100L);
+    assertEquals(PollScheduler.nextRunTime(12100L, 1000L, 100L), 13100L);
+    assertEquals(PollScheduler.nextRunTime(12000L, 1000L, 0L), 13000L);
+  }
+
+  @Test
+  public void testAlignedTaskSkipsOverruns() throws Exception {
+    final ManualClock clock = new ManualClock(0L);
+    final AtomicInteger runs = new AtomicInteger();
+    ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor();
+    s.shutdown();
+
+    // Poll takes 2.5 steps, the next two boundaries should be skipped
+    Runnable slow = () -> {
+      runs.incrementAndGet();
+      clock.set(clock.now() + 2500L);
+    };
+    PollScheduler.AlignedTask task = new PollScheduler.AlignedTask(s, slow, 1000L, 100L, clock);
+    task.scheduleNext();
+
+    Counter overruns = PollScheduler.pollMonitors(1000L).getOverruns();
+    long before = overruns.getValue().longValue();
+    clock.set(100L);
+    task.run();
+    assertEquals(runs.get(), 1);
+    assertEquals(overruns.getValue().longValue() - before, 2L);
+
+    // Fast poll, no overruns
+    clock.set(3100L);
+    PollScheduler.AlignedTask fast =
+        new PollScheduler.AlignedTask(s, runs::incrementAndGet, 1000L, 100L, clock);
+    fast.scheduleNext();
+    clock.set(4100L);
+    fast.run();
+    assertEquals(overruns.getValue().longValue() - before, 2L);
+  }
+
+  @Test
+  public void testAlignedTaskFiredEarly() throws Exception {
+    final ManualClock clock = new ManualClock(0L);
+    final AtomicInteger runs = new AtomicInteger();
+    ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor();
+    s.shutdown();
+
+    PollScheduler.AlignedTask task =
+        new PollScheduler.AlignedTask(s, runs::incrementAndGet, 1000L, 100L, clock);
+    task.scheduleNext();
+    assertEquals(task.getScheduledTime(), 100L);
+
+    // Fires a few milliseconds before the scheduled time according to the wall clock
+    clock.set(97L);
+    task.run();
+    assertEquals(runs.get(), 1);
+    assertEquals(task.getScheduledTime(), 1100L);
+  }
+
+  @Test
+  public void testPollMonitorsTaggedWithStep() throws Exception {
+    PollScheduler.PollMonitors tenSeconds = PollScheduler.pollMonitors(10000L);
+    PollScheduler.PollMonitors oneMinute = PollScheduler.pollMonitors(60000L);
+    assertTrue(PollScheduler.pollMonitors(10000L) == tenSeconds);
+    assertEquals(tenSeconds.getOverruns().getConfig().getTags().getValue("step"), "PT10S");
+    assertEquals(tenSeconds.getLag().getConfig().getTags().getValue("step"), "PT10S");
+    assertEquals(oneMinute.getDuration().getConfig().getTags().getValue("step"), "PT1M");
+    assertNotEquals(tenSeconds.getDuration().getConfig(), oneMinute.getDuration().getConfig());
+  }
+
+  @Test
+  public void testAddAlignedPoller() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(3);
+    MetricPoller poller = new MockMetricPoller();
+    MetricObserver observer = new BaseMetricObserver("latch") {
+      @Override
+      public void updateImpl(List<Metric> metrics) {
+        latch.countDown();
+      }
+    };
+    PollRunnable task = new PollRunnable(poller, BasicMetricFilter.MATCH_ALL, observer);
+
+    PollScheduler.getInstance().start();
+    try {
+      PollScheduler.getInstance().addAlignedPoller(task, 100, 10, 20, TimeUnit.MILLISECONDS);
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+    } finally {
+      PollScheduler.getInstance().stop();
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testAlignedOffsetTooLarge() throws Exception {
+    PollScheduler.getInstance().start();
+    try {
+      PollRunnable task = new PollRunnable(new MockMetricPoller(), BasicMetricFilter.MATCH_ALL);
+      PollScheduler.getInstance().addAlignedPoller(task, 100, 90, 10, TimeUnit.MILLISECONDS);
+    } finally {
+      PollScheduler.getInstance().stop();
+    }
+  }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.monitor.MonitorConfig;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class QueryMetricFilterTest {
+
+  private static MonitorConfig config(String name, String status) {
+    MonitorConfig.Builder builder = MonitorConfig.builder(name);
+    if (status != null) {
+      builder.withTag("status", status);
+    }
+    return builder.build();
+  }
+
+  private static boolean matches(String query, MonitorConfig config) {
+    return QueryMetricFilter.compile(query).matches(config);
+  }
+
+  @Test
+  public void testOperations() {
+    MonitorConfig c = config("requests", "503");
+    assertTrue(matches("name,requests,:eq", c));
+    assertFalse(matches("name,errors,:eq", c));
+    assertTrue(matches("status,(,500,503,),:in", c));
+    assertFalse(matches("status,(,200,),:in", c));
+    assertTrue(matches("status,5,:prefix", c));
+    assertTrue(matches("name,req.*,:re", c));
+    assertFalse(matches("name,req,:re", c));
+    assertTrue(matches("name,requests,:eq,status,503,:eq,:and", c));
+    assertFalse(matches("name,requests,:eq,status,200,:eq,:and", c));
+    assertTrue(matches("name,errors,:eq,status,503,:eq,:or", c));
+    assertTrue(matches("status,200,:eq,:not", c));
+    assertTrue(matches(":true", c));
+    assertFalse(matches(":false", c));
+  }
+
+  @Test
+  public void testMissingTag() {
+    MonitorConfig c = config("requests", null);
+    assertFalse(matches("status,200,:eq", c));
+    assertFalse(matches("status,(,200,),:in", c));
+    assertFalse(matches("status,2,:prefix", c));
+    assertFalse(matches("status,.*,:re", c));
+    assertTrue(matches("status,200,:eq,:not", c));
+  }
+
+  @Test
+  public void testCompiledOrder() {
+    QueryMetricFilter filter = QueryMetricFilter.compile(
+        "status,5.*,:re, status,5,:prefix, :and, name,requests,:eq, :and");
+    assertEquals(filter.toString(),
+        "name,requests,:eq,status,5,:prefix,:and,status,5.*,:re,:and");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnknownOperation() {
+    QueryMetricFilter.compile("name,a,:foo");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testMissingOperand() {
+    QueryMetricFilter.compile("name,:eq");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnmatchedParen() {
+    QueryMetricFilter.compile("name,(,a,b,:in");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testExtraItemsOnStack() {
+    QueryMetricFilter.compile("name,a,:eq,name,b,:eq");
+  }
+
+  @Test
+  public void testSameAsHandBuilt() {
+    // Mix of indexed and non-indexed alternatives
+    QueryMetricFilter filter = QueryMetricFilter.compile(
+        "name,(,n1,n2,),:in,status,(,500,503,),:in,:and,"
+            + "name,n3,:eq,:or,"
+            + "status,2,:prefix,name,n4,:eq,:not,:and,:or");
+    Pattern status5xx = Pattern.compile("500|503");
+    MetricFilter handBuilt = config -> {
+      String name = config.getName();
+      String status = config.getTags().getValue("status");
+      return ((name.equals("n1") || name.equals("n2"))
+          && status != null && status5xx.matcher(status).matches())
+          || name.equals("n3")
+          || (status != null && status.startsWith("2") && !name.equals("n4"));
+    };
+
+    Random r = new Random(42);
+    String[] statuses = {null, "200", "204", "500", "503", "404"};
+    for (int i = 0; i < 1000; ++i) {
+      MonitorConfig c = config("n" + r.nextInt(6), statuses[r.nextInt(statuses.length)]);
+      assertEquals(filter.matches(c), handBuilt.matches(c), c.toString());
+    }
+  }
+}
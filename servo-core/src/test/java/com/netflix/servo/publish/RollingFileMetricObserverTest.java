@@ -0,0 +1,237 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish;
+
+import com.netflix.servo.Metric;
+import com.netflix.servo.tag.SortedTagList;
+import com.netflix.servo.tag.TagList;
+import com.netflix.servo.util.ManualClock;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class RollingFileMetricObserverTest {
+
+  private static final TagList TAGS = SortedTagList.builder()
+      .withTag("cluster", "foo")
+      .withTag("zone", "a")
+      .withTag("node", "i-123")
+      .build();
+
+  private List<Metric> mkList(int v) {
+    List<Metric> metrics = new ArrayList<>(v);
+    for (int i = 0; i < v; ++i) {
+      metrics.add(new Metric("m", TAGS, 0L, i));
+    }
+    return metrics;
+  }
+
+  private void deleteRecursively(File f) throws IOException {
+    File[] files = f.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        deleteRecursively(file);
+      }
+    }
+    if (f.exists() && !f.delete()) {
+      throw new IOException("could not delete " + f);
+    }
+  }
+
+  private static File createTempDir() {
+    File baseDir = new File(System.getProperty("java.io.tmpdir"));
+    String baseName = "rolling-" + System.nanoTime() + "-";
+
+    for (int counter = 0; counter < 3; counter++) {
+      File tempDir = new File(baseDir, baseName + counter);
+      if (tempDir.mkdir()) {
+        return tempDir;
+      }
+    }
+    throw new IllegalStateException("Failed to create directory within 3 attempts (tried "
+        + baseName + "0 to " + baseName + "2)");
+  }
+
+  private List<String> readLines(File f, boolean compressed) throws IOException {
+    InputStream is = new FileInputStream(f);
+    if (compressed) {
+      is = new GZIPInputStream(is);
+    }
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader in = new BufferedReader(new InputStreamReader(is, "UTF-8"))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  private List<String> readAll(File dir, boolean compressed) throws IOException {
+    File[] files = dir.listFiles();
+    assertNotNull(files);
+    Arrays.sort(files);
+    List<String> lines = new ArrayList<>();
+    for (File f : files) {
+      lines.addAll(readLines(f, compressed));
+    }
+    return lines;
+  }
+
+  private List<String> expectedLines(int... updates) {
+    List<String> lines = new ArrayList<>();
+    for (int n : updates) {
+      for (int i = 0; i < n; ++i) {
+        lines.add("m\t" + TAGS + "\t" + i);
+      }
+    }
+    return lines;
+  }
+
+  @Test
+  public void testUpdateSingleFile() throws Exception {
+    File dir = createTempDir();
+    try {
+      ManualClock clock = new ManualClock(0L);
+      RollingFileMetricObserver fmo = RollingFileMetricObserver.builder("test", dir)
+          .withClock(clock)
+          .build();
+      fmo.update(mkList(1));
+      clock.set(1000L);
+      fmo.update(mkList(2));
+      clock.set(2000L);
+      fmo.update(mkList(3));
+
+      // Data should be visible before the file is closed
+      assertEquals(readAll(dir, false), expectedLines(1, 2, 3));
+      fmo.stop();
+
+      assertEquals(dir.listFiles().length, 1);
+      assertNull(fmo.getCurrentFile());
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+
+  @Test
+  public void testRollBySize() throws Exception {
+    File dir = createTempDir();
+    try {
+      ManualClock clock = new ManualClock(0L);
+      RollingFileMetricObserver fmo = RollingFileMetricObserver.builder("test", dir)
+          .withMaxFileSize(100)
+          .withBufferSize(16)
+          .withClock(clock)
+          .build();
+      for (int i = 1; i <= 4; ++i) {
+        clock.set(i * 1000L);
+        fmo.update(mkList(i));
+      }
+      fmo.stop();
+
+      // Each line is about 40 bytes, the first file has the first two updates and then
+      // it rolls after each update
+      assertEquals(dir.listFiles().length, 3);
+      assertEquals(readAll(dir, false), expectedLines(1, 2, 3, 4));
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+
+  @Test
+  public void testRollByTime() throws Exception {
+    File dir = createTempDir();
+    try {
+      ManualClock clock = new ManualClock(0L);
+      RollingFileMetricObserver fmo = RollingFileMetricObserver.builder("test", dir)
+          .withRollInterval(1, TimeUnit.MINUTES)
+          .withClock(clock)
+          .build();
+      clock.set(10000L);
+      fmo.update(mkList(1));
+      clock.set(50000L);
+      fmo.update(mkList(2));
+      File first = fmo.getCurrentFile();
+      clock.set(70000L);
+      fmo.update(mkList(3));
+      File second = fmo.getCurrentFile();
+      fmo.stop();
+
+      assertEquals(dir.listFiles().length, 2);
+      assertEquals(readLines(first, false), expectedLines(1, 2));
+      assertEquals(readLines(second, false), expectedLines(3));
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+
+  @Test
+  public void testCompressedWithSync() throws Exception {
+    File dir = createTempDir();
+    try {
+      ManualClock clock = new ManualClock(0L);
+      RollingFileMetricObserver fmo = RollingFileMetricObserver.builder("test", dir)
+          .withCompression(true)
+          .withRollInterval(1, TimeUnit.MINUTES)
+          .withSyncPolicy(RollingFileMetricObserver.SyncPolicy.PERIODIC)
+          .withSyncInterval(10, TimeUnit.MILLISECONDS)
+          .withClock(clock)
+          .build();
+      fmo.update(mkList(1));
+      fmo.update(mkList(2));
+      Thread.sleep(50);
+      clock.set(60000L);
+      fmo.update(mkList(3));
+      fmo.stop();
+
+      // Each file is a single gzip stream covering all of the updates written to it
+      File[] files = dir.listFiles();
+      assertNotNull(files);
+      Arrays.sort(files);
+      assertEquals(files.length, 2);
+      assertEquals(readLines(files[0], true), expectedLines(1, 2));
+      assertEquals(readLines(files[1], true), expectedLines(3));
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testUpdateAfterStop() throws Exception {
+    File dir = createTempDir();
+    try {
+      RollingFileMetricObserver fmo = RollingFileMetricObserver.builder("test", dir).build();
+      fmo.stop();
+      fmo.update(mkList(1));
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+}
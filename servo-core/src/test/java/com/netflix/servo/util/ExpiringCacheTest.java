@@ -20,6 +20,7 @@ import org.testng.annotations.Test;
 import java.util.function.Function;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 
 public class ExpiringCacheTest {
   static class CountingFun implements Function<String, Integer> {
@@ -51,4 +52,22 @@ public class ExpiringCacheTest {
     assertEquals(threeOnceMore, Integer.valueOf(3));
     assertEquals(fun.numCalled, 2, "Properly expires unused entries");
   }
+
+  @Test
+  public void testVersion() throws Exception {
+    ManualClock clock = new ManualClock(0L);
+    ExpiringCache<String, Integer> map = new ExpiringCache<>(100L, new CountingFun(), 100L, clock);
+
+    long v0 = map.getVersion();
+    map.get("foo");
+    long v1 = map.getVersion();
+    assertNotEquals(v1, v0, "Version changes when an entry is added");
+    map.get("foo");
+    assertEquals(map.getVersion(), v1, "Version is stable for existing entries");
+
+    clock.set(200L);
+    Thread.sleep(200L);
+    assertEquals(map.size(), 0);
+    assertNotEquals(map.getVersion(), v1, "Version changes when an entry is evicted");
+  }
 }
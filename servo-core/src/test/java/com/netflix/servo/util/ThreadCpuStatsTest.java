@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.util;
+
+import com.netflix.servo.util.ThreadCpuStats.CpuUsage;
+import com.netflix.servo.util.ThreadCpuStats.CpuUsageComparator;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+public class ThreadCpuStatsTest {
+
+  private static volatile Object sink;
+
+  private static CpuUsage find(ThreadCpuStats stats, long id) {
+    for (CpuUsage usage : stats.getThreadCpuUsages()) {
+      if (usage.getThreadId() == id) {
+        return usage;
+      }
+    }
+    return null;
+  }
+
+  private static boolean allocationSupported() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    return bean instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled();
+  }
+
+  @Test
+  public void testAllocationTracked() throws Exception {
+    ThreadCpuStats stats = ThreadCpuStats.getInstance();
+    stats.updateStats();
+    for (int i = 0; i < 1000; ++i) {
+      sink = new byte[1024];
+    }
+    stats.updateStats();
+
+    CpuUsage usage = find(stats, Thread.currentThread().getId());
+    assertNotNull(usage);
+    if (allocationSupported()) {
+      assertTrue(usage.getOneMinuteAllocation() >= 1024 * 1000);
+      assertTrue(usage.getOverallAllocation() >= usage.getOneMinuteAllocation());
+    }
+  }
+
+  @Test
+  public void testExitedThreadRetained() throws Exception {
+    ThreadCpuStats stats = ThreadCpuStats.getInstance();
+    CountDownLatch latch = new CountDownLatch(1);
+    Thread t = new Thread(() -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    t.start();
+    stats.updateStats();
+    CpuUsage usage = find(stats, t.getId());
+    assertNotNull(usage);
+
+    latch.countDown();
+    t.join();
+    long overall = usage.getOverall();
+    stats.updateStats();
+    assertTrue(find(stats, t.getId()) == usage);
+    assertEquals(usage.getOverall(), overall);
+  }
+
+  @Test
+  public void testTopThreads() throws Exception {
+    ThreadCpuStats stats = ThreadCpuStats.getInstance();
+    stats.updateStats();
+    stats.updateStats();
+
+    List<CpuUsage> all = stats.getTopThreadCpuUsages(CpuUsageComparator.OVERALL,
+        Integer.MAX_VALUE);
+    List<CpuUsage> top = stats.getTopThreadCpuUsages(CpuUsageComparator.OVERALL, 2);
+    assertEquals(top.size(), Math.min(2, all.size()));
+    for (int i = 0; i < top.size(); ++i) {
+      assertEquals(top.get(i).getOverall(), all.get(i).getOverall());
+    }
+    assertTrue(stats.getTopThreadCpuUsages(CpuUsageComparator.OVERALL, 0).isEmpty());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    stats.printThreadCpuUsages(out, CpuUsageComparator.ONE_MINUTE_ALLOCATION, 3);
+    assertTrue(out.toString("UTF-8").contains("Allocation rate by thread"));
+  }
+}
@@ -15,6 +15,8 @@
  */
 package com.netflix.servo.example;
 
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.monitor.GcMonitor;
 import com.netflix.servo.publish.AsyncMetricObserver;
 import com.netflix.servo.publish.BasicMetricFilter;
 import com.netflix.servo.publish.CounterToRateMetricTransform;
@@ -28,6 +30,7 @@ import com.netflix.servo.publish.PollScheduler;
 import com.netflix.servo.publish.atlas.AtlasMetricObserver;
 import com.netflix.servo.publish.atlas.ServoAtlasConfig;
 import com.netflix.servo.publish.graphite.GraphiteMetricObserver;
+import com.netflix.servo.publish.prometheus.PrometheusHandler;
 import com.netflix.servo.tag.BasicTagList;
 import com.netflix.servo.tag.TagList;
 import com.sun.net.httpserver.HttpServer;
@@ -118,6 +121,10 @@ public final class Main {
 
     if (Config.isJvmPollerEnabled()) {
       schedule(new JvmMetricPoller(), observers);
+
+      final GcMonitor gcMonitor = new GcMonitor();
+      gcMonitor.start();
+      DefaultMonitorRegistry.getInstance().register(gcMonitor);
     }
   }
 
@@ -125,6 +132,7 @@ public final class Main {
     // Setup default endpoints
     final HttpServer server = HttpServer.create();
     server.createContext("/echo", new EchoHandler());
+    server.createContext("/metrics", new PrometheusHandler());
 
     // Hook to allow for graceful exit
     final Closeable c = () -> {
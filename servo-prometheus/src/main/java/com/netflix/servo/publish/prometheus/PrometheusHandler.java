@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish.prometheus;
+
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.MetricBatch;
+import com.netflix.servo.monitor.Monitors;
+import com.netflix.servo.monitor.Stopwatch;
+import com.netflix.servo.monitor.Timer;
+import com.netflix.servo.publish.BasicMetricFilter;
+import com.netflix.servo.publish.BatchMetricPoller;
+import com.netflix.servo.publish.MetricFilter;
+import com.netflix.servo.publish.MonitorRegistryMetricPoller;
+import com.netflix.servo.util.Preconditions;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Handler for the {@code com.sun.net.httpserver} embedded HTTP server that serves the
+ * current metric values in the Prometheus text exposition format. Each scrape polls the
+ * values and renders them with a shared {@link PrometheusTextFormat}, so concurrent scrapes
+ * are serialized. Example:
+ *
+ * <pre>
+ * HttpServer server = HttpServer.create(new InetSocketAddress(8080), 0);
+ * server.createContext("/metrics", new PrometheusHandler());
+ * server.start();
+ * </pre>
+ */
+public final class PrometheusHandler implements HttpHandler {
+
+  /** Content type for version 0.0.4 of the text exposition format. */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final Timer SCRAPE_TIMER = newTimer("servo.prometheus.scrapeDuration");
+
+  private static Timer newTimer(String name) {
+    Timer t = Monitors.newTimer(name);
+    DefaultMonitorRegistry.getInstance().register(t);
+    return t;
+  }
+
+  private final BatchMetricPoller poller;
+  private final MetricFilter filter;
+  private final PrometheusTextFormat format = new PrometheusTextFormat();
+
+  /**
+   * Create a handler that serves all metrics in the default monitor registry.
+   */
+  public PrometheusHandler() {
+    this(new MonitorRegistryMetricPoller(), BasicMetricFilter.MATCH_ALL);
+  }
+
+  /**
+   * Create a handler that serves the metrics from a poller.
+   *
+   * @param poller poller used to fetch the values for each scrape
+   * @param filter restricts the set of metrics that are served
+   */
+  public PrometheusHandler(BatchMetricPoller poller, MetricFilter filter) {
+    this.poller = Preconditions.checkNotNull(poller, "poller");
+    this.filter = Preconditions.checkNotNull(filter, "filter");
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    try {
+      final String method = exchange.getRequestMethod();
+      final boolean head = "HEAD".equals(method);
+      if (!head && !"GET".equals(method)) {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+
+      final Stopwatch stopwatch = SCRAPE_TIMER.start();
+      try {
+        final MetricBatch batch = poller.pollBatch(filter);
+        synchronized (format) {
+          final ByteBuffer data = format.render(batch);
+          final int length = data.remaining();
+          exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+          exchange.sendResponseHeaders(200, (head || length == 0) ? -1 : length);
+          if (!head) {
+            final WritableByteChannel channel = Channels.newChannel(exchange.getResponseBody());
+            while (data.hasRemaining()) {
+              channel.write(data);
+            }
+          }
+        }
+      } finally {
+        stopwatch.stop();
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+}
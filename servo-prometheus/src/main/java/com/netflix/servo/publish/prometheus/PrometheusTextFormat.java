@@ -0,0 +1,374 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish.prometheus;
+
+import com.netflix.servo.MetricBatch;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.tag.Tag;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders metric values using the
+ * <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus text
+ * exposition format</a>. Series with the same name are grouped into a family with a single
+ * {@code # TYPE} line. The type is based on the {@link DataSourceType} tag: COUNTER is mapped
+ * to counter, GAUGE, RATE and NORMALIZED are mapped to gauge and series without a type are
+ * untyped. Non-numeric values and INFORMATIONAL series are skipped.
+ * <p/>
+ * Prometheus rejects duplicate samples, so if two series render to the same name and labels,
+ * for example {@code a.b} and {@code a_b} after sanitizing or configs that only differ in the
+ * type tag, only the series that was seen first is written. The later one is only written if
+ * the first is not present in the batch. If the series have different types, then the family
+ * is reported as untyped.
+ * <p/>
+ * The sanitized name and labels for each series are encoded once and cached across calls to
+ * {@link #render(MetricBatch)}, so rendering a batch only needs to format the values. Series
+ * that are not present in a batch are removed from the cache. The output is written into a
+ * direct buffer that is reused, and grown as needed, for each render.
+ * <p/>
+ * This class is not thread safe.
+ */
+public final class PrometheusTextFormat {
+
+  private static final byte[] NAN = ascii("NaN");
+  private static final byte[] POS_INF = ascii("+Inf");
+  private static final byte[] NEG_INF = ascii("-Inf");
+
+  /** Integral values below this are written as a long without using Double.toString. */
+  private static final double MAX_INTEGRAL = 1e15;
+
+  private static byte[] ascii(String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private final Map<MonitorConfig, Series> seriesCache = new HashMap<>();
+  private final Map<String, Family> families = new HashMap<>();
+  private final List<Family> activeFamilies = new ArrayList<>();
+  private final Set<Series> claimed = new HashSet<>();
+  private final byte[] digits = new byte[20];
+
+  private ByteBuffer buffer;
+  private long generation = 0L;
+
+  /**
+   * Create a new instance with a default initial buffer size of 64KB.
+   */
+  public PrometheusTextFormat() {
+    this(64 * 1024);
+  }
+
+  /**
+   * Create a new instance.
+   *
+   * @param initialBufferSize initial capacity of the output buffer in bytes
+   */
+  public PrometheusTextFormat(int initialBufferSize) {
+    buffer = ByteBuffer.allocateDirect(initialBufferSize);
+  }
+
+  /**
+   * Returns the number of series with a cached prefix.
+   */
+  public int getCacheSize() {
+    return seriesCache.size();
+  }
+
+  /**
+   * Render the numeric values in the batch. The returned buffer is a read-only view of the
+   * output that is only valid until the next call to render.
+   */
+  public ByteBuffer render(MetricBatch batch) {
+    ++generation;
+    activeFamilies.clear();
+    claimed.clear();
+
+    int numSeries = 0;
+    final int n = batch.size();
+    for (int i = 0; i < n; ++i) {
+      final DataSourceType type = batch.getType(i);
+      if (!batch.hasNumberValue(i) || type == DataSourceType.INFORMATIONAL) {
+        continue;
+      }
+      final Series series = getSeries(batch.getConfig(i), type);
+      if (series.generation != generation) {
+        series.generation = generation;
+        ++numSeries;
+        final Family family = series.family;
+        if (family.generation != generation) {
+          family.generation = generation;
+          family.series.clear();
+          activeFamilies.add(family);
+        }
+        family.series.add(series);
+      }
+      series.value = batch.getValue(i);
+    }
+
+    buffer.clear();
+    for (Family family : activeFamilies) {
+      put(family.header);
+      for (Series series : family.series) {
+        if (series.original != null && !claim(series.original)) {
+          continue;
+        }
+        put(series.prefix);
+        putValue(series.value);
+        put((byte) '\n');
+      }
+    }
+    buffer.flip();
+
+    if (seriesCache.size() > numSeries) {
+      removeExpired();
+    }
+    return buffer.asReadOnlyBuffer();
+  }
+
+  /**
+   * Returns true if a duplicate of the original series should be written. That is only the
+   * case if the original is not present in the batch and no other duplicate has been written.
+   */
+  private boolean claim(Series original) {
+    return original.generation != generation && claimed.add(original);
+  }
+
+  private void removeExpired() {
+    boolean ownerRemoved = false;
+    Iterator<Series> it = seriesCache.values().iterator();
+    while (it.hasNext()) {
+      final Series series = it.next();
+      if (series.generation != generation) {
+        it.remove();
+        if (series.original == null) {
+          series.family.owners.remove(ByteBuffer.wrap(series.prefix), series);
+          ownerRemoved = true;
+        }
+      }
+    }
+    if (ownerRemoved) {
+      // Duplicates of a removed series need to be checked again when next seen
+      seriesCache.values().removeIf(s -> s.original != null && !s.original.isOwner());
+    }
+    families.values().removeIf(f -> f.generation != generation);
+  }
+
+  private Series getSeries(MonitorConfig config, DataSourceType type) {
+    Series series = seriesCache.get(config);
+    if (series == null) {
+      final String name = sanitizeName(config.getName());
+      final byte[] prefix = encodePrefix(name, config);
+      Family family = families.get(name);
+      if (family == null) {
+        family = new Family(name, typeName(type));
+        families.put(name, family);
+      }
+      final Series original = family.owners.get(ByteBuffer.wrap(prefix));
+      series = new Series(family, prefix, original);
+      family.updateType(typeName(type));
+      if (original == null) {
+        family.owners.put(ByteBuffer.wrap(prefix), series);
+      }
+      seriesCache.put(config, series);
+    }
+    return series;
+  }
+
+  private static String typeName(DataSourceType type) {
+    if (type == null) {
+      return "untyped";
+    }
+    switch (type) {
+      case COUNTER:
+        return "counter";
+      case GAUGE:
+      case RATE:
+      case NORMALIZED:
+        return "gauge";
+      default:
+        return "untyped";
+    }
+  }
+
+  private static byte[] encodePrefix(String name, MonitorConfig config) {
+    final StringBuilder buf = new StringBuilder(name);
+    boolean first = true;
+    for (Tag tag : config.getTags()) {
+      if (DataSourceType.KEY.equals(tag.getKey())) {
+        continue;
+      }
+      buf.append(first ? '{' : ',');
+      first = false;
+      buf.append(sanitizeLabel(tag.getKey())).append("=\"");
+      escapeLabelValue(buf, tag.getValue());
+      buf.append('"');
+    }
+    if (!first) {
+      buf.append('}');
+    }
+    buf.append(' ');
+    return buf.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Metric names must match {@code [a-zA-Z_:][a-zA-Z0-9_:]*}, other characters are
+   * replaced with an underscore.
+   */
+  static String sanitizeName(String name) {
+    return sanitize(name, true);
+  }
+
+  /**
+   * Label names must match {@code [a-zA-Z_][a-zA-Z0-9_]*}, other characters are replaced
+   * with an underscore.
+   */
+  static String sanitizeLabel(String name) {
+    return sanitize(name, false);
+  }
+
+  private static String sanitize(String name, boolean allowColon) {
+    final char[] cs = name.toCharArray();
+    for (int i = 0; i < cs.length; ++i) {
+      final char c = cs[i];
+      final boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_'
+          || (allowColon && c == ':') || (i > 0 && c >= '0' && c <= '9');
+      if (!valid) {
+        cs[i] = '_';
+      }
+    }
+    return (cs.length == 0) ? "_" : new String(cs);
+  }
+
+  private static void escapeLabelValue(StringBuilder buf, String value) {
+    for (int i = 0; i < value.length(); ++i) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+          buf.append("\\\\");
+          break;
+        case '"':
+          buf.append("\\\"");
+          break;
+        case '\n':
+          buf.append("\\n");
+          break;
+        default:
+          buf.append(c);
+          break;
+      }
+    }
+  }
+
+  private void ensureCapacity(int n) {
+    if (buffer.remaining() < n) {
+      final int capacity = Math.max(buffer.capacity() * 2, buffer.position() + n);
+      final ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+      buffer.flip();
+      grown.put(buffer);
+      buffer = grown;
+    }
+  }
+
+  private void put(byte b) {
+    ensureCapacity(1);
+    buffer.put(b);
+  }
+
+  private void put(byte[] bytes) {
+    ensureCapacity(bytes.length);
+    buffer.put(bytes);
+  }
+
+  private void putValue(double v) {
+    if (Double.isNaN(v)) {
+      put(NAN);
+    } else if (Double.isInfinite(v)) {
+      put(v > 0.0 ? POS_INF : NEG_INF);
+    } else if (v == Math.rint(v) && Math.abs(v) < MAX_INTEGRAL) {
+      putLong((long) v);
+    } else {
+      put(ascii(Double.toString(v)));
+    }
+  }
+
+  private void putLong(long v) {
+    long remaining = Math.abs(v);
+    int pos = digits.length;
+    do {
+      digits[--pos] = (byte) ('0' + remaining % 10);
+      remaining /= 10;
+    } while (remaining > 0);
+    if (v < 0) {
+      digits[--pos] = '-';
+    }
+    ensureCapacity(digits.length - pos);
+    buffer.put(digits, pos, digits.length - pos);
+  }
+
+  private static final class Family {
+    private final String name;
+    private final List<Series> series = new ArrayList<>();
+    private final Map<ByteBuffer, Series> owners = new HashMap<>();
+    private String type;
+    private byte[] header;
+    private long generation;
+
+    Family(String name, String type) {
+      this.name = name;
+      this.type = type;
+      this.header = ascii("# TYPE " + name + " " + type + "\n");
+    }
+
+    /** Series with the same name, but different types, are reported as untyped. */
+    void updateType(String t) {
+      if (!type.equals(t) && !"untyped".equals(type)) {
+        type = "untyped";
+        header = ascii("# TYPE " + name + " untyped\n");
+      }
+    }
+  }
+
+  private static final class Series {
+    private final Family family;
+    private final byte[] prefix;
+    private final Series original;
+    private double value;
+    private long generation;
+
+    /**
+     * Create a new series. The original is the series that was first seen with the same
+     * prefix, or null if there is not one.
+     */
+    Series(Family family, byte[] prefix, Series original) {
+      this.family = family;
+      this.prefix = prefix;
+      this.original = original;
+    }
+
+    boolean isOwner() {
+      return family.owners.get(ByteBuffer.wrap(prefix)) == this;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish.prometheus;
+
+import com.netflix.servo.BasicMonitorRegistry;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.publish.BasicMetricFilter;
+import com.netflix.servo.publish.MonitorRegistryMetricPoller;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+
+public class PrometheusHandlerTest {
+
+  private static String read(InputStream in) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[4096];
+    int n;
+    while ((n = in.read(buf)) > 0) {
+      out.write(buf, 0, n);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testScrape() throws Exception {
+    BasicMonitorRegistry registry = new BasicMonitorRegistry();
+    BasicCounter counter = new BasicCounter(MonitorConfig.builder("requests").build());
+    registry.register(counter);
+    counter.increment(5);
+    MonitorRegistryMetricPoller poller = new MonitorRegistryMetricPoller(registry);
+
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/metrics",
+        new PrometheusHandler(poller, BasicMetricFilter.MATCH_ALL));
+    server.start();
+    try {
+      URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/metrics");
+      HttpURLConnection con = (HttpURLConnection) url.openConnection();
+      assertEquals(con.getResponseCode(), 200);
+      assertEquals(con.getContentType(), PrometheusHandler.CONTENT_TYPE);
+      assertEquals(read(con.getInputStream()), "# TYPE requests counter\nrequests 5\n");
+
+      con = (HttpURLConnection) url.openConnection();
+      con.setRequestMethod("POST");
+      assertEquals(con.getResponseCode(), 405);
+    } finally {
+      server.stop(0);
+      poller.shutdown();
+    }
+  }
+}
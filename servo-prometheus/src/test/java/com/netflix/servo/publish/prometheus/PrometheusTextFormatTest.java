@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.servo.publish.prometheus;
+
+import com.netflix.servo.MetricBatch;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.monitor.MonitorConfig;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+
+public class PrometheusTextFormatTest {
+
+  private static String toString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static MonitorConfig config(String name, DataSourceType type, String status) {
+    return MonitorConfig.builder(name)
+        .withTag(type)
+        .withTag("status", status)
+        .build();
+  }
+
+  @Test
+  public void testRender() {
+    MetricBatch batch = new MetricBatch(0L);
+    batch.add(config("requests", DataSourceType.COUNTER, "200"), 42.0);
+    batch.add(config("latency", DataSourceType.GAUGE, "200"), 0.25);
+    batch.add(config("requests", DataSourceType.COUNTER, "500"), 3.0);
+    batch.add(MonitorConfig.builder("info").withTag(DataSourceType.INFORMATIONAL).build(),
+        0L, "foo");
+    batch.add(MonitorConfig.builder("untyped.value").build(), Double.NaN);
+
+    String expected = "# TYPE requests counter\n"
+        + "requests{status=\"200\"} 42\n"
+        + "requests{status=\"500\"} 3\n"
+        + "# TYPE latency gauge\n"
+        + "latency{status=\"200\"} 0.25\n"
+        + "# TYPE untyped_value untyped\n"
+        + "untyped_value NaN\n";
+    PrometheusTextFormat format = new PrometheusTextFormat();
+    assertEquals(toString(format.render(batch)), expected);
+    assertEquals(format.getCacheSize(), 4);
+  }
+
+  @Test
+  public void testCacheAndBufferGrowth() {
+    PrometheusTextFormat format = new PrometheusTextFormat(16);
+    MetricBatch batch = new MetricBatch(0L);
+    for (int i = 0; i < 100; ++i) {
+      batch.add(config("test", DataSourceType.RATE, "" + i), -i);
+    }
+    String first = toString(format.render(batch));
+    assertEquals(first.split("\n").length, 101);
+    assertEquals(first, toString(format.render(batch)));
+    assertEquals(format.getCacheSize(), 100);
+
+    MetricBatch smaller = new MetricBatch(0L);
+    smaller.add(config("test", DataSourceType.RATE, "7"), Double.NEGATIVE_INFINITY);
+    assertEquals(toString(format.render(smaller)),
+        "# TYPE test gauge\ntest{status=\"7\"} -Inf\n");
+    assertEquals(format.getCacheSize(), 1);
+  }
+
+  @Test
+  public void testSanitize() {
+    assertEquals(PrometheusTextFormat.sanitizeName("1a.b-c:d_e"), "_a_b_c:d_e");
+    assertEquals(PrometheusTextFormat.sanitizeLabel("a:b"), "a_b");
+
+    MetricBatch batch = new MetricBatch(0L);
+    batch.add(MonitorConfig.builder("test").withTag("k", "a\"b\\c\nd").build(), 1e20);
+    assertEquals(toString(new PrometheusTextFormat().render(batch)),
+        "# TYPE test untyped\ntest{k=\"a\\\"b\\\\c\\nd\"} 1.0E20\n");
+  }
+
+  @Test
+  public void testMixedTypes() {
+    MetricBatch batch = new MetricBatch(0L);
+    batch.add(config("test", DataSourceType.COUNTER, "a"), 1.0);
+    batch.add(config("test", DataSourceType.GAUGE, "b"), 2.0);
+    assertEquals(toString(new PrometheusTextFormat().render(batch)),
+        "# TYPE test untyped\ntest{status=\"a\"} 1\ntest{status=\"b\"} 2\n");
+  }
+
+  @Test
+  public void testDuplicateSeries() {
+    MonitorConfig dotted = config("a.b", DataSourceType.GAUGE, "x");
+    MonitorConfig underscore = config("a_b", DataSourceType.GAUGE, "x");
+    MonitorConfig counter = config("c", DataSourceType.COUNTER, "x");
+    MonitorConfig gauge = config("c", DataSourceType.GAUGE, "x");
+
+    MetricBatch batch = new MetricBatch(0L);
+    batch.add(dotted, 1.0);
+    batch.add(underscore, 2.0);
+    batch.add(counter, 3.0);
+    batch.add(gauge, 4.0);
+    PrometheusTextFormat format = new PrometheusTextFormat();
+    String expected = "# TYPE a_b gauge\na_b{status=\"x\"} 1\n"
+        + "# TYPE c untyped\nc{status=\"x\"} 3\n";
+    assertEquals(toString(format.render(batch)), expected);
+    assertEquals(toString(format.render(batch)), expected);
+
+    // Later series is written if the first one is missing from the batch
+    MetricBatch smaller = new MetricBatch(0L);
+    smaller.add(underscore, 5.0);
+    smaller.add(gauge, 6.0);
+    String expectedSmaller =
+        "# TYPE a_b gauge\na_b{status=\"x\"} 5\n# TYPE c untyped\nc{status=\"x\"} 6\n";
+    assertEquals(toString(format.render(smaller)), expectedSmaller);
+    assertEquals(toString(format.render(smaller)), expectedSmaller);
+
+    // The first series is now a duplicate of the one that remained
+    MetricBatch reversed = new MetricBatch(0L);
+    reversed.add(dotted, 7.0);
+    reversed.add(underscore, 8.0);
+    assertEquals(toString(format.render(reversed)), "# TYPE a_b gauge\na_b{status=\"x\"} 8\n");
+  }
+}
@@ -89,7 +89,7 @@ public class TomcatPoller extends BaseMetricPoller {
   };
 
   private static void addMetric(List<Metric> metrics, Metric metric) {
-    if (metric.getNumberValue().doubleValue() >= 0.0) {
+    if (metric.getDoubleValue() >= 0.0) {
       final MonitorConfig c = metric.getConfig();
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("Adding {} {} {}", c.getName(), c.getTags(), metric.getNumberValue());